@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.egit.core.JobFamilies;
+import org.eclipse.egit.core.test.GitTestCase;
+import org.eclipse.egit.core.test.TestRepository;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CommitGraphTest extends GitTestCase {
+
+	private TestRepository testRepository;
+
+	private CommitGraphCache cache;
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		super.setUp();
+		testRepository = new TestRepository(gitDir);
+		cache = new CommitGraphCache(null);
+	}
+
+	@Override
+	@After
+	public void tearDown() throws Exception {
+		cache.dispose();
+		testRepository.dispose();
+		super.tearDown();
+	}
+
+	private static ObjectId id(int i) {
+		return ObjectId.fromRaw(new int[] { i, 0, 0, 0, 0 });
+	}
+
+	/**
+	 * <pre>
+	 * 1 - 2 - 3 - 4 - 5   (a)
+	 *      \       /
+	 *       6 --- 7 - 8   (b)
+	 * </pre>
+	 */
+	private static CommitGraph createGraph() {
+		CommitGraph graph = new CommitGraph();
+		graph.add(id(1), 100);
+		graph.add(id(2), 200, id(1));
+		graph.add(id(3), 300, id(2));
+		graph.add(id(6), 250, id(2));
+		graph.add(id(7), 350, id(6));
+		graph.add(id(4), 400, id(3), id(7));
+		graph.add(id(5), 500, id(4));
+		graph.add(id(8), 450, id(7));
+		return graph;
+	}
+
+	@Test
+	public void testMergeBase() {
+		CommitGraph graph = createGraph();
+		assertEquals(8, graph.size());
+		assertEquals(id(7), graph.getMergeBase(id(5), id(8)));
+		assertEquals(id(2), graph.getMergeBase(id(3), id(8)));
+		assertEquals(id(4), graph.getMergeBase(id(5), id(4)));
+		assertEquals(id(5), graph.getMergeBase(id(5), id(5)));
+	}
+
+	@Test
+	public void testAheadBehind() {
+		CommitGraph graph = createGraph();
+		assertArrayEquals(new int[] { 3, 1 },
+				graph.getAheadBehind(id(5), id(8)));
+		assertArrayEquals(new int[] { 1, 3 },
+				graph.getAheadBehind(id(3), id(8)));
+		assertArrayEquals(new int[] { 1, 0 },
+				graph.getAheadBehind(id(5), id(4)));
+		assertArrayEquals(new int[] { 0, 0 },
+				graph.getAheadBehind(id(5), id(5)));
+	}
+
+	@Test
+	public void testUnrelatedHistories() {
+		CommitGraph graph = createGraph();
+		graph.add(id(10), 50);
+		graph.add(id(11), 600, id(10));
+		assertNull(graph.getMergeBase(id(5), id(11)));
+		assertArrayEquals(new int[] { 7, 2 },
+				graph.getAheadBehind(id(5), id(11)));
+	}
+
+	@Test
+	public void testReadWrite() throws Exception {
+		CommitGraph graph = createGraph();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			graph.write(out);
+		}
+		CommitGraph read = new CommitGraph();
+		read.read(new DataInputStream(
+				new ByteArrayInputStream(bytes.toByteArray())));
+		assertEquals(graph.size(), read.size());
+		assertEquals(id(7), read.getMergeBase(id(5), id(8)));
+		assertArrayEquals(new int[] { 3, 1 },
+				read.getAheadBehind(id(5), id(8)));
+	}
+
+	@Test
+	public void testCache() throws Exception {
+		Repository repository = testRepository.getRepository();
+		RevCommit first = testRepository.createInitialCommit("first");
+
+		// Not cached yet
+		assertNull(cache.getGraph(repository));
+		Job.getJobManager().join(JobFamilies.COMMIT_GRAPH, null);
+		CommitGraph graph = cache.getGraph(repository);
+		assertTrue(graph.contains(first));
+
+		RevCommit second = testRepository.commit("second");
+		Job.getJobManager().join(JobFamilies.COMMIT_GRAPH, null);
+		graph = cache.getGraph(repository);
+		assertTrue(graph.contains(second));
+		assertFalse(graph.contains(ObjectId.zeroId()));
+		assertEquals(first, graph.getMergeBase(first, second));
+		assertArrayEquals(new int[] { 0, 1 },
+				graph.getAheadBehind(first, second));
+	}
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.egit.core.JobFamilies;
+import org.eclipse.egit.core.test.GitTestCase;
+import org.eclipse.egit.core.test.TestRepository;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CommitIdIndexTest extends GitTestCase {
+
+	private static final String UNKNOWN_ID = "0123456789abcdef0123456789abcdef01234567";
+
+	private TestRepository testRepository;
+
+	private CommitIdIndex index;
+
+	@Override
+	@Before
+	public void setUp() throws Exception {
+		super.setUp();
+		testRepository = new TestRepository(gitDir);
+		index = new CommitIdIndex();
+	}
+
+	@Override
+	@After
+	public void tearDown() throws Exception {
+		index.dispose();
+		testRepository.dispose();
+		super.tearDown();
+	}
+
+	@Test
+	public void testCandidates() throws Exception {
+		Repository repository = testRepository.getRepository();
+		List<Repository> repositories = Collections.singletonList(repository);
+		RevCommit first = testRepository.createInitialCommit("first");
+
+		// Not indexed yet
+		assertEquals(repositories,
+				index.getCandidates(repositories, UNKNOWN_ID));
+		Job.getJobManager().join(JobFamilies.COMMIT_ID_INDEX, null);
+
+		assertEquals(repositories,
+				index.getCandidates(repositories, first.name()));
+		assertEquals(repositories, index.getCandidates(repositories,
+				first.name().substring(0, 8)));
+		assertTrue(index.getCandidates(repositories, UNKNOWN_ID).isEmpty());
+
+		RevCommit second = testRepository.commit("second");
+		Job.getJobManager().join(JobFamilies.COMMIT_ID_INDEX, null);
+		assertEquals(repositories,
+				index.getCandidates(repositories, second.name()));
+		assertEquals(repositories,
+				index.getCandidates(repositories, first.name()));
+	}
+
+	@Test
+	public void testShortAbbreviationsAlwaysMatch() throws Exception {
+		Repository repository = testRepository.getRepository();
+		List<Repository> repositories = Collections.singletonList(repository);
+		testRepository.createInitialCommit("first");
+		index.getCandidates(repositories, UNKNOWN_ID);
+		Job.getJobManager().join(JobFamilies.COMMIT_ID_INDEX, null);
+
+		assertEquals(repositories,
+				index.getCandidates(repositories, UNKNOWN_ID.substring(0, 7)));
+	}
+
+	@Test
+	public void testRemove() throws Exception {
+		Repository repository = testRepository.getRepository();
+		List<Repository> repositories = Collections.singletonList(repository);
+		testRepository.createInitialCommit("first");
+		index.getCandidates(repositories, UNKNOWN_ID);
+		Job.getJobManager().join(JobFamilies.COMMIT_ID_INDEX, null);
+		assertTrue(index.getCandidates(repositories, UNKNOWN_ID).isEmpty());
+
+		// Not indexed anymore
+		index.remove(repository.getDirectory());
+		assertEquals(repositories,
+				index.getCandidates(repositories, UNKNOWN_ID));
+		Job.getJobManager().join(JobFamilies.COMMIT_ID_INDEX, null);
+		assertTrue(index.getCandidates(repositories, UNKNOWN_ID).isEmpty());
+	}
+}
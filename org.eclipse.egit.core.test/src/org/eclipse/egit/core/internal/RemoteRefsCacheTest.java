@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.egit.core.internal.RemoteRefsCache.Listing;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdRef;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.transport.URIish;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RemoteRefsCacheTest {
+
+	private RemoteRefsCache cache;
+
+	private URIish uri;
+
+	private AtomicInteger loads;
+
+	private Collection<Ref> refs;
+
+	@Before
+	public void setUp() throws Exception {
+		cache = new RemoteRefsCache();
+		uri = new URIish("ssh://git@example.org/repo.git");
+		loads = new AtomicInteger();
+		refs = Collections.singletonList(
+				new ObjectIdRef.PeeledNonTag(Ref.Storage.NETWORK,
+						"refs/heads/master", ObjectId.zeroId()));
+	}
+
+	@After
+	public void tearDown() {
+		cache.dispose();
+	}
+
+	private Collection<Ref> load() {
+		loads.incrementAndGet();
+		return refs;
+	}
+
+	@Test
+	public void testCachedListing() throws Exception {
+		Listing first = cache.list(null, uri, null, false, this::load, null);
+		Listing second = cache.list(null, uri, null, false, this::load, null);
+		assertSame(refs, first.getRefs());
+		assertSame(first, second);
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	public void testRefresh() throws Exception {
+		cache.list(null, uri, null, false, this::load, null);
+		cache.list(null, uri, null, true, this::load, null);
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void testInvalidate() throws Exception {
+		cache.list(null, uri, null, false, this::load, null);
+		cache.invalidate(uri);
+		cache.list(null, uri, null, false, this::load, null);
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void testListingPerUser() throws Exception {
+		cache.list(null, uri, "alice", false, this::load, null);
+		cache.list(null, uri, "bob", false, this::load, null);
+		cache.list(null, uri, "alice", false, this::load, null);
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void testLocalNotCached() throws Exception {
+		URIish local = new URIish("file:///tmp/repo.git");
+		cache.list(null, local, null, false, this::load, null);
+		cache.list(null, local, null, false, this::load, null);
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void testFailureNotCached() throws Exception {
+		try {
+			cache.list(null, uri, null, false, () -> {
+				throw new IllegalStateException("Connection refused");
+			}, null);
+			fail("Expected InvocationTargetException");
+		} catch (InvocationTargetException e) {
+			assertEquals("Connection refused", e.getCause().getMessage());
+		}
+		cache.list(null, uri, null, false, this::load, null);
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	public void testConcurrentRequestsShareListing() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		RemoteRefsCache.Loader slow = () -> {
+			started.countDown();
+			release.await(10, TimeUnit.SECONDS);
+			return load();
+		};
+		Listing[] results = new Listing[2];
+		Thread[] threads = new Thread[2];
+		for (int i = 0; i < threads.length; i++) {
+			int index = i;
+			threads[i] = new Thread(() -> {
+				try {
+					results[index] = cache.list(null, uri, null, false, slow,
+							null);
+				} catch (InvocationTargetException | InterruptedException e) {
+					// Result stays null
+				}
+			});
+			threads[i].start();
+		}
+		started.await(10, TimeUnit.SECONDS);
+		release.countDown();
+		for (Thread thread : threads) {
+			thread.join(10000);
+		}
+		assertEquals(1, loads.get());
+		assertSame(results[0], results[1]);
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		monitor.setCanceled(true);
+		try {
+			cache.list(null, uri, null, false, () -> {
+				release.await(10, TimeUnit.SECONDS);
+				return load();
+			}, monitor);
+			fail("Expected InterruptedException");
+		} catch (InterruptedException e) {
+			// Expected
+		} finally {
+			release.countDown();
+		}
+		// The abandoned listing is not reused
+		cache.list(null, uri, null, false, this::load, null);
+		assertEquals(1, loads.get());
+	}
+}
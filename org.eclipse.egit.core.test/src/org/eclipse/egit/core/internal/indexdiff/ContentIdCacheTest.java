@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.indexdiff;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ContentIdCacheTest {
+
+	private static final ObjectId ID = ObjectId
+			.fromString("0123456789012345678901234567890123456789");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static ContentIdCache.Stat stat(long length, long lastModified) {
+		return new ContentIdCache.Stat(length, lastModified, "(dev=1,ino=2)",
+				lastModified);
+	}
+
+	@Test
+	public void testLookup() {
+		ContentIdCache cache = new ContentIdCache(new File("repo/.git"), null);
+		cache.put("a/b.txt", stat(10, 1000), "TEXT_CRLF", null, ID, 100000);
+		ContentIdCache.Entry entry = cache.get("a/b.txt", stat(10, 1000));
+		assertNotNull(entry);
+		assertEquals(ID, entry.id);
+		assertTrue(entry.matches("TEXT_CRLF", null));
+		assertNull(cache.get("a/b.txt", stat(11, 1000)));
+		assertNull(cache.get("a/b.txt", stat(10, 1001)));
+		assertNull(cache.get("a/c.txt", stat(10, 1000)));
+	}
+
+	@Test
+	public void testLookupChecksFileKeyAndCtime() {
+		ContentIdCache cache = new ContentIdCache(new File("repo/.git"), null);
+		cache.put("a.txt", stat(10, 1000), "AUTO_LF", null, ID, 100000);
+		// Replaced by another file with the same length and mtime
+		assertNull(cache.get("a.txt",
+				new ContentIdCache.Stat(10, 1000, "(dev=1,ino=3)", 1000)));
+		// Rewritten in place with the mtime restored
+		assertNull(cache.get("a.txt",
+				new ContentIdCache.Stat(10, 1000, "(dev=1,ino=2)", 5000)));
+		assertNull(cache.get("a.txt", new ContentIdCache.Stat(10, 1000, null,
+				ContentIdCache.NO_CTIME)));
+	}
+
+	@Test
+	public void testRacilyCleanNotCached() {
+		ContentIdCache cache = new ContentIdCache(new File("repo/.git"), null);
+		long hashTime = 100000;
+		long old = hashTime - ContentIdCache.RACY_INTERVAL;
+		cache.put("a.txt", stat(10, old), "AUTO_LF", null, ID, hashTime);
+		assertNotNull(cache.get("a.txt", stat(10, old)));
+		cache.put("a.txt", stat(10, hashTime - 1), "AUTO_LF", null, ID,
+				hashTime);
+		assertNull(cache.get("a.txt", stat(10, hashTime - 1)));
+		assertEquals(0, cache.size());
+		ContentIdCache.Stat changed = new ContentIdCache.Stat(10, old,
+				"(dev=1,ino=2)", hashTime - 1);
+		cache.put("a.txt", changed, "AUTO_LF", null, ID, hashTime);
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testPersistence() throws Exception {
+		File gitDir = new File("repo/.git");
+		File storage = new File(folder.getRoot(), "ids");
+		ContentIdCache cache = new ContentIdCache(gitDir, storage);
+		cache.put("a.txt", stat(10, 1000), "AUTO_LF", null, ID, 100000);
+		cache.put("b.txt", new ContentIdCache.Stat(20, 2000, null,
+				ContentIdCache.NO_CTIME), "DIRECT", "lfs clean", ID, 100000);
+		cache.save();
+
+		ContentIdCache loaded = new ContentIdCache(gitDir, storage);
+		loaded.load();
+		assertEquals(2, loaded.size());
+		assertNotNull(loaded.get("a.txt", stat(10, 1000)));
+		ContentIdCache.Entry entry = loaded.get("b.txt",
+				new ContentIdCache.Stat(20, 2000, null,
+						ContentIdCache.NO_CTIME));
+		assertNotNull(entry);
+		assertEquals(ID, entry.id);
+		assertTrue(entry.matches("DIRECT", "lfs clean"));
+
+		ContentIdCache other = new ContentIdCache(new File("other/.git"),
+				storage);
+		other.load();
+		assertEquals(0, other.size());
+	}
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.storage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BlobContentCacheTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private static ObjectId id(int i) {
+		return ObjectId.fromRaw(new int[] { i, 0, 0, 0, 0 });
+	}
+
+	private static byte[] read(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int n;
+		while ((n = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, n);
+		}
+		return out.toByteArray();
+	}
+
+	@Test
+	public void testGetAndPut() {
+		BlobContentCache cache = new BlobContentCache(100, 50);
+		byte[] content = new byte[10];
+		assertNull(cache.get(id(1)));
+		cache.put(id(1), content);
+		assertSame(content, cache.get(id(1)));
+	}
+
+	@Test
+	public void testLargeBlobNotCached() {
+		BlobContentCache cache = new BlobContentCache(100, 50);
+		cache.put(id(1), new byte[51]);
+		assertNull(cache.get(id(1)));
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() {
+		BlobContentCache cache = new BlobContentCache(100, 50);
+		cache.put(id(1), new byte[40]);
+		cache.put(id(2), new byte[40]);
+		// Touch 1 so that 2 is evicted first
+		assertNotNull(cache.get(id(1)));
+		cache.put(id(3), new byte[40]);
+		assertNotNull(cache.get(id(1)));
+		assertNull(cache.get(id(2)));
+		assertNotNull(cache.get(id(3)));
+	}
+
+	@Test
+	public void testReplaceKeepsSize() {
+		BlobContentCache cache = new BlobContentCache(100, 50);
+		cache.put(id(1), new byte[50]);
+		cache.put(id(1), new byte[50]);
+		cache.put(id(2), new byte[50]);
+		assertNotNull(cache.get(id(1)));
+		assertNotNull(cache.get(id(2)));
+	}
+
+	@Test
+	public void testResolvedPaths() {
+		BlobContentCache cache = new BlobContentCache(100, 50);
+		assertNull(cache.getBlobId(id(1), "a/b"));
+		cache.putBlobId(id(1), "a/b", id(2));
+		assertEquals(id(2), cache.getBlobId(id(1), "a/b"));
+		assertNull(cache.getBlobId(id(1), "a/c"));
+		assertNull(cache.getBlobId(id(3), "a/b"));
+		cache.clear();
+		assertNull(cache.getBlobId(id(1), "a/b"));
+	}
+
+	@Test
+	public void testOpenAndLoad() throws Exception {
+		File gitDir = new File(tmp.getRoot(), Constants.DOT_GIT);
+		try (Repository db = FileRepositoryBuilder.create(gitDir)) {
+			db.create();
+			byte[] small = "small".getBytes("UTF-8");
+			byte[] large = new byte[100];
+			ObjectId smallId;
+			ObjectId largeId;
+			try (ObjectInserter inserter = db.newObjectInserter()) {
+				smallId = inserter.insert(Constants.OBJ_BLOB, small);
+				largeId = inserter.insert(Constants.OBJ_BLOB, large);
+				inserter.flush();
+			}
+			BlobContentCache cache = new BlobContentCache(1000, 50);
+
+			try (InputStream in = cache.open(db, smallId)) {
+				assertArrayEquals(small, read(in));
+			}
+			assertArrayEquals(small, cache.get(smallId));
+			assertSame(cache.get(smallId), cache.load(db, smallId));
+
+			// Large blobs are streamed, not cached
+			try (InputStream in = cache.open(db, largeId)) {
+				assertArrayEquals(large, read(in));
+			}
+			assertNull(cache.get(largeId));
+			assertEquals(large.length, cache.load(db, largeId).length);
+			assertNull(cache.get(largeId));
+		}
+	}
+}
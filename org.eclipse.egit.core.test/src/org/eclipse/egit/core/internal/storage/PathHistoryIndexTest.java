@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.storage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.egit.core.JobFamilies;
+import org.eclipse.egit.core.internal.storage.PathHistoryIndex.PathHistory;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand.ResetType;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PathHistoryIndexTest {
+
+	@Rule
+	public TemporaryFolder tmp = new TemporaryFolder();
+
+	private PathHistoryIndex index;
+
+	private Git git;
+
+	@Before
+	public void setUp() throws Exception {
+		index = new PathHistoryIndex(null);
+		git = Git.init().setDirectory(tmp.getRoot()).call();
+	}
+
+	@After
+	public void tearDown() {
+		git.close();
+		index.dispose();
+	}
+
+	private void write(String path, String content) throws IOException {
+		File file = new File(tmp.getRoot(), path);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private PathHistory getHistory(String path, boolean follow)
+			throws Exception {
+		Repository repository = git.getRepository();
+		if (index.getHistory(repository, path, follow) == null) {
+			Job.getJobManager().join(JobFamilies.PATH_HISTORY_INDEX, null);
+		}
+		return index.getHistory(repository, path, follow);
+	}
+
+	@Test
+	public void testNotIndexedYet() throws Exception {
+		write("a.txt", "a\n");
+		git.add().addFilepattern("a.txt").call();
+		git.commit().setMessage("Initial").call();
+		assertNull(index.getHistory(git.getRepository(), "a.txt", true));
+		Job.getJobManager().join(JobFamilies.PATH_HISTORY_INDEX, null);
+		assertNotNull(index.getHistory(git.getRepository(), "a.txt", true));
+	}
+
+	@Test
+	public void testFollowRename() throws Exception {
+		String content = "line 1\nline 2\nline 3\nline 4\nline 5\n";
+		write("old.txt", content);
+		write("other.txt", "other\n");
+		git.add().addFilepattern(".").call();
+		RevCommit first = git.commit().setMessage("Initial").call();
+		write("old.txt", content + "line 6\n");
+		git.add().addFilepattern("old.txt").call();
+		RevCommit second = git.commit().setMessage("Change").call();
+		write("other.txt", "other 2\n");
+		git.add().addFilepattern("other.txt").call();
+		git.commit().setMessage("Unrelated").call();
+		new File(tmp.getRoot(), "old.txt")
+				.renameTo(new File(tmp.getRoot(), "new.txt"));
+		git.add().addFilepattern("new.txt").call();
+		git.rm().addFilepattern("old.txt").call();
+		RevCommit third = git.commit().setMessage("Rename").call();
+
+		PathHistory history = getHistory("new.txt", true);
+		assertNotNull(history);
+		assertTrue(history.isCurrent());
+		assertEquals(Arrays.asList(third, second, first),
+				history.getCommits());
+		assertEquals("new.txt", history.getPath(third));
+		assertEquals("old.txt", history.getPath(second));
+		assertEquals("old.txt", history.getPath(first));
+		assertEquals(Arrays.asList("new.txt", "old.txt"),
+				Arrays.asList(history.getPaths().toArray()));
+
+		history = getHistory("new.txt", false);
+		assertEquals(Arrays.asList(third), history.getCommits());
+	}
+
+	@Test
+	public void testTreeFilterRewritesParents() throws Exception {
+		String content = "line 1\nline 2\nline 3\nline 4\nline 5\n";
+		write("old.txt", content);
+		write("other.txt", "other\n");
+		git.add().addFilepattern(".").call();
+		RevCommit first = git.commit().setMessage("Initial").call();
+		write("other.txt", "other 2\n");
+		git.add().addFilepattern("other.txt").call();
+		git.commit().setMessage("Unrelated").call();
+		new File(tmp.getRoot(), "old.txt")
+				.renameTo(new File(tmp.getRoot(), "new.txt"));
+		git.add().addFilepattern("new.txt").call();
+		git.rm().addFilepattern("old.txt").call();
+		RevCommit second = git.commit().setMessage("Rename").call();
+		write("other.txt", "other 3\n");
+		git.add().addFilepattern("other.txt").call();
+		git.commit().setMessage("Unrelated again").call();
+		write("new.txt", content + "line 6\n");
+		git.add().addFilepattern("new.txt").call();
+		RevCommit third = git.commit().setMessage("Change").call();
+
+		PathHistory history = getHistory("new.txt", true);
+		try (RevWalk walk = new RevWalk(git.getRepository())) {
+			walk.setTreeFilter(PathHistory
+					.createTreeFilter(Collections.singleton(history)));
+			walk.markStart(walk.parseCommit(third));
+			List<RevCommit> commits = new ArrayList<>();
+			for (RevCommit commit : walk) {
+				commits.add(commit);
+			}
+			assertEquals(Arrays.asList(third, second, first), commits);
+			assertArrayEquals(new RevCommit[] { second },
+					commits.get(0).getParents());
+			assertArrayEquals(new RevCommit[] { first },
+					commits.get(1).getParents());
+			assertEquals(0, commits.get(2).getParentCount());
+		}
+	}
+
+	@Test
+	public void testIncrementalUpdate() throws Exception {
+		write("a.txt", "a\n");
+		git.add().addFilepattern("a.txt").call();
+		RevCommit first = git.commit().setMessage("Initial").call();
+		assertEquals(Arrays.asList(first),
+				getHistory("a.txt", true).getCommits());
+
+		write("a.txt", "a\nb\n");
+		git.add().addFilepattern("a.txt").call();
+		RevCommit second = git.commit().setMessage("Change").call();
+		// Reading the refs notices the change and updates the index
+		git.getRepository().getRefDatabase().getRefs(RefDatabase.ALL);
+		Job.getJobManager().join(JobFamilies.PATH_HISTORY_INDEX, null);
+		PathHistory history = getHistory("a.txt", true);
+		assertEquals(Arrays.asList(second, first), history.getCommits());
+	}
+
+	@Test
+	public void testRewrittenHistory() throws Exception {
+		write("a.txt", "a\n");
+		git.add().addFilepattern("a.txt").call();
+		RevCommit first = git.commit().setMessage("Initial").call();
+		write("a.txt", "a\nb\n");
+		git.add().addFilepattern("a.txt").call();
+		RevCommit second = git.commit().setMessage("Change").call();
+		assertEquals(Arrays.asList(second, first),
+				getHistory("a.txt", true).getCommits());
+
+		git.reset().setMode(ResetType.HARD).setRef(first.name()).call();
+		write("a.txt", "a\nc\n");
+		git.add().addFilepattern("a.txt").call();
+		RevCommit third = git.commit().setMessage("Other change").call();
+		git.getRepository().getRefDatabase().getRefs(RefDatabase.ALL);
+		Job.getJobManager().join(JobFamilies.PATH_HISTORY_INDEX, null);
+		PathHistory history = getHistory("a.txt", true);
+		assertTrue(history.isCurrent());
+		assertEquals(Arrays.asList(third, first), history.getCommits());
+	}
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+public class HistogramTest {
+
+	@Test
+	public void testEmpty() {
+		Histogram histogram = new Histogram("empty");
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMin());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0, histogram.getPercentile(50));
+	}
+
+	@Test
+	public void testPercentiles() {
+		Histogram histogram = new Histogram("values");
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i);
+		}
+		assertEquals(1000, histogram.getCount());
+		assertEquals(1, histogram.getMin());
+		assertEquals(1000, histogram.getMax());
+		assertEquals(500.5, histogram.getMean(), 0.001);
+		long median = histogram.getPercentile(50);
+		assertTrue(median >= 500 && median <= 500 * 1.125);
+		assertEquals(1000, histogram.getPercentile(100));
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+	}
+
+	@Test
+	public void testBucketBounds() {
+		for (long value : new long[] { 0, 1, 7, 8, 9, 15, 16, 1000,
+				123456789L, Long.MAX_VALUE }) {
+			int index = Histogram.bucketIndex(value);
+			assertTrue(Histogram.bucketUpperBound(index) >= value);
+			if (index > 0) {
+				assertTrue(Histogram.bucketUpperBound(index - 1) < value);
+			}
+		}
+	}
+
+	@Test
+	public void testJson() throws Exception {
+		GitMetrics.counter("test.counter", "repo \"a\"").add(3);
+		GitMetrics.histogram("test.histogram").record(42);
+		StringWriter out = new StringWriter();
+		GitMetrics.writeJson(out);
+		String json = out.toString();
+		assertTrue(json.contains("\"test.counter[repo \\\"a\\\"]\": 3"));
+		assertTrue(json.contains("\"test.histogram\": {\"count\": 1"));
+	}
+}
@@ -27,6 +27,7 @@
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -41,6 +42,7 @@
 import org.eclipse.egit.core.test.GitTestCase;
 import org.eclipse.egit.core.test.TestProject;
 import org.eclipse.egit.core.test.TestRepository;
+import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.util.FileUtils;
 import org.junit.After;
 import org.junit.Before;
@@ -65,6 +67,7 @@ public void tearDown() throws Exception {
 		super.tearDown();
 		if (project2 != null)
 			project2.dispose();
+		testUtils.deleteTempDirs();
 	}
 
 	@Test
@@ -204,6 +207,28 @@ public void testRefreshValidProjects() throws Exception {
 				any(IProgressMonitor.class));
 	}
 
+	@Test
+	public void testRefreshValidProjectsChangedPaths() throws Exception {
+		IFile deleted = createOutOfSyncFile(project, "deleted");
+		IFile unchanged = createOutOfSyncFile(project, "unchanged");
+		File added = new File(project.getProject().getLocation().toFile(),
+				"folder/sub/added");
+		FileUtils.mkdirs(added.getParentFile());
+		assertTrue(added.createNewFile());
+
+		ProjectUtil.refreshValidProjects(
+				new IProject[] { project.getProject() }, true,
+				repository.getRepository(),
+				Arrays.asList("Project-1/deleted", "Project-1/folder/sub/added",
+						"Other/file"),
+				new NullProgressMonitor());
+
+		assertFalse(deleted.exists());
+		assertTrue(project.getProject().getFile("folder/sub/added").exists());
+		// Only the changed paths are refreshed
+		assertFalse(unchanged.isSynchronized(IResource.DEPTH_ZERO));
+	}
+
 	@Test
 	public void testCloseMissingProject() throws Exception {
 		IProject p = mock(IProject.class);
@@ -294,6 +319,82 @@ public void testFindProjectFilesNested() throws Exception {
 				"Project-1/.project")));
 	}
 
+	@Test
+	public void testFindProjectFilesIgnored() throws Exception {
+		File workingDir = gitDir.getParentFile();
+		File generated = new File(workingDir, "target/Generated");
+		FileUtils.mkdirs(generated);
+		File generatedProject = new File(generated, ".project");
+		repository.appendFileContent(generatedProject,
+				"<projectDescription/>");
+		repository.appendFileContent(new File(workingDir, ".gitignore"),
+				"target/\n");
+
+		Collection<File> files = new ArrayList<File>();
+		assertTrue(ProjectUtil.findProjectFiles(files, workingDir, true,
+				new NullProgressMonitor()));
+		assertThat(files, hasItem(new File(workingDir, "Project-1/.project")));
+		assertFalse(files.contains(generatedProject));
+	}
+
+	@Test
+	public void testFindProjectFilesTracked() throws Exception {
+		project2 = new TestProject(true, "Project-1/Project-Nested");
+		File workingDir = gitDir.getParentFile();
+		repository.track(new File(workingDir, "Project-1/.project"));
+		repository.track(
+				new File(workingDir, "Project-1/Project-Nested/.project"));
+
+		List<File> found = new ArrayList<File>();
+		assertTrue(ProjectUtil.findProjectFiles(workingDir, true, found::add,
+				new NullProgressMonitor()));
+		assertEquals(2, found.size());
+		assertThat(found, hasItem(new File(workingDir, "Project-1/.project")));
+		assertThat(found, hasItem(new File(workingDir,
+				"Project-1/Project-Nested/.project")));
+
+		Collection<File> noNested = new ArrayList<File>();
+		assertTrue(ProjectUtil.findProjectFiles(noNested, workingDir, false,
+				new NullProgressMonitor()));
+		assertEquals(1, noNested.size());
+		assertThat(noNested,
+				hasItem(new File(workingDir, "Project-1/.project")));
+	}
+
+	@Test
+	public void testFindProjectFilesInSubmodule() throws Exception {
+		File workingDir = gitDir.getParentFile();
+		File upstreamDir = testUtils.createTempDir("Upstream");
+		try (Git upstream = Git.init().setDirectory(upstreamDir).call()) {
+			File trackedProject = new File(upstreamDir, "Tracked/.project");
+			FileUtils.mkdirs(trackedProject.getParentFile());
+			repository.appendFileContent(trackedProject,
+					"<projectDescription/>");
+			repository.appendFileContent(new File(upstreamDir, ".gitignore"),
+					"target/\n");
+			upstream.add().addFilepattern(".").call();
+			upstream.commit().setMessage("Initial commit").call();
+		}
+		Git.wrap(repository.getRepository()).submoduleAdd().setPath("sub")
+				.setURI(upstreamDir.toURI().toString()).call().close();
+		File submodule = new File(workingDir, "sub");
+		File untrackedProject = new File(submodule, "Untracked/.project");
+		FileUtils.mkdirs(untrackedProject.getParentFile());
+		repository.appendFileContent(untrackedProject,
+				"<projectDescription/>");
+		File ignoredProject = new File(submodule, "target/Generated/.project");
+		FileUtils.mkdirs(ignoredProject.getParentFile());
+		repository.appendFileContent(ignoredProject, "<projectDescription/>");
+
+		Set<File> found = new TreeSet<>();
+		assertTrue(ProjectUtil.findProjectFiles(workingDir, true, found::add,
+				new NullProgressMonitor()));
+		assertThat(found, hasItem(new File(workingDir, "Project-1/.project")));
+		assertThat(found, hasItem(new File(submodule, "Tracked/.project")));
+		assertThat(found, hasItem(untrackedProject));
+		assertFalse(found.contains(ignoredProject));
+	}
+
 	@Test
 	public void testRefreshRepositoryResources() throws Exception {
 		TestProject subdirProject = new TestProject(true, "subdir/Project-2");
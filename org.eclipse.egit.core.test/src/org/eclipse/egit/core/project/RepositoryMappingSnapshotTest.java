@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.project;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RepositoryMappingSnapshotTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File createPropertyFile(String content) throws Exception {
+		File file = folder.newFile();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	@Test
+	public void testLookup() throws Exception {
+		File propertyFile = createPropertyFile("a");
+		RepositoryMappingSnapshot snapshot = new RepositoryMappingSnapshot(
+				null);
+		snapshot.put("p", propertyFile,
+				Arrays.asList(new RepositoryMapping("", ".git"),
+						new RepositoryMapping("sub", "../.git")));
+
+		List<RepositoryMapping> mappings = snapshot.get("p", propertyFile);
+		assertNotNull(mappings);
+		assertEquals(2, mappings.size());
+		assertEquals(".git", mappings.get(0).getGitDirPathString());
+		assertEquals("sub", mappings.get(1).getContainerPathString());
+		assertNull(snapshot.get("q", propertyFile));
+
+		snapshot.remove("p");
+		assertNull(snapshot.get("p", propertyFile));
+	}
+
+	@Test
+	public void testChangedPropertyFile() throws Exception {
+		File propertyFile = createPropertyFile("a");
+		RepositoryMappingSnapshot snapshot = new RepositoryMappingSnapshot(
+				null);
+		snapshot.put("p", propertyFile,
+				Arrays.asList(new RepositoryMapping("", ".git")));
+		Files.write(propertyFile.toPath(),
+				"ab".getBytes(StandardCharsets.UTF_8));
+		assertNull(snapshot.get("p", propertyFile));
+	}
+
+	@Test
+	public void testPersistence() throws Exception {
+		File propertyFile = createPropertyFile("a");
+		File storage = new File(folder.getRoot(), "mappings.bin");
+		RepositoryMappingSnapshot snapshot = new RepositoryMappingSnapshot(
+				storage);
+		snapshot.put("p", propertyFile,
+				Arrays.asList(new RepositoryMapping("", "../repo/.git")));
+		snapshot.flush();
+
+		RepositoryMappingSnapshot loaded = new RepositoryMappingSnapshot(
+				storage);
+		loaded.load();
+		List<RepositoryMapping> mappings = loaded.get("p", propertyFile);
+		assertNotNull(mappings);
+		assertEquals(1, mappings.size());
+		assertEquals("", mappings.get(0).getContainerPathString());
+		assertEquals("../repo/.git", mappings.get(0).getGitDirPathString());
+	}
+}
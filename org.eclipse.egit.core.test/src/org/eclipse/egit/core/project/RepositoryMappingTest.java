@@ -102,6 +102,19 @@ public void shouldNotReturnMappingWhenPathIsOutsideRepository() {
 					.setDevice("C:")));
 	}
 
+	@Test
+	public void shouldNotReturnMappingAfterDisconnect() throws Exception {
+		IFile file = project.createFile("inproject.txt", new byte[] {});
+		IPath filePath = getWorkTreePath().append("outside.txt");
+		assertNotNull(RepositoryMapping.getMapping(file));
+		assertNotNull(RepositoryMapping.getMapping(filePath));
+
+		new TestRepository(gitDir).disconnect(project.getProject());
+
+		assertNull(RepositoryMapping.getMapping(file));
+		assertNull(RepositoryMapping.getMapping(filePath));
+	}
+
 	@Test
 	public void shouldFindRepositoryMappingForRepository() {
 		RepositoryMapping mapping = RepositoryMapping.findRepositoryMapping(repository);
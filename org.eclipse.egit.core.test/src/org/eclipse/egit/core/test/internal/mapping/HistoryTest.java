@@ -21,15 +21,21 @@
 import java.util.Date;
 import java.util.TimeZone;
 
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IStorage;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.egit.core.GitProvider;
+import org.eclipse.egit.core.JobFamilies;
 import org.eclipse.egit.core.internal.storage.GitFileRevision;
 import org.eclipse.egit.core.op.ConnectProviderOperation;
 import org.eclipse.egit.core.test.GitTestCase;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.eclipse.jgit.util.FileUtils;
 import org.eclipse.team.core.RepositoryProvider;
@@ -194,4 +200,66 @@ public void testDeepHistory_B() {
 		assertEquals("60f0d7917fe2aed5c92b5bc35dfb55b9b8ada359", fileRevisions[1].getContentIdentifier());
 		assertEquals("J. Author",fileRevisions[0].getAuthor());
 	}
+
+	@Test
+	public void testIndexedHistoryLinksNearestAncestors() throws Exception {
+		RevCommit first = getCommit(Constants.HEAD + "~1");
+		RevCommit second;
+		RevCommit third;
+		try (Git git = new Git(thisGit)) {
+			createFile("Project-1/A.txt", "A.txt - second version\n");
+			git.add().addFilepattern("Project-1/A.txt").call();
+			second = git.commit().setAuthor(jauthor).setCommitter(jcommitter)
+					.setMessage("Modified A").call();
+			for (int i = 0; i < 2; i++) {
+				createFile("Project-1/B.txt", "B.txt - unrelated " + i + "\n");
+				git.add().addFilepattern("Project-1/B.txt").call();
+				git.commit().setAuthor(jauthor).setCommitter(jcommitter)
+						.setMessage("Unrelated " + i).call();
+			}
+			createFile("Project-1/A.txt", "A.txt - third version\n");
+			git.add().addFilepattern("Project-1/A.txt").call();
+			third = git.commit().setAuthor(jauthor).setCommitter(jcommitter)
+					.setMessage("Modified A again").call();
+		}
+		GitProvider provider = (GitProvider) RepositoryProvider
+				.getProvider(project.project);
+		IFileHistoryProvider fileHistoryProvider = provider
+				.getFileHistoryProvider();
+		IResource resource = project.getProject().getWorkspace().getRoot()
+				.findMember("Project-1/A.txt");
+		// The first lookup schedules indexing the repository
+		fileHistoryProvider.getFileHistoryFor(resource,
+				IFileHistoryProvider.NONE, new NullProgressMonitor());
+		Job.getJobManager().join(JobFamilies.PATH_HISTORY_INDEX, null);
+
+		IFileHistory fileHistory = fileHistoryProvider.getFileHistoryFor(
+				resource, IFileHistoryProvider.NONE,
+				new NullProgressMonitor());
+		IFileRevision[] fileRevisions = fileHistory.getFileRevisions();
+		assertEquals(3, fileRevisions.length);
+		assertEquals(third.name(), fileRevisions[0].getContentIdentifier());
+		assertEquals(second.name(), fileRevisions[1].getContentIdentifier());
+		assertEquals(first.name(), fileRevisions[2].getContentIdentifier());
+
+		assertRevisions(fileHistory.getContributors(fileRevisions[0]), second);
+		assertRevisions(fileHistory.getContributors(fileRevisions[1]), first);
+		assertRevisions(fileHistory.getContributors(fileRevisions[2]));
+		assertRevisions(fileHistory.getTargets(fileRevisions[2]), second);
+		assertRevisions(fileHistory.getTargets(fileRevisions[1]), third);
+		assertRevisions(fileHistory.getTargets(fileRevisions[0]));
+	}
+
+	private RevCommit getCommit(String revision) throws IOException {
+		try (RevWalk walk = new RevWalk(thisGit)) {
+			return walk.parseCommit(thisGit.resolve(revision));
+		}
+	}
+
+	private static void assertRevisions(IFileRevision[] actual,
+			RevCommit... expected) {
+		assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++)
+			assertEquals(expected[i].name(), actual[i].getContentIdentifier());
+	}
 }
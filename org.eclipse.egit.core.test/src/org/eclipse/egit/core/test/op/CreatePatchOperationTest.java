@@ -11,7 +11,9 @@
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.nio.file.Files;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -337,6 +339,58 @@ public void testWorkspacePatchForCommit() throws Exception {
 		assertPatch(SIMPLE_WORKSPACE_PATCH_CONTENT, operation.getPatchContent());
 	}
 
+	@Test
+	public void testStreamedWorkspacePatchForCommit() throws Exception {
+		// setup workspace
+		File deletedFile = testRepository.createFile(project.getProject(), "deleted-file");
+		commit = testRepository.addAndCommit(project.getProject(), deletedFile,
+				"whatever");
+		FileUtils.delete(deletedFile);
+		testRepository.appendFileContent(file, "another line\n");
+		File newFile = testRepository.createFile(project.getProject(), "new-file");
+		testRepository.appendFileContent(newFile, "new content\n");
+		testRepository.untrack(deletedFile);
+		testRepository.track(file);
+		testRepository.track(newFile);
+		commit = testRepository.commit("2nd commit");
+
+		// create patch
+		CreatePatchOperation operation = new CreatePatchOperation(
+				testRepository.getRepository(), commit);
+
+		operation.setHeaderFormat(DiffHeaderFormat.WORKSPACE);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		operation.execute(out, new NullProgressMonitor());
+
+		assertPatch(SIMPLE_WORKSPACE_PATCH_CONTENT,
+				new String(out.toByteArray(), "UTF-8"));
+	}
+
+	@Test
+	public void testWorkspacePatchKeepsContentLines() throws Exception {
+		testRepository.appendContentAndCommit(project.getProject(), file,
+				"-- a/test-file\n", "1st commit");
+		Files.write(file.toPath(), new byte[0]);
+		testRepository.track(file);
+		RevCommit secondCommit = testRepository.commit("2nd commit");
+
+		CreatePatchOperation operation = new CreatePatchOperation(
+				testRepository.getRepository(), secondCommit);
+
+		operation.setHeaderFormat(DiffHeaderFormat.WORKSPACE);
+		operation.execute(new NullProgressMonitor());
+
+		// the removed line looks like a file header line but stays as is
+		assertPatch("### Eclipse Workspace Patch 1.0\n"
+				+ "#P Project-1\n"
+				+ "diff --git test-file test-file\n"
+				+ "index f3af9a2..e69de29 100644\n"
+				+ "--- test-file\n"
+				+ "+++ test-file\n"
+				+ "@@ -1 +0,0 @@\n"
+				+ "--- a/test-file\n", operation.getPatchContent());
+	}
+
 	@Test
 	public void testWorkspacePatchForWorkingDir() throws Exception {
 		// setup workspace
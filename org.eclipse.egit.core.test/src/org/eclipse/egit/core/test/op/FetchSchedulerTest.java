@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.test.op;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.egit.core.op.FetchOperation;
+import org.eclipse.egit.core.op.FetchScheduler;
+import org.eclipse.egit.core.test.DualRepositoryTestCase;
+import org.eclipse.egit.core.test.TestRepository;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.URIish;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FetchSchedulerTest extends DualRepositoryTestCase {
+
+	private static final List<RefSpec> SPECS = Collections.singletonList(
+			new RefSpec("+refs/heads/*:refs/remotes/origin/*"));
+
+	private TestRepository source;
+
+	@Before
+	public void setUp() throws Exception {
+		source = new TestRepository(new File(
+				testUtils.createTempDir("Source"), Constants.DOT_GIT));
+		repository1 = new TestRepository(new File(
+				testUtils.createTempDir("Repository1"), Constants.DOT_GIT));
+		repository2 = new TestRepository(new File(
+				testUtils.createTempDir("Repository2"), Constants.DOT_GIT));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		source.dispose();
+	}
+
+	@Test
+	public void testFetchAll() throws Exception {
+		RevCommit commit = source.createInitialCommit("initial");
+		URIish uri = new URIish(
+				source.getRepository().getDirectory().toURI().toURL());
+		FetchOperation first = new FetchOperation(repository1.getRepository(),
+				uri, SPECS, 0, false);
+		FetchOperation second = new FetchOperation(repository2.getRepository(),
+				uri, SPECS, 0, false);
+		FetchOperation broken = new FetchOperation(
+				repository2.getRepository(),
+				new URIish(new File(testUtils.createTempDir("Missing"),
+						Constants.DOT_GIT).toURI().toURL()),
+				SPECS, 0, false);
+
+		// Only one fetch at a time from the local "host"
+		FetchScheduler scheduler = new FetchScheduler(2, 1);
+		scheduler.add(first);
+		scheduler.add(broken);
+		scheduler.add(second);
+		Map<FetchOperation, IStatus> results = scheduler
+				.run(new NullProgressMonitor());
+
+		assertEquals(3, results.size());
+		assertTrue(results.get(first).isOK());
+		assertTrue(results.get(second).isOK());
+		assertFalse(results.get(broken).isOK());
+		assertNotNull(first.getOperationResult());
+		for (Repository repository : new Repository[] {
+				repository1.getRepository(), repository2.getRepository() }) {
+			assertEquals(commit,
+					repository.exactRef("refs/remotes/origin/master")
+							.getObjectId());
+		}
+	}
+
+	@Test
+	public void testCanceled() throws Exception {
+		source.createInitialCommit("initial");
+		URIish uri = new URIish(
+				source.getRepository().getDirectory().toURI().toURL());
+		FetchOperation operation = new FetchOperation(
+				repository1.getRepository(), uri, SPECS, 0, false);
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		monitor.setCanceled(true);
+
+		FetchScheduler scheduler = new FetchScheduler();
+		scheduler.add(operation);
+		IStatus status = scheduler.run(monitor).get(operation);
+
+		assertNotNull(status);
+		assertFalse(status.isOK());
+	}
+}
@@ -18,6 +18,7 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 
 import org.eclipse.core.resources.IFile;
@@ -41,6 +42,7 @@
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.RefUpdate;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.transport.PushResult;
 import org.eclipse.jgit.transport.RemoteRefUpdate;
@@ -198,6 +200,78 @@ public void testInvalidUriDuringPush() throws Exception {
 
 	}
 
+	/**
+	 * URIs are pushed to concurrently, and a failure for one of them doesn't
+	 * affect the others
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testPushToMultipleURIs() throws Exception {
+		Repository local = repository1.getRepository();
+		URIish valid = new URIish(
+				repository2.getRepository().getDirectory().toURI().toURL());
+		URIish invalid = new URIish(INVALID_URI);
+		PushOperationSpecification spec = new PushOperationSpecification();
+		spec.addURIRefUpdates(valid,
+				Collections.singletonList(new RemoteRefUpdate(local, "HEAD",
+						"refs/heads/test", false, null, null)));
+		spec.addURIRefUpdates(invalid,
+				Collections.singletonList(new RemoteRefUpdate(local, "HEAD",
+						"refs/heads/test", false, null, null)));
+
+		PushOperation pop = new PushOperation(local, spec, false, 0);
+		pop.run(new NullProgressMonitor());
+
+		PushOperationResult result = pop.getOperationResult();
+		assertEquals(2, result.getURIs().size());
+		assertTrue(result.isSuccessfulConnection(valid));
+		assertEquals(Status.UP_TO_DATE, result.getPushResult(valid)
+				.getRemoteUpdate("refs/heads/test").getStatus());
+		assertFalse(result.isSuccessfulConnection(invalid));
+		assertNotNull(result.getErrorMessage(invalid));
+	}
+
+	/**
+	 * Pushing to a configured remote pushes to all its push URIs
+	 * concurrently, and reports each result as soon as it is known
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testPushToRemoteWithMultipleURIs() throws Exception {
+		Repository local = repository2.getRepository();
+		URIish valid = repository1.getUri();
+		URIish invalid = new URIish(INVALID_URI);
+		StoredConfig config = local.getConfig();
+		config.setString("remote", "mirrors", "url", valid.toString());
+		config.setStringList("remote", "mirrors", "pushurl",
+				Arrays.asList(valid.toString(), INVALID_URI));
+		config.setString("remote", "mirrors", "push",
+				"refs/heads/test:refs/heads/pushed");
+		config.save();
+
+		List<URIish> reported = Collections
+				.synchronizedList(new ArrayList<URIish>());
+		PushOperation pop = new PushOperation(local, "mirrors", false, 0);
+		pop.setResultListener((uri, result) -> {
+			assertEquals(Collections.singleton(uri), result.getURIs());
+			reported.add(uri);
+		});
+		pop.run(new NullProgressMonitor());
+
+		PushOperationResult result = pop.getOperationResult();
+		assertEquals(2, result.getURIs().size());
+		assertTrue(result.isSuccessfulConnection(valid));
+		assertEquals(Status.OK, result.getPushResult(valid)
+				.getRemoteUpdate("refs/heads/pushed").getStatus());
+		assertFalse(result.isSuccessfulConnection(invalid));
+		assertEquals(new HashSet<>(Arrays.asList(valid, invalid)),
+				new HashSet<>(reported));
+		assertEquals(local.resolve("refs/heads/test"),
+				repository1.getRepository().resolve("refs/heads/pushed"));
+	}
+
 	private PushOperation createInvalidPushOperation() throws Exception {
 		// set up push with invalid URI to provoke an exception
 		PushOperationSpecification spec = new PushOperationSpecification();
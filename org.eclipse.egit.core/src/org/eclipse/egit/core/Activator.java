@@ -50,10 +50,17 @@
 import org.eclipse.core.runtime.preferences.DefaultScope;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.egit.core.internal.BackgroundFetcher;
+import org.eclipse.egit.core.internal.CommitGraphCache;
+import org.eclipse.egit.core.internal.CommitIdIndex;
 import org.eclipse.egit.core.internal.CoreText;
+import org.eclipse.egit.core.internal.RemoteRefsCache;
 import org.eclipse.egit.core.internal.ReportingTypedConfigGetter;
 import org.eclipse.egit.core.internal.indexdiff.IndexDiffCache;
 import org.eclipse.egit.core.internal.job.JobUtil;
+import org.eclipse.egit.core.internal.storage.BlobContentCache;
+import org.eclipse.egit.core.internal.storage.PathHistoryIndex;
+import org.eclipse.egit.core.internal.trace.GitMetrics;
 import org.eclipse.egit.core.internal.trace.GitTraceLocation;
 import org.eclipse.egit.core.internal.util.ResourceUtil;
 import org.eclipse.egit.core.op.ConnectProviderOperation;
@@ -85,6 +92,13 @@ public class Activator extends Plugin implements DebugOptionsListener {
 	private static String pluginId;
 	private RepositoryCache repositoryCache;
 	private IndexDiffCache indexDiffCache;
+	private CommitIdIndex commitIdIndex;
+	private CommitGraphCache commitGraphCache;
+
+	private BackgroundFetcher backgroundFetcher;
+	private RemoteRefsCache remoteRefsCache;
+	private BlobContentCache blobContentCache;
+	private PathHistoryIndex pathHistoryIndex;
 	private RepositoryUtil repositoryUtil;
 	private EGitSecureStore secureStore;
 	private AutoShareProjects shareGitProjectsJob;
@@ -191,6 +205,13 @@ public void start(final BundleContext context) throws Exception {
 
 		repositoryCache = new RepositoryCache();
 		indexDiffCache = new IndexDiffCache();
+		commitIdIndex = new CommitIdIndex();
+		commitGraphCache = new CommitGraphCache(
+				getStateLocation().append("commitGraph").toFile()); //$NON-NLS-1$
+		remoteRefsCache = new RemoteRefsCache();
+		blobContentCache = new BlobContentCache();
+		pathHistoryIndex = new PathHistoryIndex(
+				getStateLocation().append("pathHistory").toFile()); //$NON-NLS-1$
 		try {
 			GitProjectData.reconfigureWindowCache();
 		} catch (RuntimeException e) {
@@ -206,6 +227,7 @@ public void start(final BundleContext context) throws Exception {
 		registerAutoIgnoreDerivedResources();
 		registerPreDeleteResourceChangeListener();
 		registerMergeStrategyRegistryListener();
+		backgroundFetcher = new BackgroundFetcher();
 	}
 
 	@SuppressWarnings("unchecked")
@@ -348,6 +370,48 @@ public IndexDiffCache getIndexDiffCache() {
 		return indexDiffCache;
 	}
 
+	/**
+	 * @return index of the commit ids in all repositories
+	 */
+	public CommitIdIndex getCommitIdIndex() {
+		return commitIdIndex;
+	}
+
+	/**
+	 * @return the cache of the commit graphs of all repositories
+	 */
+	public CommitGraphCache getCommitGraphCache() {
+		return commitGraphCache;
+	}
+
+	/**
+	 * @return the fetcher keeping remote-tracking branches up to date
+	 */
+	public BackgroundFetcher getBackgroundFetcher() {
+		return backgroundFetcher;
+	}
+
+	/**
+	 * @return the cache of recently listed refs of remote repositories
+	 */
+	public RemoteRefsCache getRemoteRefsCache() {
+		return remoteRefsCache;
+	}
+
+	/**
+	 * @return the cache of recently read blob contents
+	 */
+	public BlobContentCache getBlobContentCache() {
+		return blobContentCache;
+	}
+
+	/**
+	 * @return the index of which commits touched which paths
+	 */
+	public PathHistoryIndex getPathHistoryIndex() {
+		return pathHistoryIndex;
+	}
+
 	/**
 	 * @return the {@link RepositoryUtil} instance
 	 */
@@ -364,6 +428,10 @@ public EGitSecureStore getSecureStore() {
 
 	@Override
 	public void stop(final BundleContext context) throws Exception {
+		if (backgroundFetcher != null) {
+			backgroundFetcher.dispose();
+			backgroundFetcher = null;
+		}
 		if (mergeStrategyRegistryListener != null) {
 			Platform.getExtensionRegistry()
 					.removeListener(mergeStrategyRegistryListener);
@@ -386,8 +454,19 @@ public void stop(final BundleContext context) throws Exception {
 			shareGitProjectsJob = null;
 		}
 		GitProjectData.detachFromWorkspace();
+		dumpMetrics();
 		indexDiffCache.dispose();
 		indexDiffCache = null;
+		commitIdIndex.dispose();
+		commitIdIndex = null;
+		commitGraphCache.dispose();
+		commitGraphCache = null;
+		remoteRefsCache.dispose();
+		remoteRefsCache = null;
+		blobContentCache.clear();
+		blobContentCache = null;
+		pathHistoryIndex.dispose();
+		pathHistoryIndex = null;
 		repositoryCache.clear();
 		repositoryCache = null;
 		repositoryUtil.dispose();
@@ -398,6 +477,18 @@ public void stop(final BundleContext context) throws Exception {
 		plugin = null;
 	}
 
+	private void dumpMetrics() {
+		String file = System.getProperty(GitMetrics.DUMP_PROPERTY);
+		if (file == null || file.isEmpty()) {
+			return;
+		}
+		try {
+			GitMetrics.dump(new File(file));
+		} catch (IOException e) {
+			logError(e.getMessage(), e);
+		}
+	}
+
 	private void registerAutoShareProjects() {
 		shareGitProjectsJob = new AutoShareProjects();
 		ResourcesPlugin.getWorkspace().addResourceChangeListener(
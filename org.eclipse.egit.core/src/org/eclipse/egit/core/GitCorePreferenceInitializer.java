@@ -31,6 +31,8 @@ public void initializeDefaultPreferences() {
 		p.putBoolean(GitCorePreferences.core_autoIgnoreDerivedResources, true);
 		p.putBoolean(GitCorePreferences.core_autoStageDeletion, false);
 		p.putBoolean(GitCorePreferences.core_autoStageMoves, true);
+		p.putBoolean(GitCorePreferences.core_backgroundFetch, false);
+		p.putInt(GitCorePreferences.core_backgroundFetchInterval, 5);
 
 		String defaultRepoDir = RepositoryUtil.getDefaultDefaultRepositoryDir();
 		p.put(GitCorePreferences.core_defaultRepositoryDir, defaultRepoDir);
@@ -67,4 +67,16 @@ public class GitCorePreferences {
 	 * if {@code true} file moves are automatically staged by GitMoveDeleteHook
 	 */
 	public static final String core_autoStageMoves = "core_auto_stage_moves"; //$NON-NLS-1$
+
+	/**
+	 * if {@code true} the remotes of all configured repositories are fetched
+	 * periodically in the background
+	 */
+	public static final String core_backgroundFetch = "core_backgroundFetch"; //$NON-NLS-1$
+
+	/**
+	 * shortest interval in minutes between two background fetches from the
+	 * same remote
+	 */
+	public static final String core_backgroundFetchInterval = "core_backgroundFetchInterval"; //$NON-NLS-1$
 }
@@ -14,6 +14,8 @@
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.egit.core.internal.indexdiff.ContentIdCache;
+import org.eclipse.egit.core.internal.indexdiff.ContentIdCachingIterator;
 import org.eclipse.egit.core.project.RepositoryMapping;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.treewalk.FileTreeIterator;
@@ -31,14 +33,16 @@ public class IteratorService {
 	 * repository work tree folder.
 	 *
 	 * @param repository
-	 * @return a {@link FileTreeIterator} or {@code null} if repository is bare
+	 * @return a {@link FileTreeIterator} that reuses the cached ids of
+	 *         unchanged files, or {@code null} if repository is bare
 	 */
 	public static WorkingTreeIterator createInitialIterator(
 			Repository repository) {
 		if (repository.isBare()) {
 			return null;
 		}
-		return new FileTreeIterator(repository);
+		return new ContentIdCachingIterator(repository,
+				ContentIdCache.get(repository));
 	}
 
 	/**
@@ -33,4 +33,24 @@ public class JobFamilies {
 	 * Job family for auto ignore job
 	 */
 	public static final Object AUTO_IGNORE = new Object();
+
+	/**
+	 * Job family for updating the commit id index
+	 */
+	public static final Object COMMIT_ID_INDEX = new Object();
+
+	/**
+	 * Job family for updating the commit graph cache
+	 */
+	public static final Object COMMIT_GRAPH = new Object();
+
+	/**
+	 * Job family for updating the path history index
+	 */
+	public static final Object PATH_HISTORY_INDEX = new Object();
+
+	/**
+	 * Job family for the background fetch
+	 */
+	public static final Object BACKGROUND_FETCH = new Object();
 }
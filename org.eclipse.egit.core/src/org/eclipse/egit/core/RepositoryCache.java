@@ -25,6 +25,7 @@
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.egit.core.internal.CommitIdIndex;
 import org.eclipse.egit.core.internal.indexdiff.IndexDiffCache;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
@@ -160,12 +161,7 @@ private void prune() {
 				}
 			}
 		}
-		IndexDiffCache cache = Activator.getDefault().getIndexDiffCache();
-		if (cache != null) {
-			for (File f : toRemove) {
-				cache.remove(f);
-			}
-		}
+		removeCached(toRemove);
 	}
 
 	/**
@@ -177,12 +173,23 @@ public void clear() {
 			gitDirs = new ArrayList<>(repositoryCache.keySet());
 			repositoryCache.clear();
 		}
+		removeCached(gitDirs);
+	}
+
+	private void removeCached(List<File> gitDirs) {
 		IndexDiffCache cache = Activator.getDefault().getIndexDiffCache();
 		if (cache != null) {
 			for (File f : gitDirs) {
 				cache.remove(f);
 			}
 		}
+		CommitIdIndex commitIdIndex = Activator.getDefault()
+				.getCommitIdIndex();
+		if (commitIdIndex != null) {
+			for (File f : gitDirs) {
+				commitIdIndex.remove(f);
+			}
+		}
 	}
 
 }
@@ -14,7 +14,11 @@
 import java.util.List;
 
 import org.eclipse.core.runtime.Assert;
+import org.eclipse.egit.core.internal.CommitGraph;
+import org.eclipse.egit.core.internal.CommitGraphCache;
 import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.BranchConfig;
+import org.eclipse.jgit.lib.BranchTrackingStatus;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
@@ -22,6 +26,7 @@
 import org.eclipse.jgit.lib.RepositoryState;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.RevWalkUtils;
 import org.eclipse.jgit.revwalk.filter.RevFilter;
 import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
@@ -52,6 +57,17 @@ public static RevCommit getCommonAncestor(Repository repo,
 		Assert.isNotNull(commit1);
 		Assert.isNotNull(commit2);
 
+		CommitGraph graph = getCommitGraph(repo, commit1, commit2);
+		if (graph != null) {
+			ObjectId base = graph.getMergeBase(commit1, commit2);
+			if (base == null) {
+				return null;
+			}
+			try (RevWalk rw = new RevWalk(repo)) {
+				return rw.parseCommit(base);
+			}
+		}
+
 		try (RevWalk rw = new RevWalk(repo)) {
 			rw.setRetainBody(false);
 			rw.setRevFilter(RevFilter.MERGE_BASE);
@@ -72,6 +88,94 @@ public static RevCommit getCommonAncestor(Repository repo,
 		}
 	}
 
+	/**
+	 * Counts the commits reachable from one commit but not from the other, and
+	 * vice versa. Uses the cached commit graph of the repository if it
+	 * contains both commits, otherwise walks the commits down to their merge
+	 * base.
+	 *
+	 * @param repo
+	 *            repository containing the commits, cannot be null
+	 * @param commit1
+	 *            left commit id, cannot be null
+	 * @param commit2
+	 *            right commit id, cannot be null
+	 * @return an array with the number of commits reachable only from
+	 *         commit1, and the number of commits reachable only from commit2
+	 * @throws IOException
+	 */
+	public static int[] getAheadBehind(Repository repo, AnyObjectId commit1,
+			AnyObjectId commit2) throws IOException {
+		Assert.isNotNull(repo);
+		Assert.isNotNull(commit1);
+		Assert.isNotNull(commit2);
+
+		CommitGraph graph = getCommitGraph(repo, commit1, commit2);
+		if (graph != null) {
+			return graph.getAheadBehind(commit1, commit2);
+		}
+
+		try (RevWalk rw = new RevWalk(repo)) {
+			RevCommit left = rw.parseCommit(commit1);
+			RevCommit right = rw.parseCommit(commit2);
+			rw.setRevFilter(RevFilter.MERGE_BASE);
+			rw.markStart(left);
+			rw.markStart(right);
+			RevCommit base = rw.next();
+
+			rw.reset();
+			rw.setRevFilter(RevFilter.ALL);
+			int ahead = RevWalkUtils.count(rw, left, base);
+			int behind = RevWalkUtils.count(rw, right, base);
+			return new int[] { ahead, behind };
+		}
+	}
+
+	/**
+	 * Counts the commits a local branch is ahead of and behind its upstream
+	 * branch, like {@link BranchTrackingStatus#of(Repository, String)}, but
+	 * using the cached commit graph of the repository where possible.
+	 *
+	 * @param repo
+	 *            repository containing the branch, cannot be null
+	 * @param branchName
+	 *            name of the local branch, short or full
+	 * @return an array with the number of commits the branch is ahead and
+	 *         behind, or {@code null} if the branch has no upstream branch
+	 * @throws IOException
+	 */
+	public static int[] getBranchTrackingStatus(Repository repo,
+			String branchName) throws IOException {
+		String shortBranchName = Repository.shortenRefName(branchName);
+		BranchConfig branchConfig = new BranchConfig(repo.getConfig(),
+				shortBranchName);
+		String trackingBranch = branchConfig.getTrackingBranch();
+		if (trackingBranch == null) {
+			return null;
+		}
+		Ref tracking = repo.exactRef(trackingBranch);
+		Ref local = repo.exactRef(Constants.R_HEADS + shortBranchName);
+		if (tracking == null || tracking.getObjectId() == null
+				|| local == null || local.getObjectId() == null) {
+			return null;
+		}
+		return getAheadBehind(repo, local.getObjectId(),
+				tracking.getObjectId());
+	}
+
+	private static CommitGraph getCommitGraph(Repository repo,
+			AnyObjectId commit1, AnyObjectId commit2) {
+		Activator activator = Activator.getDefault();
+		CommitGraphCache cache = activator != null
+				? activator.getCommitGraphCache() : null;
+		CommitGraph graph = cache != null ? cache.getGraph(repo) : null;
+		if (graph != null && graph.contains(commit1)
+				&& graph.contains(commit2)) {
+			return graph;
+		}
+		return null;
+	}
+
 	/**
 	 * @param repository
 	 * @param path
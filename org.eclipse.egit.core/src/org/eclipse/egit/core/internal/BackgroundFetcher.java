@@ -0,0 +1,365 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.IPreferenceChangeListener;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.egit.core.Activator;
+import org.eclipse.egit.core.GitCorePreferences;
+import org.eclipse.egit.core.JobFamilies;
+import org.eclipse.egit.core.op.FetchOperation;
+import org.eclipse.egit.core.op.FetchScheduler;
+import org.eclipse.egit.core.securestorage.UserPasswordCredentials;
+import org.eclipse.equinox.security.storage.StorageException;
+import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.events.RefsChangedEvent;
+import org.eclipse.jgit.events.RefsChangedListener;
+import org.eclipse.jgit.errors.UnsupportedCredentialItem;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.CredentialItem;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.FetchResult;
+import org.eclipse.jgit.transport.RemoteConfig;
+import org.eclipse.jgit.transport.URIish;
+import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
+
+/**
+ * Periodically fetches the remotes of all configured repositories in the
+ * background, if enabled by {@link GitCorePreferences#core_backgroundFetch}.
+ * <p>
+ * Each remote is fetched at most every
+ * {@link GitCorePreferences#core_backgroundFetchInterval} minutes. The
+ * interval of a remote is doubled, up to a limit, every time a fetch brings
+ * nothing new or fails, and reset once a fetch updates a remote-tracking
+ * branch. All remotes due are fetched in one low-priority cycle through a
+ * {@link FetchScheduler} with tight connection limits. Credentials are taken
+ * from the secure store only; the user is never prompted.
+ * </p>
+ * <p>
+ * A fetch updates the refs of a repository one by one, each update firing a
+ * {@link RefsChangedEvent} on the fetching thread. Listeners wrapped by
+ * {@link #batch} don't receive the events fired by background fetches and
+ * instead a single event per repository at the end of the cycle. Events of
+ * ref changes made meanwhile by other threads, e.g. by a commit, are passed
+ * on at once.
+ * </p>
+ */
+public class BackgroundFetcher {
+
+	private static final int MAX_BACKOFF = 16;
+
+	private static final int TIMEOUT = 30;
+
+	private static final long MIN_DELAY = TimeUnit.MINUTES.toMillis(1);
+
+	private static final int MAX_FETCHES = 2;
+
+	private static final int MAX_FETCHES_PER_HOST = 1;
+
+	private static class RemoteState {
+
+		long next;
+
+		int backoff = 1;
+	}
+
+	private final Map<String, RemoteState> states = new HashMap<>();
+
+	/** Git directory of the repository fetched by the current thread */
+	private final ThreadLocal<File> fetching = new ThreadLocal<>();
+
+	// Guarded by itself
+	private final Map<Repository, Set<RefsChangedListener>> deferred = new LinkedHashMap<>();
+
+	private final IPreferenceChangeListener preferenceListener = event -> {
+		if (GitCorePreferences.core_backgroundFetch.equals(event.getKey())
+				|| GitCorePreferences.core_backgroundFetchInterval
+						.equals(event.getKey())) {
+			reschedule();
+		}
+	};
+
+	private final Job fetchJob = new Job(CoreText.BackgroundFetcher_jobName) {
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			if (!isEnabled()) {
+				return Status.OK_STATUS;
+			}
+			long delay = fetchDue(monitor);
+			if (!monitor.isCanceled() && isEnabled()) {
+				schedule(delay);
+			}
+			return Status.OK_STATUS;
+		}
+
+		@Override
+		public boolean belongsTo(Object family) {
+			return JobFamilies.BACKGROUND_FETCH == family
+					|| super.belongsTo(family);
+		}
+	};
+
+	/**
+	 * Creates the fetcher and starts it if background fetching is enabled.
+	 */
+	public BackgroundFetcher() {
+		fetchJob.setSystem(true);
+		fetchJob.setPriority(Job.DECORATE);
+		getPreferences().addPreferenceChangeListener(preferenceListener);
+		reschedule();
+	}
+
+	/**
+	 * Stops fetching.
+	 */
+	public void dispose() {
+		getPreferences().removePreferenceChangeListener(preferenceListener);
+		fetchJob.cancel();
+	}
+
+	/**
+	 * Wraps a listener such that it receives the {@link RefsChangedEvent}s
+	 * fired by background fetches only once per repository, after fetching.
+	 *
+	 * @param listener
+	 *            to wrap
+	 * @return the wrapping listener, to be registered instead of
+	 *         {@code listener}
+	 */
+	@NonNull
+	public RefsChangedListener batch(@NonNull RefsChangedListener listener) {
+		return event -> {
+			Repository repository = event.getRepository();
+			File gitDir = repository.getDirectory();
+			if (gitDir != null && gitDir.equals(fetching.get())) {
+				synchronized (deferred) {
+					deferred.computeIfAbsent(repository,
+							r -> new LinkedHashSet<>()).add(listener);
+				}
+				return;
+			}
+			listener.onRefsChanged(event);
+		};
+	}
+
+	private static IEclipsePreferences getPreferences() {
+		return InstanceScope.INSTANCE.getNode(Activator.getPluginId());
+	}
+
+	private static boolean isEnabled() {
+		return Platform.getPreferencesService().getBoolean(
+				Activator.getPluginId(),
+				GitCorePreferences.core_backgroundFetch, false, null);
+	}
+
+	private static long getInterval() {
+		int minutes = Platform.getPreferencesService().getInt(
+				Activator.getPluginId(),
+				GitCorePreferences.core_backgroundFetchInterval, 5, null);
+		return TimeUnit.MINUTES.toMillis(Math.max(1, minutes));
+	}
+
+	private void reschedule() {
+		fetchJob.cancel();
+		if (isEnabled()) {
+			fetchJob.schedule(getInterval());
+		}
+	}
+
+	/**
+	 * Fetches all remotes that are due.
+	 *
+	 * @param monitor
+	 * @return the delay until the next remote is due
+	 */
+	private long fetchDue(IProgressMonitor monitor) {
+		long interval = getInterval();
+		long now = System.currentTimeMillis();
+		Map<FetchOperation, RemoteState> due = new LinkedHashMap<>();
+		Set<String> seen = new HashSet<>();
+		for (String dir : Activator.getDefault().getRepositoryUtil()
+				.getConfiguredRepositories()) {
+			Repository repository;
+			List<RemoteConfig> remotes;
+			try {
+				repository = Activator.getDefault().getRepositoryCache()
+						.lookupRepository(new File(dir));
+				remotes = RemoteConfig
+						.getAllRemoteConfigs(repository.getConfig());
+			} catch (IOException | URISyntaxException e) {
+				continue;
+			}
+			for (RemoteConfig remote : remotes) {
+				if (remote.getURIs().isEmpty()
+						|| remote.getFetchRefSpecs().isEmpty()) {
+					continue;
+				}
+				String key = repository.getDirectory() + "\n" //$NON-NLS-1$
+						+ remote.getName();
+				seen.add(key);
+				RemoteState state = states.computeIfAbsent(key,
+						k -> new RemoteState());
+				if (state.next > now) {
+					continue;
+				}
+				FetchOperation operation = new BackgroundFetchOperation(
+						repository, remote);
+				operation.setCredentialsProvider(
+						getCredentialsProvider(remote.getURIs().get(0)));
+				due.put(operation, state);
+			}
+		}
+		// Forget remotes and repositories that are gone
+		states.keySet().retainAll(seen);
+
+		if (!due.isEmpty()) {
+			try {
+				FetchScheduler scheduler = new FetchScheduler(MAX_FETCHES,
+						MAX_FETCHES_PER_HOST);
+				for (FetchOperation operation : due.keySet()) {
+					scheduler.add(operation);
+				}
+				Map<FetchOperation, IStatus> results = scheduler.run(monitor);
+				now = System.currentTimeMillis();
+				for (Map.Entry<FetchOperation, RemoteState> entry : due
+						.entrySet()) {
+					FetchOperation operation = entry.getKey();
+					RemoteState state = entry.getValue();
+					IStatus status = results.get(operation);
+					if (status != null && status.matches(IStatus.CANCEL)) {
+						continue;
+					}
+					FetchResult result = operation.getOperationResult();
+					if (result != null
+							&& !result.getTrackingRefUpdates().isEmpty()) {
+						state.backoff = 1;
+					} else {
+						state.backoff = Math.min(MAX_BACKOFF,
+								state.backoff * 2);
+					}
+					state.next = now + interval * state.backoff;
+				}
+			} finally {
+				flushDeferred();
+			}
+		}
+
+		long next = Long.MAX_VALUE;
+		for (RemoteState state : states.values()) {
+			next = Math.min(next, state.next);
+		}
+		now = System.currentTimeMillis();
+		if (next == Long.MAX_VALUE) {
+			return interval;
+		}
+		return Math.max(MIN_DELAY, next - now);
+	}
+
+	private void flushDeferred() {
+		Map<Repository, Set<RefsChangedListener>> events;
+		synchronized (deferred) {
+			events = new LinkedHashMap<>(deferred);
+			deferred.clear();
+		}
+		for (Map.Entry<Repository, Set<RefsChangedListener>> entry : events
+				.entrySet()) {
+			RefsChangedEvent event = new RefsChangedEvent();
+			event.setRepository(entry.getKey());
+			for (RefsChangedListener listener : entry.getValue()) {
+				try {
+					listener.onRefsChanged(event);
+				} catch (RuntimeException e) {
+					Activator.logError(e.getMessage(), e);
+				}
+			}
+		}
+	}
+
+	private static CredentialsProvider getCredentialsProvider(URIish uri) {
+		try {
+			UserPasswordCredentials credentials = Activator.getDefault()
+					.getSecureStore().getCredentials(uri);
+			if (credentials != null) {
+				return new UsernamePasswordCredentialsProvider(
+						credentials.getUser(), credentials.getPassword());
+			}
+		} catch (StorageException | RuntimeException e) {
+			// Fetch without credentials
+		}
+		// Not null, which would make the fetch prompt the user
+		return new NoCredentialsProvider();
+	}
+
+	/**
+	 * A fetch marking the thread running it, so that the
+	 * {@link RefsChangedEvent}s it causes can be told apart.
+	 */
+	private class BackgroundFetchOperation extends FetchOperation {
+
+		private final File gitDir;
+
+		BackgroundFetchOperation(Repository repository, RemoteConfig remote) {
+			super(repository, remote, TIMEOUT, false);
+			gitDir = repository.getDirectory();
+		}
+
+		@Override
+		public void run(IProgressMonitor monitor)
+				throws InvocationTargetException {
+			fetching.set(gitDir);
+			try {
+				super.run(monitor);
+			} finally {
+				fetching.remove();
+			}
+		}
+	}
+
+	/**
+	 * Provides no credentials at all, without asking the user.
+	 */
+	private static class NoCredentialsProvider extends CredentialsProvider {
+
+		@Override
+		public boolean isInteractive() {
+			return false;
+		}
+
+		@Override
+		public boolean supports(CredentialItem... items) {
+			return true;
+		}
+
+		@Override
+		public boolean get(URIish uri, CredentialItem... items)
+				throws UnsupportedCredentialItem {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,368 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.annotations.Nullable;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdOwnerMap;
+import org.eclipse.jgit.util.IntList;
+
+/**
+ * The commit graph of a repository in primitive arrays: commit times, parent
+ * indexes and generation numbers, like the commit-graph file of C git.
+ * <p>
+ * The generation number of a commit is one more than the maximum generation
+ * number of its parents, so a commit can only reach commits with a smaller
+ * generation number. Processing commits by decreasing generation number lets
+ * merge-base and ahead/behind computations stop as soon as the answer is
+ * known, instead of walking down to the root commits when the commit times
+ * are skewed or the branches diverged long ago.
+ * </p>
+ * <p>
+ * A commit is only added after all its parents, so the ancestry of every
+ * commit {@link #contains(AnyObjectId) contained} in the graph is complete.
+ * This holds even if the graph has not caught up with the latest ref
+ * changes yet. All methods are thread-safe.
+ * </p>
+ */
+public class CommitGraph extends RepositoryIndex.Entry {
+
+	private static final byte LEFT = 1;
+
+	private static final byte RIGHT = 2;
+
+	private static final byte BOTH = LEFT | RIGHT;
+
+	private static final byte QUEUED = 4;
+
+	private static class Node extends ObjectIdOwnerMap.Entry {
+
+		final int index;
+
+		Node(AnyObjectId id, int index) {
+			super(id);
+			this.index = index;
+		}
+	}
+
+	// All fields guarded by this
+
+	private final ObjectIdOwnerMap<Node> nodes = new ObjectIdOwnerMap<>();
+
+	private final List<Node> commits = new ArrayList<>();
+
+	private final IntList times = new IntList();
+
+	private final IntList generations = new IntList();
+
+	/** Start of the parents of each commit in {@link #parents}, plus end */
+	private final IntList parentStarts = new IntList();
+
+	private final IntList parents = new IntList();
+
+	CommitGraph() {
+		parentStarts.add(0);
+	}
+
+	/**
+	 * @return the number of commits in the graph
+	 */
+	public synchronized int size() {
+		return commits.size();
+	}
+
+	@Override
+	protected boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * @param id
+	 *            of a commit
+	 * @return whether the commit and hence all its ancestors are in the graph
+	 */
+	public synchronized boolean contains(@NonNull AnyObjectId id) {
+		return nodes.contains(id);
+	}
+
+	/**
+	 * Adds a commit whose parents have all been added already. Parents not in
+	 * the graph are ignored.
+	 *
+	 * @param id
+	 *            of the commit
+	 * @param time
+	 *            commit time of the commit
+	 * @param parentIds
+	 *            of the commit
+	 */
+	synchronized void add(AnyObjectId id, int time, AnyObjectId... parentIds) {
+		if (nodes.contains(id)) {
+			return;
+		}
+		int generation = 0;
+		for (AnyObjectId parentId : parentIds) {
+			Node parent = nodes.get(parentId);
+			if (parent != null) {
+				parents.add(parent.index);
+				generation = Math.max(generation,
+						generations.get(parent.index));
+			}
+		}
+		Node node = new Node(id, commits.size());
+		nodes.add(node);
+		commits.add(node);
+		times.add(time);
+		generations.add(generation + 1);
+		parentStarts.add(parents.size());
+	}
+
+	/**
+	 * Computes a merge base of two commits. If there are several, one with
+	 * the highest generation number is returned.
+	 *
+	 * @param a
+	 *            first commit, must be {@link #contains(AnyObjectId)
+	 *            contained} in the graph
+	 * @param b
+	 *            second commit, must be {@link #contains(AnyObjectId)
+	 *            contained} in the graph
+	 * @return the merge base, or {@code null} if the commits have no common
+	 *         ancestor
+	 * @throws IllegalArgumentException
+	 *             if one of the commits is not in the graph
+	 */
+	@Nullable
+	public synchronized ObjectId getMergeBase(@NonNull AnyObjectId a,
+			@NonNull AnyObjectId b) {
+		int base = paint(indexOf(a), indexOf(b), null);
+		return base >= 0 ? commits.get(base).copy() : null;
+	}
+
+	/**
+	 * Counts the commits reachable from one commit but not from the other,
+	 * like {@code git rev-list --left-right --count a...b}.
+	 *
+	 * @param a
+	 *            first commit, must be {@link #contains(AnyObjectId)
+	 *            contained} in the graph
+	 * @param b
+	 *            second commit, must be {@link #contains(AnyObjectId)
+	 *            contained} in the graph
+	 * @return an array with the number of commits reachable only from
+	 *         {@code a}, and the number of commits reachable only from
+	 *         {@code b}
+	 * @throws IllegalArgumentException
+	 *             if one of the commits is not in the graph
+	 */
+	@NonNull
+	public synchronized int[] getAheadBehind(@NonNull AnyObjectId a,
+			@NonNull AnyObjectId b) {
+		int[] counts = new int[2];
+		paint(indexOf(a), indexOf(b), counts);
+		return counts;
+	}
+
+	private int indexOf(AnyObjectId id) {
+		Node node = nodes.get(id);
+		if (node == null) {
+			throw new IllegalArgumentException(id.name());
+		}
+		return node.index;
+	}
+
+	/**
+	 * Paints the ancestors of a and b in order of decreasing generation
+	 * number. Because all children of a commit are processed before the
+	 * commit itself, its flags are final when it is taken from the queue.
+	 *
+	 * @param counts
+	 *            to count the commits reachable from only one side in, or
+	 *            {@code null} to stop at the first merge base
+	 * @return the first merge base found, or -1
+	 */
+	private int paint(int a, int b, int[] counts) {
+		if (a == b) {
+			return a;
+		}
+		byte[] flags = new byte[commits.size()];
+		Queue queue = new Queue();
+		flags[a] = LEFT | QUEUED;
+		flags[b] = RIGHT | QUEUED;
+		queue.add(a);
+		queue.add(b);
+		// Number of queued commits not known to be reachable from both
+		int open = 2;
+		while (!queue.isEmpty() && (counts == null || open > 0)) {
+			int commit = queue.remove();
+			int side = flags[commit] & BOTH;
+			if (side == BOTH) {
+				if (counts == null) {
+					return commit;
+				}
+			} else {
+				open--;
+				if (counts != null) {
+					counts[side == LEFT ? 0 : 1]++;
+				}
+			}
+			int end = parentStarts.get(commit + 1);
+			for (int i = parentStarts.get(commit); i < end; i++) {
+				int parent = parents.get(i);
+				int old = flags[parent];
+				if ((old & QUEUED) == 0) {
+					flags[parent] = (byte) (side | QUEUED);
+					queue.add(parent);
+					if (side != BOTH) {
+						open++;
+					}
+				} else if ((old & side) != side) {
+					flags[parent] = (byte) (old | side);
+					if ((old & BOTH) != BOTH
+							&& ((old | side) & BOTH) == BOTH) {
+						open--;
+					}
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Binary heap of commit indexes, highest generation number first, then
+	 * newest commit time.
+	 */
+	private class Queue {
+
+		private int[] heap = new int[32];
+
+		private int size;
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		void add(int commit) {
+			if (size == heap.length) {
+				int[] grown = new int[size * 2];
+				System.arraycopy(heap, 0, grown, 0, size);
+				heap = grown;
+			}
+			int i = size++;
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (!before(commit, heap[parent])) {
+					break;
+				}
+				heap[i] = heap[parent];
+				i = parent;
+			}
+			heap[i] = commit;
+		}
+
+		int remove() {
+			int result = heap[0];
+			int last = heap[--size];
+			int i = 0;
+			for (;;) {
+				int child = 2 * i + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && before(heap[child + 1], heap[child])) {
+					child++;
+				}
+				if (!before(heap[child], last)) {
+					break;
+				}
+				heap[i] = heap[child];
+				i = child;
+			}
+			heap[i] = last;
+			return result;
+		}
+
+		private boolean before(int x, int y) {
+			int gx = generations.get(x);
+			int gy = generations.get(y);
+			if (gx != gy) {
+				return gx > gy;
+			}
+			return times.get(x) > times.get(y);
+		}
+	}
+
+	/**
+	 * Writes the commits in the order they were added, i.e. parents before
+	 * children. Generation numbers are not written; {@link #read} computes
+	 * them again. The graph is copied first so that it isn't locked while
+	 * writing.
+	 */
+	void write(DataOutput out) throws IOException {
+		byte[] ids;
+		int[] commitTimes;
+		int[] starts;
+		int[] parentIndexes;
+		synchronized (this) {
+			int n = commits.size();
+			ids = new byte[n * Constants.OBJECT_ID_LENGTH];
+			commitTimes = new int[n];
+			starts = new int[n + 1];
+			for (int i = 0; i < n; i++) {
+				commits.get(i).copyRawTo(ids, i * Constants.OBJECT_ID_LENGTH);
+				commitTimes[i] = times.get(i);
+				starts[i] = parentStarts.get(i);
+			}
+			starts[n] = parentStarts.get(n);
+			parentIndexes = new int[parents.size()];
+			for (int i = 0; i < parentIndexes.length; i++) {
+				parentIndexes[i] = parents.get(i);
+			}
+		}
+		out.writeInt(commitTimes.length);
+		for (int i = 0; i < commitTimes.length; i++) {
+			out.write(ids, i * Constants.OBJECT_ID_LENGTH,
+					Constants.OBJECT_ID_LENGTH);
+			out.writeInt(commitTimes[i]);
+			out.writeInt(starts[i + 1] - starts[i]);
+			for (int j = starts[i]; j < starts[i + 1]; j++) {
+				out.writeInt(parentIndexes[j]);
+			}
+		}
+	}
+
+	synchronized void read(DataInput in) throws IOException {
+		byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+		int n = in.readInt();
+		for (int i = 0; i < n; i++) {
+			in.readFully(raw);
+			ObjectId id = ObjectId.fromRaw(raw);
+			int time = in.readInt();
+			AnyObjectId[] parentIds = new AnyObjectId[in.readInt()];
+			for (int j = 0; j < parentIds.length; j++) {
+				int parent = in.readInt();
+				if (parent < 0 || parent >= commits.size()) {
+					throw new IOException(
+							"Invalid parent index " + parent); //$NON-NLS-1$
+				}
+				parentIds[j] = commits.get(parent);
+			}
+			add(id, time, parentIds);
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.egit.core.JobFamilies;
+import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.annotations.Nullable;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * Workspace-wide cache of the {@link CommitGraph commit graphs} of
+ * repositories.
+ * <p>
+ * Graphs are built in the background on first use, persisted in the plug-in
+ * state location and updated incrementally from the new ref tips whenever
+ * JGit reports that the refs of a repository changed, e.g. after a fetch or a
+ * commit. Shallow repositories are not cached, since their history may still
+ * grow below the shallow commits.
+ * </p>
+ */
+public class CommitGraphCache extends RepositoryIndex<CommitGraph> {
+
+	private static final int FILE_MAGIC = 0x45474347; // "EGCG"
+
+	private static final int FILE_VERSION = 1;
+
+	private static final String SHALLOW = "shallow"; //$NON-NLS-1$
+
+	/**
+	 * Creates the cache and starts tracking ref changes.
+	 *
+	 * @param storageDir
+	 *            directory to persist the graphs in, or {@code null} to keep
+	 *            them in memory only
+	 */
+	public CommitGraphCache(@Nullable File storageDir) {
+		super(CoreText.CommitGraphCache_updating, JobFamilies.COMMIT_GRAPH,
+				CoreText.CommitGraphCache_updateFailed,
+				CoreText.CommitGraphCache_saveFailed, storageDir, FILE_MAGIC,
+				FILE_VERSION);
+	}
+
+	/**
+	 * Retrieves the commit graph of a repository. The graph may not contain
+	 * the most recent commits yet; callers must check that it
+	 * {@link CommitGraph#contains(org.eclipse.jgit.lib.AnyObjectId) contains}
+	 * the commits they are interested in.
+	 *
+	 * @param repository
+	 *            to get the graph of
+	 * @return the graph, or {@code null} if the repository is not cached yet,
+	 *         in which case it is scheduled for caching
+	 */
+	@Nullable
+	public CommitGraph getGraph(@NonNull Repository repository) {
+		return getEntry(repository);
+	}
+
+	@Override
+	protected boolean canIndex(File gitDir) {
+		return !new File(gitDir, SHALLOW).exists();
+	}
+
+	@Override
+	protected CommitGraph update(Repository repository, CommitGraph current,
+			Set<ObjectId> tips, IProgressMonitor monitor) throws IOException {
+		CommitGraph graph = current != null ? current : new CommitGraph();
+		try (RevWalk walk = new RevWalk(repository)) {
+			walk.setRetainBody(false);
+			// Parents before children
+			walk.sort(RevSort.TOPO);
+			walk.sort(RevSort.REVERSE, true);
+			boolean started = false;
+			for (ObjectId tip : tips) {
+				if (!graph.contains(tip)) {
+					walk.markStart(walk.parseCommit(tip));
+					started = true;
+				}
+			}
+			if (!started) {
+				return graph;
+			}
+			for (ObjectId tip : graph.getTips()) {
+				try {
+					walk.markUninteresting(walk.parseCommit(tip));
+				} catch (MissingObjectException e) {
+					// Pruned; commits already in the graph are skipped
+				}
+			}
+			// Commits are added to the live graph; the ancestry of each one
+			// is complete when it is added
+			for (RevCommit commit : walk) {
+				if (monitor.isCanceled()) {
+					break;
+				}
+				graph.add(commit, commit.getCommitTime(), commit.getParents());
+			}
+		}
+		return graph;
+	}
+
+	@Override
+	protected CommitGraph read(DataInput in) throws IOException {
+		CommitGraph graph = new CommitGraph();
+		graph.read(in);
+		return graph;
+	}
+
+	@Override
+	protected void write(CommitGraph graph, DataOutput out)
+			throws IOException {
+		graph.write(out);
+	}
+}
@@ -0,0 +1,401 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.egit.core.Activator;
+import org.eclipse.egit.core.JobFamilies;
+import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.events.ListenerHandle;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.util.IntList;
+import org.eclipse.jgit.util.NB;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Workspace-wide index telling which repositories may contain a commit with a
+ * given full or abbreviated id.
+ * <p>
+ * For each repository a bloom filter over the first 32 bits of the ids of all
+ * commits reachable from its refs is kept. Looking up an id therefore costs
+ * one filter probe per repository instead of an object lookup, which may
+ * have to open cold pack indexes. Filters are built in the background on
+ * first use and updated incrementally from the new ref tips whenever JGit
+ * reports that the refs of a repository changed, e.g. after a fetch.
+ * Repositories whose filter is not up to date are always reported as
+ * candidates, so a lookup never misses a commit; callers must still verify
+ * that a candidate actually contains the commit.
+ * </p>
+ */
+public class CommitIdIndex {
+
+	/**
+	 * Minimum number of hex digits an abbreviated id must have to be looked
+	 * up in the filters.
+	 */
+	public static final int MIN_ABBREVIATION_LENGTH = 8;
+
+	private static final int BITS_PER_COMMIT = 8;
+
+	private static final int HASH_COUNT = 5;
+
+	private static final int MIN_BITS = 1 << 13;
+
+	private static final int MAX_BITS = 1 << 27;
+
+	private final Map<File, Filter> filters = new ConcurrentHashMap<>();
+
+	/** Number of ref changes seen per tracked repository. */
+	private final Map<File, AtomicLong> changes = new ConcurrentHashMap<>();
+
+	private final Set<Repository> pending = new LinkedHashSet<>();
+
+	private final ListenerHandle refsChangedListener;
+
+	/**
+	 * Keys of the commits of a filter being rebuilt; only used by the update
+	 * job and reused for all repositories it rebuilds in one run.
+	 */
+	private IntList keys;
+
+	private final Job updateJob = new Job(CoreText.CommitIdIndex_updating) {
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			try {
+				Repository repository;
+				while ((repository = nextPending()) != null) {
+					if (monitor.isCanceled()) {
+						return Status.CANCEL_STATUS;
+					}
+					try {
+						update(repository);
+					} catch (IOException | RuntimeException e) {
+						// Leave it unindexed; it stays a candidate for all ids
+						filters.remove(getKey(repository));
+						Activator.logError(
+								NLS.bind(CoreText.CommitIdIndex_updateFailed,
+										repository.getDirectory()),
+								e);
+					}
+				}
+				return Status.OK_STATUS;
+			} finally {
+				keys = null;
+			}
+		}
+
+		@Override
+		public boolean belongsTo(Object family) {
+			return JobFamilies.COMMIT_ID_INDEX == family
+					|| super.belongsTo(family);
+		}
+	};
+
+	/**
+	 * Creates the index and starts tracking ref changes.
+	 */
+	public CommitIdIndex() {
+		updateJob.setSystem(true);
+		updateJob.setPriority(Job.DECORATE);
+		refsChangedListener = Repository.getGlobalListenerList()
+				.addRefsChangedListener(event -> {
+					Repository repository = event.getRepository();
+					File gitDir = getKey(repository);
+					AtomicLong count = gitDir != null ? changes.get(gitDir)
+							: null;
+					if (count != null) {
+						count.incrementAndGet();
+						schedule(repository);
+					}
+				});
+	}
+
+	/**
+	 * Determines the repositories which may contain a commit.
+	 *
+	 * @param repositories
+	 *            to consider
+	 * @param id
+	 *            full or abbreviated id of the commit, in hex
+	 * @return the repositories among {@code repositories} which may contain
+	 *         the commit, in the original order; repositories not indexed yet
+	 *         are scheduled for indexing and included
+	 */
+	@NonNull
+	public List<Repository> getCandidates(
+			@NonNull Collection<Repository> repositories, @NonNull String id) {
+		List<Repository> result = new ArrayList<>();
+		int key = 0;
+		boolean probe = id.length() >= MIN_ABBREVIATION_LENGTH;
+		if (probe) {
+			try {
+				key = Integer.parseUnsignedInt(
+						id.substring(0, MIN_ABBREVIATION_LENGTH), 16);
+			} catch (NumberFormatException e) {
+				probe = false;
+			}
+		}
+		for (Repository repository : repositories) {
+			File gitDir = getKey(repository);
+			Filter filter = gitDir != null ? filters.get(gitDir) : null;
+			if (filter == null) {
+				schedule(repository);
+				result.add(repository);
+			} else if (!probe || !isCurrent(gitDir, filter)
+					|| filter.mightContain(key)) {
+				result.add(repository);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Drops the filter of a repository, e.g. when it is removed from the
+	 * {@link org.eclipse.egit.core.RepositoryCache RepositoryCache}. It is
+	 * indexed again if it is looked up later on.
+	 *
+	 * @param gitDir
+	 *            of the repository to drop the filter of
+	 */
+	public void remove(@NonNull File gitDir) {
+		File key = gitDir.getAbsoluteFile();
+		synchronized (pending) {
+			pending.removeIf(repository -> key.equals(getKey(repository)));
+		}
+		changes.remove(key);
+		filters.remove(key);
+	}
+
+	/**
+	 * Stops tracking ref changes and drops all filters.
+	 */
+	public void dispose() {
+		refsChangedListener.remove();
+		updateJob.cancel();
+		synchronized (pending) {
+			pending.clear();
+		}
+		filters.clear();
+		changes.clear();
+	}
+
+	private boolean isCurrent(File gitDir, Filter filter) {
+		AtomicLong count = changes.get(gitDir);
+		return count != null && count.get() == filter.changes;
+	}
+
+	private void schedule(Repository repository) {
+		File gitDir = getKey(repository);
+		if (gitDir == null) {
+			return;
+		}
+		changes.computeIfAbsent(gitDir, dir -> new AtomicLong());
+		synchronized (pending) {
+			pending.add(repository);
+		}
+		updateJob.schedule();
+	}
+
+	private Repository nextPending() {
+		synchronized (pending) {
+			if (pending.isEmpty()) {
+				return null;
+			}
+			Repository repository = pending.iterator().next();
+			pending.remove(repository);
+			return repository;
+		}
+	}
+
+	private static File getKey(Repository repository) {
+		File gitDir = repository.getDirectory();
+		return gitDir != null ? gitDir.getAbsoluteFile() : null;
+	}
+
+	private void update(Repository repository) throws IOException {
+		File gitDir = getKey(repository);
+		AtomicLong count = gitDir != null ? changes.get(gitDir) : null;
+		if (count == null) {
+			return;
+		}
+		// Read the change count before the refs so that a concurrent ref
+		// change leaves the filter marked as stale
+		long seen = count.get();
+		Filter filter = filters.get(gitDir);
+		if (filter != null && filter.changes == seen) {
+			return;
+		}
+		Set<ObjectId> tips = getTips(repository);
+		if (filter != null) {
+			// Adding commits to the live filter only adds false positives
+			// until the tips are updated
+			walk(repository, tips, filter.tips, filter::add);
+			if (filter.count <= filter.capacity()
+					|| filter.bits.length * 64 >= MAX_BITS) {
+				filter.tips = tips;
+				filter.changes = seen;
+				return;
+			}
+		}
+		// The number of commits is only known after the walk, so collect
+		// their keys first and size the filter from their count
+		if (keys == null) {
+			keys = new IntList(1024);
+		} else {
+			keys.clear();
+		}
+		walk(repository, tips, Collections.<ObjectId> emptySet(), keys::add);
+		Filter rebuilt = new Filter(getBitCount(keys.size()));
+		for (int i = 0; i < keys.size(); i++) {
+			rebuilt.add(keys.get(i));
+		}
+		rebuilt.tips = tips;
+		rebuilt.changes = seen;
+		filters.put(gitDir, rebuilt);
+	}
+
+	/**
+	 * Determines the size of a filter leaving room for at least as many
+	 * commits again as it is built with.
+	 *
+	 * @param count
+	 *            number of commits
+	 * @return number of bits of the filter, a power of two
+	 */
+	private static int getBitCount(int count) {
+		long bitCount = Long.highestOneBit(
+				Math.max(1, (long) count * BITS_PER_COMMIT * 2)) * 2;
+		return (int) Math.min(MAX_BITS, Math.max(MIN_BITS, bitCount));
+	}
+
+	private static void walk(Repository repository, Set<ObjectId> tips,
+			Set<ObjectId> known, IntConsumer keyConsumer) throws IOException {
+		try (RevWalk walk = new RevWalk(repository)) {
+			walk.setRetainBody(false);
+			for (ObjectId tip : tips) {
+				if (!known.contains(tip)) {
+					walk.markStart(walk.parseCommit(tip));
+				}
+			}
+			for (ObjectId tip : known) {
+				try {
+					walk.markUninteresting(walk.parseCommit(tip));
+				} catch (MissingObjectException e) {
+					// Pruned; the walk may cover some known commits again
+				}
+			}
+			byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+			for (RevCommit commit : walk) {
+				commit.copyRawTo(raw, 0);
+				keyConsumer.accept(NB.decodeInt32(raw, 0));
+			}
+		}
+	}
+
+	private static Set<ObjectId> getTips(Repository repository)
+			throws IOException {
+		Set<ObjectId> tips = new HashSet<>();
+		try (RevWalk walk = new RevWalk(repository)) {
+			for (Ref ref : repository.getRefDatabase().getRefs(RefDatabase.ALL)
+					.values()) {
+				ObjectId id = ref.getObjectId();
+				if (id == null) {
+					continue;
+				}
+				try {
+					RevObject object = walk.peel(walk.parseAny(id));
+					if (object instanceof RevCommit) {
+						tips.add(object.copy());
+					}
+				} catch (MissingObjectException
+						| IncorrectObjectTypeException e) {
+					// Skip broken refs
+				}
+			}
+		}
+		return tips;
+	}
+
+	/**
+	 * Bloom filter over the first 32 bits of commit ids.
+	 */
+	private static class Filter {
+
+		final long[] bits;
+
+		final int mask;
+
+		int count;
+
+		volatile long changes = -1;
+
+		volatile Set<ObjectId> tips = Collections.emptySet();
+
+		Filter(int bitCount) {
+			bits = new long[bitCount / 64];
+			mask = bitCount - 1;
+		}
+
+		int capacity() {
+			return (mask + 1) / BITS_PER_COMMIT;
+		}
+
+		synchronized void add(int key) {
+			int h2 = hash2(key);
+			for (int i = 0; i < HASH_COUNT; i++) {
+				int bit = (key + i * h2) & mask;
+				bits[bit >>> 6] |= 1L << bit;
+			}
+			count++;
+		}
+
+		synchronized boolean mightContain(int key) {
+			int h2 = hash2(key);
+			for (int i = 0; i < HASH_COUNT; i++) {
+				int bit = (key + i * h2) & mask;
+				if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static int hash2(int key) {
+			int h = key * 0x9E3779B9;
+			return (h ^ (h >>> 16)) | 1;
+		}
+	}
+}
@@ -52,6 +52,9 @@ public class CoreText extends NLS {
 	/** */
 	public static String AssumeUnchangedOperation_writingIndex;
 
+	/** */
+	public static String BackgroundFetcher_jobName;
+
 	/** */
 	public static String CherryPickOperation_cherryPicking;
 
@@ -61,6 +64,21 @@ public class CoreText extends NLS {
 	/** */
 	public static String CommitFileRevision_pathNotIn;
 
+	/** */
+	public static String CommitGraphCache_saveFailed;
+
+	/** */
+	public static String CommitGraphCache_updateFailed;
+
+	/** */
+	public static String CommitGraphCache_updating;
+
+	/** */
+	public static String CommitIdIndex_updateFailed;
+
+	/** */
+	public static String CommitIdIndex_updating;
+
 	/** */
 	public static String CommitOperation_ParseCherryPickCommitFailed;
 
@@ -142,6 +160,18 @@ public class CoreText extends NLS {
 	/** */
 	public static String DisconnectProviderOperation_disconnecting;
 
+	/** */
+	public static String FetchScheduler_taskName;
+
+	/** */
+	public static String TransportScheduler_jobName;
+
+	/** */
+	public static String TransportScheduler_subTask;
+
+	/** */
+	public static String BlobPrefetcher_jobName;
+
 	/** */
 	public static String BlobStorage_blobNotFound;
 
@@ -202,6 +232,12 @@ public class CoreText extends NLS {
 	/** */
 	public static String RepositoryFinder_finding;
 
+	/** */
+	public static String RepositoryMappingSnapshot_saveFailed;
+
+	/** */
+	public static String RepositoryMappingSnapshot_saving;
+
 	/** */
 	public static String RepositoryPathChecker_errAbsoluteRepoPath;
 
@@ -412,6 +448,15 @@ public class CoreText extends NLS {
 	/** */
 	public static String OperationNotYetExecuted;
 
+	/** */
+	public static String PathHistoryIndex_saveFailed;
+
+	/** */
+	public static String PathHistoryIndex_updateFailed;
+
+	/** */
+	public static String PathHistoryIndex_updating;
+
 	/** */
 	public static String ProjectReference_InvalidTokensCount;
 
@@ -0,0 +1,336 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.annotations.Nullable;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.URIish;
+
+/**
+ * Workspace-wide cache of the refs advertised by remote repositories, shared
+ * by all {@link org.eclipse.egit.core.op.ListRemoteOperation
+ * ListRemoteOperation}s.
+ * <p>
+ * Wizards typically list the refs of the same remote several times in a row,
+ * for instance on the branch selection page of the clone wizard and again in
+ * the ref specification page, each time paying for a full ref advertisement
+ * and possibly an SSH handshake. Listings are therefore kept for
+ * {@link #MAX_AGE} per local repository, URI and user, and concurrent
+ * requests for the same key share a single listing. The key is captured when
+ * a listing is requested and does not depend on the mutable state of
+ * credentials providers.
+ * </p>
+ * <p>
+ * A listing runs in a system job. Callers waiting for it may be canceled
+ * through their progress monitor or by interrupting their thread; the
+ * listing itself is canceled only when nobody waits for it anymore. Failed
+ * listings are not cached. Listings of URIs without host, i.e. of local
+ * repositories, are cheap and are neither cached nor shared.
+ * </p>
+ */
+public class RemoteRefsCache {
+
+	/** Maximum age of a cached listing in milliseconds */
+	private static final long MAX_AGE = TimeUnit.MINUTES.toMillis(1);
+
+	private static final int MAX_ENTRIES = 20;
+
+	private static final long POLL_INTERVAL = 100;
+
+	/**
+	 * Lists the refs of a remote repository.
+	 */
+	@FunctionalInterface
+	public interface Loader {
+
+		/**
+		 * @return the refs advertised by the remote repository
+		 * @throws Exception
+		 *             if listing fails
+		 */
+		Collection<Ref> load() throws Exception;
+	}
+
+	/**
+	 * The refs of a remote repository and when they were listed.
+	 */
+	public static class Listing {
+
+		private final Collection<Ref> refs;
+
+		private final long time;
+
+		Listing(Collection<Ref> refs, long time) {
+			this.refs = refs;
+			this.time = time;
+		}
+
+		/**
+		 * @return the advertised refs
+		 */
+		public Collection<Ref> getRefs() {
+			return refs;
+		}
+
+		/**
+		 * @return the time in milliseconds when listing started
+		 */
+		public long getTime() {
+			return time;
+		}
+	}
+
+	private static class Key {
+
+		private final File gitDir;
+
+		private final String uri;
+
+		private final String user;
+
+		Key(File gitDir, String uri, String user) {
+			this.gitDir = gitDir;
+			this.uri = uri;
+			this.user = user;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return Objects.equals(gitDir, other.gitDir)
+					&& uri.equals(other.uri)
+					&& Objects.equals(user, other.user);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(gitDir, uri, user);
+		}
+	}
+
+	private class Request {
+
+		final Key key;
+
+		final long time = System.currentTimeMillis();
+
+		// All fields below guarded by RemoteRefsCache.this
+
+		Job job;
+
+		int waiters;
+
+		boolean done;
+
+		Listing listing;
+
+		Throwable error;
+
+		Request(Key key) {
+			this.key = key;
+		}
+	}
+
+	// Guarded by this
+	private final Map<Key, Request> requests = new LinkedHashMap<>(16, 0.75f,
+			true);
+
+	/**
+	 * Lists the refs of a remote repository, or returns a recent listing.
+	 *
+	 * @param repository
+	 *            the local repository used for listing, or {@code null}
+	 * @param uri
+	 *            of the remote repository
+	 * @param user
+	 *            the user the listing authenticates as, or {@code null} if
+	 *            it is given by the URI or taken from the secure store for
+	 *            the URI
+	 * @param refresh
+	 *            whether to list again even if a recent listing is cached;
+	 *            a listing still in progress is shared nevertheless
+	 * @param loader
+	 *            to list the refs if needed
+	 * @param monitor
+	 *            for cancellation, may be {@code null}
+	 * @return the listing
+	 * @throws InvocationTargetException
+	 *             if listing fails
+	 * @throws InterruptedException
+	 *             if the monitor was canceled or the thread interrupted
+	 */
+	@NonNull
+	public Listing list(@Nullable Repository repository, @NonNull URIish uri,
+			@Nullable String user, boolean refresh,
+			@NonNull Loader loader, @Nullable IProgressMonitor monitor)
+			throws InvocationTargetException, InterruptedException {
+		if (uri.getHost() == null) {
+			long time = System.currentTimeMillis();
+			try {
+				return new Listing(loader.load(), time);
+			} catch (Exception e) {
+				throw new InvocationTargetException(e);
+			}
+		}
+		Key key = new Key(repository != null ? repository.getDirectory() : null,
+				uri.toString(), user != null ? user : uri.getUser());
+		IProgressMonitor progress = monitor != null ? monitor
+				: new NullProgressMonitor();
+		Request request;
+		synchronized (this) {
+			request = requests.get(key);
+			if (request != null && request.done && (refresh
+					|| System.currentTimeMillis() - request.time > MAX_AGE)) {
+				request = null;
+			}
+			if (request == null) {
+				request = start(key, loader);
+			}
+			request.waiters++;
+		}
+		try {
+			return await(request, progress);
+		} finally {
+			synchronized (this) {
+				if (--request.waiters == 0 && !request.done) {
+					// Nobody is interested anymore
+					if (requests.get(key) == request) {
+						requests.remove(key);
+					}
+					request.job.cancel();
+					Thread thread = request.job.getThread();
+					if (thread != null) {
+						thread.interrupt();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Forgets the cached listings of a remote repository, for instance
+	 * because its refs were updated by a push.
+	 *
+	 * @param uri
+	 *            of the remote repository
+	 */
+	public synchronized void invalidate(@NonNull URIish uri) {
+		String text = uri.toString();
+		Iterator<Request> iterator = requests.values().iterator();
+		while (iterator.hasNext()) {
+			Request request = iterator.next();
+			// Also running ones, which may have missed the update
+			if (request.key.uri.equals(text)) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Forgets all cached listings and cancels running ones.
+	 */
+	public synchronized void dispose() {
+		for (Request request : requests.values()) {
+			if (!request.done) {
+				request.job.cancel();
+			}
+		}
+		requests.clear();
+	}
+
+	private Request start(Key key, Loader loader) {
+		Request request = new Request(key);
+		request.job = new Job(CoreText.ListRemoteOperation_title) {
+
+			@Override
+			protected IStatus run(IProgressMonitor m) {
+				Collection<Ref> refs = null;
+				Throwable error = null;
+				try {
+					refs = loader.load();
+				} catch (Exception e) {
+					error = e;
+				}
+				finish(request, refs, error);
+				// Don't leave an interrupt from abandoning on the pool thread
+				Thread.interrupted();
+				return Status.OK_STATUS;
+			}
+		};
+		request.job.setSystem(true);
+		requests.put(key, request);
+		trim();
+		request.job.schedule();
+		return request;
+	}
+
+	private synchronized void finish(Request request, Collection<Ref> refs,
+			Throwable error) {
+		request.done = true;
+		if (refs != null) {
+			request.listing = new Listing(refs, request.time);
+		} else {
+			request.error = error != null ? error
+					: new IllegalStateException("No refs listed"); //$NON-NLS-1$
+			if (requests.get(request.key) == request) {
+				requests.remove(request.key);
+			}
+		}
+		notifyAll();
+	}
+
+	private synchronized Listing await(Request request,
+			IProgressMonitor monitor)
+			throws InvocationTargetException, InterruptedException {
+		while (!request.done) {
+			if (monitor.isCanceled()) {
+				throw new InterruptedException();
+			}
+			wait(POLL_INTERVAL);
+		}
+		if (request.error != null) {
+			throw new InvocationTargetException(request.error);
+		}
+		return request.listing;
+	}
+
+	private void trim() {
+		Iterator<Request> iterator = requests.values().iterator();
+		int excess = requests.size() - MAX_ENTRIES;
+		while (excess > 0 && iterator.hasNext()) {
+			// Least recently used first; running requests stay
+			if (iterator.next().done) {
+				iterator.remove();
+				excess--;
+			}
+		}
+	}
+}
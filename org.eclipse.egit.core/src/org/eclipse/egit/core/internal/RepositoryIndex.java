@@ -0,0 +1,453 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal;
+
+import java.io.BufferedInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.egit.core.Activator;
+import org.eclipse.egit.core.internal.util.AtomicFileWriter;
+import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.annotations.Nullable;
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.events.ListenerHandle;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Base class of workspace-wide indexes over the commits of repositories,
+ * which are built in the background and updated whenever JGit reports that
+ * the refs of a repository changed.
+ * <p>
+ * A repository is indexed the first time its index is requested; lookups
+ * never wait for indexing. The index of a repository covers the commits
+ * reachable from HEAD, the branches, the remote-tracking branches and the
+ * tags. All repositories are updated one after the other in a single system
+ * job, so only one update runs at a time. Indexes may be persisted in a
+ * directory, one file per repository, which is replaced atomically after
+ * each update.
+ * </p>
+ *
+ * @param <T>
+ *            type of the index of one repository
+ */
+public abstract class RepositoryIndex<T extends RepositoryIndex.Entry> {
+
+	private static final String[] TIP_PREFIXES = { Constants.R_HEADS,
+			Constants.R_REMOTES, Constants.R_TAGS };
+
+	/**
+	 * The index of one repository.
+	 */
+	public abstract static class Entry {
+
+		volatile Set<ObjectId> tips = Collections.emptySet();
+
+		volatile long changes = -1;
+
+		/**
+		 * @return the ref tips the index was last updated from; the commits
+		 *         reachable from them are covered by the index
+		 */
+		@NonNull
+		public Set<ObjectId> getTips() {
+			return tips;
+		}
+
+		/**
+		 * @return whether the index contains no commits yet
+		 */
+		protected abstract boolean isEmpty();
+	}
+
+	private final File storageDir;
+
+	private final int fileMagic;
+
+	private final int fileVersion;
+
+	private final String updateFailedMessage;
+
+	private final String saveFailedMessage;
+
+	private final Map<File, T> entries = new ConcurrentHashMap<>();
+
+	/** Number of ref changes seen per tracked repository. */
+	private final Map<File, AtomicLong> changes = new ConcurrentHashMap<>();
+
+	private final Set<Repository> pending = new LinkedHashSet<>();
+
+	private final ListenerHandle refsChangedListener;
+
+	private final Job updateJob;
+
+	/**
+	 * Creates the index and starts tracking ref changes.
+	 *
+	 * @param name
+	 *            of the update job
+	 * @param family
+	 *            of the update job
+	 * @param updateFailedMessage
+	 *            logged with the directory of the repository if an update
+	 *            fails
+	 * @param saveFailedMessage
+	 *            logged with the directory of the repository if saving fails
+	 * @param storageDir
+	 *            directory to persist the indexes in, or {@code null} to keep
+	 *            them in memory only
+	 * @param fileMagic
+	 *            first int of the persisted files
+	 * @param fileVersion
+	 *            version of the format of the persisted files; files of other
+	 *            versions are ignored
+	 */
+	protected RepositoryIndex(String name, Object family,
+			String updateFailedMessage, String saveFailedMessage,
+			@Nullable File storageDir, int fileMagic, int fileVersion) {
+		this.updateFailedMessage = updateFailedMessage;
+		this.saveFailedMessage = saveFailedMessage;
+		this.storageDir = storageDir;
+		this.fileMagic = fileMagic;
+		this.fileVersion = fileVersion;
+		updateJob = new Job(name) {
+
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				Repository repository;
+				while ((repository = nextPending()) != null) {
+					if (monitor.isCanceled()) {
+						return Status.CANCEL_STATUS;
+					}
+					try {
+						updateEntry(repository, monitor);
+					} catch (IOException | RuntimeException e) {
+						// Callers fall back to walking the commits
+						entries.remove(getKey(repository));
+						Activator.logError(NLS.bind(updateFailedMessage,
+								repository.getDirectory()), e);
+					}
+				}
+				return Status.OK_STATUS;
+			}
+
+			@Override
+			public boolean belongsTo(Object jobFamily) {
+				return family == jobFamily || super.belongsTo(jobFamily);
+			}
+		};
+		updateJob.setSystem(true);
+		updateJob.setPriority(Job.DECORATE);
+		refsChangedListener = Repository.getGlobalListenerList()
+				.addRefsChangedListener(event -> {
+					Repository repository = event.getRepository();
+					File gitDir = getKey(repository);
+					AtomicLong count = gitDir != null ? changes.get(gitDir)
+							: null;
+					if (count != null) {
+						count.incrementAndGet();
+						schedule(repository);
+					}
+				});
+	}
+
+	/**
+	 * Stops tracking ref changes and drops all indexes; they have been
+	 * persisted after each update already.
+	 */
+	public void dispose() {
+		refsChangedListener.remove();
+		updateJob.cancel();
+		synchronized (pending) {
+			pending.clear();
+		}
+		entries.clear();
+		changes.clear();
+	}
+
+	/**
+	 * Retrieves the index of a repository. It may not cover the most recent
+	 * commits yet.
+	 *
+	 * @param repository
+	 *            to get the index of
+	 * @return the index, or {@code null} if the repository is not indexed
+	 *         yet, in which case it is scheduled for indexing
+	 */
+	@Nullable
+	protected T getEntry(@NonNull Repository repository) {
+		File gitDir = getKey(repository);
+		if (gitDir == null) {
+			return null;
+		}
+		T entry = entries.get(gitDir);
+		if (entry == null) {
+			schedule(repository);
+		}
+		return entry;
+	}
+
+	/**
+	 * @param repository
+	 *            the index belongs to
+	 * @param entry
+	 *            index of the repository
+	 * @return whether the refs of the repository have not changed since the
+	 *         index was last updated
+	 */
+	protected boolean isCurrent(@NonNull Repository repository,
+			@NonNull T entry) {
+		File gitDir = getKey(repository);
+		AtomicLong count = gitDir != null ? changes.get(gitDir) : null;
+		return count != null && count.get() == entry.changes;
+	}
+
+	/**
+	 * @param gitDir
+	 *            of a repository
+	 * @return whether the repository can be indexed
+	 */
+	protected boolean canIndex(@NonNull File gitDir) {
+		return true;
+	}
+
+	/**
+	 * Brings the index of a repository up to date with its ref tips. Runs in
+	 * the update job only.
+	 *
+	 * @param repository
+	 *            to index
+	 * @param current
+	 *            the previous index of the repository, or {@code null} if
+	 *            there is none yet
+	 * @param tips
+	 *            the current ref tips
+	 * @param monitor
+	 *            for cancellation; the result is ignored if canceled, but
+	 *            {@code current} is kept if it is not empty
+	 * @return the index covering the commits reachable from the tips, either
+	 *         {@code current} or a new one
+	 * @throws IOException
+	 */
+	@NonNull
+	protected abstract T update(@NonNull Repository repository,
+			@Nullable T current, @NonNull Set<ObjectId> tips,
+			@NonNull IProgressMonitor monitor) throws IOException;
+
+	/**
+	 * Reads a persisted index.
+	 *
+	 * @param in
+	 *            to read from
+	 * @return the index
+	 * @throws IOException
+	 *             if the data is corrupt or truncated
+	 */
+	@NonNull
+	protected abstract T read(@NonNull DataInput in) throws IOException;
+
+	/**
+	 * Writes an index to be {@link #read(DataInput) read} again later. Runs in
+	 * the update job only, right after {@link #update}.
+	 *
+	 * @param entry
+	 *            to write
+	 * @param out
+	 *            to write to
+	 * @throws IOException
+	 */
+	protected abstract void write(@NonNull T entry, @NonNull DataOutput out)
+			throws IOException;
+
+	private void schedule(Repository repository) {
+		File gitDir = getKey(repository);
+		if (gitDir == null) {
+			return;
+		}
+		changes.computeIfAbsent(gitDir, dir -> new AtomicLong());
+		synchronized (pending) {
+			pending.add(repository);
+		}
+		updateJob.schedule();
+	}
+
+	private Repository nextPending() {
+		synchronized (pending) {
+			if (pending.isEmpty()) {
+				return null;
+			}
+			Repository repository = pending.iterator().next();
+			pending.remove(repository);
+			return repository;
+		}
+	}
+
+	private static File getKey(Repository repository) {
+		File gitDir = repository.getDirectory();
+		return gitDir != null ? gitDir.getAbsoluteFile() : null;
+	}
+
+	private void updateEntry(Repository repository, IProgressMonitor monitor)
+			throws IOException {
+		File gitDir = getKey(repository);
+		AtomicLong count = gitDir != null ? changes.get(gitDir) : null;
+		if (count == null || !canIndex(gitDir)) {
+			return;
+		}
+		// Read the change count before the refs so that a concurrent ref
+		// change triggers another update
+		long seen = count.get();
+		T current = entries.get(gitDir);
+		if (current != null && current.changes == seen) {
+			return;
+		}
+		if (current == null) {
+			current = load(gitDir);
+		}
+		Set<ObjectId> tips = getTips(repository);
+		T updated = update(repository, current, tips, monitor);
+		if (monitor.isCanceled()) {
+			// Keep what we had; commits already indexed are complete, but
+			// the tips are not
+			if (current != null && !current.isEmpty()) {
+				entries.putIfAbsent(gitDir, current);
+			}
+			return;
+		}
+		updated.tips = tips;
+		updated.changes = seen;
+		entries.put(gitDir, updated);
+		try {
+			save(gitDir, updated);
+		} catch (IOException e) {
+			Activator.logError(NLS.bind(saveFailedMessage, gitDir), e);
+		}
+	}
+
+	private static Set<ObjectId> getTips(Repository repository)
+			throws IOException {
+		RefDatabase refDatabase = repository.getRefDatabase();
+		List<Ref> refs = new ArrayList<>();
+		for (String prefix : TIP_PREFIXES) {
+			refs.addAll(refDatabase.getRefs(prefix).values());
+		}
+		Ref head = refDatabase.exactRef(Constants.HEAD);
+		if (head != null) {
+			refs.add(head);
+		}
+		Set<ObjectId> tips = new HashSet<>();
+		try (RevWalk walk = new RevWalk(repository)) {
+			for (Ref ref : refs) {
+				ObjectId id = ref.getObjectId();
+				if (id == null) {
+					continue;
+				}
+				try {
+					RevObject object = walk.peel(walk.parseAny(id));
+					if (object instanceof RevCommit) {
+						tips.add(object.copy());
+					}
+				} catch (MissingObjectException
+						| IncorrectObjectTypeException e) {
+					// Skip broken refs
+				}
+			}
+		}
+		return tips;
+	}
+
+	private File getStorage(File gitDir) {
+		if (storageDir == null) {
+			return null;
+		}
+		String name = ObjectId.fromRaw(Constants.newMessageDigest().digest(
+				gitDir.getPath().getBytes(StandardCharsets.UTF_8))).name();
+		return new File(storageDir, name);
+	}
+
+	private T load(File gitDir) {
+		File storage = getStorage(gitDir);
+		if (storage == null) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				Files.newInputStream(storage.toPath())))) {
+			if (in.readInt() != fileMagic || in.readInt() != fileVersion
+					|| !in.readUTF().equals(gitDir.getPath())) {
+				return null;
+			}
+			byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+			Set<ObjectId> tips = new HashSet<>();
+			int n = in.readInt();
+			for (int i = 0; i < n; i++) {
+				in.readFully(raw);
+				tips.add(ObjectId.fromRaw(raw));
+			}
+			T entry = read(in);
+			entry.tips = tips;
+			return entry;
+		} catch (FileNotFoundException | NoSuchFileException e) {
+			// Not indexed yet
+		} catch (IOException e) {
+			// Corrupt or truncated; index again
+		}
+		return null;
+	}
+
+	private void save(File gitDir, T entry) throws IOException {
+		File storage = getStorage(gitDir);
+		if (storage == null) {
+			return;
+		}
+		AtomicFileWriter.write(storage, stream -> {
+			DataOutputStream out = new DataOutputStream(stream);
+			byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+			out.writeInt(fileMagic);
+			out.writeInt(fileVersion);
+			out.writeUTF(gitDir.getPath());
+			Set<ObjectId> tips = entry.tips;
+			out.writeInt(tips.size());
+			for (ObjectId tip : tips) {
+				tip.copyRawTo(raw, 0);
+				out.write(raw);
+			}
+			write(entry, out);
+		});
+	}
+}
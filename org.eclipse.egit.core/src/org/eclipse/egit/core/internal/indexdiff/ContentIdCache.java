@@ -0,0 +1,357 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.indexdiff;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.egit.core.Activator;
+import org.eclipse.egit.core.internal.util.AtomicFileWriter;
+import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.annotations.Nullable;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Persistent per-repository cache of the blob ids of working tree files.
+ * <p>
+ * An entry maps a repository-relative path to the blob id computed for the
+ * file's content, together with the file's {@link Stat} and the end-of-line
+ * conversion and clean filter that were in effect when the id was computed.
+ * An entry is only valid as long as all of these still match. Files modified
+ * or changed within {@link #RACY_INTERVAL} of hashing them are not cached
+ * since a later modification might not change their timestamps.
+ * </p>
+ * <p>
+ * The caches are written to the plug-in's state location when the
+ * {@link IndexDiffCache} is disposed and read back lazily.
+ * </p>
+ */
+public class ContentIdCache {
+
+	/**
+	 * Minimum age in milliseconds a file's modification time must have when
+	 * it is hashed for its id to be cached.
+	 */
+	static final long RACY_INTERVAL = 3000;
+
+	private static final int MAX_ENTRIES = 100000;
+
+	private static final int FILE_MAGIC = 0x45474349; // "EGCI"
+
+	private static final int FILE_VERSION = 2;
+
+	private static final Map<File, ContentIdCache> CACHES = new ConcurrentHashMap<>();
+
+	private static final boolean HAS_CTIME = FileSystems.getDefault()
+			.supportedFileAttributeViews().contains("unix"); //$NON-NLS-1$
+
+	private static final String CTIME = "unix:ctime"; //$NON-NLS-1$
+
+	/** Value of {@link Stat#ctime} if the file system doesn't provide it */
+	static final long NO_CTIME = -1;
+
+	/**
+	 * The metadata of a file an id is valid for. Besides length and
+	 * modification time, this includes the file key, i.e. device and inode on
+	 * Unix, and the time the file's status last changed, where the file
+	 * system provides them. A file replaced by another one with the same
+	 * length and modification time has another key, and a file rewritten in
+	 * place has a new status change time even if its modification time was
+	 * restored.
+	 */
+	static final class Stat {
+
+		final long length;
+
+		final long lastModified;
+
+		final String fileKey;
+
+		final long ctime;
+
+		Stat(long length, long lastModified, @Nullable String fileKey,
+				long ctime) {
+			this.length = length;
+			this.lastModified = lastModified;
+			this.fileKey = fileKey;
+			this.ctime = ctime;
+		}
+
+		/**
+		 * Reads the file key and status change time of a file.
+		 *
+		 * @param file
+		 *            to read the metadata of
+		 * @param length
+		 *            of the file as seen by the tree iterator
+		 * @param lastModified
+		 *            of the file as seen by the tree iterator
+		 * @return the metadata, or {@code null} if it cannot be read
+		 */
+		@Nullable
+		static Stat of(File file, long length, long lastModified) {
+			Path path = file.toPath();
+			try {
+				Object key = Files.readAttributes(path,
+						BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS)
+						.fileKey();
+				long ctime = NO_CTIME;
+				if (HAS_CTIME) {
+					ctime = ((FileTime) Files.getAttribute(path, CTIME,
+							LinkOption.NOFOLLOW_LINKS)).toMillis();
+				}
+				return new Stat(length, lastModified,
+						key != null ? key.toString() : null, ctime);
+			} catch (IOException | RuntimeException e) {
+				return null;
+			}
+		}
+
+		boolean matches(Stat other) {
+			return length == other.length
+					&& lastModified == other.lastModified
+					&& Objects.equals(fileKey, other.fileKey)
+					&& ctime == other.ctime;
+		}
+	}
+
+	static final class Entry {
+
+		final Stat stat;
+
+		final String eolStreamType;
+
+		final String cleanFilter;
+
+		final ObjectId id;
+
+		Entry(Stat stat, String eolStreamType, String cleanFilter,
+				ObjectId id) {
+			this.stat = stat;
+			this.eolStreamType = eolStreamType;
+			this.cleanFilter = cleanFilter;
+			this.id = id;
+		}
+
+		boolean matches(String eol, String filter) {
+			return Objects.equals(eolStreamType, eol)
+					&& Objects.equals(cleanFilter, filter);
+		}
+	}
+
+	private final File gitDir;
+
+	private final File storage;
+
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(
+			16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	private boolean dirty;
+
+	ContentIdCache(@NonNull File gitDir, @Nullable File storage) {
+		this.gitDir = gitDir;
+		this.storage = storage;
+	}
+
+	/**
+	 * Retrieves the cache of a repository, loading it from disk if needed.
+	 *
+	 * @param repository
+	 * @return the cache of the repository
+	 */
+	@NonNull
+	public static ContentIdCache get(@NonNull Repository repository) {
+		File gitDir = repository.getDirectory().getAbsoluteFile();
+		return CACHES.computeIfAbsent(gitDir, dir -> {
+			ContentIdCache cache = new ContentIdCache(dir,
+					getStorageFile(dir));
+			cache.load();
+			return cache;
+		});
+	}
+
+	/**
+	 * Writes all modified caches to disk.
+	 */
+	public static void saveAll() {
+		for (ContentIdCache cache : CACHES.values()) {
+			try {
+				cache.save();
+			} catch (IOException e) {
+				Activator.logError(e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Looks up a cached id.
+	 *
+	 * @param path
+	 *            repository-relative path of the file
+	 * @param stat
+	 *            of the file
+	 * @return the entry if there is one for the given path and metadata; the
+	 *         caller must still verify the conversion settings
+	 */
+	@Nullable
+	synchronized Entry get(String path, Stat stat) {
+		Entry entry = entries.get(path);
+		if (entry != null && entry.stat.matches(stat)) {
+			return entry;
+		}
+		return null;
+	}
+
+	/**
+	 * Caches the id computed for a file, unless it was racily clean.
+	 *
+	 * @param path
+	 *            repository-relative path of the file
+	 * @param stat
+	 *            of the file
+	 * @param eolStreamType
+	 *            end-of-line conversion applied when computing the id
+	 * @param cleanFilter
+	 *            clean filter command applied when computing the id, or
+	 *            {@code null}
+	 * @param id
+	 *            computed blob id
+	 * @param hashTime
+	 *            time at which computing the id started
+	 */
+	synchronized void put(String path, Stat stat, String eolStreamType,
+			String cleanFilter, ObjectId id, long hashTime) {
+		if (Math.max(stat.lastModified, stat.ctime) > hashTime
+				- RACY_INTERVAL) {
+			if (entries.remove(path) != null) {
+				dirty = true;
+			}
+			return;
+		}
+		entries.put(path,
+				new Entry(stat, eolStreamType, cleanFilter, id.copy()));
+		dirty = true;
+	}
+
+	/**
+	 * @return the number of cached ids
+	 */
+	synchronized int size() {
+		return entries.size();
+	}
+
+	private static File getStorageFile(File gitDir) {
+		Activator activator = Activator.getDefault();
+		if (activator == null) {
+			return null;
+		}
+		IPath location = activator.getStateLocation().append("contentids"); //$NON-NLS-1$
+		String name = ObjectId.fromRaw(Constants.newMessageDigest()
+				.digest(Constants.encode(gitDir.getPath()))).name();
+		return location.append(name).toFile();
+	}
+
+	synchronized void load() {
+		if (storage == null) {
+			return;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				Files.newInputStream(storage.toPath())))) {
+			if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION
+					|| !gitDir.getPath().equals(in.readUTF())) {
+				return;
+			}
+			int count = in.readInt();
+			byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+			for (int i = 0; i < count; i++) {
+				String path = in.readUTF();
+				long length = in.readLong();
+				long lastModified = in.readLong();
+				String fileKey = in.readBoolean() ? in.readUTF() : null;
+				long ctime = in.readLong();
+				String eol = in.readUTF();
+				String filter = in.readBoolean() ? in.readUTF() : null;
+				in.readFully(raw);
+				entries.put(path, new Entry(
+						new Stat(length, lastModified, fileKey, ctime), eol,
+						filter, ObjectId.fromRaw(raw)));
+			}
+		} catch (FileNotFoundException | NoSuchFileException e) {
+			// Nothing cached yet
+		} catch (IOException e) {
+			// Corrupt or truncated; start over
+			entries.clear();
+		}
+		dirty = false;
+	}
+
+	synchronized void save() throws IOException {
+		if (!dirty || storage == null) {
+			return;
+		}
+		List<Map.Entry<String, Entry>> snapshot = new ArrayList<>(
+				entries.entrySet());
+		AtomicFileWriter.write(storage, stream -> {
+			DataOutputStream out = new DataOutputStream(stream);
+			out.writeInt(FILE_MAGIC);
+			out.writeInt(FILE_VERSION);
+			out.writeUTF(gitDir.getPath());
+			out.writeInt(snapshot.size());
+			byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+			for (Map.Entry<String, Entry> e : snapshot) {
+				Entry entry = e.getValue();
+				out.writeUTF(e.getKey());
+				Stat stat = entry.stat;
+				out.writeLong(stat.length);
+				out.writeLong(stat.lastModified);
+				out.writeBoolean(stat.fileKey != null);
+				if (stat.fileKey != null) {
+					out.writeUTF(stat.fileKey);
+				}
+				out.writeLong(stat.ctime);
+				out.writeUTF(entry.eolStreamType);
+				out.writeBoolean(entry.cleanFilter != null);
+				if (entry.cleanFilter != null) {
+					out.writeUTF(entry.cleanFilter);
+				}
+				entry.id.copyRawTo(raw, 0);
+				out.write(raw);
+			}
+		});
+		dirty = false;
+	}
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.indexdiff;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.egit.core.internal.trace.GitMetrics;
+import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.AbstractTreeIterator;
+import org.eclipse.jgit.treewalk.FileTreeIterator;
+import org.eclipse.jgit.util.FS;
+
+/**
+ * A {@link FileTreeIterator} that takes the ids of regular files from a
+ * {@link ContentIdCache} instead of re-reading and hashing their content
+ * whenever their {@link ContentIdCache.Stat metadata} is unchanged since they
+ * were last hashed.
+ * <p>
+ * This avoids re-reading racily clean files and files subject to end-of-line
+ * conversion or clean filters on every index diff calculation.
+ * </p>
+ */
+public class ContentIdCachingIterator extends FileTreeIterator {
+
+	private final ContentIdCache cache;
+
+	private Entry cachedEntry;
+
+	private byte[] cachedId;
+
+	/**
+	 * Creates an iterator for the working tree of a repository.
+	 *
+	 * @param repository
+	 *            non-bare repository
+	 * @param cache
+	 *            of the repository
+	 */
+	public ContentIdCachingIterator(@NonNull Repository repository,
+			@NonNull ContentIdCache cache) {
+		super(repository);
+		this.cache = cache;
+	}
+
+	private ContentIdCachingIterator(ContentIdCachingIterator parent,
+			File root, FS fs, FileModeStrategy strategy) {
+		super(parent, root, fs, strategy);
+		this.cache = parent.cache;
+	}
+
+	@Override
+	public AbstractTreeIterator createSubtreeIterator(ObjectReader reader)
+			throws IOException {
+		return new ContentIdCachingIterator(this,
+				((FileEntry) current()).getFile(), fs, fileModeStrategy);
+	}
+
+	@Override
+	public byte[] idBuffer() {
+		Entry entry = current();
+		if (entry == cachedEntry) {
+			return cachedId;
+		}
+		if ((getEntryRawMode() & FileMode.TYPE_MASK) != FileMode.TYPE_FILE) {
+			return super.idBuffer();
+		}
+		ContentIdCache.Stat stat = ContentIdCache.Stat.of(
+				((FileEntry) entry).getFile(), getEntryLength(),
+				getEntryLastModified());
+		if (stat == null) {
+			return super.idBuffer();
+		}
+		String path = getEntryPathString();
+		try {
+			ContentIdCache.Entry cached = cache.get(path, stat);
+			if (cached != null && cached.matches(
+					String.valueOf(getEolStreamType()),
+					getCleanFilterCommand())) {
+				byte[] id = new byte[Constants.OBJECT_ID_LENGTH];
+				cached.id.copyRawTo(id, 0);
+				cachedEntry = entry;
+				cachedId = id;
+				GitMetrics.counter(GitMetrics.CONTENT_ID_HITS).increment();
+				return id;
+			}
+			long hashTime = System.currentTimeMillis();
+			byte[] id = super.idBuffer();
+			GitMetrics.counter(GitMetrics.CONTENT_ID_MISSES).increment();
+			if (id != null && id != zeroid) {
+				cache.put(path, stat, String.valueOf(getEolStreamType()),
+						getCleanFilterCommand(),
+						ObjectId.fromRaw(id, super.idOffset()), hashTime);
+			}
+			return id;
+		} catch (IOException e) {
+			return super.idBuffer();
+		}
+	}
+
+	@Override
+	public int idOffset() {
+		if (current() == cachedEntry) {
+			return 0;
+		}
+		return super.idOffset();
+	}
+}
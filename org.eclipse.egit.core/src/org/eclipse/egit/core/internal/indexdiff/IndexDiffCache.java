@@ -309,6 +309,7 @@ public void dispose() {
 		} catch (InterruptedException e) {
 			Thread.currentThread().interrupt();
 		}
+		ContentIdCache.saveAll();
 	}
 
 	/**
@@ -47,6 +47,7 @@
 import org.eclipse.egit.core.JobFamilies;
 import org.eclipse.egit.core.internal.CoreText;
 import org.eclipse.egit.core.internal.job.RuleUtil;
+import org.eclipse.egit.core.internal.trace.GitMetrics;
 import org.eclipse.egit.core.internal.trace.GitTraceLocation;
 import org.eclipse.egit.core.internal.util.ProjectUtil;
 import org.eclipse.egit.core.internal.util.ResourceUtil;
@@ -260,6 +261,9 @@ public IStatus runInWorkspace(IProgressMonitor monitor) {
 					} catch (CoreException e) {
 						return Activator.error(e.getMessage(), e);
 					}
+					GitMetrics.histogram(GitMetrics.RESOURCE_REFRESH,
+							repositoryName)
+							.record(System.currentTimeMillis() - start);
 					if (Activator.getDefault().isDebugging()) {
 						final long refresh = System.currentTimeMillis();
 						Activator.logInfo("Resources refresh took " //$NON-NLS-1$
@@ -416,8 +420,10 @@ protected IStatus run(IProgressMonitor monitor) {
 						return Status.CANCEL_STATUS;
 					}
 					indexDiffData = result;
+					long time = System.currentTimeMillis() - startTime;
+					GitMetrics.histogram(GitMetrics.INDEX_DIFF_RELOAD,
+							repositoryName).record(time);
 					if (GitTraceLocation.INDEXDIFFCACHE.isActive()) {
-						long time = System.currentTimeMillis() - startTime;
 						StringBuilder message = new StringBuilder(
 								getTraceMessage(time));
 						GitTraceLocation.getTrace().trace(
@@ -545,8 +551,10 @@ protected IStatus updateIndexDiff(Collection<String> files,
 						return Status.CANCEL_STATUS;
 					}
 					indexDiffData = result;
+					long time = System.currentTimeMillis() - startTime;
+					GitMetrics.histogram(GitMetrics.INDEX_DIFF_UPDATE,
+							repositoryName).record(time);
 					if (GitTraceLocation.INDEXDIFFCACHE.isActive()) {
-						long time = System.currentTimeMillis() - startTime;
 						StringBuilder message = new StringBuilder(
 								NLS.bind(
 										"Updated IndexDiffData based on resource list (length = {0}) in {1} ms\n", //$NON-NLS-1$
@@ -0,0 +1,310 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.annotations.Nullable;
+import org.eclipse.jgit.errors.LargeObjectException;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Workspace-wide cache of blob contents, bounded by the total number of bytes
+ * cached and evicting the least recently used blobs first. Contents are only
+ * softly referenced, so the garbage collector may drop them earlier when
+ * memory gets low.
+ * <p>
+ * Compare editors, quick diff and merge viewers tend to ask for the same blob
+ * several times; {@link #open(Repository, AnyObjectId)} and
+ * {@link #load(Repository, AnyObjectId)} serve these from the cache instead of
+ * inflating the object again. Blobs larger than {@link #getMaxBlobSize()} are
+ * never cached; {@link #open(Repository, AnyObjectId)} streams them directly
+ * from the repository.
+ * </p>
+ * <p>
+ * Blobs are keyed by their object id only; since the id is derived from the
+ * content, a cached blob is valid for any repository containing it. The cache
+ * also remembers which blob a path resolved to in a tree, so that revisions
+ * of a file need not walk the tree again.
+ * </p>
+ * <p>
+ * Cached arrays are shared and must not be modified.
+ * </p>
+ */
+public class BlobContentCache {
+
+	private static final long DEFAULT_BUDGET = Math.min(16 * 1024 * 1024,
+			Runtime.getRuntime().maxMemory() / 32);
+
+	private static final int DEFAULT_MAX_BLOB_SIZE = 1024 * 1024;
+
+	private static final int MAX_RESOLVED_PATHS = 1000;
+
+	private static class PathKey {
+
+		private final ObjectId treeId;
+
+		private final String path;
+
+		PathKey(AnyObjectId treeId, String path) {
+			this.treeId = treeId.copy();
+			this.path = path;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof PathKey)) {
+				return false;
+			}
+			PathKey other = (PathKey) obj;
+			return treeId.equals(other.treeId) && path.equals(other.path);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * treeId.hashCode() + path.hashCode();
+		}
+	}
+
+	private static class Entry extends SoftReference<byte[]> {
+
+		final ObjectId blobId;
+
+		final int length;
+
+		Entry(ObjectId blobId, byte[] content,
+				ReferenceQueue<byte[]> queue) {
+			super(content, queue);
+			this.blobId = blobId;
+			this.length = content.length;
+		}
+	}
+
+	private final long budget;
+
+	private final int maxBlobSize;
+
+	// All fields below guarded by this
+
+	private final Map<ObjectId, Entry> contents = new LinkedHashMap<>(16,
+			0.75f, true);
+
+	private final ReferenceQueue<byte[]> cleared = new ReferenceQueue<>();
+
+	private long size;
+
+	private final Map<PathKey, ObjectId> resolved = new LinkedHashMap<PathKey, ObjectId>(
+			16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<PathKey, ObjectId> eldest) {
+			return size() > MAX_RESOLVED_PATHS;
+		}
+	};
+
+	/**
+	 * Creates a cache with the default budget.
+	 */
+	public BlobContentCache() {
+		this(DEFAULT_BUDGET, DEFAULT_MAX_BLOB_SIZE);
+	}
+
+	/**
+	 * @param budget
+	 *            maximum number of bytes to cache in total
+	 * @param maxBlobSize
+	 *            maximum size of a single blob to cache
+	 */
+	public BlobContentCache(long budget, int maxBlobSize) {
+		this.budget = budget;
+		this.maxBlobSize = maxBlobSize;
+	}
+
+	/**
+	 * @return the maximum size of a single blob in bytes that will be cached
+	 */
+	public int getMaxBlobSize() {
+		return maxBlobSize;
+	}
+
+	/**
+	 * @param blobId
+	 *            of the blob
+	 * @return the cached content of the blob, or {@code null} if not cached
+	 */
+	@Nullable
+	public synchronized byte[] get(@NonNull AnyObjectId blobId) {
+		purge();
+		Entry entry = contents.get(blobId);
+		return entry != null ? entry.get() : null;
+	}
+
+	/**
+	 * Caches the content of a blob, evicting the least recently used blobs if
+	 * the budget is exceeded. Blobs larger than {@link #getMaxBlobSize()} are
+	 * not cached.
+	 *
+	 * @param blobId
+	 *            of the blob
+	 * @param content
+	 *            of the blob; must not be modified afterwards
+	 */
+	public synchronized void put(@NonNull AnyObjectId blobId,
+			@NonNull byte[] content) {
+		if (content.length > maxBlobSize) {
+			return;
+		}
+		purge();
+		ObjectId id = blobId.copy();
+		Entry previous = contents.put(id, new Entry(id, content, cleared));
+		if (previous != null) {
+			size -= previous.length;
+		}
+		size += content.length;
+		Iterator<Entry> iterator = contents.values().iterator();
+		while (size > budget && iterator.hasNext()) {
+			size -= iterator.next().length;
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Reads the whole content of a blob, from the cache if possible. Small
+	 * enough blobs read from the repository are cached.
+	 *
+	 * @param db
+	 *            repository containing the blob
+	 * @param blobId
+	 *            of the blob
+	 * @return the content; must not be modified
+	 * @throws MissingObjectException
+	 *             if the blob does not exist
+	 * @throws IOException
+	 *             if the blob cannot be read, or is too large to be loaded
+	 *             into memory: a blob JGit would stream is only loaded if it
+	 *             is not larger than {@link #getMaxBlobSize()}
+	 */
+	@NonNull
+	public byte[] load(@NonNull Repository db, @NonNull AnyObjectId blobId)
+			throws IOException {
+		byte[] content = get(blobId);
+		if (content != null) {
+			return content;
+		}
+		ObjectLoader loader = db.open(blobId, Constants.OBJ_BLOB);
+		try {
+			content = loader.getCachedBytes(maxBlobSize);
+		} catch (LargeObjectException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+		put(blobId, content);
+		return content;
+	}
+
+	/**
+	 * Opens a blob for reading, from the cache if possible. Small enough
+	 * blobs read from the repository are cached; larger ones are streamed
+	 * without buffering their whole content.
+	 *
+	 * @param db
+	 *            repository containing the blob
+	 * @param blobId
+	 *            of the blob
+	 * @return a stream over the content of the blob
+	 * @throws MissingObjectException
+	 *             if the blob does not exist
+	 * @throws IOException
+	 *             if the blob cannot be read
+	 */
+	@NonNull
+	public InputStream open(@NonNull Repository db,
+			@NonNull AnyObjectId blobId) throws IOException {
+		byte[] content = get(blobId);
+		if (content == null) {
+			ObjectLoader loader = db.open(blobId, Constants.OBJ_BLOB);
+			if (loader.isLarge() || loader.getSize() > maxBlobSize) {
+				return loader.openStream();
+			}
+			content = loader.getCachedBytes();
+			put(blobId, content);
+		}
+		return new ByteArrayInputStream(content);
+	}
+
+	private void purge() {
+		Reference<? extends byte[]> reference;
+		while ((reference = cleared.poll()) != null) {
+			Entry entry = (Entry) reference;
+			// Only if not replaced in the meantime
+			if (contents.get(entry.blobId) == entry) {
+				contents.remove(entry.blobId);
+				size -= entry.length;
+			}
+		}
+	}
+
+	/**
+	 * @param treeId
+	 *            of the tree the path was resolved in
+	 * @param path
+	 *            repository-relative path
+	 * @return the blob the path resolved to, or {@code null} if unknown
+	 */
+	@Nullable
+	public synchronized ObjectId getBlobId(@NonNull AnyObjectId treeId,
+			@NonNull String path) {
+		return resolved.get(new PathKey(treeId, path));
+	}
+
+	/**
+	 * Remembers which blob a path resolved to in a tree.
+	 *
+	 * @param treeId
+	 *            of the tree the path was resolved in
+	 * @param path
+	 *            repository-relative path
+	 * @param blobId
+	 *            the path resolved to
+	 */
+	public synchronized void putBlobId(@NonNull AnyObjectId treeId,
+			@NonNull String path, @NonNull AnyObjectId blobId) {
+		resolved.put(new PathKey(treeId, path), blobId.copy());
+	}
+
+	/**
+	 * Forgets all cached contents and paths.
+	 */
+	public synchronized void clear() {
+		contents.clear();
+		resolved.clear();
+		size = 0;
+		while (cleared.poll() != null) {
+			// Already forgotten
+		}
+	}
+}
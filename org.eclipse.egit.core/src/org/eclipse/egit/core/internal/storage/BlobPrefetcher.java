@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.egit.core.internal.CoreText;
+import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+
+/**
+ * Loads the blobs of some paths in some commits into a
+ * {@link BlobContentCache} in the background, so that opening these revisions
+ * later, for instance in a compare editor, doesn't have to wait for the tree
+ * walk and for inflating the blob.
+ * <p>
+ * Only the most recent request is served: a new request cancels a prefetch
+ * still in progress.
+ * </p>
+ */
+public class BlobPrefetcher {
+
+	private final BlobContentCache cache;
+
+	// Guarded by this
+	private Job job;
+
+	/**
+	 * @param cache
+	 *            to load the blobs into
+	 */
+	public BlobPrefetcher(@NonNull BlobContentCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Starts loading the blobs of the given paths in the given commits,
+	 * canceling any previous prefetch.
+	 *
+	 * @param repository
+	 *            containing the commits
+	 * @param commits
+	 *            to load the blobs of, most important first; must have been
+	 *            parsed
+	 * @param paths
+	 *            repository-relative paths of files
+	 */
+	public synchronized void prefetch(@NonNull Repository repository,
+			@NonNull List<? extends RevCommit> commits,
+			@NonNull Collection<String> paths) {
+		cancel();
+		if (commits.isEmpty() || paths.isEmpty() || paths.contains("")) { //$NON-NLS-1$
+			return;
+		}
+		List<RevCommit> toLoad = new ArrayList<>(commits);
+		List<String> toFilter = new ArrayList<>(paths);
+		job = new Job(CoreText.BlobPrefetcher_jobName) {
+
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					load(repository, toLoad, toFilter, monitor);
+				} catch (IOException e) {
+					// Best effort only; a real read will report the problem
+				}
+				return monitor.isCanceled() ? Status.CANCEL_STATUS
+						: Status.OK_STATUS;
+			}
+		};
+		job.setSystem(true);
+		job.setPriority(Job.DECORATE);
+		job.schedule();
+	}
+
+	/**
+	 * Cancels the prefetch in progress, if any.
+	 */
+	public synchronized void cancel() {
+		if (job != null) {
+			job.cancel();
+			job = null;
+		}
+	}
+
+	private void load(Repository repository, List<RevCommit> commits,
+			List<String> paths, IProgressMonitor monitor) throws IOException {
+		try (ObjectReader reader = repository.newObjectReader();
+				TreeWalk walk = new TreeWalk(reader)) {
+			walk.setRecursive(true);
+			walk.setFilter(PathFilterGroup.createFromStrings(paths));
+			for (RevCommit commit : commits) {
+				RevTree tree = commit.getTree();
+				if (tree == null) {
+					continue;
+				}
+				walk.reset(tree);
+				while (walk.next()) {
+					if (monitor.isCanceled()) {
+						return;
+					}
+					if (walk.getFileMode(0)
+							.getObjectType() != Constants.OBJ_BLOB) {
+						continue;
+					}
+					ObjectId blobId = walk.getObjectId(0);
+					cache.putBlobId(tree, walk.getPathString(), blobId);
+					if (cache.get(blobId) != null) {
+						continue;
+					}
+					ObjectLoader loader = reader.open(blobId,
+							Constants.OBJ_BLOB);
+					if (loader.getSize() <= cache.getMaxBlobSize()) {
+						cache.put(blobId,
+								loader.getCachedBytes(cache.getMaxBlobSize()));
+					}
+				}
+			}
+		}
+	}
+}
@@ -130,13 +130,19 @@ public RevCommit getRevCommit() {
 	}
 
 	private ObjectId locateBlobObjectId() throws CoreException {
+		BlobContentCache cache = Activator.getDefault().getBlobContentCache();
+		ObjectId cached = cache.getBlobId(commit.getTree(), path);
+		if (cached != null)
+			return cached;
 		try {
 			final TreeWalk w = TreeWalk.forPath(db, path, commit.getTree());
 			if (w == null)
 				throw new CoreException(Activator.error(NLS.bind(
 						CoreText.CommitFileRevision_pathNotIn, commit.getId().name(),
 						path), null));
-			return w.getObjectId(0);
+			ObjectId id = w.getObjectId(0);
+			cache.putBlobId(commit.getTree(), path, id);
+			return id;
 		} catch (IOException e) {
 			throw new CoreException(Activator.error(NLS.bind(
 					CoreText.CommitFileRevision_errorLookingUpPath, commit
@@ -12,8 +12,16 @@
 package org.eclipse.egit.core.internal.storage;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -22,6 +30,7 @@
 import org.eclipse.egit.core.Activator;
 import org.eclipse.egit.core.internal.CoreText;
 import org.eclipse.egit.core.internal.Utils;
+import org.eclipse.egit.core.internal.storage.PathHistoryIndex.PathHistory;
 import org.eclipse.egit.core.project.RepositoryMapping;
 import org.eclipse.egit.core.synchronize.GitRemoteResource;
 import org.eclipse.osgi.util.NLS;
@@ -33,10 +42,13 @@
 import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
 import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
 import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
 import org.eclipse.jgit.treewalk.filter.TreeFilter;
@@ -118,6 +130,10 @@ private IFileRevision[] buildRevisions(final IProgressMonitor monitor,
 				return new IFileRevision[] { single };
 			}
 
+			IFileRevision[] indexed = buildRevisionsFromIndex(root, monitor);
+			if (indexed != null)
+				return indexed;
+
 			markStartAllRefs(walk, Constants.R_HEADS);
 			markStartAllRefs(walk, Constants.R_REMOTES);
 			markStartAllRefs(walk, Constants.R_TAGS);
@@ -155,6 +171,139 @@ private IFileRevision[] buildRevisions(final IProgressMonitor monitor,
 		return r;
 	}
 
+	/**
+	 * Looks up the commits touching the path in the
+	 * {@link PathHistoryIndex}, walking only the commits the index doesn't
+	 * cover yet.
+	 *
+	 * @return the revisions, or {@code null} if the repository is not indexed
+	 *         yet
+	 */
+	private IFileRevision[] buildRevisionsFromIndex(final RevCommit root,
+			final IProgressMonitor monitor) throws IOException {
+		if (gitPath == null || gitPath.length() == 0)
+			return null;
+		final PathHistory history = Activator.getDefault()
+				.getPathHistoryIndex().getHistory(db, gitPath, false);
+		if (history == null)
+			return null;
+
+		final List<KidCommit> commits = new ArrayList<>();
+		final Set<AnyObjectId> seen = new HashSet<>();
+		if (!history.isCurrent()) {
+			markStartAllRefs(walk, Constants.R_HEADS);
+			markStartAllRefs(walk, Constants.R_REMOTES);
+			markStartAllRefs(walk, Constants.R_TAGS);
+			walk.markStart(root);
+			for (ObjectId tip : history.getIndexedTips()) {
+				try {
+					walk.markUninteresting(walk.parseCommit(tip));
+				} catch (MissingObjectException e) {
+					// Gone; the walk may cover some indexed commits again
+				}
+			}
+			for (RevCommit c : walk) {
+				if (monitor != null && monitor.isCanceled())
+					break;
+				if (seen.add(c))
+					commits.add((KidCommit) c);
+			}
+		}
+		for (ObjectId id : history.getCommits()) {
+			if (monitor != null && monitor.isCanceled())
+				break;
+			if (seen.add(id)) {
+				try {
+					commits.add((KidCommit) walk.parseCommit(id));
+				} catch (MissingObjectException e) {
+					// Pruned since it was indexed
+				}
+			}
+		}
+		Collections.sort(commits, (a, b) -> Integer
+				.compare(b.getCommitTime(), a.getCommitTime()));
+		linkNearestAncestors(commits, monitor);
+
+		final IFileRevision[] r = new IFileRevision[commits.size()];
+		for (int i = 0; i < r.length; i++)
+			r[i] = new CommitFileRevision(db, commits.get(i), gitPath);
+		return r;
+	}
+
+	/**
+	 * Links the commits of the history to their nearest ancestors in the
+	 * history, like a path-filtered walk rewrites their parents, by walking
+	 * their ancestry. Only merges not in the history are compared with their
+	 * parents, to follow just a parent they took the path from.
+	 *
+	 * @param commits
+	 *            of the history
+	 * @param monitor
+	 *            for cancellation, may be {@code null}
+	 * @throws IOException
+	 */
+	private void linkNearestAncestors(final List<KidCommit> commits,
+			final IProgressMonitor monitor) throws IOException {
+		final Set<RevCommit> members = new HashSet<>(commits);
+		// Commits of the history waiting for the ancestors they reach
+		final Map<RevCommit, Set<KidCommit>> reachedFrom = new HashMap<>();
+		int remaining = members.size();
+		walk.reset();
+		walk.setTreeFilter(TreeFilter.ALL);
+		walk.sort(RevSort.TOPO);
+		for (KidCommit c : commits)
+			walk.markStart(c);
+		for (RevCommit c : walk) {
+			if (remaining == 0 || (monitor != null && monitor.isCanceled()))
+				break;
+			Set<KidCommit> children = reachedFrom.remove(c);
+			Set<KidCommit> reaching = children;
+			final boolean member = members.contains(c);
+			if (member) {
+				final KidCommit parent = (KidCommit) c;
+				if (children != null)
+					for (KidCommit child : children) {
+						parent.addChild(child);
+						child.addHistoryParent(parent);
+					}
+				reaching = Collections.singleton(parent);
+				remaining--;
+			}
+			if (reaching == null)
+				continue;
+			RevCommit[] parents = c.getParents();
+			if (!member && parents.length > 1) {
+				RevCommit same = getSameParent(c);
+				if (same != null)
+					parents = new RevCommit[] { same };
+			}
+			for (RevCommit p : parents)
+				reachedFrom.computeIfAbsent(p, k -> new LinkedHashSet<>())
+						.addAll(reaching);
+		}
+		for (KidCommit c : commits)
+			if (c.historyParents == null)
+				c.historyParents = new KidCommit[0];
+	}
+
+	private RevCommit getSameParent(final RevCommit merge)
+			throws IOException {
+		final ObjectId id = getPathId(merge);
+		for (RevCommit parent : merge.getParents()) {
+			walk.parseHeaders(parent);
+			if (Objects.equals(id, getPathId(parent)))
+				return parent;
+		}
+		return null;
+	}
+
+	private ObjectId getPathId(final RevCommit commit) throws IOException {
+		try (TreeWalk tw = TreeWalk.forPath(walk.getObjectReader(), gitPath,
+				commit.getTree())) {
+			return tw != null ? tw.getObjectId(0) : null;
+		}
+	}
+
 	private void markStartAllRefs(RevWalk theWalk, String prefix)
 			throws IOException, MissingObjectException,
 			IncorrectObjectTypeException {
@@ -185,6 +334,15 @@ public IFileRevision[] getContributors(final IFileRevision ifr) {
 		String path = getGitPath(ifr);
 		RevCommit commit = getRevCommit(ifr);
 
+		if (path != null && commit instanceof KidCommit
+				&& ((KidCommit) commit).historyParents != null) {
+			final KidCommit[] parents = ((KidCommit) commit).historyParents;
+			final IFileRevision[] r = new IFileRevision[parents.length];
+			for (int i = 0; i < r.length; i++)
+				r[i] = new CommitFileRevision(db, parents[i], path);
+			return r;
+		}
+
 		if (path != null && commit != null) {
 			final IFileRevision[] r = new IFileRevision[commit.getParentCount()];
 			for (int i = 0; i < r.length; i++)
@@ -16,6 +16,12 @@ class KidCommit extends RevCommit {
 
 	KidCommit[] children = NO_CHILDREN;
 
+	/**
+	 * Nearest ancestors in the file history if they were linked explicitly
+	 * instead of by rewriting the parents, otherwise {@code null}
+	 */
+	KidCommit[] historyParents;
+
 	KidCommit(final AnyObjectId id) {
 		super(id);
 	}
@@ -34,9 +40,19 @@ else if (cnt == 1)
 		}
 	}
 
+	void addHistoryParent(final KidCommit p) {
+		final int cnt = historyParents != null ? historyParents.length : 0;
+		final KidCommit[] n = new KidCommit[cnt + 1];
+		if (cnt > 0)
+			System.arraycopy(historyParents, 0, n, 0, cnt);
+		n[cnt] = p;
+		historyParents = n;
+	}
+
 	@Override
 	public void reset() {
 		children = NO_CHILDREN;
+		historyParents = null;
 		super.reset();
 	}
 }
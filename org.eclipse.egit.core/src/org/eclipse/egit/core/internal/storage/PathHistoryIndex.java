@@ -0,0 +1,585 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.storage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.egit.core.JobFamilies;
+import org.eclipse.egit.core.internal.CoreText;
+import org.eclipse.egit.core.internal.RepositoryIndex;
+import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.annotations.Nullable;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffEntry.ChangeType;
+import org.eclipse.jgit.diff.RenameDetector;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.IntList;
+
+/**
+ * Workspace-wide index of which commits touched which paths, with the renames
+ * detected in these commits, so that the history of a file can be looked up
+ * instead of walking and diffing the whole commit graph each time.
+ * <p>
+ * A repository is indexed in the background the first time the history of
+ * one of its files is requested. The index covers all commits reachable from
+ * HEAD, the branches, the remote-tracking branches and the tags, like the
+ * file history. It is updated incrementally from the new ref tips whenever
+ * JGit reports that the refs changed, and built again if a ref was reset or
+ * deleted such that commits may have become unreachable. The index is
+ * persisted in the plug-in state location so that it survives restarts.
+ * </p>
+ * <p>
+ * A commit touches a path if the path differs from its only parent, from
+ * all of its parents for merges, or exists in a root commit; this matches
+ * which commits a path-filtered {@link RevWalk} shows.
+ * </p>
+ * <p>
+ * Lookups never wait for indexing. Callers must fall back to walking if a
+ * repository is not indexed yet, and walk the commits newer than the
+ * {@link PathHistory#getIndexedTips() indexed tips} if the index is not
+ * {@link PathHistory#isCurrent() current}.
+ * </p>
+ */
+public class PathHistoryIndex
+		extends RepositoryIndex<PathHistoryIndex.RepositoryHistory> {
+
+	private static final int FILE_MAGIC = 0x45475048; // "EGPH"
+
+	private static final int FILE_VERSION = 2;
+
+	/** Guards against rename cycles when following a path */
+	private static final int MAX_RENAMES = 100;
+
+	/**
+	 * The commits which touched a path in topological order, children before
+	 * their parents, with the path the file had in each of them.
+	 */
+	public static class PathHistory {
+
+		private final List<ObjectId> commits;
+
+		private final Map<ObjectId, String> paths;
+
+		private final Set<ObjectId> tips;
+
+		private final boolean current;
+
+		PathHistory(List<ObjectId> commits, Map<ObjectId, String> paths,
+				Set<ObjectId> tips, boolean current) {
+			this.commits = commits;
+			this.paths = paths;
+			this.tips = tips;
+			this.current = current;
+		}
+
+		/**
+		 * @return the commits touching the path, children before their
+		 *         parents
+		 */
+		@NonNull
+		public List<ObjectId> getCommits() {
+			return Collections.unmodifiableList(commits);
+		}
+
+		/**
+		 * @param commit
+		 *            one of {@link #getCommits()}
+		 * @return the path of the file in that commit, or {@code null} if the
+		 *         commit is not part of this history
+		 */
+		@Nullable
+		public String getPath(AnyObjectId commit) {
+			return paths.get(commit);
+		}
+
+		/**
+		 * @return all paths the file had, most recent first
+		 */
+		@NonNull
+		public Collection<String> getPaths() {
+			return new LinkedHashSet<>(paths.values());
+		}
+
+		/**
+		 * @return the ref tips the index was built from; commits reachable
+		 *         from them are covered by this history
+		 */
+		@NonNull
+		public Set<ObjectId> getIndexedTips() {
+			return Collections.unmodifiableSet(tips);
+		}
+
+		/**
+		 * @return whether the refs have not changed since the index was
+		 *         last updated
+		 */
+		public boolean isCurrent() {
+			return current;
+		}
+
+		/**
+		 * Creates a filter for a {@link RevWalk} over the histories of some
+		 * files, without rename detection. The walk returns the commits
+		 * touching any path the files had, so it may also return commits
+		 * touching an old path of a file after it was renamed, but like any
+		 * path-filtered walk it rewrites the parents of the commits to their
+		 * nearest ancestors it returns.
+		 *
+		 * @param histories
+		 *            of the files, must not be empty
+		 * @return the filter
+		 */
+		@NonNull
+		public static TreeFilter createTreeFilter(
+				@NonNull Collection<PathHistory> histories) {
+			Set<String> names = new LinkedHashSet<>();
+			for (PathHistory history : histories) {
+				names.addAll(history.getPaths());
+			}
+			return AndTreeFilter.create(
+					PathFilterGroup.createFromStrings(names),
+					TreeFilter.ANY_DIFF);
+		}
+	}
+
+	private static class Rename {
+
+		final int commit;
+
+		final String oldPath;
+
+		Rename(int commit, String oldPath) {
+			this.commit = commit;
+			this.oldPath = oldPath;
+		}
+	}
+
+	/** The paths a single commit touched and the renames it contains */
+	private static class CommitChanges {
+
+		final ObjectId id;
+
+		final List<String> paths = new ArrayList<>();
+
+		/** Pairs of old and new path */
+		final List<String> renames = new ArrayList<>();
+
+		CommitChanges(RevCommit commit) {
+			this.id = commit.copy();
+		}
+	}
+
+	/**
+	 * The index of one repository; guarded by itself. Commits are numbered in
+	 * the order they were added, parents before children, so a commit never
+	 * has a higher ordinal than one of its descendants.
+	 */
+	static class RepositoryHistory extends RepositoryIndex.Entry {
+
+		final List<ObjectId> commits = new ArrayList<>();
+
+		final Map<String, IntList> touched = new HashMap<>();
+
+		/** Renames by new path */
+		final Map<String, List<Rename>> renames = new HashMap<>();
+
+		@Override
+		protected synchronized boolean isEmpty() {
+			return commits.isEmpty();
+		}
+
+		void add(CommitChanges changes) {
+			int ordinal = commits.size();
+			commits.add(changes.id);
+			for (String path : changes.paths) {
+				touched.computeIfAbsent(path, p -> new IntList(4))
+						.add(ordinal);
+			}
+			for (int i = 0; i < changes.renames.size(); i += 2) {
+				renames.computeIfAbsent(changes.renames.get(i + 1),
+						p -> new ArrayList<>(1))
+						.add(new Rename(ordinal, changes.renames.get(i)));
+			}
+		}
+	}
+
+	/**
+	 * Creates the index and starts tracking ref changes.
+	 *
+	 * @param storageDir
+	 *            directory to persist the indexes in, or {@code null} to keep
+	 *            them in memory only
+	 */
+	public PathHistoryIndex(@Nullable File storageDir) {
+		super(CoreText.PathHistoryIndex_updating,
+				JobFamilies.PATH_HISTORY_INDEX,
+				CoreText.PathHistoryIndex_updateFailed,
+				CoreText.PathHistoryIndex_saveFailed, storageDir, FILE_MAGIC,
+				FILE_VERSION);
+	}
+
+	/**
+	 * Looks up the history of a path.
+	 *
+	 * @param repository
+	 *            containing the path
+	 * @param path
+	 *            repository-relative path of a file
+	 * @param follow
+	 *            whether to follow renames, like {@code git log --follow}:
+	 *            once a commit is found that renamed the file to the path,
+	 *            older commits are looked up by the old path
+	 * @return the history, or {@code null} if the repository is not indexed
+	 *         yet, in which case it is scheduled for indexing
+	 */
+	@Nullable
+	public PathHistory getHistory(@NonNull Repository repository,
+			@NonNull String path, boolean follow) {
+		RepositoryHistory history = getEntry(repository);
+		if (history == null) {
+			return null;
+		}
+		boolean current = isCurrent(repository, history);
+		synchronized (history) {
+			return lookUp(history, path, follow, current);
+		}
+	}
+
+	private static PathHistory lookUp(RepositoryHistory history, String path,
+			boolean follow, boolean current) {
+		Map<ObjectId, String> paths = new HashMap<>();
+		IntList ordinals = new IntList();
+		String name = path;
+		int before = Integer.MAX_VALUE;
+		for (int step = 0; step <= MAX_RENAMES; step++) {
+			// The topologically latest rename to this name, not after the
+			// commits already found
+			Rename rename = null;
+			if (follow) {
+				for (Rename r : history.renames.getOrDefault(name,
+						Collections.<Rename> emptyList())) {
+					if (r.commit <= before
+							&& (rename == null || r.commit > rename.commit)) {
+						rename = r;
+					}
+				}
+			}
+			int after = rename != null ? rename.commit : Integer.MIN_VALUE;
+			IntList touched = history.touched.get(name);
+			for (int i = 0; touched != null && i < touched.size(); i++) {
+				int ordinal = touched.get(i);
+				ObjectId id = history.commits.get(ordinal);
+				if (ordinal <= before && ordinal >= after
+						&& !paths.containsKey(id)) {
+					paths.put(id, name);
+					ordinals.add(ordinal);
+				}
+			}
+			if (rename == null) {
+				break;
+			}
+			name = rename.oldPath;
+			before = after;
+		}
+		int[] sorted = new int[ordinals.size()];
+		for (int i = 0; i < sorted.length; i++) {
+			sorted[i] = ordinals.get(i);
+		}
+		Arrays.sort(sorted);
+		List<ObjectId> commits = new ArrayList<>(sorted.length);
+		Map<ObjectId, String> ordered = new LinkedHashMap<>();
+		for (int i = sorted.length - 1; i >= 0; i--) {
+			ObjectId id = history.commits.get(sorted[i]);
+			commits.add(id);
+			ordered.put(id, paths.get(id));
+		}
+		return new PathHistory(commits, ordered, history.getTips(), current);
+	}
+
+	@Override
+	protected RepositoryHistory update(Repository repository,
+			RepositoryHistory current, Set<ObjectId> tips,
+			IProgressMonitor monitor) throws IOException {
+		RepositoryHistory history = current != null ? current
+				: new RepositoryHistory();
+		Set<ObjectId> known = history.getTips();
+		if (!isFastForward(repository, tips, known, monitor)) {
+			// Commits only reachable from the previous tips must go; readers
+			// keep using the previous index until the new one is complete
+			history = new RepositoryHistory();
+			known = Collections.emptySet();
+		}
+		List<CommitChanges> added = index(repository, tips, known, monitor);
+		if (added == null) {
+			// Canceled
+			return history;
+		}
+		synchronized (history) {
+			// Parents first, so that ordinals grow with the topological order
+			for (int i = added.size() - 1; i >= 0; i--) {
+				history.add(added.get(i));
+			}
+		}
+		return history;
+	}
+
+	/**
+	 * Determines the paths touched by the commits reachable from the tips
+	 * but not from the known tips.
+	 *
+	 * @return the changes, or {@code null} if canceled
+	 */
+	private static List<CommitChanges> index(Repository repository,
+			Set<ObjectId> tips, Set<ObjectId> known, IProgressMonitor monitor)
+			throws IOException {
+		List<CommitChanges> result = new ArrayList<>();
+		Map<String, String> names = new HashMap<>();
+		try (ObjectReader reader = repository.newObjectReader();
+				RevWalk walk = new RevWalk(reader);
+				TreeWalk treeWalk = new TreeWalk(reader)) {
+			walk.setRetainBody(false);
+			walk.sort(RevSort.TOPO);
+			treeWalk.setRecursive(true);
+			treeWalk.setFilter(TreeFilter.ANY_DIFF);
+			boolean started = false;
+			for (ObjectId tip : tips) {
+				if (!known.contains(tip)) {
+					walk.markStart(walk.parseCommit(tip));
+					started = true;
+				}
+			}
+			if (!started) {
+				return result;
+			}
+			for (ObjectId tip : known) {
+				try {
+					walk.markUninteresting(walk.parseCommit(tip));
+				} catch (MissingObjectException e) {
+					// Pruned; the walk may cover some known commits again
+				}
+			}
+			RenameDetector renameDetector = new RenameDetector(repository);
+			for (RevCommit commit : walk) {
+				if (monitor.isCanceled()) {
+					return null;
+				}
+				CommitChanges changes = new CommitChanges(commit);
+				RevCommit[] parents = commit.getParents();
+				treeWalk.reset();
+				if (parents.length == 0) {
+					treeWalk.addTree(new EmptyTreeIterator());
+				} else {
+					for (RevCommit parent : parents) {
+						walk.parseHeaders(parent);
+						treeWalk.addTree(parent.getTree());
+					}
+				}
+				treeWalk.addTree(commit.getTree());
+				if (parents.length <= 1) {
+					addChanges(changes, DiffEntry.scan(treeWalk),
+							renameDetector, reader, names);
+				} else {
+					addMergeChanges(changes, treeWalk, names);
+				}
+				result.add(changes);
+			}
+		}
+		return result;
+	}
+
+	private static void addChanges(CommitChanges changes,
+			List<DiffEntry> entries, RenameDetector renameDetector,
+			ObjectReader reader, Map<String, String> names)
+			throws IOException {
+		boolean added = false;
+		boolean deleted = false;
+		for (DiffEntry entry : entries) {
+			added |= entry.getChangeType() == ChangeType.ADD;
+			deleted |= entry.getChangeType() == ChangeType.DELETE;
+		}
+		if (added && deleted) {
+			renameDetector.reset();
+			renameDetector.addAll(entries);
+			entries = renameDetector.compute(reader,
+					NullProgressMonitor.INSTANCE);
+		}
+		for (DiffEntry entry : entries) {
+			switch (entry.getChangeType()) {
+			case ADD:
+			case COPY:
+				changes.paths.add(intern(names, entry.getNewPath()));
+				break;
+			case DELETE:
+				changes.paths.add(intern(names, entry.getOldPath()));
+				break;
+			case RENAME:
+				String oldPath = intern(names, entry.getOldPath());
+				String newPath = intern(names, entry.getNewPath());
+				changes.paths.add(oldPath);
+				changes.paths.add(newPath);
+				changes.renames.add(oldPath);
+				changes.renames.add(newPath);
+				break;
+			default:
+				changes.paths.add(intern(names, entry.getNewPath()));
+			}
+		}
+	}
+
+	private static void addMergeChanges(CommitChanges changes,
+			TreeWalk treeWalk, Map<String, String> names) throws IOException {
+		int self = treeWalk.getTreeCount() - 1;
+		while (treeWalk.next()) {
+			boolean differsFromAll = true;
+			for (int i = 0; i < self && differsFromAll; i++) {
+				differsFromAll = treeWalk.getRawMode(i) != treeWalk
+						.getRawMode(self) || !treeWalk.idEqual(i, self);
+			}
+			if (differsFromAll) {
+				changes.paths.add(intern(names, treeWalk.getPathString()));
+			}
+		}
+	}
+
+	private static String intern(Map<String, String> names, String name) {
+		String existing = names.putIfAbsent(name, name);
+		return existing != null ? existing : name;
+	}
+
+	/**
+	 * Determines whether all previous tips are still reachable from the
+	 * current tips, so that the indexed commits are still reachable and the
+	 * index can be updated incrementally.
+	 *
+	 * @return whether the refs only moved forward; {@code false} if canceled
+	 */
+	private static boolean isFastForward(Repository repository,
+			Set<ObjectId> tips, Set<ObjectId> known, IProgressMonitor monitor)
+			throws IOException {
+		Set<ObjectId> removed = new HashSet<>(known);
+		removed.removeAll(tips);
+		if (removed.isEmpty()) {
+			return true;
+		}
+		try (RevWalk walk = new RevWalk(repository)) {
+			walk.setRetainBody(false);
+			for (ObjectId tip : removed) {
+				if (!walk.getObjectReader().has(tip)) {
+					return false;
+				}
+			}
+			for (ObjectId tip : tips) {
+				walk.markStart(walk.parseCommit(tip));
+			}
+			for (RevCommit commit : walk) {
+				if (monitor.isCanceled()) {
+					return false;
+				}
+				if (removed.remove(commit) && removed.isEmpty()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	@Override
+	protected RepositoryHistory read(DataInput in) throws IOException {
+		RepositoryHistory history = new RepositoryHistory();
+		byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+		int n = in.readInt();
+		for (int i = 0; i < n; i++) {
+			in.readFully(raw);
+			history.commits.add(ObjectId.fromRaw(raw));
+		}
+		n = in.readInt();
+		for (int i = 0; i < n; i++) {
+			String path = in.readUTF();
+			int m = in.readInt();
+			IntList ordinals = new IntList(m);
+			for (int j = 0; j < m; j++) {
+				ordinals.add(in.readInt());
+			}
+			history.touched.put(path, ordinals);
+		}
+		n = in.readInt();
+		for (int i = 0; i < n; i++) {
+			String newPath = in.readUTF();
+			int m = in.readInt();
+			List<Rename> renames = new ArrayList<>(m);
+			for (int j = 0; j < m; j++) {
+				int commit = in.readInt();
+				renames.add(new Rename(commit, in.readUTF()));
+			}
+			history.renames.put(newPath, renames);
+		}
+		return history;
+	}
+
+	@Override
+	protected void write(RepositoryHistory history, DataOutput out)
+			throws IOException {
+		// Only the update job modifies the index, and it is the one saving
+		// it, so lookups need not be blocked while writing
+		byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+		out.writeInt(history.commits.size());
+		for (ObjectId commit : history.commits) {
+			commit.copyRawTo(raw, 0);
+			out.write(raw);
+		}
+		out.writeInt(history.touched.size());
+		for (Map.Entry<String, IntList> entry : history.touched.entrySet()) {
+			out.writeUTF(entry.getKey());
+			IntList ordinals = entry.getValue();
+			out.writeInt(ordinals.size());
+			for (int i = 0; i < ordinals.size(); i++) {
+				out.writeInt(ordinals.get(i));
+			}
+		}
+		out.writeInt(history.renames.size());
+		for (Map.Entry<String, List<Rename>> entry : history.renames
+				.entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeInt(entry.getValue().size());
+			for (Rename rename : entry.getValue()) {
+				out.writeInt(rename.commit);
+				out.writeUTF(rename.oldPath);
+			}
+		}
+	}
+}
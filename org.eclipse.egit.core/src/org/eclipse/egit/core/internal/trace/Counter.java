@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.trace;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free, monotonically increasing counter.
+ */
+public class Counter {
+
+	private final String name;
+
+	private final LongAdder value = new LongAdder();
+
+	/**
+	 * @param name
+	 *            of the counter
+	 */
+	Counter(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * @return the name of this counter
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Increments the counter by one.
+	 */
+	public void increment() {
+		value.increment();
+	}
+
+	/**
+	 * @param delta
+	 *            to add to the counter
+	 */
+	public void add(long delta) {
+		value.add(delta);
+	}
+
+	/**
+	 * @return the current value
+	 */
+	public long getValue() {
+		return value.sum();
+	}
+
+	/**
+	 * Resets the counter to zero.
+	 */
+	public void reset() {
+		value.reset();
+	}
+}
@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.trace;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.egit.core.internal.util.AtomicFileWriter;
+
+/**
+ * Registry of the counters and histograms EGit records at its trace points.
+ * <p>
+ * Metrics are cheap to record and are therefore always collected, regardless
+ * of whether the corresponding {@link GitTraceLocation} is active. Metrics
+ * that are kept per repository use names of the form
+ * {@code name[repository]}. If the system property {@value #DUMP_PROPERTY} is
+ * set, the metrics are written to that file as JSON when the core plug-in is
+ * stopped.
+ * </p>
+ */
+public final class GitMetrics {
+
+	/** System property naming a file to dump the metrics to on shutdown */
+	public static final String DUMP_PROPERTY = "egit.metrics.file"; //$NON-NLS-1$
+
+	/** Duration of full index diff calculations in milliseconds */
+	public static final String INDEX_DIFF_RELOAD = "indexdiff.reload.ms"; //$NON-NLS-1$
+
+	/** Duration of incremental index diff calculations in milliseconds */
+	public static final String INDEX_DIFF_UPDATE = "indexdiff.update.ms"; //$NON-NLS-1$
+
+	/** Duration of workspace refreshes before an index diff, in milliseconds */
+	public static final String RESOURCE_REFRESH = "resources.refresh.ms"; //$NON-NLS-1$
+
+	/** Latency of decorating a single resource in nanoseconds */
+	public static final String DECORATION = "decoration.ns"; //$NON-NLS-1$
+
+	/** Number of label events posted to the label event job */
+	public static final String LABEL_EVENTS_POSTED = "decoration.labelevents.posted"; //$NON-NLS-1$
+
+	/** Number of label events posted before the label event job ran */
+	public static final String LABEL_EVENT_BURST = "decoration.labelevents.burst"; //$NON-NLS-1$
+
+	/** Duration of loading one batch of commits in the history in ms */
+	public static final String HISTORY_LOAD = "history.load.ms"; //$NON-NLS-1$
+
+	/** Number of commits loaded into the history view */
+	public static final String HISTORY_COMMITS = "history.commits"; //$NON-NLS-1$
+
+	/** Number of working tree file ids taken from the content id cache */
+	public static final String CONTENT_ID_HITS = "contentid.hits"; //$NON-NLS-1$
+
+	/** Number of working tree file ids that had to be computed */
+	public static final String CONTENT_ID_MISSES = "contentid.misses"; //$NON-NLS-1$
+
+	/** Duration of fetch operations in milliseconds */
+	public static final String FETCH = "fetch.ms"; //$NON-NLS-1$
+
+	/** Number of tracking refs updated by fetch operations */
+	public static final String FETCH_REFS = "fetch.refs"; //$NON-NLS-1$
+
+	/** Duration of pushing to a single URI in milliseconds */
+	public static final String PUSH = "push.ms"; //$NON-NLS-1$
+
+	/** Number of remote refs updated by push operations */
+	public static final String PUSH_REFS = "push.refs"; //$NON-NLS-1$
+
+	private static final ConcurrentMap<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+
+	private static final ConcurrentMap<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+	private GitMetrics() {
+		// Utility class shall not be instantiated
+	}
+
+	/**
+	 * Retrieves or creates a counter.
+	 *
+	 * @param name
+	 *            of the counter
+	 * @return the counter
+	 */
+	public static Counter counter(String name) {
+		return COUNTERS.computeIfAbsent(name, Counter::new);
+	}
+
+	/**
+	 * Retrieves or creates a per-repository counter.
+	 *
+	 * @param name
+	 *            of the counter
+	 * @param repository
+	 *            name of the repository
+	 * @return the counter
+	 */
+	public static Counter counter(String name, String repository) {
+		return counter(qualify(name, repository));
+	}
+
+	/**
+	 * Retrieves or creates a histogram.
+	 *
+	 * @param name
+	 *            of the histogram
+	 * @return the histogram
+	 */
+	public static Histogram histogram(String name) {
+		return HISTOGRAMS.computeIfAbsent(name, Histogram::new);
+	}
+
+	/**
+	 * Retrieves or creates a per-repository histogram.
+	 *
+	 * @param name
+	 *            of the histogram
+	 * @param repository
+	 *            name of the repository
+	 * @return the histogram
+	 */
+	public static Histogram histogram(String name, String repository) {
+		return histogram(qualify(name, repository));
+	}
+
+	/**
+	 * @return all counters, sorted by name
+	 */
+	public static List<Counter> getCounters() {
+		List<Counter> result = new ArrayList<>(COUNTERS.values());
+		Collections.sort(result,
+				(a, b) -> a.getName().compareTo(b.getName()));
+		return result;
+	}
+
+	/**
+	 * @return all histograms, sorted by name
+	 */
+	public static List<Histogram> getHistograms() {
+		List<Histogram> result = new ArrayList<>(HISTOGRAMS.values());
+		Collections.sort(result,
+				(a, b) -> a.getName().compareTo(b.getName()));
+		return result;
+	}
+
+	/**
+	 * Resets all metrics to zero.
+	 */
+	public static void reset() {
+		for (Counter counter : COUNTERS.values()) {
+			counter.reset();
+		}
+		for (Histogram histogram : HISTOGRAMS.values()) {
+			histogram.reset();
+		}
+	}
+
+	/**
+	 * Writes all metrics as a JSON object.
+	 *
+	 * @param out
+	 *            to write to
+	 * @throws IOException
+	 */
+	public static void writeJson(Writer out) throws IOException {
+		out.write("{\n  \"timestamp\": "); //$NON-NLS-1$
+		out.write(Long.toString(System.currentTimeMillis()));
+		out.write(",\n  \"counters\": {"); //$NON-NLS-1$
+		boolean first = true;
+		for (Counter counter : getCounters()) {
+			out.write(first ? "\n" : ",\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			first = false;
+			out.write("    "); //$NON-NLS-1$
+			writeString(out, counter.getName());
+			out.write(": "); //$NON-NLS-1$
+			out.write(Long.toString(counter.getValue()));
+		}
+		out.write("\n  },\n  \"histograms\": {"); //$NON-NLS-1$
+		first = true;
+		for (Histogram histogram : getHistograms()) {
+			out.write(first ? "\n" : ",\n"); //$NON-NLS-1$ //$NON-NLS-2$
+			first = false;
+			out.write("    "); //$NON-NLS-1$
+			writeString(out, histogram.getName());
+			out.write(String.format(Locale.ROOT,
+					": {\"count\": %d, \"sum\": %d, \"min\": %d, \"max\": %d, \"mean\": %.3f, \"p50\": %d, \"p90\": %d, \"p99\": %d}", //$NON-NLS-1$
+					Long.valueOf(histogram.getCount()),
+					Long.valueOf(histogram.getSum()),
+					Long.valueOf(histogram.getMin()),
+					Long.valueOf(histogram.getMax()),
+					Double.valueOf(histogram.getMean()),
+					Long.valueOf(histogram.getPercentile(50)),
+					Long.valueOf(histogram.getPercentile(90)),
+					Long.valueOf(histogram.getPercentile(99))));
+		}
+		out.write("\n  }\n}\n"); //$NON-NLS-1$
+		out.flush();
+	}
+
+	/**
+	 * Writes all metrics as JSON to a file. The file is replaced atomically
+	 * where the file system supports it.
+	 *
+	 * @param file
+	 *            to write to
+	 * @throws IOException
+	 */
+	public static void dump(File file) throws IOException {
+		AtomicFileWriter.write(file, stream -> {
+			Writer out = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+			writeJson(out);
+			out.flush();
+		});
+	}
+
+	private static String qualify(String name, String repository) {
+		return name + '[' + repository + ']';
+	}
+
+	private static void writeString(Writer out, String value)
+			throws IOException {
+		out.write('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+			case '\\':
+				out.write('\\');
+				out.write(c);
+				break;
+			default:
+				if (c < 0x20) {
+					out.write(String.format("\\u%04x", Integer.valueOf(c))); //$NON-NLS-1$
+				} else {
+					out.write(c);
+				}
+			}
+		}
+		out.write('"');
+	}
+}
@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative long values.
+ * <p>
+ * Values are recorded into log-linear buckets: each power of two is split
+ * into {@value #SUB_BUCKETS} equally sized sub-buckets, so percentiles are
+ * reported with a relative error of at most 12.5%, independent of the
+ * magnitude of the values. Recording a value is a handful of atomic
+ * increments and never blocks.
+ * </p>
+ */
+public class Histogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private static final int BUCKET_COUNT = SUB_BUCKETS
+			+ (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final String name;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(
+			BUCKET_COUNT);
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder sum = new LongAdder();
+
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+	private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+	/**
+	 * @param name
+	 *            of the histogram
+	 */
+	Histogram(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * @return the name of this histogram
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Records a value. Negative values are recorded as zero.
+	 *
+	 * @param value
+	 *            to record
+	 */
+	public void record(long value) {
+		long v = Math.max(0, value);
+		buckets.incrementAndGet(bucketIndex(v));
+		count.increment();
+		sum.add(v);
+		long current = min.get();
+		while (v < current && !min.compareAndSet(current, v)) {
+			current = min.get();
+		}
+		current = max.get();
+		while (v > current && !max.compareAndSet(current, v)) {
+			current = max.get();
+		}
+	}
+
+	/**
+	 * @return the number of recorded values
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * @return the sum of all recorded values
+	 */
+	public long getSum() {
+		return sum.sum();
+	}
+
+	/**
+	 * @return the smallest recorded value, or zero if nothing was recorded
+	 */
+	public long getMin() {
+		long result = min.get();
+		return result == Long.MAX_VALUE ? 0 : result;
+	}
+
+	/**
+	 * @return the largest recorded value, or zero if nothing was recorded
+	 */
+	public long getMax() {
+		long result = max.get();
+		return result == Long.MIN_VALUE ? 0 : result;
+	}
+
+	/**
+	 * @return the arithmetic mean of all recorded values
+	 */
+	public double getMean() {
+		long n = getCount();
+		return n == 0 ? 0 : (double) getSum() / n;
+	}
+
+	/**
+	 * Determines an upper bound for the value at the given percentile.
+	 *
+	 * @param percentile
+	 *            in the range [0, 100]
+	 * @return the upper bound of the bucket containing the percentile, capped
+	 *         at the largest recorded value
+	 */
+	public long getPercentile(double percentile) {
+		long total = 0;
+		long[] snapshot = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			snapshot[i] = buckets.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(
+				Math.min(100, Math.max(0, percentile)) / 100 * total);
+		rank = Math.max(1, rank);
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(bucketUpperBound(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Discards all recorded values.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			buckets.set(i, 0);
+		}
+		count.reset();
+		sum.reset();
+		min.set(Long.MAX_VALUE);
+		max.set(Long.MIN_VALUE);
+	}
+
+	static int bucketIndex(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+		return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+	}
+
+	static long bucketUpperBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+		int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+		long lower = (long) (SUB_BUCKETS + sub) << shift;
+		return lower + (1L << shift) - 1;
+	}
+}
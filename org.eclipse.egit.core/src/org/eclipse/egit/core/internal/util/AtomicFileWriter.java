@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes files such that readers see either the previous or the complete new
+ * content, never a partially written file: the content is written to a
+ * temporary file in the same directory, which then replaces the file.
+ */
+public final class AtomicFileWriter {
+
+	/**
+	 * Produces the content of a file.
+	 */
+	@FunctionalInterface
+	public interface Content {
+
+		/**
+		 * Writes the content.
+		 *
+		 * @param out
+		 *            buffered stream to write to; must not be closed
+		 * @throws IOException
+		 */
+		void writeTo(OutputStream out) throws IOException;
+	}
+
+	private AtomicFileWriter() {
+		// Utility class
+	}
+
+	/**
+	 * Replaces a file, creating missing parent directories. The file is moved
+	 * into place atomically where the file system supports it. If writing
+	 * the content fails, the file is left untouched.
+	 *
+	 * @param file
+	 *            to write
+	 * @param content
+	 *            to write into the file
+	 * @throws IOException
+	 */
+	public static void write(File file, Content content) throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		Files.createDirectories(parent.toPath());
+		File tmp = File.createTempFile(file.getName(), ".tmp", parent); //$NON-NLS-1$
+		try {
+			try (OutputStream out = new BufferedOutputStream(
+					Files.newOutputStream(tmp.toPath()))) {
+				content.writeTo(out);
+			}
+			try {
+				Files.move(tmp.toPath(), file.toPath(),
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp.toPath(), file.toPath(),
+						StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tmp.toPath());
+		}
+	}
+}
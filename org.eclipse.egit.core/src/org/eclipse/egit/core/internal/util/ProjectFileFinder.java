@@ -0,0 +1,579 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.egit.core.Activator;
+import org.eclipse.egit.core.internal.CoreText;
+import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.annotations.Nullable;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.ignore.IgnoreNode;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.CoreConfig;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.submodule.SubmoduleWalk;
+import org.eclipse.jgit.util.FS;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Finds the {@code .project} files in a directory tree.
+ * <p>
+ * If the directory belongs to the working tree of a known repository, the
+ * {@code .project} files tracked in its index are taken from the index
+ * without looking at the file system beyond checking that they exist. The
+ * file system is then only searched for untracked projects: directories
+ * ignored by the repository's ignore rules, such as build output or
+ * {@code node_modules}, are skipped entirely, and tracked files are never
+ * examined. Submodules are searched in the same way using their own index
+ * and ignore rules. Directories are listed in parallel.
+ * </p>
+ * <p>
+ * Found files are reported as they are discovered, from worker threads, but
+ * never concurrently.
+ * </p>
+ */
+class ProjectFileFinder {
+
+	private static final String DOT_PROJECT = IProjectDescription.DESCRIPTION_FILE_NAME;
+
+	private static final int MAX_THREADS = 8;
+
+	private static final long POLL_INTERVAL = 100;
+
+	private final Repository repository;
+
+	private final File directory;
+
+	private final boolean searchNested;
+
+	private final Consumer<File> found;
+
+	private final Set<Path> visited = ConcurrentHashMap.newKeySet();
+
+	private final Set<File> reported = ConcurrentHashMap.newKeySet();
+
+	/** Tracked projects to report at the end if not searching nested ones */
+	private final List<File> trackedFiles = Collections
+			.synchronizedList(new ArrayList<>());
+
+	private volatile boolean canceled;
+
+	private volatile String current;
+
+	/**
+	 * @param repository
+	 *            whose working tree contains {@code directory}, or
+	 *            {@code null} to search the file system only
+	 * @param directory
+	 *            to search
+	 * @param searchNested
+	 *            whether to search for projects nested in other projects
+	 * @param found
+	 *            to report the found {@code .project} files to
+	 */
+	ProjectFileFinder(@Nullable Repository repository, @NonNull File directory,
+			boolean searchNested, @NonNull Consumer<File> found) {
+		this.repository = repository;
+		this.directory = directory;
+		this.searchNested = searchNested;
+		this.found = found;
+	}
+
+	/**
+	 * Searches for projects.
+	 *
+	 * @param monitor
+	 *            for progress reporting and cancellation
+	 */
+	void run(IProgressMonitor monitor) {
+		String prefix = getRepositoryPath(directory);
+		Scope scope = prefix != null ? Scope.open(repository, prefix, directory,
+				searchNested) : null;
+		if (scope == null) {
+			// Search the file system only
+			scope = new Scope();
+			prefix = ""; //$NON-NLS-1$
+		}
+		addTracked(scope);
+		ForkJoinPool pool = new ForkJoinPool(Math.min(MAX_THREADS,
+				Runtime.getRuntime().availableProcessors()));
+		try {
+			ForkJoinTask<Void> task = pool.submit(new DirectoryTask(
+					directory.toPath(), prefix, scope.ignores, scope));
+			String shown = null;
+			while (true) {
+				try {
+					task.get(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+					break;
+				} catch (TimeoutException e) {
+					// Still running
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					canceled = true;
+					break;
+				} catch (ExecutionException e) {
+					Activator.logError(e.getMessage(), e.getCause());
+					break;
+				}
+				if (monitor.isCanceled()) {
+					canceled = true;
+				}
+				String dir = current;
+				if (dir != null && !dir.equals(shown)) {
+					monitor.subTask(NLS.bind(
+							CoreText.ProjectUtil_taskCheckingDirectory, dir));
+					shown = dir;
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		if (!searchNested && !canceled) {
+			// Untracked projects found may contain tracked ones
+			synchronized (trackedFiles) {
+				for (File file : trackedFiles) {
+					if (!isNestedInReported(file.getParentFile())) {
+						report(file);
+					}
+				}
+			}
+		}
+	}
+
+	private void addTracked(Scope scope) {
+		if (searchNested) {
+			for (File file : scope.trackedFiles) {
+				report(file);
+			}
+		} else {
+			trackedFiles.addAll(scope.trackedFiles);
+		}
+	}
+
+	private String getRepositoryPath(File dir) {
+		if (repository == null || repository.isBare()) {
+			return null;
+		}
+		Path workTree = repository.getWorkTree().toPath().toAbsolutePath()
+				.normalize();
+		Path path = dir.toPath().toAbsolutePath().normalize();
+		if (!path.startsWith(workTree)) {
+			return null;
+		}
+		return toRepositoryPath(workTree.relativize(path));
+	}
+
+	private static String toRepositoryPath(Path relative) {
+		String path = relative.toString();
+		if (File.separatorChar != '/') {
+			path = path.replace(File.separatorChar, '/');
+		}
+		return path;
+	}
+
+	private static IgnoreNode parse(File file) throws IOException {
+		if (!file.isFile()) {
+			return null;
+		}
+		IgnoreNode node = new IgnoreNode();
+		try (InputStream in = Files.newInputStream(file.toPath())) {
+			node.parse(in);
+		}
+		return node.getRules().isEmpty() ? null : node;
+	}
+
+	private boolean isNestedInReported(File dir) {
+		for (File parent = dir; parent != null; parent = parent
+				.getParentFile()) {
+			if (reported.contains(new File(parent, DOT_PROJECT))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void report(File file) {
+		if (reported.add(file)) {
+			synchronized (this) {
+				found.accept(file);
+			}
+		}
+	}
+
+	private static class Ignore {
+
+		final String base;
+
+		final IgnoreNode node;
+
+		Ignore(String base, IgnoreNode node) {
+			this.base = base;
+			this.node = node;
+		}
+	}
+
+	/**
+	 * The index and ignore rules of the repository a part of the directory
+	 * tree belongs to, if any.
+	 */
+	private static class Scope {
+
+		final DirCache index;
+
+		/** Repository-relative paths of the directories of tracked projects */
+		final Set<String> trackedProjects = new HashSet<>();
+
+		/** The {@code .project} files of the tracked projects */
+		final List<File> trackedFiles = new ArrayList<>();
+
+		final List<IgnoreNode> globalIgnores = new ArrayList<>();
+
+		/** The ignore rules of the directories above the one searched */
+		final List<Ignore> ignores = new ArrayList<>();
+
+		/**
+		 * Creates the scope of directories not in any repository.
+		 */
+		Scope() {
+			index = null;
+		}
+
+		private Scope(DirCache index) {
+			this.index = index;
+		}
+
+		/**
+		 * @param repository
+		 *            to read the index and ignore rules of
+		 * @param prefix
+		 *            repository-relative path of the directory searched
+		 * @param directory
+		 *            searched
+		 * @param searchNested
+		 *            whether to search for projects nested in other projects
+		 * @return the scope, or {@code null} if the index cannot be read
+		 */
+		static Scope open(Repository repository, String prefix,
+				File directory, boolean searchNested) {
+			try {
+				Scope scope = new Scope(repository.readDirCache());
+				scope.readTrackedProjects(repository, prefix, directory,
+						searchNested);
+				scope.loadIgnores(repository, prefix);
+				return scope;
+			} catch (IOException e) {
+				return null;
+			}
+		}
+
+			private void readTrackedProjects(Repository repository,
+					String prefix, File directory, boolean searchNested) {
+			File workTree = repository.getWorkTree();
+			String start = prefix.isEmpty() ? "" : prefix + '/'; //$NON-NLS-1$
+			int count = index.getEntryCount();
+			int i = start.isEmpty() ? 0 : insertionPoint(start);
+			Set<String> projectDirs = new LinkedHashSet<>();
+			for (; i < count; i++) {
+				DirCacheEntry entry = index.getEntry(i);
+				String path = entry.getPathString();
+				if (!path.startsWith(start)) {
+					break;
+				}
+				if (entry.getStage() != DirCacheEntry.STAGE_0
+						&& entry.getStage() != DirCacheEntry.STAGE_2) {
+					continue;
+				}
+				String dir;
+				if (path.equals(DOT_PROJECT)) {
+					dir = ""; //$NON-NLS-1$
+				} else if (path.endsWith('/' + DOT_PROJECT)) {
+					dir = path.substring(0,
+							path.length() - DOT_PROJECT.length() - 1);
+				} else {
+					continue;
+				}
+				if (!projectDirs.contains(dir)
+						&& new File(workTree, path).isFile()) {
+					projectDirs.add(dir);
+				}
+			}
+			for (String dir : projectDirs) {
+				if (!searchNested && hasAncestorIn(dir, projectDirs)) {
+					continue;
+				}
+				trackedProjects.add(dir);
+				// Relative to the directory searched, like untracked projects
+				String relative = prefix.isEmpty() ? dir
+						: dir.substring(Math.min(dir.length(),
+								prefix.length() + 1));
+				trackedFiles.add(new File(relative.isEmpty() ? directory
+						: new File(directory, relative), DOT_PROJECT));
+			}
+		}
+
+		private static boolean hasAncestorIn(String dir, Set<String> dirs) {
+			if (dir.isEmpty()) {
+				return false;
+			}
+			for (int i = dir.lastIndexOf('/'); i > 0; i = dir.lastIndexOf('/',
+					i - 1)) {
+				if (dirs.contains(dir.substring(0, i))) {
+					return true;
+				}
+			}
+			return dirs.contains(""); //$NON-NLS-1$
+		}
+
+		private int insertionPoint(String path) {
+			int i = index.findEntry(path);
+			return i < 0 ? -(i + 1) : i;
+		}
+
+		DirCacheEntry getEntry(String path) {
+			if (index == null) {
+				return null;
+			}
+			int i = index.findEntry(path);
+			return i >= 0 ? index.getEntry(i) : null;
+		}
+
+		boolean isTrackedDirectory(String path) {
+			if (index == null) {
+				return false;
+			}
+			if (path.isEmpty()) {
+				return index.getEntryCount() > 0;
+			}
+			String start = path + '/';
+			int i = insertionPoint(start);
+			return i < index.getEntryCount()
+					&& index.getEntry(i).getPathString().startsWith(start);
+		}
+
+		private void loadIgnores(Repository repository, String prefix)
+				throws IOException {
+			File workTree = repository.getWorkTree();
+			FS fs = repository.getFS();
+			String excludesFile = repository.getConfig().get(CoreConfig.KEY)
+					.getExcludesFile();
+			if (excludesFile != null) {
+				File file;
+				if (excludesFile.startsWith("~/")) { //$NON-NLS-1$
+					file = fs.resolve(fs.userHome(), excludesFile.substring(2));
+				} else {
+					file = fs.resolve(null, excludesFile);
+				}
+				IgnoreNode node = parse(file);
+				if (node != null) {
+					globalIgnores.add(node);
+				}
+			}
+			IgnoreNode exclude = parse(new File(repository.getDirectory(),
+					Constants.INFO_EXCLUDE));
+			if (exclude != null) {
+				globalIgnores.add(0, exclude);
+			}
+			// .gitignore files between the working tree and the directory
+			String base = ""; //$NON-NLS-1$
+			File dir = workTree;
+			IgnoreNode root = parse(new File(dir, Constants.DOT_GIT_IGNORE));
+			if (root != null) {
+				ignores.add(new Ignore(base, root));
+			}
+			if (!prefix.isEmpty()) {
+				String[] segments = prefix.split("/"); //$NON-NLS-1$
+				for (int i = 0; i < segments.length - 1; i++) {
+					base = base.isEmpty() ? segments[i] : base + '/' + segments[i];
+					dir = new File(dir, segments[i]);
+					IgnoreNode node = parse(
+							new File(dir, Constants.DOT_GIT_IGNORE));
+					if (node != null) {
+						ignores.add(new Ignore(base, node));
+					}
+				}
+			}
+		}
+
+		boolean isIgnored(String path, List<Ignore> ignores) {
+			for (int i = ignores.size() - 1; i >= 0; i--) {
+				Ignore ignore = ignores.get(i);
+				String relative = ignore.base.isEmpty() ? path
+						: path.substring(ignore.base.length() + 1);
+				switch (ignore.node.isIgnored(relative, true)) {
+				case IGNORED:
+					return true;
+				case NOT_IGNORED:
+					return false;
+				default:
+					break;
+				}
+			}
+			for (IgnoreNode node : globalIgnores) {
+				switch (node.isIgnored(path, true)) {
+				case IGNORED:
+					return true;
+				case NOT_IGNORED:
+					return false;
+				default:
+					break;
+				}
+			}
+			return false;
+		}
+	}
+
+	private class DirectoryTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Path dir;
+
+		private final String path;
+
+		private final List<Ignore> ignores;
+
+		private final Scope scope;
+
+		DirectoryTask(Path dir, String path, List<Ignore> ignores,
+				Scope scope) {
+			this.dir = dir;
+			this.path = path;
+			this.ignores = ignores;
+			this.scope = scope;
+		}
+
+		@Override
+		protected void compute() {
+			if (canceled) {
+				return;
+			}
+			try {
+				if (!visited.add(dir.toRealPath())) {
+					// Symbolic link cycle
+					return;
+				}
+			} catch (IOException e) {
+				return;
+			}
+			boolean tracked = scope.isTrackedDirectory(path);
+			if (tracked && scope.trackedProjects.contains(path)
+					&& !searchNested) {
+				return;
+			}
+			current = dir.toString();
+			List<Path> entries = new ArrayList<>();
+			boolean hasIgnoreFile = false;
+			boolean isProject = false;
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+				for (Path entry : stream) {
+					String name = entry.getFileName().toString();
+					if (name.equals(DOT_PROJECT)) {
+						isProject = Files.isRegularFile(entry);
+					} else if (name.equals(Constants.DOT_GIT_IGNORE)) {
+						hasIgnoreFile = true;
+					} else if (!name.equals(Constants.DOT_GIT)
+							&& !name.equals(ProjectUtil.METADATA_FOLDER)) {
+						entries.add(entry);
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				return;
+			}
+			// Tracked projects are reported from the index
+			if (isProject && !scope.trackedProjects.contains(path)) {
+				report(dir.resolve(DOT_PROJECT).toFile());
+				if (!searchNested) {
+					return;
+				}
+			}
+			List<Ignore> childIgnores = ignores;
+			if (hasIgnoreFile && scope.index != null) {
+				try {
+					IgnoreNode node = parse(
+							dir.resolve(Constants.DOT_GIT_IGNORE).toFile());
+					if (node != null) {
+						childIgnores = new ArrayList<>(ignores);
+						childIgnores.add(new Ignore(path, node));
+					}
+				} catch (IOException e) {
+					// Ignore the broken .gitignore
+				}
+			}
+			List<DirectoryTask> children = new ArrayList<>();
+			for (Path entry : entries) {
+				String name = entry.getFileName().toString();
+				String childPath = path.isEmpty() ? name : path + '/' + name;
+				DirCacheEntry indexEntry = tracked ? scope.getEntry(childPath)
+						: null;
+				if (indexEntry != null) {
+					if (FileMode.GITLINK.equals(indexEntry.getRawMode())) {
+						children.add(openSubmodule(entry));
+					}
+					// Otherwise known to be a file: no need to stat it
+					continue;
+				}
+				if (!Files.isDirectory(entry)) {
+					continue;
+				}
+				if (scope.index != null && !scope.isTrackedDirectory(childPath)
+						&& scope.isIgnored(childPath, childIgnores)) {
+					continue;
+				}
+				children.add(new DirectoryTask(entry, childPath, childIgnores,
+						scope));
+			}
+			invokeAll(children);
+		}
+
+		private DirectoryTask openSubmodule(Path submoduleDir) {
+			Scope submodule = null;
+			try (Repository repository = SubmoduleWalk.getSubmoduleRepository(
+					submoduleDir.getParent().toFile(),
+					submoduleDir.getFileName().toString())) {
+				if (repository != null) {
+					submodule = Scope.open(repository, "", //$NON-NLS-1$
+							submoduleDir.toFile(), searchNested);
+				}
+			} catch (IOException e) {
+				// Not initialized or broken: search the file system only
+			}
+			if (submodule == null) {
+				submodule = new Scope();
+			}
+			addTracked(submodule);
+			return new DirectoryTask(submoduleDir, "", submodule.ignores, //$NON-NLS-1$
+					submodule);
+		}
+	}
+}
@@ -24,6 +24,8 @@
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IProject;
@@ -37,9 +39,11 @@
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.egit.core.Activator;
 import org.eclipse.egit.core.internal.CoreText;
 import org.eclipse.egit.core.project.RepositoryMapping;
 import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.annotations.Nullable;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.RepositoryCache.FileKey;
@@ -58,6 +62,12 @@ public class ProjectUtil {
 	 */
 	public static final String METADATA_FOLDER = ".metadata"; //$NON-NLS-1$
 
+	/**
+	 * Maximum number of changed paths for which only the affected resources
+	 * are refreshed; beyond that, whole projects are refreshed.
+	 */
+	static final int MAX_REFRESH_PATHS = 2000;
+
 	/**
 	 * The method returns all valid open projects contained in the given Git
 	 * repository. A project is considered as valid if the .project file exists.
@@ -153,6 +163,108 @@ else if (delete)
 		}
 	}
 
+	/**
+	 * Refreshes the given projects like
+	 * {@link #refreshValidProjects(IProject[], boolean, IProgressMonitor)},
+	 * but only the resources affected by the given changed paths in projects
+	 * that still exist.
+	 * <p>
+	 * For each changed path the topmost resource that was added or removed
+	 * with it is refreshed, which is the file itself unless its parent folder
+	 * was created or deleted, too. If no paths are given or there are too
+	 * many, the projects are refreshed entirely.
+	 * </p>
+	 *
+	 * @param projects
+	 *            list of valid projects before workdir checkout.
+	 * @param delete
+	 *            true to delete projects, false to close them
+	 * @param repository
+	 *            the projects belong to
+	 * @param paths
+	 *            repository-relative paths of the files changed in the working
+	 *            tree, or {@code null} if unknown
+	 * @param monitor
+	 * @throws CoreException
+	 * @see WorkingTreeChangeRecorder
+	 */
+	public static void refreshValidProjects(IProject[] projects, boolean delete,
+			Repository repository, @Nullable Collection<String> paths,
+			IProgressMonitor monitor) throws CoreException {
+		if (paths == null || paths.size() > MAX_REFRESH_PATHS
+				|| repository.isBare()) {
+			refreshValidProjects(projects, delete, monitor);
+			return;
+		}
+		SubMonitor progress = SubMonitor.convert(monitor,
+				CoreText.ProjectUtil_refreshingProjects, projects.length);
+		IPath workTree = new Path(repository.getWorkTree().getAbsolutePath());
+		for (IProject p : projects) {
+			if (progress.isCanceled())
+				break;
+			IPath projectLocation = p.getLocation();
+			if (projectLocation == null) {
+				progress.worked(1);
+				continue;
+			}
+			File projectFile = projectLocation
+					.append(IProjectDescription.DESCRIPTION_FILE_NAME)
+					.toFile();
+			if (projectFile.exists())
+				refreshChanged(p, workTree, paths, progress.newChild(1));
+			else if (delete)
+				p.delete(false, true, progress.newChild(1));
+			else
+				closeMissingProject(p, projectFile, progress.newChild(1));
+		}
+	}
+
+	private static void refreshChanged(IProject project, IPath workTree,
+			Collection<String> paths, IProgressMonitor monitor)
+			throws CoreException {
+		IPath projectLocation = project.getLocation();
+		Set<IResource> changed = new LinkedHashSet<>();
+		for (String path : paths) {
+			IPath location = workTree.append(path);
+			if (!projectLocation.isPrefixOf(location)
+					|| projectLocation.equals(location))
+				continue;
+			IResource resource = project.getFile(location
+					.removeFirstSegments(projectLocation.segmentCount()));
+			IContainer parent = resource.getParent();
+			while (parent.getType() != IResource.PROJECT
+					&& (!parent.exists() || !parent.getLocation().toFile()
+							.isDirectory())) {
+				resource = parent;
+				parent = parent.getParent();
+			}
+			changed.add(resource);
+		}
+		List<IResource> toRefresh = new ArrayList<>(changed.size());
+		for (IResource resource : changed) {
+			if (!hasAncestorIn(resource, changed))
+				toRefresh.add(resource);
+		}
+		SubMonitor progress = SubMonitor.convert(monitor, toRefresh.size());
+		for (IResource resource : toRefresh) {
+			if (progress.isCanceled())
+				break;
+			resource.refreshLocal(IResource.DEPTH_INFINITE,
+					progress.newChild(1));
+		}
+	}
+
+	private static boolean hasAncestorIn(IResource resource,
+			Set<IResource> resources) {
+		for (IContainer parent = resource.getParent(); parent != null
+				&& parent.getType() != IResource.PROJECT; parent = parent
+						.getParent()) {
+			if (resources.contains(parent))
+				return true;
+		}
+		return false;
+	}
+
 	/**
 	 * Close a project that has already been deleted on disk. This will fall
 	 * back to deleting the project if it cannot be successfully closed.
@@ -440,12 +552,37 @@ public static IProject[] getProjectsUnderPath(@NonNull final IPath path) {
 	public static boolean findProjectFiles(final Collection<File> files,
 			final File directory, boolean searchNested,
 			final IProgressMonitor monitor) {
-		return findProjectFiles(files, directory, searchNested, null, monitor);
+		Set<File> found = new TreeSet<>();
+		boolean result = findProjectFiles(directory, searchNested, found::add,
+				monitor);
+		files.addAll(found);
+		return result;
 	}
 
-	private static boolean findProjectFiles(final Collection<File> files,
-			final File directory, final boolean searchNested,
-			final Set<String> visistedDirs, final IProgressMonitor monitor) {
+	/**
+	 * Find directories containing .project files recursively starting at given
+	 * directory, reporting them as they are found.
+	 * <p>
+	 * If the directory is in the working tree of a repository known to EGit,
+	 * the projects tracked in its index are taken from there, and only
+	 * directories that are not ignored are searched for untracked projects.
+	 * The file system is searched in parallel.
+	 * </p>
+	 *
+	 * @param directory
+	 *            where to search for project files
+	 * @param searchNested
+	 *            whether to search for nested projects or not
+	 * @param found
+	 *            receives the .project files found; called from background
+	 *            threads, but never concurrently
+	 * @param monitor
+	 * @return {@code false} if the directory is empty or cannot be searched,
+	 *         {@code true} otherwise
+	 */
+	public static boolean findProjectFiles(final File directory,
+			boolean searchNested, @NonNull Consumer<File> found,
+			final IProgressMonitor monitor) {
 		if (directory == null)
 			return false;
 
@@ -459,48 +596,14 @@ private static boolean findProjectFiles(final Collection<File> files,
 		else if (pm.isCanceled())
 			return false;
 
-		pm.subTask(NLS.bind(CoreText.ProjectUtil_taskCheckingDirectory,
-				directory.getPath()));
-
-		final File[] contents = directory.listFiles();
+		String[] contents = directory.list();
 		if (contents == null || contents.length == 0)
 			return false;
 
-		Set<String> directoriesVisited;
-		// Initialize recursion guard for recursive symbolic links
-		if (visistedDirs == null) {
-			directoriesVisited = new HashSet<>();
-			directoriesVisited.add(directory.getAbsolutePath());
-		} else
-			directoriesVisited = visistedDirs;
-
-		// first look for project description files
-		boolean foundProject = false;
-		final String dotProject = IProjectDescription.DESCRIPTION_FILE_NAME;
-		for (int i = 0; i < contents.length; i++) {
-			File file = contents[i];
-			if (file.isFile() && file.getName().equals(dotProject)) {
-				files.add(file);
-				foundProject = true;
-			}
-		}
-		if (foundProject && !searchNested)
-			return true;
-		// recurse into sub-directories (even when project was found above, for nested projects)
-		for (int i = 0; i < contents.length; i++) {
-			// Skip non-directories
-			if (!contents[i].isDirectory())
-				continue;
-			// Skip .metadata folders
-			if (contents[i].getName().equals(METADATA_FOLDER))
-				continue;
-			String path = contents[i].getAbsolutePath();
-			if (!directoriesVisited.add(path))
-				// already been here --> do not recurse
-				continue;
-			findProjectFiles(files, contents[i], searchNested,
-					directoriesVisited, pm);
-		}
+		Repository repository = Activator.getDefault().getRepositoryCache()
+				.getRepository(new Path(directory.getAbsolutePath()));
+		new ProjectFileFinder(repository, directory, searchNested, found)
+				.run(pm);
 		return true;
 	}
 }
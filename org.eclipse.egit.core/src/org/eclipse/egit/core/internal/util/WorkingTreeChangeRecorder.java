@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.internal.util;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.annotations.Nullable;
+import org.eclipse.jgit.events.ListenerHandle;
+import org.eclipse.jgit.events.WorkingTreeModifiedEvent;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Records the paths JGit reports as modified or deleted in the working tree of
+ * a repository while an operation runs, so that only these need to be
+ * refreshed in the workspace afterwards.
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ * try (WorkingTreeChangeRecorder changes = new WorkingTreeChangeRecorder(
+ * 		repository)) {
+ * 	// run a JGit command changing the working tree
+ * 	ProjectUtil.refreshValidProjects(projects, true, repository,
+ * 			changes.getPaths(), monitor);
+ * }
+ * </pre>
+ * </p>
+ */
+public class WorkingTreeChangeRecorder implements AutoCloseable {
+
+	private final ListenerHandle handle;
+
+	// Guarded by this
+	private Set<String> paths = new LinkedHashSet<>();
+
+	// Guarded by this
+	private boolean notified;
+
+	/**
+	 * Starts recording.
+	 *
+	 * @param repository
+	 *            to record the working tree changes of
+	 */
+	public WorkingTreeChangeRecorder(@NonNull Repository repository) {
+		handle = repository.getListenerList()
+				.addWorkingTreeModifiedListener(this::record);
+	}
+
+	private synchronized void record(WorkingTreeModifiedEvent event) {
+		notified = true;
+		if (paths == null) {
+			return;
+		}
+		paths.addAll(event.getModified());
+		paths.addAll(event.getDeleted());
+		if (paths.size() > ProjectUtil.MAX_REFRESH_PATHS) {
+			// Refreshing the projects is cheaper
+			paths = null;
+		}
+	}
+
+	/**
+	 * @return the repository-relative paths of the files modified or deleted
+	 *         so far, or {@code null} if they are unknown because there were
+	 *         too many or no change was reported at all
+	 */
+	@Nullable
+	public synchronized Collection<String> getPaths() {
+		return notified ? paths : null;
+	}
+
+	/**
+	 * Stops recording.
+	 */
+	@Override
+	public void close() {
+		handle.remove();
+	}
+}
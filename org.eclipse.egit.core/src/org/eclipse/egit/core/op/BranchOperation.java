@@ -161,10 +161,11 @@ private void refreshAffectedProjects(SubMonitor progress)
 				pathsToHandle.addAll(result.getModifiedList());
 				pathsToHandle.addAll(result.getRemovedList());
 				pathsToHandle.addAll(result.getConflictList());
+				pathsToHandle.addAll(result.getUndeletedList());
 				IProject[] refreshProjects = ProjectUtil
 						.getProjectsContaining(repository, pathsToHandle);
 				ProjectUtil.refreshValidProjects(refreshProjects, delete,
-						progress.newChild(1));
+						repository, pathsToHandle, progress.newChild(1));
 			}
 		};
 		// lock workspace to protect working tree changes
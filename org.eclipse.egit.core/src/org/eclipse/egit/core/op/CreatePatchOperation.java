@@ -16,14 +16,24 @@
 
 import static org.eclipse.jgit.lib.Constants.encodeASCII;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Locale;
 import java.util.Stack;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -35,6 +45,7 @@
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.egit.core.Activator;
@@ -48,8 +59,6 @@
 import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.diff.RawText;
 import org.eclipse.jgit.dircache.DirCacheIterator;
-import org.eclipse.jgit.errors.CorruptObjectException;
-import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
@@ -132,14 +141,22 @@ public String getDescription() {
 	 */
 	public static final int DEFAULT_CONTEXT_LINES = 3;
 
+	private static final int THREADS = Math.min(4,
+			Runtime.getRuntime().availableProcessors());
+
+	/** Maximum number of formatted diffs waiting to be written */
+	private static final int MAX_PENDING = 2 * THREADS;
+
 	private final RevCommit commit;
 
 	private final Repository repository;
 
 	private DiffHeaderFormat headerFormat = DiffHeaderFormat.EMAIL;
 
-	// the encoding for the currently processed file
-	private String currentEncoding = null;
+	// the project of the previously written diff of a workspace patch
+	private IProject project;
+
+	private WorkspacePrefixes prefixes;
 
 	private String patchContent;
 
@@ -163,75 +180,194 @@ public CreatePatchOperation(Repository repository, RevCommit commit) {
 
 	@Override
 	public void execute(IProgressMonitor monitor) throws CoreException {
-		try (final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-				final DiffFormatter diffFmt = createDiffFormatter(
-						outputStream, monitor)) {
-
-			diffFmt.setContext(contextLines);
-			final StringBuilder sb = new StringBuilder();
-			if (headerFormat != null && headerFormat != DiffHeaderFormat.NONE) {
-				writeGitPatchHeader(sb);
-			}
-			diffFmt.setRepository(repository);
-			diffFmt.setPathFilter(pathFilter);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try {
+			writePatch(outputStream, monitor);
+			patchContent = new String(outputStream.toByteArray(),
+					RawParseUtils.UTF8_CHARSET);
+		} catch (IOException e) {
+			Activator.logError(
+					CoreText.CreatePatchOperation_patchFileCouldNotBeWritten,
+					e);
+		}
+	}
+
+	/**
+	 * Creates the patch and writes it UTF-8 encoded to the given stream as it
+	 * is generated, instead of keeping it in memory. Only the diff of a single
+	 * file is buffered at a time, per formatting thread; the diffs of the
+	 * files of a commit are formatted concurrently but written in order.
+	 * {@link #getPatchContent()} cannot be used afterwards.
+	 *
+	 * @param out
+	 *            to write the patch to; it is flushed but not closed
+	 * @param monitor
+	 *            for progress reporting and cancellation
+	 * @throws IOException
+	 *             if the patch cannot be generated or written
+	 */
+	public void execute(OutputStream out, IProgressMonitor monitor)
+			throws IOException {
+		writePatch(out, monitor);
+	}
 
+	private void writePatch(OutputStream out, IProgressMonitor monitor)
+			throws IOException {
+		OutputStream target = new BufferedOutputStream(out);
+		if (headerFormat != null && headerFormat != DiffHeaderFormat.NONE) {
+			StringBuilder sb = new StringBuilder();
+			writeGitPatchHeader(sb);
+			target.write(sb.toString().getBytes(RawParseUtils.UTF8_CHARSET));
+		}
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try (DiffFormatter diffFmt = createDiffFormatter(buffer)) {
+			diffFmt.setProgressMonitor(
+					new EclipseGitProgressTransformer(monitor));
+			prefixes = new WorkspacePrefixes(diffFmt);
+			project = null;
+			List<DiffEntry> diffs;
 			if (commit != null) {
-				List<DiffEntry> diffs = diffFmt.scan(getParentId(), commit.getId());
-				for (DiffEntry ent : diffs) {
-					String path;
-					if (ChangeType.DELETE.equals(ent.getChangeType())) {
-						path = ent.getOldPath();
-					} else {
-						path = ent.getNewPath();
-					}
-					currentEncoding = CompareCoreUtils
-							.getResourceEncoding(repository, path);
-					diffFmt.format(ent);
+				diffs = diffFmt.scan(getParentId(), commit.getId());
+				if (diffs.size() > 1 && THREADS > 1) {
+					formatConcurrently(diffs, target, monitor);
+					target.flush();
+					return;
 				}
 			} else {
-				diffFmt.format(new DirCacheIterator(repository.readDirCache()),
+				// Working tree content is only available to this formatter
+				diffs = diffFmt.scan(
+						new DirCacheIterator(repository.readDirCache()),
 						new FileTreeIterator(repository));
 			}
-			diffFmt.flush();
-
-			appendOutputStream(sb, outputStream);
-
-			if (DiffHeaderFormat.WORKSPACE == headerFormat) {
-				updateWorkspacePatchPrefixes(sb, diffFmt);
+			for (DiffEntry ent : diffs) {
+				checkCanceled(monitor);
+				buffer.reset();
+				diffFmt.format(ent);
+				diffFmt.flush();
+				writeDiff(ent, buffer.toByteArray(), target);
 			}
-			patchContent = sb.toString();
-		} catch (IOException e) {
-			Activator.logError(
-					CoreText.CreatePatchOperation_patchFileCouldNotBeWritten,
-					e);
+		} finally {
+			prefixes = null;
+			project = null;
 		}
+		target.flush();
+	}
+
+	private DiffFormatter createDiffFormatter(OutputStream outputStream) {
+		DiffFormatter diffFmt = new DiffFormatter(outputStream);
+		diffFmt.setContext(contextLines);
+		diffFmt.setRepository(repository);
+		diffFmt.setPathFilter(pathFilter);
+		return diffFmt;
 	}
 
-	private DiffFormatter createDiffFormatter(
-			final ByteArrayOutputStream outputStream,
-			IProgressMonitor monitor) {
-		DiffFormatter diffFmt = new DiffFormatter(outputStream) {
-
-			private IProject project;
-
-			@Override
-			public void format(DiffEntry ent) throws IOException,
-					CorruptObjectException, MissingObjectException {
-				// for "workspace patches" add project header each time project
-				// changes
-				if (DiffHeaderFormat.WORKSPACE == headerFormat) {
-					IProject p = getProject(ent);
-					if (p != null && !p.equals(project)) {
-						project = p;
-						getOutputStream().write(
-								encodeASCII("#P " + project.getName() + "\n")); //$NON-NLS-1$ //$NON-NLS-2$
+	private void formatConcurrently(List<DiffEntry> diffs,
+			OutputStream target, IProgressMonitor monitor) throws IOException {
+		List<DiffFormatter> formatters = new ArrayList<>();
+		ThreadLocal<ByteArrayOutputStream> buffers = new ThreadLocal<>();
+		ThreadLocal<DiffFormatter> threadFormatters = ThreadLocal
+				.withInitial(() -> {
+					ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+					DiffFormatter diffFmt = createDiffFormatter(buffer);
+					buffers.set(buffer);
+					synchronized (formatters) {
+						formatters.add(diffFmt);
 					}
+					return diffFmt;
+				});
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			Deque<Future<byte[]>> pending = new ArrayDeque<>();
+			int submitted = 0;
+			int written = 0;
+			while (written < diffs.size()) {
+				// Keep a bounded window of formatted diffs ahead of the writer
+				while (submitted < diffs.size()
+						&& pending.size() < MAX_PENDING) {
+					DiffEntry ent = diffs.get(submitted++);
+					pending.add(executor.submit(() -> {
+						DiffFormatter diffFmt = threadFormatters.get();
+						ByteArrayOutputStream buffer = buffers.get();
+						buffer.reset();
+						diffFmt.format(ent);
+						diffFmt.flush();
+						return buffer.toByteArray();
+					}));
 				}
-				super.format(ent);
+				checkCanceled(monitor);
+				writeDiff(diffs.get(written++), get(pending.remove()),
+						target);
 			}
-		};
-		diffFmt.setProgressMonitor(new EclipseGitProgressTransformer(monitor));
-		return diffFmt;
+		} finally {
+			executor.shutdownNow();
+			try {
+				executor.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			synchronized (formatters) {
+				for (DiffFormatter diffFmt : formatters) {
+					diffFmt.close();
+				}
+			}
+		}
+	}
+
+	private static byte[] get(Future<byte[]> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			throw new OperationCanceledException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	private static void checkCanceled(IProgressMonitor monitor) {
+		if (monitor != null && monitor.isCanceled()) {
+			throw new OperationCanceledException();
+		}
+	}
+
+	/**
+	 * Writes the formatted diff of one file, decoded with the encoding of
+	 * that file and re-encoded as UTF-8. For workspace patches a project
+	 * header is written each time the project changes, and the paths in the
+	 * file header are made relative to the project.
+	 */
+	private void writeDiff(DiffEntry ent, byte[] diff, OutputStream target)
+			throws IOException {
+		String path;
+		if (ChangeType.DELETE.equals(ent.getChangeType())) {
+			path = ent.getOldPath();
+		} else {
+			path = ent.getNewPath();
+		}
+		String encoding = CompareCoreUtils.getResourceEncoding(repository,
+				path);
+		String text;
+		try {
+			text = new String(diff, encoding != null ? encoding
+					: RawParseUtils.UTF8_CHARSET.name());
+		} catch (UnsupportedEncodingException e) {
+			text = new String(diff, RawParseUtils.UTF8_CHARSET);
+		}
+		if (DiffHeaderFormat.WORKSPACE == headerFormat) {
+			IProject p = getProject(ent);
+			if (p != null && !p.equals(project)) {
+				project = p;
+				target.write(
+						encodeASCII("#P " + project.getName() + "\n")); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			text = prefixes.update(text);
+		}
+		target.write(text.getBytes(RawParseUtils.UTF8_CHARSET));
 	}
 
 	private AnyObjectId getParentId() {
@@ -250,17 +386,6 @@ private AnyObjectId getParentId() {
 		return parentId;
 	}
 
-	private void appendOutputStream(final StringBuilder sb,
-			final ByteArrayOutputStream outputStream) {
-		try {
-			String encoding = currentEncoding != null ? currentEncoding
-					: RawParseUtils.UTF8_CHARSET.name();
-			sb.append(outputStream.toString(encoding));
-		} catch (UnsupportedEncodingException e) {
-			sb.append(outputStream.toString());
-		}
-	}
-
 	private IProject getProject(final DiffEntry ent) {
 		Side side = ent.getChangeType() == ChangeType.ADD ? Side.NEW : Side.OLD;
 		String path = ent.getPath(side);
@@ -400,6 +525,72 @@ public void updateWorkspacePatchPrefixes(StringBuilder sb, DiffFormatter diffFmt
 		sb.append(newSb);
 	}
 
+	/**
+	 * Rewrites the paths in the header lines of the diff of a single file to
+	 * workspace paths. Unlike
+	 * {@link CreatePatchOperation#updateWorkspacePatchPrefixes(StringBuilder, DiffFormatter)}
+	 * it stops at the first hunk, so content lines are never touched.
+	 */
+	private class WorkspacePrefixes {
+
+		private final Pattern diffPattern;
+
+		private final Pattern oldPattern;
+
+		private final Pattern newPattern;
+
+		WorkspacePrefixes(DiffFormatter diffFmt) {
+			String oldPrefix = Pattern.quote(diffFmt.getOldPrefix());
+			String newPrefix = Pattern.quote(diffFmt.getNewPrefix());
+			diffPattern = Pattern.compile("^diff --git " + oldPrefix //$NON-NLS-1$
+					+ "(.+) " + newPrefix + "(.+)$"); //$NON-NLS-1$ //$NON-NLS-2$
+			oldPattern = Pattern.compile("^--- " + oldPrefix + "(.+)$"); //$NON-NLS-1$ //$NON-NLS-2$
+			newPattern = Pattern.compile("^\\+\\+\\+ " + newPrefix + "(.+)$"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+		String update(String diff) {
+			StringBuilder sb = new StringBuilder(diff.length());
+			int start = 0;
+			while (start < diff.length()) {
+				int end = diff.indexOf('\n', start);
+				if (end < 0) {
+					end = diff.length();
+				}
+				String line = diff.substring(start, end);
+				if (line.startsWith("@@") || line.startsWith("Binary files")) { //$NON-NLS-1$ //$NON-NLS-2$
+					break;
+				}
+				Matcher matcher = diffPattern.matcher(line);
+				if (matcher.matches()) {
+					IProject p = getProject(matcher.group(1));
+					line = "diff --git " //$NON-NLS-1$
+							+ toWorkspacePath(matcher.group(1), p) + ' '
+							+ toWorkspacePath(matcher.group(2), p);
+				} else if ((matcher = oldPattern.matcher(line)).matches()) {
+					line = "--- " + toWorkspacePath(matcher.group(1)); //$NON-NLS-1$
+				} else if ((matcher = newPattern.matcher(line)).matches()) {
+					line = "+++ " + toWorkspacePath(matcher.group(1)); //$NON-NLS-1$
+				}
+				sb.append(line);
+				start = end;
+				if (start < diff.length()) {
+					sb.append('\n');
+					start++;
+				}
+			}
+			sb.append(diff, start, diff.length());
+			return sb.toString();
+		}
+
+		private String toWorkspacePath(String path) {
+			return toWorkspacePath(path, getProject(path));
+		}
+
+		private String toWorkspacePath(String path, IProject p) {
+			return computeWorkspacePath(new Path(path), p).toString();
+		}
+	}
+
 	/**
 	 * Returns a workspace path
 	 *
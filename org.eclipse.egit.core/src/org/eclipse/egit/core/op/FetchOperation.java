@@ -14,6 +14,7 @@
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.egit.core.EclipseGitProgressTransformer;
 import org.eclipse.egit.core.internal.CoreText;
+import org.eclipse.egit.core.internal.trace.GitMetrics;
 import org.eclipse.jgit.api.FetchCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.JGitInternalException;
@@ -22,6 +23,8 @@
 import org.eclipse.jgit.transport.FetchResult;
 import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.RemoteConfig;
+import org.eclipse.jgit.transport.SshSessionFactory;
+import org.eclipse.jgit.transport.SshTransport;
 import org.eclipse.jgit.transport.TagOpt;
 import org.eclipse.jgit.transport.URIish;
 
@@ -47,6 +50,8 @@ public class FetchOperation {
 
 	private TagOpt tagOpt;
 
+	private SshSessionFactory sshSessionFactory;
+
 	/**
 	 * Constructs a FetchOperation based on URI and RefSpecs
 	 *
@@ -106,6 +111,43 @@ public void setTagOpt(TagOpt tagOpt) {
 		this.tagOpt = tagOpt;
 	}
 
+	/**
+	 * @param factory
+	 *            to obtain SSH sessions from instead of the default factory
+	 */
+	void setSshSessionFactory(SshSessionFactory factory) {
+		this.sshSessionFactory = factory;
+	}
+
+	/**
+	 * @return the repository to fetch into
+	 */
+	Repository getRepository() {
+		return repository;
+	}
+
+	/**
+	 * @return the URI to fetch from, or {@code null} if the remote has none
+	 */
+	URIish getURI() {
+		if (uri != null) {
+			return uri;
+		}
+		List<URIish> uris = rc.getURIs();
+		return uris.isEmpty() ? null : uris.get(0);
+	}
+
+	/**
+	 * @return a short description of the remote fetched from
+	 */
+	String getSourceString() {
+		if (rc != null) {
+			return repository.getDirectory().getParentFile().getName() + " - " //$NON-NLS-1$
+					+ rc.getName();
+		}
+		return uri.toString();
+	}
+
 	/**
 	 * @param monitor
 	 * @throws InvocationTargetException
@@ -128,8 +170,22 @@ public void run(IProgressMonitor monitor) throws InvocationTargetException {
 					.setProgressMonitor(gitMonitor);
 			if (tagOpt != null)
 				command.setTagOpt(tagOpt);
+			SshSessionFactory factory = sshSessionFactory;
+			if (factory != null) {
+				command.setTransportConfigCallback(transport -> {
+					if (transport instanceof SshTransport) {
+						((SshTransport) transport)
+								.setSshSessionFactory(factory);
+					}
+				});
+			}
+			long start = System.currentTimeMillis();
 			try {
 				operationResult = command.call();
+				GitMetrics.histogram(GitMetrics.FETCH)
+						.record(System.currentTimeMillis() - start);
+				GitMetrics.counter(GitMetrics.FETCH_REFS).add(
+						operationResult.getTrackingRefUpdates().size());
 			} catch (JGitInternalException e) {
 				throw new InvocationTargetException(
 						e.getCause() != null ? e.getCause() : e);
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.op;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.egit.core.Activator;
+import org.eclipse.egit.core.EclipseGitProgressTransformer;
+import org.eclipse.egit.core.internal.CoreText;
+import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.transport.SshSessionFactory;
+import org.eclipse.jgit.transport.URIish;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Runs a number of {@link FetchOperation}s concurrently.
+ * <p>
+ * At most a fixed number of fetches run at the same time, and at most a
+ * smaller number of them against the same host, so that a server is not
+ * flooded with connections. SSH sessions are shared between all fetches from
+ * the same user, host and port, so that fetching several repositories or
+ * remotes from one server needs only a single SSH handshake. Progress of the
+ * individual fetches, which are reported through
+ * {@link EclipseGitProgressTransformer}s, is aggregated into the monitor
+ * passed to {@link #run(IProgressMonitor)}.
+ * </p>
+ */
+public class FetchScheduler {
+
+	private static final int DEFAULT_MAX_FETCHES = 4;
+
+	private static final int DEFAULT_MAX_FETCHES_PER_HOST = 2;
+
+	private final TransportScheduler<FetchOperation> scheduler;
+
+	/**
+	 * Creates a scheduler with default limits.
+	 */
+	public FetchScheduler() {
+		this(DEFAULT_MAX_FETCHES, DEFAULT_MAX_FETCHES_PER_HOST);
+	}
+
+	/**
+	 * @param maxFetches
+	 *            maximum number of fetches running at the same time
+	 * @param maxFetchesPerHost
+	 *            maximum number of fetches running at the same time against
+	 *            the same host
+	 */
+	public FetchScheduler(int maxFetches, int maxFetchesPerHost) {
+		scheduler = new TransportScheduler<FetchOperation>(maxFetches,
+				maxFetchesPerHost) {
+
+			@Override
+			protected URIish getURI(FetchOperation operation) {
+				return operation.getURI();
+			}
+
+			@Override
+			protected String getName(FetchOperation operation) {
+				return operation.getSourceString();
+			}
+
+			@Override
+			protected IStatus execute(FetchOperation operation,
+					SshSessionFactory sessions, IProgressMonitor monitor) {
+				operation.setSshSessionFactory(sessions);
+				try {
+					operation.run(monitor);
+					return Status.OK_STATUS;
+				} catch (InvocationTargetException e) {
+					Throwable cause = e.getCause() != null ? e.getCause() : e;
+					return Activator.error(cause.getMessage(), cause);
+				} catch (RuntimeException e) {
+					return Activator.error(e.getMessage(), e);
+				}
+			}
+		};
+	}
+
+	/**
+	 * @param operation
+	 *            to run; its credentials provider, timeout and other settings
+	 *            are used as set
+	 */
+	public void add(@NonNull FetchOperation operation) {
+		scheduler.add(operation);
+	}
+
+	/**
+	 * Runs all added operations and waits for them to finish.
+	 *
+	 * @param monitor
+	 *            for progress reporting and cancellation; if canceled, no
+	 *            further fetches are started and running ones are asked to
+	 *            stop
+	 * @return the status of each operation, in the order the operations were
+	 *         added; the {@link FetchOperation#getOperationResult() result} of
+	 *         a successful operation is available from the operation itself
+	 */
+	@NonNull
+	public Map<FetchOperation, IStatus> run(IProgressMonitor monitor) {
+		return scheduler.run(monitor, NLS.bind(CoreText.FetchScheduler_taskName,
+				Integer.valueOf(scheduler.size())));
+	}
+}
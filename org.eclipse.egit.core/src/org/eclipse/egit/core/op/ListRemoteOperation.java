@@ -13,7 +13,9 @@
 import java.util.Collection;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.egit.core.Activator;
 import org.eclipse.egit.core.internal.CoreText;
+import org.eclipse.egit.core.internal.RemoteRefsCache;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.LsRemoteCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
@@ -25,10 +27,26 @@
 
 /**
  * Operation of listing remote repository advertised refs.
+ * <p>
+ * Listings of remote repositories are shared through the
+ * {@link RemoteRefsCache}: a recent listing for the same local repository,
+ * URI and user is returned instead of listing again, and
+ * concurrent operations for the same remote wait for a single listing.
+ * </p>
  */
 public class ListRemoteOperation {
 	private final LsRemoteCommand rc;
 
+	private final Repository localDb;
+
+	private final URIish uri;
+
+	private String user;
+
+	private boolean refresh;
+
+	private boolean cached;
+
 	private Collection<Ref> remoteRefs;
 
 	/**
@@ -45,6 +63,8 @@ public class ListRemoteOperation {
 	 */
 	public ListRemoteOperation(final Repository localDb, final URIish uri,
 			int timeout) {
+		this.localDb = localDb;
+		this.uri = uri;
 		try (Git git = new Git(localDb)) {
 			rc = git.lsRemote();
 			rc.setRemote(uri.toString()).setTimeout(timeout);
@@ -61,6 +81,8 @@ public ListRemoteOperation(final Repository localDb, final URIish uri,
 	 *            timeout is seconds; 0 means no timeout
 	 */
 	public ListRemoteOperation(final URIish uri, int timeout) {
+		this.localDb = null;
+		this.uri = uri;
 		rc = Git.lsRemoteRepository();
 		rc.setRemote(uri.toString()).setTimeout(timeout);
 	}
@@ -98,6 +120,37 @@ public void setCredentialsProvider(CredentialsProvider credentialsProvider) {
 		rc.setCredentialsProvider(credentialsProvider);
 	}
 
+	/**
+	 * Sets a credentials provider for explicit credentials. Cached listings
+	 * are only shared with operations for the same URI and user.
+	 *
+	 * @param credentialsProvider
+	 * @param user
+	 *            the user the provider authenticates as
+	 */
+	public void setCredentialsProvider(CredentialsProvider credentialsProvider,
+			String user) {
+		this.user = user;
+		rc.setCredentialsProvider(credentialsProvider);
+	}
+
+	/**
+	 * @param refresh
+	 *            whether to list the refs again even if a recent listing of
+	 *            the same remote is cached
+	 */
+	public void setRefresh(boolean refresh) {
+		this.refresh = refresh;
+	}
+
+	/**
+	 * @return whether the refs were listed before {@link #run} was called,
+	 *         and may thus miss recent changes on the remote
+	 */
+	public boolean isCached() {
+		return cached;
+	}
+
 	/**
 	 * @param pm
 	 *            the monitor to be used for reporting progress and responding
@@ -110,12 +163,23 @@ public void run(IProgressMonitor pm) throws InvocationTargetException,
 		if (pm != null)
 			pm.beginTask(CoreText.ListRemoteOperation_title,
 					IProgressMonitor.UNKNOWN);
-		try {
-			remoteRefs = rc.call();
-		} catch (JGitInternalException e) {
-			throw new InvocationTargetException(e);
-		} catch (GitAPIException e) {
-			throw new InvocationTargetException(e);
+		Activator activator = Activator.getDefault();
+		RemoteRefsCache cache = activator != null
+				? activator.getRemoteRefsCache() : null;
+		if (cache == null) {
+			try {
+				remoteRefs = rc.call();
+			} catch (JGitInternalException e) {
+				throw new InvocationTargetException(e);
+			} catch (GitAPIException e) {
+				throw new InvocationTargetException(e);
+			}
+		} else {
+			long start = System.currentTimeMillis();
+			RemoteRefsCache.Listing listing = cache.list(localDb, uri,
+					user, refresh, rc::call, pm);
+			remoteRefs = listing.getRefs();
+			cached = listing.getTime() < start;
 		}
 		if (pm != null)
 			pm.done();
@@ -36,6 +36,7 @@
 import org.eclipse.egit.core.internal.CoreText;
 import org.eclipse.egit.core.internal.job.RuleUtil;
 import org.eclipse.egit.core.internal.util.ProjectUtil;
+import org.eclipse.egit.core.internal.util.WorkingTreeChangeRecorder;
 import org.eclipse.jgit.annotations.NonNull;
 import org.eclipse.jgit.annotations.Nullable;
 import org.eclipse.jgit.api.Git;
@@ -158,6 +159,8 @@ public void run(IProgressMonitor mymonitor) throws CoreException {
 				IProject[] validProjects = ProjectUtil.getValidOpenProjects(repository);
 				SubMonitor progress = SubMonitor.convert(mymonitor, NLS.bind(
 						CoreText.MergeOperation_ProgressMerge, refName), 3);
+				WorkingTreeChangeRecorder changes = new WorkingTreeChangeRecorder(
+						repository);
 				try (Git git = new Git(repository)) {
 					progress.worked(1);
 					MergeCommand merge = git.merge().setProgressMonitor(
@@ -207,7 +210,9 @@ public void run(IProgressMonitor mymonitor) throws CoreException {
 					throw new TeamException(e.getLocalizedMessage(),
 							e.getCause());
 				} finally {
-					ProjectUtil.refreshValidProjects(validProjects,
+					changes.close();
+					ProjectUtil.refreshValidProjects(validProjects, true,
+							repository, changes.getPaths(),
 							progress.newChild(1));
 				}
 			}
@@ -35,6 +35,7 @@
 import org.eclipse.egit.core.internal.CoreText;
 import org.eclipse.egit.core.internal.job.RuleUtil;
 import org.eclipse.egit.core.internal.util.ProjectUtil;
+import org.eclipse.egit.core.internal.util.WorkingTreeChangeRecorder;
 import org.eclipse.jgit.annotations.NonNull;
 import org.eclipse.jgit.annotations.Nullable;
 import org.eclipse.jgit.api.Git;
@@ -172,6 +173,8 @@ public void run(IProgressMonitor mymonitor) throws CoreException {
 					Repository repository = repositories[i];
 					IProject[] validProjects = ProjectUtil.getValidOpenProjects(repository);
 					PullResult pullResult = null;
+					WorkingTreeChangeRecorder changes = new WorkingTreeChangeRecorder(
+							repository);
 					try (Git git = new Git(repository)) {
 						PullCommand pull = git.pull();
 						SubMonitor newChild = progress.newChild(1,
@@ -217,8 +220,10 @@ public void run(IProgressMonitor mymonitor) throws CoreException {
 						results.put(repository,
 								Activator.error(cause.getMessage(), cause));
 					} finally {
+						changes.close();
 						if (refreshNeeded(pullResult)) {
 							ProjectUtil.refreshValidProjects(validProjects,
+									true, repository, changes.getPaths(),
 									progress.newChild(1,
 											SubMonitor.SUPPRESS_NONE));
 						} else {
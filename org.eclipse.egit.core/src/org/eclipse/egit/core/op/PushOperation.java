@@ -12,24 +12,35 @@
  *******************************************************************************/
 package org.eclipse.egit.core.op;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.egit.core.Activator;
 import org.eclipse.egit.core.EclipseGitProgressTransformer;
 import org.eclipse.egit.core.internal.CoreText;
-import org.eclipse.jgit.api.Git;
+import org.eclipse.egit.core.internal.RemoteRefsCache;
+import org.eclipse.egit.core.internal.trace.GitMetrics;
 import org.eclipse.jgit.api.errors.JGitInternalException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.transport.CredentialsProvider;
 import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.RemoteConfig;
 import org.eclipse.jgit.transport.RemoteRefUpdate;
 import org.eclipse.jgit.transport.RemoteRefUpdate.Status;
+import org.eclipse.jgit.transport.SshSessionFactory;
+import org.eclipse.jgit.transport.SshTransport;
 import org.eclipse.jgit.transport.Transport;
 import org.eclipse.jgit.transport.URIish;
 import org.eclipse.osgi.util.NLS;
@@ -39,6 +50,10 @@
  */
 public class PushOperation {
 
+	private static final int MAX_PUSHES = 4;
+
+	private static final int MAX_PUSHES_PER_HOST = 2;
+
 	private final Repository localDb;
 
 	private final PushOperationSpecification specification;
@@ -55,6 +70,33 @@ public class PushOperation {
 
 	private CredentialsProvider credentialsProvider;
 
+	private volatile ResultListener listener;
+
+	/** The specification pushed, created from the remote if not given */
+	private PushOperationSpecification pushSpecification;
+
+	/** The remote pushed to, if given by name */
+	private RemoteConfig remoteConfig;
+
+	/**
+	 * Is notified whenever pushing to one of the URIs of an operation is
+	 * done, while the operation may still be pushing to others.
+	 *
+	 * @since 4.10
+	 */
+	public interface ResultListener {
+
+		/**
+		 * Called from the thread that pushed to the URI; must not block.
+		 *
+		 * @param uri
+		 *            pushed to
+		 * @param result
+		 *            containing only the outcome of pushing to the URI
+		 */
+		void pushed(URIish uri, PushOperationResult result);
+	}
+
 	/**
 	 * Create push operation for provided specification.
 	 *
@@ -112,6 +154,18 @@ public CredentialsProvider getCredentialsProvider() {
 		return credentialsProvider;
 	}
 
+	/**
+	 * Sets a listener that is notified of the outcome of the push to each URI
+	 * as soon as it is known.
+	 *
+	 * @param listener
+	 *            to notify, or {@code null} for none
+	 * @since 4.10
+	 */
+	public void setResultListener(ResultListener listener) {
+		this.listener = listener;
+	}
+
 	/**
 	 * @return push operation result
 	 */
@@ -151,85 +205,186 @@ public void run(IProgressMonitor actMonitor)
 								CoreText.RemoteRefUpdateCantBeReused);
 			}
 
-		final int totalWork;
+		operationResult = new PushOperationResult();
 		if (specification != null) {
-			totalWork = specification.getURIsNumber();
+			pushSpecification = specification;
 		} else {
-			totalWork = 1;
+			try {
+				pushSpecification = createSpecification();
+			} catch (IOException | URISyntaxException e) {
+				handleException(getPushURIForErrorHandling(), e,
+						e.getMessage());
+				return;
+			}
 		}
+		pushAll(actMonitor);
+	}
 
-		String taskName = dryRun ? CoreText.PushOperation_taskNameDryRun
-				: CoreText.PushOperation_taskNameNormalRun;
-		SubMonitor progress = SubMonitor.convert(actMonitor, totalWork);
-		progress.setTaskName(taskName);
+	/**
+	 * Determines the ref updates for pushing to the remote configuration like
+	 * {@link org.eclipse.jgit.api.PushCommand} does, so that they can be
+	 * pushed to all its URIs concurrently.
+	 */
+	private PushOperationSpecification createSpecification()
+			throws IOException, URISyntaxException {
+		remoteConfig = new RemoteConfig(localDb.getConfig(), remoteName);
+		List<RefSpec> pushSpecs = new ArrayList<>(
+				remoteConfig.getPushRefSpecs());
+		if (pushSpecs.isEmpty()) {
+			Ref head = localDb.exactRef(Constants.HEAD);
+			if (head != null && head.isSymbolic()) {
+				pushSpecs.add(new RefSpec(head.getLeaf().getName()));
+			}
+		}
+		List<URIish> uris = remoteConfig.getPushURIs();
+		if (uris.isEmpty()) {
+			uris = remoteConfig.getURIs();
+		}
+		PushOperationSpecification result = new PushOperationSpecification();
+		for (URIish uri : uris) {
+			// Each URI needs its own updates; the fetch ref specs make them
+			// include the tracking branch updates
+			result.addURIRefUpdates(uri, Transport.findRemoteRefUpdatesFor(
+					localDb, pushSpecs, remoteConfig.getFetchRefSpecs()));
+		}
+		return result;
+	}
 
-		operationResult = new PushOperationResult();
-		try (Git git = new Git(localDb)) {
-			if (specification != null)
-				for (final URIish uri : specification.getURIs()) {
-					if (progress.isCanceled()) {
-						operationResult.addOperationResult(uri,
-								CoreText.PushOperation_resultCancelled);
-						progress.worked(1);
-						continue;
-					}
+	private void pushAll(IProgressMonitor monitor) {
+		TransportScheduler<URIish> scheduler = new TransportScheduler<URIish>(
+				MAX_PUSHES, MAX_PUSHES_PER_HOST) {
 
-					Collection<RemoteRefUpdate> refUpdates = specification
-							.getRefUpdates(uri);
-					final EclipseGitProgressTransformer gitSubMonitor = new EclipseGitProgressTransformer(
-							progress.newChild(1));
-
-					try (Transport transport = Transport.open(localDb, uri)) {
-						transport.setDryRun(dryRun);
-						transport.setTimeout(timeout);
-						if (credentialsProvider != null) {
-							transport.setCredentialsProvider(
-									credentialsProvider);
-						}
-						PushResult result = transport.push(gitSubMonitor,
-								refUpdates, out);
-
-						operationResult.addOperationResult(result.getURI(),
-								result);
-						specification.addURIRefUpdates(result.getURI(),
-								result.getRemoteUpdates());
-					} catch (JGitInternalException e) {
-						String errorMessage = e.getCause() != null
-								? e.getCause().getMessage() : e.getMessage();
-						String userMessage = NLS.bind(
-								CoreText.PushOperation_InternalExceptionOccurredMessage,
-								errorMessage);
-						handleException(uri, e, userMessage);
-					} catch (Exception e) {
-						handleException(uri, e, e.getMessage());
-					}
+			@Override
+			protected URIish getURI(URIish uri) {
+				return uri;
+			}
+
+			@Override
+			protected String getName(URIish uri) {
+				return uri.toString();
+			}
+
+			@Override
+			protected IStatus execute(URIish uri, SshSessionFactory sessions,
+					IProgressMonitor taskMonitor) {
+				if (out == null) {
+					push(uri, new EclipseGitProgressTransformer(taskMonitor),
+							sessions, null);
+					return org.eclipse.core.runtime.Status.OK_STATUS;
 				}
-			else {
-				final EclipseGitProgressTransformer gitMonitor = new EclipseGitProgressTransformer(
-						progress.newChild(totalWork));
-				try {
-					Iterable<PushResult> results = git.push()
-							.setRemote(remoteName).setDryRun(dryRun)
-							.setTimeout(timeout).setProgressMonitor(gitMonitor)
-							.setCredentialsProvider(credentialsProvider)
-							.setOutputStream(out).call();
-					for (PushResult result : results) {
-						operationResult.addOperationResult(result.getURI(),
-								result);
+				// Don't interleave the messages of concurrent pushes
+				ByteArrayOutputStream messages = new ByteArrayOutputStream();
+				push(uri, new EclipseGitProgressTransformer(taskMonitor),
+						sessions, messages);
+				synchronized (out) {
+					try {
+						messages.writeTo(out);
+					} catch (IOException e) {
+						// Like a failed write of the push itself: ignore
 					}
-				} catch (JGitInternalException e) {
-					String errorMessage = e.getCause() != null
-							? e.getCause().getMessage() : e.getMessage();
-					String userMessage = NLS.bind(
-							CoreText.PushOperation_InternalExceptionOccurredMessage,
-							errorMessage);
-					URIish uri = getPushURIForErrorHandling();
-					handleException(uri, e, userMessage);
-				} catch (Exception e) {
-					URIish uri = getPushURIForErrorHandling();
-					handleException(uri, e, e.getMessage());
 				}
+				return org.eclipse.core.runtime.Status.OK_STATUS;
+			}
+		};
+		for (URIish uri : pushSpecification.getURIs()) {
+			scheduler.add(uri);
+		}
+		Map<URIish, IStatus> results = scheduler.run(monitor,
+				dryRun ? CoreText.PushOperation_taskNameDryRun
+						: CoreText.PushOperation_taskNameNormalRun);
+		for (Map.Entry<URIish, IStatus> result : results.entrySet()) {
+			if (result.getValue().matches(IStatus.CANCEL)) {
+				addCancelled(result.getKey());
+			}
+		}
+	}
+
+	/**
+	 * Pushes to one URI of the specification and records the result. May be
+	 * called concurrently for different URIs.
+	 */
+	private void push(URIish uri, EclipseGitProgressTransformer gitSubMonitor,
+			SshSessionFactory sessions, OutputStream messages) {
+		Collection<RemoteRefUpdate> refUpdates;
+		synchronized (operationResult) {
+			refUpdates = pushSpecification.getRefUpdates(uri);
+		}
+		long start = System.currentTimeMillis();
+		try (Transport transport = Transport.open(localDb, uri)) {
+			if (remoteConfig != null) {
+				transport.applyConfig(remoteConfig);
+			}
+			transport.setDryRun(dryRun);
+			transport.setTimeout(timeout);
+			if (credentialsProvider != null) {
+				transport.setCredentialsProvider(credentialsProvider);
 			}
+			if (sessions != null && transport instanceof SshTransport) {
+				((SshTransport) transport).setSshSessionFactory(sessions);
+			}
+			PushResult result = transport.push(gitSubMonitor, refUpdates,
+					messages);
+			recordMetrics(result, start);
+			invalidateRemoteRefs(uri);
+
+			PushOperationResult pushed = new PushOperationResult();
+			pushed.addOperationResult(result.getURI(), result);
+			synchronized (operationResult) {
+				operationResult.addOperationResult(result.getURI(), result);
+				pushSpecification.addURIRefUpdates(result.getURI(),
+						result.getRemoteUpdates());
+			}
+			notifyListener(result.getURI(), pushed);
+		} catch (JGitInternalException e) {
+			String errorMessage = e.getCause() != null
+					? e.getCause().getMessage() : e.getMessage();
+			String userMessage = NLS.bind(
+					CoreText.PushOperation_InternalExceptionOccurredMessage,
+					errorMessage);
+			handleException(uri, e, userMessage);
+		} catch (Exception e) {
+			handleException(uri, e, e.getMessage());
+		}
+	}
+
+	private void addCancelled(URIish uri) {
+		addError(uri, CoreText.PushOperation_resultCancelled);
+	}
+
+	private void addError(URIish uri, String message) {
+		PushOperationResult failed = new PushOperationResult();
+		failed.addOperationResult(uri, message);
+		synchronized (operationResult) {
+			operationResult.addOperationResult(uri, message);
+		}
+		notifyListener(uri, failed);
+	}
+
+	private void notifyListener(URIish uri, PushOperationResult result) {
+		ResultListener current = listener;
+		if (current != null) {
+			current.pushed(uri, result);
+		}
+	}
+
+	private void recordMetrics(PushResult result, long start) {
+		GitMetrics.histogram(GitMetrics.PUSH)
+				.record(System.currentTimeMillis() - start);
+		int updated = 0;
+		for (RemoteRefUpdate update : result.getRemoteUpdates()) {
+			if (update.getStatus() == Status.OK) {
+				updated++;
+			}
+		}
+		GitMetrics.counter(GitMetrics.PUSH_REFS).add(updated);
+	}
+
+	private void invalidateRemoteRefs(URIish uri) {
+		Activator activator = Activator.getDefault();
+		RemoteRefsCache cache = activator != null
+				? activator.getRemoteRefsCache() : null;
+		if (!dryRun && uri != null && cache != null) {
+			cache.invalidate(uri);
 		}
 	}
 
@@ -237,7 +392,7 @@ private void handleException(final URIish uri, Exception e,
 			String userMessage) {
 		String uriString;
 		if (uri != null) {
-			operationResult.addOperationResult(uri, userMessage);
+			addError(uri, userMessage);
 			uriString = uri.toString();
 		} else
 			uriString = "retrieving URI failed"; //$NON-NLS-1$
@@ -252,8 +407,10 @@ private URIish getPushURIForErrorHandling() {
 		RemoteConfig rc = null;
 		try {
 			rc = new RemoteConfig(localDb.getConfig(), remoteName);
-			return rc.getPushURIs().isEmpty() ? rc.getURIs().get(0) : rc
-					.getPushURIs().get(0);
+			if (!rc.getPushURIs().isEmpty()) {
+				return rc.getPushURIs().get(0);
+			}
+			return rc.getURIs().isEmpty() ? null : rc.getURIs().get(0);
 		} catch (URISyntaxException e) {
 			// should not happen
 			Activator.logError("Reading RemoteConfig failed", e); //$NON-NLS-1$
@@ -27,6 +27,7 @@
 import org.eclipse.egit.core.internal.CoreText;
 import org.eclipse.egit.core.internal.job.RuleUtil;
 import org.eclipse.egit.core.internal.util.ProjectUtil;
+import org.eclipse.egit.core.internal.util.WorkingTreeChangeRecorder;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.RebaseCommand;
 import org.eclipse.jgit.api.RebaseCommand.InteractiveHandler;
@@ -134,6 +135,8 @@ public void execute(IProgressMonitor m) throws CoreException {
 			@Override
 			public void run(IProgressMonitor actMonitor) throws CoreException {
 				SubMonitor progress = SubMonitor.convert(actMonitor, 2);
+				WorkingTreeChangeRecorder changes = new WorkingTreeChangeRecorder(
+						repository);
 				try (Git git = new Git(repository)) {
 					RebaseCommand cmd = git.rebase().setProgressMonitor(
 							new EclipseGitProgressTransformer(
@@ -155,8 +158,10 @@ public void run(IProgressMonitor actMonitor) throws CoreException {
 				} catch (JGitInternalException | GitAPIException e) {
 					throw new CoreException(Activator.error(e.getMessage(), e));
 				} finally {
+					changes.close();
 					if (refreshNeeded()) {
-						ProjectUtil.refreshValidProjects(validProjects,
+						ProjectUtil.refreshValidProjects(validProjects, true,
+								repository, changes.getPaths(),
 								progress.newChild(1));
 					}
 				}
@@ -26,6 +26,7 @@
 import org.eclipse.egit.core.internal.job.RuleUtil;
 import org.eclipse.egit.core.internal.util.ProjectUtil;
 import org.eclipse.egit.core.internal.util.ResourceUtil;
+import org.eclipse.egit.core.internal.util.WorkingTreeChangeRecorder;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.ResetCommand;
 import org.eclipse.jgit.api.ResetCommand.ResetType;
@@ -98,17 +99,21 @@ private void reset(IProgressMonitor monitor) throws CoreException {
 		ResetCommand reset = Git.wrap(repository).reset();
 		reset.setMode(type);
 		reset.setRef(refName);
-		try {
-			reset.call();
-		} catch (GitAPIException e) {
-			throw new TeamException(e.getLocalizedMessage(), e.getCause());
-		}
-		progress.worked(1);
+		try (WorkingTreeChangeRecorder changes = new WorkingTreeChangeRecorder(
+				repository)) {
+			try {
+				reset.call();
+			} catch (GitAPIException e) {
+				throw new TeamException(e.getLocalizedMessage(),
+						e.getCause());
+			}
+			progress.worked(1);
 
-		// only refresh if working tree changes
-		if (type == ResetType.HARD) {
-			ProjectUtil.refreshValidProjects(validProjects,
-					progress.newChild(1));
+			// only refresh if working tree changes
+			if (type == ResetType.HARD) {
+				ProjectUtil.refreshValidProjects(validProjects, true,
+						repository, changes.getPaths(), progress.newChild(1));
+			}
 		}
 	}
 }
@@ -0,0 +1,507 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.op;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.egit.core.internal.CoreText;
+import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.errors.TransportException;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.RemoteSession;
+import org.eclipse.jgit.transport.SshSessionFactory;
+import org.eclipse.jgit.transport.URIish;
+import org.eclipse.jgit.util.FS;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Runs a number of tasks that each talk to a remote repository concurrently.
+ * <p>
+ * At most a fixed number of tasks run at the same time, and at most a smaller
+ * number of them against the same host, so that a server is not flooded with
+ * connections. SSH sessions are shared between all tasks connecting as the
+ * same user to the same host and port, so that talking to several
+ * repositories on one server needs only a single SSH handshake. The limits
+ * apply to the running tasks of all schedulers together, so that several
+ * operations started at the same time, e.g. pushes to the remotes of several
+ * repositories, don't exceed them either. The tasks run
+ * in system jobs; the thread calling {@link #run(IProgressMonitor, String)}
+ * waits for them and reports their combined progress.
+ * </p>
+ *
+ * @param <T>
+ *            type of the tasks
+ */
+abstract class TransportScheduler<T> {
+
+	private static final long POLL_INTERVAL = 100;
+
+	/** Share of the overall progress of each task */
+	private static final int TICKS_PER_TASK = 100;
+
+	/** Guards the state of all schedulers */
+	private static final Object LOCK = new Object();
+
+	// Guarded by LOCK; tasks of all schedulers running per host
+	private static final Map<String, Integer> RUNNING = new HashMap<>();
+
+	// Guarded by LOCK; tasks of all schedulers running
+	private static int runningTotal;
+
+	private final int maxTasks;
+
+	private final int maxTasksPerHost;
+
+	private final List<T> tasks = new ArrayList<>();
+
+	// Guarded by LOCK
+	private final List<T> pending = new ArrayList<>();
+
+	// Guarded by LOCK
+	private final Map<T, IStatus> results = new HashMap<>();
+
+	private volatile boolean canceled;
+
+	/** Ticks of overall progress reported by all tasks so far */
+	private final AtomicInteger worked = new AtomicInteger();
+
+	private volatile String message;
+
+	/**
+	 * @param maxTasks
+	 *            maximum number of tasks of all schedulers running at the same
+	 *            time before a task of this scheduler is started
+	 * @param maxTasksPerHost
+	 *            maximum number of tasks of all schedulers running at the same
+	 *            time against the same host before a task of this scheduler
+	 *            against that host is started
+	 */
+	TransportScheduler(int maxTasks, int maxTasksPerHost) {
+		this.maxTasks = Math.max(1, maxTasks);
+		this.maxTasksPerHost = Math.max(1, maxTasksPerHost);
+	}
+
+	/**
+	 * @param task
+	 *            to run
+	 */
+	void add(@NonNull T task) {
+		tasks.add(task);
+	}
+
+	/**
+	 * @return the number of tasks added
+	 */
+	int size() {
+		return tasks.size();
+	}
+
+	/**
+	 * @param task
+	 * @return the URI the task connects to, or {@code null} if unknown
+	 */
+	protected abstract URIish getURI(T task);
+
+	/**
+	 * @param task
+	 * @return a name for the task shown in progress messages
+	 */
+	protected abstract String getName(T task);
+
+	/**
+	 * Executes a task. Called concurrently from several threads.
+	 *
+	 * @param task
+	 *            to execute
+	 * @param sessions
+	 *            to use for SSH connections
+	 * @param monitor
+	 *            for progress reporting, which is combined with the progress
+	 *            of the other tasks, and cancellation
+	 * @return the status of the task
+	 */
+	protected abstract IStatus execute(T task, SshSessionFactory sessions,
+			IProgressMonitor monitor);
+
+	/**
+	 * Called from the thread that executed a task when it is done, before
+	 * {@link #run(IProgressMonitor, String)} can return. Does nothing by
+	 * default.
+	 *
+	 * @param task
+	 *            that is done
+	 * @param status
+	 *            returned by {@link #execute}
+	 */
+	protected void done(T task, IStatus status) {
+		// Nothing
+	}
+
+	/**
+	 * Runs all added tasks and waits for them to finish.
+	 *
+	 * @param monitor
+	 *            for progress reporting and cancellation; if canceled, no
+	 *            further tasks are started and running ones are asked to stop
+	 * @param taskName
+	 *            to show in the monitor
+	 * @return the status of each task, in the order the tasks were added;
+	 *         tasks not started because of cancellation have
+	 *         {@link Status#CANCEL_STATUS}
+	 */
+	@NonNull
+	Map<T, IStatus> run(IProgressMonitor monitor, String taskName) {
+		int count = tasks.size();
+		SubMonitor progress = SubMonitor.convert(monitor, taskName,
+				count * TICKS_PER_TASK);
+		SessionCache sessions = new SessionCache();
+		synchronized (LOCK) {
+			pending.addAll(tasks);
+		}
+		if (progress.isCanceled()) {
+			cancel();
+		}
+		int workers = Math.min(maxTasks, count);
+		for (int i = 0; i < workers; i++) {
+			Job worker = new Job(CoreText.TransportScheduler_jobName) {
+
+				@Override
+				protected IStatus run(IProgressMonitor m) {
+					T task;
+					while ((task = next()) != null) {
+						TaskMonitor taskMonitor = new TaskMonitor(
+								TransportScheduler.this.getName(task));
+						IStatus status = executeTask(task, sessions,
+								taskMonitor);
+						try {
+							TransportScheduler.this.done(task, status);
+						} finally {
+							taskMonitor.complete();
+							// Only now, since this may let run() return
+							finished(task, status);
+						}
+					}
+					return Status.OK_STATUS;
+				}
+			};
+			worker.setSystem(true);
+			worker.schedule();
+		}
+		boolean interrupted = false;
+		try {
+			int reported = 0;
+			String shown = null;
+			while (true) {
+				int done;
+				synchronized (LOCK) {
+					done = results.size();
+					if (done < count) {
+						try {
+							LOCK.wait(POLL_INTERVAL);
+						} catch (InterruptedException e) {
+							// Wait for the running tasks to stop; the flag is
+							// restored on return
+							interrupted = true;
+							cancel();
+						}
+						done = results.size();
+					}
+				}
+				int ticks = worked.get();
+				if (ticks > reported) {
+					progress.worked(ticks - reported);
+					reported = ticks;
+				}
+				if (done == count) {
+					break;
+				}
+				String current = message;
+				if (current != null && !current.equals(shown)) {
+					progress.subTask(current);
+					shown = current;
+				}
+				if (progress.isCanceled() && !canceled) {
+					cancel();
+				}
+			}
+		} finally {
+			sessions.close();
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		Map<T, IStatus> ordered = new LinkedHashMap<>();
+		synchronized (LOCK) {
+			for (T task : tasks) {
+				ordered.put(task, results.get(task));
+			}
+		}
+		return ordered;
+	}
+
+	private void cancel() {
+		canceled = true;
+		synchronized (LOCK) {
+			for (T task : pending) {
+				results.put(task, Status.CANCEL_STATUS);
+				worked.addAndGet(TICKS_PER_TASK);
+			}
+			pending.clear();
+			LOCK.notifyAll();
+		}
+	}
+
+	private T next() {
+		synchronized (LOCK) {
+			while (!pending.isEmpty()) {
+				Iterator<T> iterator = runningTotal < maxTasks
+						? pending.iterator()
+						: Collections.<T> emptyIterator();
+				while (iterator.hasNext()) {
+					T task = iterator.next();
+					String host = getHost(task);
+					int active = getRunning(host);
+					if (active < maxTasksPerHost) {
+						iterator.remove();
+						RUNNING.put(host, Integer.valueOf(active + 1));
+						runningTotal++;
+						return task;
+					}
+				}
+				try {
+					LOCK.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return null;
+				}
+			}
+			return null;
+		}
+	}
+
+	private void finished(T task, IStatus status) {
+		synchronized (LOCK) {
+			String host = getHost(task);
+			int active = getRunning(host) - 1;
+			if (active > 0) {
+				RUNNING.put(host, Integer.valueOf(active));
+			} else {
+				RUNNING.remove(host);
+			}
+			runningTotal--;
+			results.put(task, status);
+			LOCK.notifyAll();
+		}
+	}
+
+	private int getRunning(String host) {
+		Integer active = RUNNING.get(host);
+		return active != null ? active.intValue() : 0;
+	}
+
+	private String getHost(T task) {
+		URIish uri = getURI(task);
+		String host = uri != null ? uri.getHost() : null;
+		return host != null ? host : ""; //$NON-NLS-1$
+	}
+
+	private IStatus executeTask(T task, SshSessionFactory sessions,
+			TaskMonitor taskMonitor) {
+		if (canceled) {
+			return Status.CANCEL_STATUS;
+		}
+		message = taskMonitor.name;
+		return execute(task, sessions, taskMonitor);
+	}
+
+	/**
+	 * Monitor of a single task. Its work is scaled to
+	 * {@link #TICKS_PER_TASK} and added to the overall progress, which the
+	 * thread calling {@link TransportScheduler#run(IProgressMonitor, String)}
+	 * reports; its sub-tasks are shown as the current message.
+	 */
+	private class TaskMonitor extends NullProgressMonitor {
+
+		final String name;
+
+		private double totalWork;
+
+		private double completed;
+
+		private int ticks;
+
+		TaskMonitor(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public void beginTask(String taskName, int total) {
+			if (totalWork == 0 && total > 0) {
+				totalWork = total;
+			}
+		}
+
+		@Override
+		public void internalWorked(double work) {
+			if (totalWork <= 0) {
+				return;
+			}
+			completed += work;
+			advance((int) Math.min(TICKS_PER_TASK,
+					completed * TICKS_PER_TASK / totalWork));
+		}
+
+		@Override
+		public void worked(int work) {
+			internalWorked(work);
+		}
+
+		@Override
+		public void subTask(String subTask) {
+			message = NLS.bind(CoreText.TransportScheduler_subTask, name,
+					subTask);
+		}
+
+		@Override
+		public boolean isCanceled() {
+			return canceled;
+		}
+
+		void complete() {
+			advance(TICKS_PER_TASK);
+		}
+
+		private void advance(int newTicks) {
+			if (newTicks > ticks) {
+				worked.addAndGet(newTicks - ticks);
+				ticks = newTicks;
+			}
+		}
+	}
+
+	/**
+	 * Shares one SSH session per user, host and port between all tasks of a
+	 * run; the sessions are closed when the run is over. A session on which
+	 * running a command fails is no longer handed out, so that the next task
+	 * connects again.
+	 */
+	private static class SessionCache extends SshSessionFactory {
+
+		private final SshSessionFactory delegate = SshSessionFactory
+				.getInstance();
+
+		private final Map<String, SharedSession> sessions = new ConcurrentHashMap<>();
+
+		// Guarded by itself
+		private final List<RemoteSession> evicted = new ArrayList<>();
+
+		@Override
+		public RemoteSession getSession(URIish uri,
+				CredentialsProvider credentialsProvider, FS fs, int tms)
+				throws TransportException {
+			String key = uri.getUser() + '@' + uri.getHost() + ':'
+					+ uri.getPort();
+			SharedSession shared = sessions.computeIfAbsent(key,
+					k -> new SharedSession());
+			synchronized (shared) {
+				if (shared.session == null) {
+					shared.session = new CachedSession(shared,
+							delegate.getSession(uri, credentialsProvider, fs,
+									tms));
+				}
+				return shared.session;
+			}
+		}
+
+		@Override
+		public void releaseSession(RemoteSession session) {
+			// Kept open for other tasks on the same host until close()
+		}
+
+		void evict(SharedSession shared, CachedSession session) {
+			synchronized (shared) {
+				if (shared.session != session) {
+					return;
+				}
+				shared.session = null;
+			}
+			// Other tasks may still be using it; disconnect it in close()
+			synchronized (evicted) {
+				evicted.add(session.session);
+			}
+		}
+
+		void close() {
+			for (SharedSession shared : sessions.values()) {
+				synchronized (shared) {
+					if (shared.session != null) {
+						delegate.releaseSession(shared.session.session);
+						shared.session = null;
+					}
+				}
+			}
+			sessions.clear();
+			synchronized (evicted) {
+				for (RemoteSession session : evicted) {
+					delegate.releaseSession(session);
+				}
+				evicted.clear();
+			}
+		}
+
+		private class CachedSession implements RemoteSession {
+
+			private final SharedSession shared;
+
+			final RemoteSession session;
+
+			CachedSession(SharedSession shared, RemoteSession session) {
+				this.shared = shared;
+				this.session = session;
+			}
+
+			@Override
+			public Process exec(String commandName, int timeout)
+					throws IOException {
+				try {
+					return session.exec(commandName, timeout);
+				} catch (IOException | RuntimeException e) {
+					evict(shared, this);
+					throw e;
+				}
+			}
+
+			@Override
+			public void disconnect() {
+				// Shared; disconnected in close()
+			}
+		}
+	}
+
+	private static class SharedSession {
+
+		// Guarded by this
+		SessionCache.CachedSession session;
+	}
+}
@@ -23,9 +23,11 @@
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IProject;
@@ -71,7 +73,7 @@
  */
 public class GitProjectData {
 
-	private static final Map<IProject, GitProjectData> projectDataCache = new HashMap<IProject, GitProjectData>();
+	private static final Map<IProject, GitProjectData> projectDataCache = new ConcurrentHashMap<>();
 
 	private static Set<RepositoryMappingChangeListener> repositoryChangeListeners = new HashSet<RepositoryMappingChangeListener>();
 
@@ -123,6 +125,7 @@ public static void attachToWorkspace() {
 	public static void detachFromWorkspace() {
 		trace("detachFromWorkspace - removeResourceChangeListener"); //$NON-NLS-1$
 		ResourcesPlugin.getWorkspace().removeResourceChangeListener(rcl);
+		RepositoryMappingSnapshot.getInstance().flush();
 	}
 
 	/**
@@ -211,18 +214,28 @@ private static synchronized RepositoryMappingChangeListener[] getRepositoryChang
 	 *         occurred
 	 */
 	@Nullable
-	public synchronized static GitProjectData get(final @NonNull IProject p) {
-		try {
-			GitProjectData d = lookup(p);
-			if (d == null && ResourceUtil.isSharedWithGit(p)) {
-				d = new GitProjectData(p).load();
-				cache(p, d);
-			}
+	public static GitProjectData get(final @NonNull IProject p) {
+		GitProjectData d = lookup(p);
+		if (d != null) {
 			return d;
-		} catch (IOException err) {
-			Activator.logError(CoreText.GitProjectData_missing, err);
+		}
+		// Don't serialize lookups of projects which are not ours at all
+		if (!ResourceUtil.isSharedWithGit(p)) {
 			return null;
 		}
+		synchronized (GitProjectData.class) {
+			try {
+				d = lookup(p);
+				if (d == null && ResourceUtil.isSharedWithGit(p)) {
+					d = new GitProjectData(p).load();
+					cache(p, d);
+				}
+				return d;
+			} catch (IOException err) {
+				Activator.logError(CoreText.GitProjectData_missing, err);
+				return null;
+			}
+		}
 	}
 
 	/**
@@ -342,6 +355,7 @@ public boolean visit(IResourceDelta delta)
 								&& gitCandidate.equals(r.getWorkTree())) {
 							if (data.map(m)) {
 								data.mappings.put(m.getContainerPath(), m);
+								data.reindex();
 								modified.add(data);
 							}
 						}
@@ -375,9 +389,11 @@ static void trace(final String m) {
 	private synchronized static void cache(final IProject p,
 			final GitProjectData d) {
 		projectDataCache.put(p, d);
+		RepositoryMappingIndex.getInstance().put(p, d.mappings.values());
 	}
 
 	private synchronized static void uncache(final IProject p) {
+		RepositoryMappingIndex.getInstance().remove(p);
 		if (projectDataCache.remove(p) != null) {
 			trace("uncacheDataFor(" //$NON-NLS-1$
 				+ p.getName() + ")"); //$NON-NLS-1$
@@ -401,7 +417,7 @@ private static void unmap(GitProjectData data) {
 		}
 	}
 
-	private synchronized static GitProjectData lookup(final IProject p) {
+	private static GitProjectData lookup(final IProject p) {
 		return projectDataCache.get(p);
 	}
 
@@ -454,6 +470,7 @@ public void setRepositoryMappings(final Collection<RepositoryMapping> newMapping
 			mappings.put(mapping.getContainerPath(), mapping);
 		}
 		remapAll();
+		reindex();
 	}
 
 	/**
@@ -548,6 +565,7 @@ private void deletePropertyFilesAndUncache() throws IOException {
 	private static void deletePropertyFiles(IProject project) throws IOException {
 		final File dir = propertyFile(project).getParentFile();
 		FileUtils.delete(dir, FileUtils.RECURSIVE);
+		RepositoryMappingSnapshot.getInstance().remove(project.getName());
 		trace("deleteDataFor(" //$NON-NLS-1$
 				+ project.getName() + ")"); //$NON-NLS-1$
 	}
@@ -591,6 +609,8 @@ public void store() throws CoreException {
 						Activator.error(NLS.bind(
 								CoreText.GitProjectData_saveFailed, dat), null));
 			}
+			RepositoryMappingSnapshot.getInstance().put(getProject().getName(),
+					dat, mappings.values());
 		} catch (IOException ioe) {
 			throw new CoreException(Activator.error(
 					NLS.bind(CoreText.GitProjectData_saveFailed, dat), ioe));
@@ -608,23 +628,35 @@ private static File propertyFile(IProject project) {
 
 	private GitProjectData load() throws IOException {
 		final File dat = propertyFile();
-		trace("load " + dat);  //$NON-NLS-1$
-
-		final FileInputStream o = new FileInputStream(dat);
-		try {
-			final Properties p = new Properties();
-			p.load(o);
-
-			mappings.clear();
-			for (final Object keyObj : p.keySet()) {
-				final String key = keyObj.toString();
-				if (RepositoryMapping.isInitialKey(key)) {
-					RepositoryMapping mapping = new RepositoryMapping(p, key);
-					mappings.put(mapping.getContainerPath(), mapping);
+		RepositoryMappingSnapshot snapshot = RepositoryMappingSnapshot
+				.getInstance();
+		List<RepositoryMapping> cached = snapshot
+				.get(getProject().getName(), dat);
+		mappings.clear();
+		if (cached != null) {
+			trace("load " + dat + " from snapshot"); //$NON-NLS-1$ //$NON-NLS-2$
+			for (RepositoryMapping mapping : cached) {
+				mappings.put(mapping.getContainerPath(), mapping);
+			}
+		} else {
+			trace("load " + dat); //$NON-NLS-1$
+			final FileInputStream o = new FileInputStream(dat);
+			try {
+				final Properties p = new Properties();
+				p.load(o);
+
+				for (final Object keyObj : p.keySet()) {
+					final String key = keyObj.toString();
+					if (RepositoryMapping.isInitialKey(key)) {
+						RepositoryMapping mapping = new RepositoryMapping(p,
+								key);
+						mappings.put(mapping.getContainerPath(), mapping);
+					}
 				}
+			} finally {
+				o.close();
 			}
-		} finally {
-			o.close();
+			snapshot.put(getProject().getName(), dat, mappings.values());
 		}
 
 		if (!remapAll()) {
@@ -638,6 +670,19 @@ private GitProjectData load() throws IOException {
 		return this;
 	}
 
+	/**
+	 * Publishes the current mappings to the {@link RepositoryMappingIndex} if
+	 * this is the cached data of its project.
+	 */
+	private void reindex() {
+		synchronized (GitProjectData.class) {
+			if (lookup(getProject()) == this) {
+				RepositoryMappingIndex.getInstance().put(getProject(),
+						mappings.values());
+			}
+		}
+	}
+
 	private boolean remapAll() {
 		protectedResources.clear();
 		boolean allMapped = true;
@@ -679,7 +724,12 @@ private boolean map(final RepositoryMapping m) {
 		}
 		git = absolutePath.toFile();
 
-		if (!RepositoryCache.FileKey.isGitRepository(git, FS.DETECTED)) {
+		// Many projects usually share a repository; it need not be probed
+		// again once another project has been mapped to it.
+		boolean known = Activator.getDefault().getRepositoryCache()
+				.getRepository(git) != null && git.isDirectory();
+		if (!known
+				&& !RepositoryCache.FileKey.isGitRepository(git, FS.DETECTED)) {
 			logAndUnmapGoneMappedResource(m, c);
 			return false;
 		}
@@ -22,8 +22,6 @@
 import static org.eclipse.egit.core.internal.util.ResourceUtil.isNonWorkspace;
 
 import java.io.File;
-import java.util.Collections;
-import java.util.Map;
 import java.util.Properties;
 
 import org.eclipse.core.resources.IContainer;
@@ -82,6 +80,22 @@ public RepositoryMapping(final @NonNull Properties p,
 		gitDirPathString = p.getProperty(initialKey);
 	}
 
+	/**
+	 * Construct a {@link RepositoryMapping} for a previously connected
+	 * container from a {@link RepositoryMappingSnapshot}.
+	 *
+	 * @param containerPath
+	 *            portable project-relative path of the container
+	 * @param gitDirPath
+	 *            portable path of the git directory, possibly relative to
+	 *            the container
+	 */
+	RepositoryMapping(final @NonNull String containerPath,
+			final @NonNull String gitDirPath) {
+		containerPathString = containerPath;
+		gitDirPathString = gitDirPath;
+	}
+
 	/**
 	 * Construct a {@link RepositoryMapping} for previously unmapped container.
 	 *
@@ -218,6 +232,14 @@ synchronized void setContainer(final IContainer c) {
 		container = c;
 	}
 
+	String getContainerPathString() {
+		return containerPathString;
+	}
+
+	String getGitDirPathString() {
+		return gitDirPathString;
+	}
+
 	synchronized void store(final Properties p) {
 		p.setProperty(containerPathString + ".gitdir", gitDirPathString); //$NON-NLS-1$
 	}
@@ -374,28 +396,16 @@ private static GitProjectData getProjectData(
 	@Nullable
 	private static RepositoryMapping findMapping(
 			final @NonNull IResource resource) {
-		GitProjectData data = getProjectData(resource.getProject());
-		if (data == null) {
-			return null;
+		IProject project = resource.getProject();
+		RepositoryMappingIndex index = RepositoryMappingIndex.getInstance();
+		if (project != null && index.contains(project)) {
+			return index.findByWorkspacePath(resource.getFullPath());
 		}
-		return data.getRepositoryMapping(resource);
-	}
-
-	/**
-	 * Get all repository mappings for a project.
-	 *
-	 * @param project
-	 * @return all RepositoryMappings for this project, can be empty list for
-	 *         non GitProvider.
-	 */
-	@NonNull
-	private static Map<IPath, RepositoryMapping> getMappings(
-			final @Nullable IProject project) {
 		GitProjectData data = getProjectData(project);
 		if (data == null) {
-			return Collections.emptyMap();
+			return null;
 		}
-		return data.getRepositoryMappings();
+		return data.getRepositoryMapping(resource);
 	}
 
 	/**
@@ -406,30 +416,17 @@ private static Map<IPath, RepositoryMapping> getMappings(
 	 */
 	@Nullable
 	public static RepositoryMapping getMapping(@NonNull IPath path) {
-		IProject[] projects = ResourcesPlugin.getWorkspace().getRoot()
-				.getProjects();
-		IPath bestWorkingTree = null;
-		RepositoryMapping bestMapping = null;
-		for (IProject project : projects) {
-			if (isNonWorkspace(project)) {
-				continue;
-			}
-			for (RepositoryMapping mapping : getMappings(project).values()) {
-				File workTree = mapping.getWorkTree();
-				if (workTree == null) {
-					continue;
-				}
-				IPath workingTree = new Path(workTree.toString());
-				if (workingTree.isPrefixOf(path)) {
-					if (bestWorkingTree == null || workingTree
-							.segmentCount() > bestWorkingTree.segmentCount()) {
-						bestWorkingTree = workingTree;
-						bestMapping = mapping;
-					}
-				}
+		RepositoryMappingIndex index = RepositoryMappingIndex.getInstance();
+		// Make sure the mappings of all Git projects are loaded and indexed;
+		// other projects are skipped without taking any lock
+		for (IProject project : ResourcesPlugin.getWorkspace().getRoot()
+				.getProjects()) {
+			if (!index.contains(project)
+					&& ResourceUtil.isSharedWithGit(project)) {
+				getProjectData(project);
 			}
 		}
-		return bestMapping;
+		return index.findByLocation(path);
 	}
 
 	/**
@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.project;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.annotations.Nullable;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * A read-mostly index of all {@link RepositoryMapping}s of the projects known
+ * to {@link GitProjectData}.
+ * <p>
+ * The index consists of two path tries: one over the workspace paths of the
+ * mapped containers, and one over the file system locations of the working
+ * trees of the mapped repositories, including nested repositories and
+ * submodules. Both are immutable; updates build new tries under a lock and
+ * publish them atomically, so lookups never block.
+ * </p>
+ */
+final class RepositoryMappingIndex {
+
+	private static final class Node {
+
+		final Map<String, Node> children = new HashMap<>();
+
+		RepositoryMapping mapping;
+
+		void put(IPath path, RepositoryMapping value) {
+			Node node = this;
+			for (int i = 0; i < path.segmentCount(); i++) {
+				node = node.children.computeIfAbsent(path.segment(i),
+						s -> new Node());
+			}
+			if (node.mapping == null) {
+				node.mapping = value;
+			}
+		}
+
+		RepositoryMapping find(IPath path) {
+			Node node = this;
+			RepositoryMapping best = node.mapping;
+			for (int i = 0; i < path.segmentCount(); i++) {
+				node = node.children.get(path.segment(i));
+				if (node == null) {
+					break;
+				}
+				if (node.mapping != null) {
+					best = node.mapping;
+				}
+			}
+			return best;
+		}
+	}
+
+	private static final class Snapshot {
+
+		final Map<IProject, Collection<RepositoryMapping>> projects;
+
+		final Node workspace = new Node();
+
+		final Map<String, Node> locations = new HashMap<>();
+
+		Snapshot(Map<IProject, Collection<RepositoryMapping>> projects) {
+			this.projects = projects;
+			for (Collection<RepositoryMapping> mappings : projects.values()) {
+				for (RepositoryMapping mapping : mappings) {
+					IContainer container = mapping.getContainer();
+					Repository repository = mapping.getRepository();
+					if (container == null || repository == null) {
+						continue;
+					}
+					workspace.put(container.getFullPath(), mapping);
+					if (!repository.isBare()) {
+						IPath workTree = new Path(
+								repository.getWorkTree().getAbsolutePath());
+						locations.computeIfAbsent(deviceKey(workTree),
+								d -> new Node()).put(workTree, mapping);
+					}
+				}
+			}
+		}
+	}
+
+	private static final RepositoryMappingIndex INSTANCE = new RepositoryMappingIndex();
+
+	private volatile Snapshot snapshot = new Snapshot(
+			Collections.<IProject, Collection<RepositoryMapping>> emptyMap());
+
+	private RepositoryMappingIndex() {
+		// Singleton
+	}
+
+	/**
+	 * @return the index
+	 */
+	static RepositoryMappingIndex getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Replaces the mappings of a project.
+	 *
+	 * @param project
+	 * @param mappings
+	 *            current mappings of the project
+	 */
+	synchronized void put(@NonNull IProject project,
+			@NonNull Collection<RepositoryMapping> mappings) {
+		Map<IProject, Collection<RepositoryMapping>> projects = new HashMap<>(
+				snapshot.projects);
+		projects.put(project, new ArrayList<>(mappings));
+		snapshot = new Snapshot(projects);
+	}
+
+	/**
+	 * Removes all mappings of a project.
+	 *
+	 * @param project
+	 */
+	synchronized void remove(@NonNull IProject project) {
+		if (!snapshot.projects.containsKey(project)) {
+			return;
+		}
+		Map<IProject, Collection<RepositoryMapping>> projects = new HashMap<>(
+				snapshot.projects);
+		projects.remove(project);
+		snapshot = new Snapshot(projects);
+	}
+
+	/**
+	 * Removes all mappings.
+	 */
+	synchronized void clear() {
+		snapshot = new Snapshot(
+				Collections.<IProject, Collection<RepositoryMapping>> emptyMap());
+	}
+
+	/**
+	 * @param project
+	 * @return whether the mappings of the project are in the index, i.e.
+	 *         whether {@link #findByWorkspacePath(IPath)} is authoritative for
+	 *         resources in that project
+	 */
+	boolean contains(@NonNull IProject project) {
+		return snapshot.projects.containsKey(project);
+	}
+
+	/**
+	 * Finds the mapping of the innermost mapped container containing the
+	 * given workspace path.
+	 *
+	 * @param fullPath
+	 *            workspace-relative path of a (non-linked) resource
+	 * @return the mapping, or {@code null}
+	 */
+	@Nullable
+	RepositoryMapping findByWorkspacePath(@NonNull IPath fullPath) {
+		return snapshot.workspace.find(fullPath);
+	}
+
+	/**
+	 * Finds the mapping of the innermost working tree containing the given
+	 * file system location.
+	 *
+	 * @param location
+	 *            absolute file system path
+	 * @return the mapping, or {@code null}
+	 */
+	@Nullable
+	RepositoryMapping findByLocation(@NonNull IPath location) {
+		Node root = snapshot.locations.get(deviceKey(location));
+		if (root == null) {
+			return null;
+		}
+		return root.find(location);
+	}
+
+	/**
+	 * @return all indexed mappings
+	 */
+	@NonNull
+	List<RepositoryMapping> getMappings() {
+		List<RepositoryMapping> result = new ArrayList<>();
+		for (Collection<RepositoryMapping> mappings : snapshot.projects
+				.values()) {
+			result.addAll(mappings);
+		}
+		return result;
+	}
+
+	private static String deviceKey(IPath path) {
+		String device = path.getDevice();
+		if (device == null) {
+			return ""; //$NON-NLS-1$
+		}
+		// Devices (drive letters) are case-insensitive
+		return device.toUpperCase();
+	}
+}
@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.core.project;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.egit.core.Activator;
+import org.eclipse.egit.core.internal.CoreText;
+import org.eclipse.egit.core.internal.util.AtomicFileWriter;
+import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.annotations.Nullable;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Workspace-wide binary copy of the repository mappings stored in the
+ * per-project property files of {@link GitProjectData}.
+ * <p>
+ * The snapshot is read in one go on first use. The mappings of a project are
+ * taken from it only if the project's property file still has the length
+ * and modification time recorded with them; otherwise the property file is
+ * read and the snapshot updated. Changes are written back shortly after
+ * they happen, and when the workspace is detached, to a temporary file that
+ * then atomically replaces the snapshot.
+ * </p>
+ */
+class RepositoryMappingSnapshot {
+
+	private static final int FILE_MAGIC = 0x45474d53; // "EGMS"
+
+	private static final int FILE_VERSION = 1;
+
+	private static final long SAVE_DELAY = 1000;
+
+	private static RepositoryMappingSnapshot instance;
+
+	private static class Entry {
+
+		final long length;
+
+		final long lastModified;
+
+		final String[] containerPaths;
+
+		final String[] gitDirPaths;
+
+		Entry(long length, long lastModified, String[] containerPaths,
+				String[] gitDirPaths) {
+			this.length = length;
+			this.lastModified = lastModified;
+			this.containerPaths = containerPaths;
+			this.gitDirPaths = gitDirPaths;
+		}
+	}
+
+	private final File storage;
+
+	private final Map<String, Entry> entries = new HashMap<>();
+
+	private boolean dirty;
+
+	private final Job saveJob = new Job(
+			CoreText.RepositoryMappingSnapshot_saving) {
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			try {
+				save();
+			} catch (IOException e) {
+				return Activator.error(NLS.bind(
+						CoreText.RepositoryMappingSnapshot_saveFailed,
+						storage), e);
+			}
+			return Status.OK_STATUS;
+		}
+	};
+
+	RepositoryMappingSnapshot(@Nullable File storage) {
+		this.storage = storage;
+		saveJob.setSystem(true);
+	}
+
+	/**
+	 * @return the snapshot of the workspace, loaded on first access
+	 */
+	@NonNull
+	static synchronized RepositoryMappingSnapshot getInstance() {
+		if (instance == null) {
+			Activator activator = Activator.getDefault();
+			File storage = activator != null
+					? activator.getStateLocation()
+							.append("GitProjectData.bin").toFile() //$NON-NLS-1$
+					: null;
+			instance = new RepositoryMappingSnapshot(storage);
+			instance.load();
+		}
+		return instance;
+	}
+
+	/**
+	 * Looks up the mappings of a project.
+	 *
+	 * @param project
+	 *            name of the project
+	 * @param propertyFile
+	 *            the project's property file
+	 * @return new, unmapped {@link RepositoryMapping}s, or {@code null} if the
+	 *         snapshot has no up-to-date mappings for the project
+	 */
+	@Nullable
+	List<RepositoryMapping> get(String project, File propertyFile) {
+		Entry entry;
+		synchronized (this) {
+			entry = entries.get(project);
+		}
+		if (entry == null) {
+			return null;
+		}
+		BasicFileAttributes attributes = readAttributes(propertyFile);
+		if (attributes == null || attributes.size() != entry.length
+				|| attributes.lastModifiedTime().toMillis() != entry.lastModified) {
+			return null;
+		}
+		List<RepositoryMapping> mappings = new ArrayList<>(
+				entry.containerPaths.length);
+		for (int i = 0; i < entry.containerPaths.length; i++) {
+			mappings.add(new RepositoryMapping(entry.containerPaths[i],
+					entry.gitDirPaths[i]));
+		}
+		return mappings;
+	}
+
+	/**
+	 * Records the mappings of a project as just read from or written to its
+	 * property file, and schedules writing the snapshot.
+	 *
+	 * @param project
+	 *            name of the project
+	 * @param propertyFile
+	 *            the project's property file
+	 * @param mappings
+	 *            of the project
+	 */
+	void put(String project, File propertyFile,
+			Collection<RepositoryMapping> mappings) {
+		BasicFileAttributes attributes = readAttributes(propertyFile);
+		if (attributes == null) {
+			remove(project);
+			return;
+		}
+		String[] containerPaths = new String[mappings.size()];
+		String[] gitDirPaths = new String[mappings.size()];
+		int i = 0;
+		for (RepositoryMapping mapping : mappings) {
+			containerPaths[i] = mapping.getContainerPathString();
+			gitDirPaths[i] = mapping.getGitDirPathString();
+			if (containerPaths[i] == null || gitDirPaths[i] == null) {
+				remove(project);
+				return;
+			}
+			i++;
+		}
+		synchronized (this) {
+			entries.put(project,
+					new Entry(attributes.size(),
+							attributes.lastModifiedTime().toMillis(),
+							containerPaths, gitDirPaths));
+			dirty = true;
+		}
+		saveJob.schedule(SAVE_DELAY);
+	}
+
+	/**
+	 * Forgets the mappings of a project.
+	 *
+	 * @param project
+	 *            name of the project
+	 */
+	void remove(String project) {
+		synchronized (this) {
+			if (entries.remove(project) == null) {
+				return;
+			}
+			dirty = true;
+		}
+		saveJob.schedule(SAVE_DELAY);
+	}
+
+	/**
+	 * Writes pending changes immediately.
+	 */
+	void flush() {
+		saveJob.cancel();
+		try {
+			save();
+		} catch (IOException e) {
+			Activator.logError(NLS.bind(
+					CoreText.RepositoryMappingSnapshot_saveFailed, storage), e);
+		}
+	}
+
+	private static BasicFileAttributes readAttributes(File file) {
+		try {
+			return Files.readAttributes(file.toPath(),
+					BasicFileAttributes.class);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	synchronized void load() {
+		if (storage == null) {
+			return;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				Files.newInputStream(storage.toPath())))) {
+			if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+				return;
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String project = in.readUTF();
+				long length = in.readLong();
+				long lastModified = in.readLong();
+				int n = in.readInt();
+				String[] containerPaths = new String[n];
+				String[] gitDirPaths = new String[n];
+				for (int j = 0; j < n; j++) {
+					containerPaths[j] = in.readUTF();
+					gitDirPaths[j] = in.readUTF();
+				}
+				entries.put(project, new Entry(length, lastModified,
+						containerPaths, gitDirPaths));
+			}
+		} catch (FileNotFoundException | NoSuchFileException e) {
+			// Nothing saved yet
+		} catch (IOException e) {
+			// Corrupt or truncated; the property files are authoritative
+			entries.clear();
+		}
+		dirty = false;
+	}
+
+	synchronized void save() throws IOException {
+		if (!dirty || storage == null) {
+			return;
+		}
+		AtomicFileWriter.write(storage, stream -> {
+			DataOutputStream out = new DataOutputStream(stream);
+			out.writeInt(FILE_MAGIC);
+			out.writeInt(FILE_VERSION);
+			out.writeInt(entries.size());
+			for (Map.Entry<String, Entry> e : entries.entrySet()) {
+				Entry entry = e.getValue();
+				out.writeUTF(e.getKey());
+				out.writeLong(entry.length);
+				out.writeLong(entry.lastModified);
+				out.writeInt(entry.containerPaths.length);
+				for (int i = 0; i < entry.containerPaths.length; i++) {
+					out.writeUTF(entry.containerPaths[i]);
+					out.writeUTF(entry.gitDirPaths[i]);
+				}
+			}
+		});
+		dirty = false;
+	}
+}
@@ -165,4 +165,17 @@ public void testIsOnDevelop() throws Exception {
 		// the initial commit was made on master, but is also on develop
 		assertTrue(gfRepo.isOnDevelop(initialCommit));
 	}
+
+	@Test
+	public void testFindHeadFollowsBranchUpdates() throws Exception {
+		Repository repository = repository1.getRepository();
+		GitFlowRepository gfRepo = new GitFlowRepository(repository);
+		repository1.checkoutBranch(gfRepo.getConfig().getDevelop());
+
+		RevCommit first = repository1.commit("first develop commit");
+		assertEquals(first, gfRepo.findHead(gfRepo.getConfig().getDevelop()));
+
+		RevCommit second = repository1.commit("second develop commit");
+		assertEquals(second, gfRepo.findHead(gfRepo.getConfig().getDevelop()));
+	}
 }
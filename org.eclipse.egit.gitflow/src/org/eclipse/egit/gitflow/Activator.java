@@ -36,6 +36,7 @@ public void start(BundleContext bundleContext) throws Exception {
 
 	@Override
 	public void stop(BundleContext bundleContext) throws Exception {
+		BranchIndex.dispose();
 		Activator.context = null;
 	}
 
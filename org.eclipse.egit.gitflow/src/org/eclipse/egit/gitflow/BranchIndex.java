@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.gitflow;
+
+import static org.eclipse.jgit.lib.Constants.R_HEADS;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.annotations.Nullable;
+import org.eclipse.jgit.events.ListenerHandle;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * Snapshot of the local branches of a repository, shared by all
+ * {@link GitFlowRepository} instances for that repository.
+ * <p>
+ * Gitflow menus, decorators and dialogs query the feature, release and hotfix
+ * branches and the heads of develop and master many times while the branches
+ * rarely change. The snapshot is built on first use and dropped whenever JGit
+ * reports that the refs or the configuration of the repository changed.
+ * </p>
+ */
+class BranchIndex {
+
+	private static final Map<File, BranchIndex> INDEXES = new ConcurrentHashMap<>();
+
+	private static final AtomicLong GENERATION = new AtomicLong();
+
+	private static final ListenerHandle[] HANDLES = {
+			Repository.getGlobalListenerList().addRefsChangedListener(
+					event -> invalidate(event.getRepository())),
+			Repository.getGlobalListenerList().addConfigChangedListener(
+					event -> invalidate(event.getRepository())) };
+
+	private final List<Ref> branches;
+
+	private final Map<String, Ref> branchesByName;
+
+	private final Map<ObjectId, RevCommit> commits = new ConcurrentHashMap<>();
+
+	private BranchIndex(Repository repository) throws IOException {
+		Map<String, Ref> refs = repository.getRefDatabase().getRefs(R_HEADS);
+		branches = Collections.unmodifiableList(new ArrayList<>(refs.values()));
+		branchesByName = new ConcurrentHashMap<>(refs.size());
+		for (Ref ref : branches) {
+			branchesByName.put(ref.getName(), ref);
+		}
+	}
+
+	/**
+	 * @param repository
+	 * @return the current index of the repository's branches
+	 * @throws IOException
+	 */
+	@NonNull
+	static BranchIndex get(@NonNull Repository repository) throws IOException {
+		File gitDir = repository.getDirectory();
+		if (gitDir == null) {
+			return new BranchIndex(repository);
+		}
+		BranchIndex index = INDEXES.get(gitDir);
+		if (index == null) {
+			long generation = GENERATION.get();
+			index = new BranchIndex(repository);
+			// Don't publish a snapshot that may have missed a change
+			if (generation == GENERATION.get()) {
+				BranchIndex existing = INDEXES.putIfAbsent(gitDir, index);
+				if (existing != null) {
+					index = existing;
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Drops the index of a repository.
+	 *
+	 * @param repository
+	 */
+	static void invalidate(Repository repository) {
+		GENERATION.incrementAndGet();
+		File gitDir = repository.getDirectory();
+		if (gitDir != null) {
+			INDEXES.remove(gitDir);
+		}
+	}
+
+	/**
+	 * Stops tracking changes and removes all indexes.
+	 */
+	static void dispose() {
+		for (ListenerHandle handle : HANDLES) {
+			handle.remove();
+		}
+		GENERATION.incrementAndGet();
+		INDEXES.clear();
+	}
+
+	/**
+	 * @return all local branches, sorted by name
+	 */
+	List<Ref> getBranches() {
+		return branches;
+	}
+
+	/**
+	 * @param prefix
+	 *            full ref name prefix, e.g. "refs/heads/feature/"
+	 * @return the local branches starting with the prefix, sorted by name
+	 */
+	List<Ref> getBranches(String prefix) {
+		List<Ref> result = new ArrayList<>();
+		for (Ref ref : branches) {
+			if (ref.getName().startsWith(prefix)) {
+				result.add(ref);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param fullName
+	 *            full name of the branch
+	 * @return the branch, or {@code null} if it does not exist
+	 */
+	@Nullable
+	Ref getBranch(String fullName) {
+		return branchesByName.get(fullName);
+	}
+
+	/**
+	 * @param repository
+	 * @param fullName
+	 *            full name of the branch
+	 * @return the commit the branch points to, or {@code null} if the branch
+	 *         does not exist
+	 * @throws IOException
+	 */
+	@Nullable
+	RevCommit getHead(Repository repository, String fullName)
+			throws IOException {
+		Ref ref = branchesByName.get(fullName);
+		ObjectId id = ref != null ? ref.getObjectId() : null;
+		if (id == null) {
+			return null;
+		}
+		RevCommit commit = commits.get(id);
+		if (commit == null) {
+			try (RevWalk walk = new RevWalk(repository)) {
+				commit = walk.parseCommit(id);
+			}
+			commits.put(id, commit);
+		}
+		return commit;
+	}
+}
@@ -13,7 +13,6 @@
 import static org.eclipse.jgit.lib.Constants.R_TAGS;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 
 import org.eclipse.egit.gitflow.internal.CoreText;
@@ -53,11 +52,9 @@ public GitFlowRepository(@NonNull Repository repository) {
 	 * @return Whether or not this repository has branches.
 	 */
 	public boolean hasBranches() {
-		List<Ref> branches;
 		try {
-			branches = Git.wrap(repository).branchList().call();
-			return !branches.isEmpty();
-		} catch (GitAPIException e) {
+			return !BranchIndex.get(repository).getBranches().isEmpty();
+		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
@@ -85,7 +82,7 @@ public boolean hasBranch(String branch) throws GitAPIException {
 	 * @throws IOException
 	 */
 	public Ref findBranch(String branchName) throws IOException {
-		return repository.exactRef(R_HEADS + branchName);
+		return BranchIndex.get(repository).getBranch(R_HEADS + branchName);
 	}
 
 	/**
@@ -163,17 +160,11 @@ public RevCommit findHead() throws WrongGitFlowStateException {
 	 *         {@code branchName} could not be resolved.
 	 */
 	public @Nullable RevCommit findHead(String branchName) {
-		try (RevWalk walk = new RevWalk(repository)) {
-			try {
-				String revstr = R_HEADS + branchName;
-				ObjectId head = repository.resolve(revstr);
-				if (head == null) {
-					return null;
-				}
-				return walk.parseCommit(head);
-			} catch (RevisionSyntaxException | IOException e) {
-				throw new RuntimeException(e);
-			}
+		try {
+			return BranchIndex.get(repository).getHead(repository,
+					R_HEADS + branchName);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
 		}
 	}
 
@@ -223,16 +214,8 @@ public List<Ref> getHotfixBranches() {
 
 	private List<Ref> getPrefixBranches(String prefix) {
 		try {
-			List<Ref> branches = Git.wrap(repository).branchList().call();
-			List<Ref> prefixBranches = new ArrayList<Ref>();
-			for (Ref ref : branches) {
-				if (ref.getName().startsWith(prefix)) {
-					prefixBranches.add(ref);
-				}
-			}
-
-			return prefixBranches;
-		} catch (GitAPIException e) {
+			return BranchIndex.get(repository).getBranches(prefix);
+		} catch (IOException e) {
 			throw new RuntimeException(e);
 		}
 	}
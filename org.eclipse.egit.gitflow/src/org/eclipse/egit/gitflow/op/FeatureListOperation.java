@@ -12,30 +12,27 @@
 import static org.eclipse.jgit.lib.Constants.DEFAULT_REMOTE_NAME;
 import static org.eclipse.jgit.lib.Constants.R_REMOTES;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
-import org.eclipse.egit.core.op.ListRemoteOperation;
 import org.eclipse.egit.gitflow.GitFlowRepository;
 import org.eclipse.egit.gitflow.internal.CoreText;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.transport.FetchResult;
-import org.eclipse.jgit.transport.URIish;
 import org.eclipse.osgi.util.NLS;
 
 /**
  * List feature branches.
  */
 public final class FeatureListOperation extends GitFlowOperation {
-	private static final String FILE = "file:///"; //$NON-NLS-1$
-
 	private static final String REMOTE_ORIGIN_FEATURE_PREFIX = R_REMOTES
 			+ DEFAULT_REMOTE_NAME + SEP;
 
@@ -57,31 +54,23 @@ public FeatureListOperation(GitFlowRepository repository, int timeout) {
 	@Override
 	public void execute(IProgressMonitor monitor) throws CoreException {
 		SubMonitor progress = SubMonitor.convert(monitor, 2);
-		String uriString = FILE
-				+ repository.getRepository().getDirectory().getPath();
 		try {
 			operationResult = fetch(progress.newChild(1), timeout);
 
-			URIish uri = new URIish(uriString);
-			ListRemoteOperation listRemoteOperation = new ListRemoteOperation(
-					repository.getRepository(), uri, timeout);
-			listRemoteOperation.run(progress.newChild(1));
-			Collection<Ref> remoteRefs = listRemoteOperation.getRemoteRefs();
-			for (Ref ref : remoteRefs) {
-				if (ref.getName().startsWith(
-						REMOTE_ORIGIN_FEATURE_PREFIX
-								+ repository.getConfig().getFeaturePrefix())) {
-					result.add(ref);
-				}
-			}
+			String prefix = REMOTE_ORIGIN_FEATURE_PREFIX
+					+ repository.getConfig().getFeaturePrefix();
+			Map<String, Ref> remoteRefs = repository.getRepository()
+					.getRefDatabase().getRefs(prefix);
+			result.addAll(remoteRefs.values());
+			progress.worked(1);
 		} catch (URISyntaxException e) {
-			String message = NLS.bind(CoreText.FeatureListOperation_unableToParse, uriString);
+			String message = NLS.bind(CoreText.FeatureListOperation_unableToParse, e.getInput());
 			throw new CoreException(error(message, e));
 		} catch (InvocationTargetException e) {
 			Throwable targetException = e.getTargetException();
 			throw new CoreException(error(targetException.getMessage(),
 					targetException));
-		} catch (InterruptedException e) {
+		} catch (IOException e) {
 			throw new CoreException(error(e.getMessage(), e));
 		}
 	}
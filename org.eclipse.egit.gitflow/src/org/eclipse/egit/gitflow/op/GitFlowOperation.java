@@ -20,6 +20,7 @@
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.egit.core.RevUtils;
 import org.eclipse.egit.core.internal.job.RuleUtil;
 import org.eclipse.egit.core.op.BranchOperation;
 import org.eclipse.egit.core.op.CreateLocalBranchOperation;
@@ -36,9 +37,6 @@
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.revwalk.RevWalk;
-import org.eclipse.jgit.revwalk.RevWalkUtils;
-import org.eclipse.jgit.revwalk.filter.RevFilter;
 import org.eclipse.jgit.transport.FetchResult;
 import org.eclipse.jgit.transport.RemoteConfig;
 
@@ -221,26 +219,8 @@ private int getAheadOfDevelopCount(String branchName) throws IOException {
 		Ref develop = repository.findBranch(parentBranch);
 		Ref branch = repository.findBranch(branchName);
 
-		RevWalk walk = new RevWalk(repository.getRepository());
-
-		RevCommit branchCommit = walk.parseCommit(branch.getObjectId());
-		RevCommit developCommit = walk.parseCommit(develop.getObjectId());
-
-		RevCommit mergeBase = findCommonBase(walk, branchCommit, developCommit);
-
-		walk.reset();
-		walk.setRevFilter(RevFilter.ALL);
-		int aheadCount = RevWalkUtils.count(walk, branchCommit, mergeBase);
-
-		return aheadCount;
-	}
-
-	private RevCommit findCommonBase(RevWalk walk, RevCommit branchCommit,
-			RevCommit developCommit) throws IOException {
-		walk.setRevFilter(RevFilter.MERGE_BASE);
-		walk.markStart(branchCommit);
-		walk.markStart(developCommit);
-		return walk.next();
+		return RevUtils.getAheadBehind(repository.getRepository(),
+				branch.getObjectId(), develop.getObjectId())[0];
 	}
 
 	/**
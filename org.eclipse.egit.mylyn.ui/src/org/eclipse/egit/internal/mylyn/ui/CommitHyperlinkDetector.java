@@ -13,6 +13,7 @@
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -22,6 +23,7 @@
 import org.eclipse.egit.core.Activator;
 import org.eclipse.egit.core.RepositoryCache;
 import org.eclipse.egit.core.RepositoryUtil;
+import org.eclipse.egit.core.internal.CommitIdIndex;
 import org.eclipse.egit.ui.internal.commit.CommitEditor;
 import org.eclipse.egit.ui.internal.commit.RepositoryCommit;
 import org.eclipse.jface.dialogs.MessageDialog;
@@ -35,7 +37,10 @@
 import org.eclipse.jface.text.hyperlink.IHyperlink;
 import org.eclipse.jgit.errors.IncorrectObjectTypeException;
 import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevWalk;
@@ -115,9 +120,15 @@ private RepositoryCommit searchCommit() throws IOException {
 					.getConfiguredRepositories();
 			RepositoryCache repositoryCache = Activator.getDefault()
 					.getRepositoryCache();
+			List<Repository> repositories = new ArrayList<>(
+					configuredRepositories.size());
 			for (String repoDir : configuredRepositories) {
-				Repository repository = repositoryCache
-						.lookupRepository(new File(repoDir));
+				repositories.add(repositoryCache
+						.lookupRepository(new File(repoDir)));
+			}
+			CommitIdIndex index = Activator.getDefault().getCommitIdIndex();
+			for (Repository repository : index.getCandidates(repositories,
+					objectId)) {
 				RevCommit commit = getCommit(repository);
 				if (commit != null)
 					return new RepositoryCommit(repository, commit);
@@ -128,7 +139,10 @@ private RepositoryCommit searchCommit() throws IOException {
 
 		private RevCommit getCommit(Repository repository) throws IOException {
 			try (RevWalk revWalk = new RevWalk(repository)) {
-				return revWalk.parseCommit(ObjectId.fromString(objectId));
+				ObjectId id = resolve(revWalk.getObjectReader());
+				if (id == null)
+					return null;
+				return revWalk.parseCommit(id);
 			} catch (MissingObjectException e) {
 				// ignore
 				return null;
@@ -138,6 +152,15 @@ private RevCommit getCommit(Repository repository) throws IOException {
 			}
 		}
 
+		private ObjectId resolve(ObjectReader reader) throws IOException {
+			if (objectId.length() == Constants.OBJECT_ID_STRING_LENGTH)
+				return ObjectId.fromString(objectId);
+			Collection<ObjectId> ids = reader
+					.resolve(AbbreviatedObjectId.fromString(objectId));
+			// ambiguous abbreviations are not linked to any commit
+			return ids.size() == 1 ? ids.iterator().next() : null;
+		}
+
 		@Override
 		public String toString() {
 			StringBuilder builder = new StringBuilder();
@@ -16,6 +16,7 @@
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.UnknownHostException;
+import java.util.Arrays;
 import java.util.List;
 
 import org.eclipse.core.runtime.IAdapterFactory;
@@ -80,7 +81,9 @@ private AbstractTaskReference adaptFromObject(Object element) {
 	 */
 	private AbstractTaskReference adaptFromRevCommit(RevCommit commit) {
 		Repository[] repositories = Activator.getDefault().getRepositoryCache().getAllRepositories();
-		for (Repository r : repositories) {
+		List<Repository> candidates = Activator.getDefault().getCommitIdIndex()
+				.getCandidates(Arrays.asList(repositories), commit.name());
+		for (Repository r : candidates) {
 
 			String repoUrl = null;
 			String message = null;
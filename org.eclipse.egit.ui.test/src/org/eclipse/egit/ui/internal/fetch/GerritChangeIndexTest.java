@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.ui.internal.fetch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.egit.ui.internal.fetch.FetchGerritChangePage.Change;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdRef;
+import org.eclipse.jgit.lib.Ref;
+import org.junit.Test;
+
+/**
+ * Tests for {@link GerritChangeIndex}.
+ */
+public class GerritChangeIndexTest {
+
+	private static Ref ref(String name) {
+		return new ObjectIdRef.PeeledNonTag(Ref.Storage.NETWORK, name,
+				ObjectId.zeroId());
+	}
+
+	private static Ref change(int change, int patchSet) {
+		return ref(String.format("refs/changes/%02d/%d/%d", //
+				Integer.valueOf(change % 100), Integer.valueOf(change),
+				Integer.valueOf(patchSet)));
+	}
+
+	private static List<String> numbers(List<Change> changes) {
+		List<String> result = new ArrayList<>();
+		for (Change change : changes) {
+			result.add(change.getChangeNumber() + "/"
+					+ change.getPatchSetNumber());
+		}
+		return result;
+	}
+
+	private static GerritChangeIndex index() {
+		return GerritChangeIndex.fromRefs(Arrays.asList(ref("HEAD"),
+				ref("refs/heads/master"), change(7, 1), change(12, 2),
+				change(12, 1), change(123, 3), change(1234, 1),
+				change(1234, 2), ref("refs/changes/34/1234/meta"),
+				change(2, 1), change(12, 2)));
+	}
+
+	@Test
+	public void testFromRefs() {
+		assertEquals(Arrays.asList("1234/2", "1234/1", "123/3", "12/2",
+				"12/1", "7/1", "2/1"), numbers(index().getChanges()));
+	}
+
+	@Test
+	public void testEmpty() {
+		GerritChangeIndex index = GerritChangeIndex
+				.fromRefs(Arrays.asList(ref("refs/heads/master")));
+		assertTrue(index.isEmpty());
+		assertNull(index.findHighestPatchSet(1));
+		assertTrue(index.getProposals("1").isEmpty());
+	}
+
+	@Test
+	public void testFindHighestPatchSet() {
+		GerritChangeIndex index = index();
+		assertEquals("12/2", numbers(
+				Arrays.asList(index.findHighestPatchSet(12))).get(0));
+		assertEquals("1234/2", numbers(
+				Arrays.asList(index.findHighestPatchSet(1234))).get(0));
+		assertEquals("2/1", numbers(
+				Arrays.asList(index.findHighestPatchSet(2))).get(0));
+		assertNull(index.findHighestPatchSet(1));
+		assertNull(index.findHighestPatchSet(13));
+		assertNull(index.findHighestPatchSet(5000));
+	}
+
+	@Test
+	public void testNumericProposals() {
+		GerritChangeIndex index = index();
+		assertEquals(Arrays.asList("1234/2", "1234/1", "123/3", "12/2",
+				"12/1"), numbers(index.getProposals("1")));
+		assertEquals(Arrays.asList("1234/2", "1234/1", "123/3"),
+				numbers(index.getProposals("123")));
+		assertEquals(Arrays.asList("2/1"), numbers(index.getProposals("2")));
+		assertTrue(index.getProposals("9").isEmpty());
+		assertTrue(index.getProposals("99999999999").isEmpty());
+	}
+
+	@Test
+	public void testPatternProposals() {
+		GerritChangeIndex index = index();
+		assertEquals(7, index.getProposals("").size());
+		assertEquals(Arrays.asList("1234/2", "1234/1", "123/3", "12/2",
+				"12/1"), numbers(index.getProposals("1*")));
+		assertEquals(Arrays.asList("1234/2", "1234/1"),
+				numbers(index.getProposals("*34")));
+	}
+}
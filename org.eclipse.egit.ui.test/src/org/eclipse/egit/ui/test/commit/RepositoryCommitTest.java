@@ -10,8 +10,10 @@
  *******************************************************************************/
 package org.eclipse.egit.ui.test.commit;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -97,4 +99,12 @@ public void testDiffs() throws Exception {
 			assertNotNull(diff);
 	}
 
+	@Test
+	public void testDiffsShared() throws Exception {
+		FileDiff[] diffs = new RepositoryCommit(repository, commit).getDiffs();
+		FileDiff[] other = new RepositoryCommit(repository, commit).getDiffs();
+		assertNotSame(diffs, other);
+		assertArrayEquals(diffs, other);
+	}
+
 }
@@ -13,6 +13,7 @@
 import java.io.IOException;
 
 import org.eclipse.egit.core.RepositoryUtil;
+import org.eclipse.egit.core.RevUtils;
 import org.eclipse.egit.ui.Activator;
 import org.eclipse.egit.ui.internal.clone.ProjectRecord;
 import org.eclipse.egit.ui.internal.repository.tree.RefNode;
@@ -20,7 +21,6 @@
 import org.eclipse.egit.ui.internal.synchronize.model.GitModelRepository;
 import org.eclipse.jface.viewers.StyledString;
 import org.eclipse.jgit.annotations.NonNull;
-import org.eclipse.jgit.lib.BranchTrackingStatus;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
@@ -60,13 +60,14 @@ else if (name.equals(Constants.R_STASH))
 	 * Format the branch tracking status suitable for displaying in decorations
 	 * and labels.
 	 *
-	 * @param status
+	 * @param ahead
+	 *            number of commits the branch is ahead of its upstream branch
+	 * @param behind
+	 *            number of commits the branch is behind its upstream branch
 	 * @return the branch tracking status as a string
 	 */
-	public static String formatBranchTrackingStatus(BranchTrackingStatus status) {
+	public static String formatBranchTrackingStatus(int ahead, int behind) {
 		StringBuilder sb = new StringBuilder();
-		int ahead = status.getAheadCount();
-		int behind = status.getBehindCount();
 		if (ahead != 0) {
 			// UPWARDS ARROW
 			sb.append('\u2191');
@@ -77,7 +78,7 @@ public static String formatBranchTrackingStatus(BranchTrackingStatus status) {
 				sb.append(' ');
 			// DOWNWARDS ARROW
 			sb.append('\u2193');
-			sb.append(status.getBehindCount());
+			sb.append(behind);
 		}
 		return sb.toString();
 	}
@@ -103,7 +104,7 @@ public static String formatBranchTrackingStatus(BranchTrackingStatus status) {
 	/**
 	 * Computes detailed repository label that consists of repository name,
 	 * state, checked-out branch and it's status (returned by
-	 * {@linkplain #formatBranchTrackingStatus(BranchTrackingStatus)})
+	 * {@linkplain #formatBranchTrackingStatus(int, int)})
 	 *
 	 * @param repository
 	 * @return a styled string for the repository
@@ -125,13 +126,13 @@ public static String formatBranchTrackingStatus(BranchTrackingStatus status) {
 			string.append('[', StyledString.DECORATIONS_STYLER);
 			string.append(branch, StyledString.DECORATIONS_STYLER);
 
-			BranchTrackingStatus trackingStatus = BranchTrackingStatus.of(
-					repository, branch);
+			int[] trackingStatus = RevUtils.getBranchTrackingStatus(repository,
+					branch);
 			if (trackingStatus != null
-					&& (trackingStatus.getAheadCount() != 0 || trackingStatus
-							.getBehindCount() != 0)) {
+					&& (trackingStatus[0] != 0 || trackingStatus[1] != 0)) {
 				String formattedTrackingStatus = GitLabels
-						.formatBranchTrackingStatus(trackingStatus);
+						.formatBranchTrackingStatus(trackingStatus[0],
+								trackingStatus[1]);
 				string.append(' ');
 				string.append(formattedTrackingStatus,
 						StyledString.DECORATIONS_STYLER);
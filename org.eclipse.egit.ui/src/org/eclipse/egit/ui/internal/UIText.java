@@ -637,6 +637,15 @@ public class UIText extends NLS {
 	/** */
 	public static String GitPreferenceRoot_automaticallyEnableChangesetModel;
 
+	/** */
+	public static String GitPreferenceRoot_BackgroundFetch;
+
+	/** */
+	public static String GitPreferenceRoot_BackgroundFetchInterval;
+
+	/** */
+	public static String GitPreferenceRoot_BackgroundFetchIntervalTooltip;
+
 	/** */
 	public static String GitPreferenceRoot_BlameGroupHeader;
 
@@ -3361,6 +3370,9 @@ public class UIText extends NLS {
 	/** */
 	public static String Decorator_exceptionMessageCommon;
 
+	/** */
+	public static String DecoratableResourceHelper_BranchStatusJob;
+
 	/** */
 	public static String DecoratorPreferencesPage_addVariablesTitle;
 
@@ -4521,6 +4533,48 @@ public class UIText extends NLS {
 	/** */
 	public static String GitBranchSynchronizeWizardPage_fetchChangesFromRemote;
 
+	/** */
+	public static String GitMetricsDialog_CountHeader;
+
+	/** */
+	public static String GitMetricsDialog_DialogMessage;
+
+	/** */
+	public static String GitMetricsDialog_DialogTitle;
+
+	/** */
+	public static String GitMetricsDialog_ExportButton;
+
+	/** */
+	public static String GitMetricsDialog_MaxHeader;
+
+	/** */
+	public static String GitMetricsDialog_MeanHeader;
+
+	/** */
+	public static String GitMetricsDialog_NameHeader;
+
+	/** */
+	public static String GitMetricsDialog_P50Header;
+
+	/** */
+	public static String GitMetricsDialog_P90Header;
+
+	/** */
+	public static String GitMetricsDialog_P99Header;
+
+	/** */
+	public static String GitMetricsDialog_RefreshButton;
+
+	/** */
+	public static String GitMetricsDialog_ResetButton;
+
+	/** */
+	public static String GitMetricsDialog_ShellTitle;
+
+	/** */
+	public static String GitTraceConfigurationDialog_MetricsButton;
+
 	/** */
 	public static String GitTraceConfigurationDialog_ApplyButton;
 
@@ -5457,9 +5511,6 @@ public class UIText extends NLS {
 	/** */
 	public static String SynchronizeFetchJob_TaskName;
 
-	/** */
-	public static String SynchronizeFetchJob_SubTaskName;
-
 	/** */
 	public static String SynchronizeFetchJob_FetchFailedTitle;
 
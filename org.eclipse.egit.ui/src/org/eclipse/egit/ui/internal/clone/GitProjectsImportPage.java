@@ -18,7 +18,6 @@
 import java.io.File;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -101,7 +100,11 @@ public Color getBackground(Object element) {
 
 	private boolean lastNestedProjects = true;
 
-	private ProjectRecord[] selectedProjects = new ProjectRecord[0];
+	private volatile ProjectRecord[] selectedProjects = new ProjectRecord[0];
+
+	private volatile boolean refreshPending;
+
+	private volatile boolean searching;
 
 	private IProject[] wsProjects;
 
@@ -407,38 +410,43 @@ void setProjectsList(final String path) {
 				@Override
 				public void run(IProgressMonitor monitor) {
 					selectedProjects = new ProjectRecord[0];
-					Collection<File> files = new ArrayList<>();
 					if (directory.isDirectory()) {
-						SubMonitor progress = SubMonitor.convert(monitor, 2);
+						SubMonitor progress = SubMonitor.convert(monitor, 1);
 						progress.setTaskName(
 								UIText.WizardProjectsImportPage_SearchingMessage);
 						boolean searchNested = nestedProjects;
 
-						boolean found = ProjectUtil.findProjectFiles(files,
-								directory, searchNested, progress.newChild(1));
+						// Show projects as they are found
+						List<ProjectRecord> result = new ArrayList<>();
+						searching = true;
+						boolean found = ProjectUtil.findProjectFiles(directory,
+								searchNested, file -> {
+									if (!isSelected(file)) {
+										return;
+									}
+									ProjectRecord record = new ProjectRecord(
+											file);
+									if (record.getProjectDescription() == null) {
+										// Ignore invalid .project files
+										return;
+									}
+									result.add(record);
+									showProjects(result);
+								}, progress.newChild(1));
+						ProjectRecord[] records = found
+								? result.toArray(
+										new ProjectRecord[result.size()])
+								: new ProjectRecord[0];
+						// In the UI thread, after pending intermediate updates
+						Display.getDefault().syncExec(() -> {
+							searching = false;
+							selectedProjects = records;
+						});
 
 						if (!found) {
 							return;
 						}
-						ArrayList<ProjectRecord> result = new ArrayList<>();
-						progress.setWorkRemaining(files.size());
-						progress.subTask(
-								UIText.WizardProjectsImportPage_ProcessingMessage);
-						for (File file : files) {
-							if (isSelected(file)) {
-								ProjectRecord record = new ProjectRecord(file);
-								if (record.getProjectDescription() == null) {
-									// Ignore invalid .project files
-									continue;
-								}
-								result.add(record);
-							}
-							progress.worked(1);
-						}
-						selectedProjects = result
-								.toArray(new ProjectRecord[result.size()]);
-
-						if (selectedProjects.length == 0) {
+						if (records.length == 0) {
 							// run in UI thread
 							Display.getDefault().syncExec(() -> setErrorMessage(
 									UIText.GitProjectsImportPage_NoProjectsMessage));
@@ -446,6 +454,24 @@ public void run(IProgressMonitor monitor) {
 					}
 				}
 
+				private void showProjects(List<ProjectRecord> result) {
+					if (refreshPending) {
+						return;
+					}
+					refreshPending = true;
+					ProjectRecord[] records = result
+							.toArray(new ProjectRecord[result.size()]);
+					Display.getDefault().asyncExec(() -> {
+						refreshPending = false;
+						// The final result is shown by the caller
+						if (searching
+								&& !projectsList.getControl().isDisposed()) {
+							selectedProjects = records;
+							projectsList.refresh(true);
+						}
+					});
+				}
+
 				private boolean isSelected(File pFile) {
 					IWizard wiz = getWizard();
 					if (!(wiz instanceof GitCreateProjectViaWizardWizard)) {
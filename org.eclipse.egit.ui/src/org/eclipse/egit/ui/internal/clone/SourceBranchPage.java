@@ -327,7 +327,8 @@ private void revalidateImpl(final RepositorySelection newRepoSelection) {
 				listRemoteOp
 						.setCredentialsProvider(new EGitCredentialsProvider(
 								credentials.getUser(), credentials
-										.getPassword()));
+										.getPassword()),
+								credentials.getUser());
 			getContainer().run(true, true, new IRunnableWithProgress() {
 				@Override
 				public void run(IProgressMonitor monitor)
@@ -104,6 +104,15 @@ public class DiffEditorPage extends TextEditor
 
 	private static final String REMOVE_ANNOTATION_TYPE = "org.eclipse.egit.ui.commitEditor.diffRemoved"; //$NON-NLS-1$
 
+	/** Maximum number of lines shown for a single file's diff. */
+	private static final int MAX_LINES_PER_FILE = 20000;
+
+	/**
+	 * Files larger than this many bytes are neither loaded nor diffed; they
+	 * are shown like binary files.
+	 */
+	private static final int MAX_FILE_SIZE = 2 * 1024 * 1024;
+
 	private FormEditor formEditor;
 
 	private String title;
@@ -583,6 +592,8 @@ protected IStatus run(IProgressMonitor monitor) {
 				DiffDocument document = new DiffDocument();
 				try (DiffRegionFormatter formatter = new DiffRegionFormatter(
 						document)) {
+					formatter.setMaxLinesPerFile(MAX_LINES_PER_FILE);
+					formatter.setBigFileThreshold(MAX_FILE_SIZE);
 					SubMonitor progress = SubMonitor.convert(monitor,
 							diffs.length);
 					Repository repository = commit.getRepository();
@@ -267,6 +267,12 @@ protected void flushLine() throws IOException {
 
 	private int linesWritten;
 
+	private int maxLinesPerFile = -1;
+
+	private int fileLinesWritten;
+
+	private boolean fileTruncated;
+
 	private int lastNewLine;
 
 	private int[] maximumLineNumbers = new int[] { DiffRegion.NO_LINE,
@@ -300,6 +306,19 @@ public DiffRegionFormatter(IDocument document, int offset,
 		this.lastNewLine = DiffRegion.NO_LINE;
 	}
 
+	/**
+	 * Limits the number of lines written for each file diff passed to
+	 * {@link #write(Repository, FileDiff)}, in addition to the overall limit
+	 * given to the constructor.
+	 *
+	 * @param maxLinesPerFile
+	 *            maximum number of lines per file, or a value &lt;= 0 for no
+	 *            limit
+	 */
+	public void setMaxLinesPerFile(int maxLinesPerFile) {
+		this.maxLinesPerFile = maxLinesPerFile;
+	}
+
 	/**
 	 * Write diff
 	 *
@@ -313,6 +332,8 @@ public DiffRegionFormatter write(Repository repository, FileDiff diff)
 		this.stream.charset = CompareCoreUtils.getResourceEncoding(repository,
 				diff.getPath());
 		int start = stream.offset;
+		fileLinesWritten = 0;
+		fileTruncated = false;
 		diff.outputDiff(null, repository, this, true);
 		flush();
 		fileRegions
@@ -430,17 +451,18 @@ protected void writeLine(char prefix, RawText text, int cur)
 			throws IOException {
 		if (maxLines > 0 && linesWritten > maxLines) {
 			if (linesWritten == maxLines + 1) {
-				int start = stream.offset;
-				stream.flushLine();
-				stream.write(
-						NLS.bind(UIText.DiffStyleRangeFormatter_diffTruncated,
-								Integer.valueOf(maxLines)));
-				stream.write("\n"); //$NON-NLS-1$
-				addRegion(Type.HEADLINE, start, stream.offset);
+				writeTruncated(maxLines);
 				linesWritten++;
 			}
 			return;
 		}
+		if (maxLinesPerFile > 0 && fileLinesWritten >= maxLinesPerFile) {
+			if (!fileTruncated) {
+				writeTruncated(maxLinesPerFile);
+				fileTruncated = true;
+			}
+			return;
+		}
 
 		int start = stream.offset;
 		super.writeLine(prefix, text, cur);
@@ -455,6 +477,16 @@ protected void writeLine(char prefix, RawText text, int cur)
 					DiffRegion.NO_LINE);
 		}
 		linesWritten++;
+		fileLinesWritten++;
+	}
+
+	private void writeTruncated(int limit) throws IOException {
+		int start = stream.offset;
+		stream.flushLine();
+		stream.write(NLS.bind(UIText.DiffStyleRangeFormatter_diffTruncated,
+				Integer.valueOf(limit)));
+		stream.write("\n"); //$NON-NLS-1$
+		addRegion(Type.HEADLINE, start, stream.offset);
 	}
 
 	/**
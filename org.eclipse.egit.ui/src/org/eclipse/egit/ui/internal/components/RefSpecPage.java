@@ -250,7 +250,8 @@ private void revalidateImpl(final RepositorySelection newRepoSelection) {
 			if (credentials != null)
 				listRemotesOp
 						.setCredentialsProvider(new EGitCredentialsProvider(
-								credentials.getUser(), credentials.getPassword()));
+								credentials.getUser(), credentials.getPassword()),
+								credentials.getUser());
 			getContainer().run(true, true, new IRunnableWithProgress() {
 				@Override
 				public void run(IProgressMonitor monitor)
@@ -24,13 +24,13 @@
 
 import org.eclipse.core.resources.IResource;
 import org.eclipse.egit.core.internal.indexdiff.IndexDiffData;
+import org.eclipse.egit.core.internal.trace.GitMetrics;
 import org.eclipse.egit.core.project.RepositoryMapping;
 import org.eclipse.egit.ui.internal.resources.IResourceState;
 import org.eclipse.egit.ui.internal.resources.ResourceStateFactory;
 import org.eclipse.egit.ui.internal.trace.GitTraceLocation;
 import org.eclipse.jgit.annotations.NonNull;
 import org.eclipse.jgit.lib.Repository;
-import org.eclipse.jgit.revwalk.RevCommit;
 
 class DecoratableResourceAdapter extends DecoratableResource {
 
@@ -39,13 +39,12 @@ public DecoratableResourceAdapter(@NonNull IndexDiffData indexDiffData,
 			throws IOException {
 		super(resourceToWrap);
 		boolean trace = GitTraceLocation.DECORATION.isActive();
-		long start = 0;
 		if (trace) {
 			GitTraceLocation.getTrace().trace(
 					GitTraceLocation.DECORATION.getLocation(),
 					"Decorate " + resourceToWrap.getFullPath()); //$NON-NLS-1$
-			start = System.nanoTime();
 		}
+		long start = System.nanoTime();
 		try {
 			RepositoryMapping mapping = RepositoryMapping
 					.getMapping(resourceToWrap);
@@ -68,23 +67,22 @@ public DecoratableResourceAdapter(@NonNull IndexDiffData indexDiffData,
 			if (isRepositoryContainer() && !isIgnored()) {
 				// We only need this very expensive info for for decorating
 				// projects and folders that are submodule or nested repository
-				// roots
+				// roots; it is cached per repository until its refs change
 				repositoryName = DecoratableResourceHelper
 						.getRepositoryName(repository);
 				branch = DecoratableResourceHelper.getShortBranch(repository);
 				branchStatus = DecoratableResourceHelper.getBranchStatus(repository);
-				RevCommit headCommit = DecoratableResourceHelper
-						.getHeadCommit(repository);
-				if (headCommit != null) {
-					commitMessage = headCommit.getShortMessage();
-				}
+				commitMessage = DecoratableResourceHelper
+						.getHeadMessage(repository);
 			}
 		} finally {
+			long duration = System.nanoTime() - start;
+			GitMetrics.histogram(GitMetrics.DECORATION).record(duration);
 			if (trace)
 				GitTraceLocation
 						.getTrace()
 						.trace(GitTraceLocation.DECORATION.getLocation(),
-								"Decoration took " + (System.nanoTime() - start) //$NON-NLS-1$
+								"Decoration took " + duration //$NON-NLS-1$
 										+ " ns"); //$NON-NLS-1$
 		}
 	}
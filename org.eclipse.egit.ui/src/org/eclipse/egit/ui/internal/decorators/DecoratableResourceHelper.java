@@ -2,6 +2,7 @@
  * Copyright (C) 2011, Philipp Thun <philipp.thun@sap.com>
  * Copyright (C) 2011, Dariusz Luksza <dariusz@luksza.org>
  * Copyright (C) 2011, Christian Halstrick <christian.halstrick@sap.com>
+ * Copyright (C) 2018, EGit Committers and others.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
@@ -11,34 +12,117 @@
 package org.eclipse.egit.ui.internal.decorators;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.WeakHashMap;
 
-import org.eclipse.egit.core.internal.indexdiff.IndexDiffData;
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.egit.core.RevUtils;
+import org.eclipse.egit.core.internal.util.ProjectUtil;
 import org.eclipse.egit.ui.Activator;
 import org.eclipse.egit.ui.internal.GitLabels;
-import org.eclipse.jgit.lib.BranchTrackingStatus;
+import org.eclipse.egit.ui.internal.UIText;
+import org.eclipse.jgit.events.RefsChangedEvent;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.RepositoryState;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.osgi.util.NLS;
 
 /**
  * Helper class to create decoratable resources
+ * <p>
+ * The branch, the head commit message and the tracking status of a
+ * repository are expensive to determine and identical for all repository
+ * containers of the repository. They are computed once per repository and
+ * kept until {@link #clearState(Repository)} is called on a
+ * {@link RefsChangedEvent}. The tracking status needs a revision walk and is
+ * computed in the background; once known, the labels of the repository
+ * containers are updated. Until then, the previous status of the same branch
+ * is shown.
+ * </p>
  *
  * @see IDecoratableResource
  */
 public class DecoratableResourceHelper {
 
 	/**
-	 * Maps repository to the branch state. The entries are removed each time
-	 * {@link IndexDiffData} changes
+	 * Maps repository to the cached header information. The entries are
+	 * removed each time the refs of the repository change.
 	 *
-	 * @see GitLightweightDecorator#indexDiffChanged(Repository,
-	 *      org.eclipse.egit.core.internal.indexdiff.IndexDiffData)
+	 * @see GitLightweightDecorator
 	 */
-	private static Map<Repository, String> branchState = Collections
-			.synchronizedMap(new WeakHashMap<Repository, String>());
+	private static Map<Repository, RepositoryHeader> headers = Collections
+			.synchronizedMap(new WeakHashMap<Repository, RepositoryHeader>());
+
+	/**
+	 * The headers removed by {@link #clearState(Repository)}, whose tracking
+	 * status is shown until the new one has been computed.
+	 */
+	private static Map<Repository, RepositoryHeader> staleHeaders = Collections
+			.synchronizedMap(new WeakHashMap<Repository, RepositoryHeader>());
+
+	private static class RepositoryHeader {
+
+		final String branch;
+
+		final String headMessage;
+
+		volatile String branchStatus;
+
+		boolean branchStatusRequested;
+
+		RepositoryHeader(String branch, String headMessage) {
+			this.branch = branch;
+			this.headMessage = headMessage;
+		}
+	}
+
+	private static class BranchStatusJob extends Job {
+
+		private final Repository repository;
+
+		private final RepositoryHeader header;
+
+		BranchStatusJob(Repository repository, RepositoryHeader header) {
+			super(NLS.bind(UIText.DecoratableResourceHelper_BranchStatusJob,
+					repository.getDirectory()));
+			this.repository = repository;
+			this.header = header;
+			setSystem(true);
+			setPriority(Job.DECORATE);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			String status;
+			try {
+				status = computeBranchStatus(repository);
+			} catch (IOException e) {
+				return Status.OK_STATUS;
+			}
+			if (headers.get(repository) != header || monitor.isCanceled()) {
+				return Status.OK_STATUS;
+			}
+			staleHeaders.remove(repository);
+			String previous = header.branchStatus;
+			header.branchStatus = status;
+			if (!Objects.equals(previous, status)) {
+				LabelEventJob.getInstance()
+						.postLabelEvent(getRepositoryContainers(repository));
+			}
+			return Status.OK_STATUS;
+		}
+	}
 
 	static String getRepositoryName(Repository repository) {
 		String repoName = Activator.getDefault().getRepositoryUtil()
@@ -51,37 +135,105 @@ static String getRepositoryName(Repository repository) {
 	}
 
 	static String getShortBranch(Repository repository) throws IOException {
-		return Activator.getDefault().getRepositoryUtil()
-				.getShortBranch(repository);
+		return getHeader(repository).branch;
 	}
 
-	static RevCommit getHeadCommit(Repository repository) {
-		return Activator.getDefault().getRepositoryUtil()
-				.parseHeadCommit(repository);
+	static String getHeadMessage(Repository repository) throws IOException {
+		return getHeader(repository).headMessage;
 	}
 
+	/**
+	 * Returns the tracking status of the current branch if it is already
+	 * known; otherwise schedules its computation and returns {@code null}.
+	 *
+	 * @param repo
+	 * @return the formatted tracking status, or {@code null}
+	 * @throws IOException
+	 */
 	static String getBranchStatus(Repository repo) throws IOException {
-		String cachedStatus = branchState.get(repo);
-		if (cachedStatus != null)
-			return cachedStatus;
+		RepositoryHeader header = getHeader(repo);
+		boolean schedule;
+		synchronized (header) {
+			schedule = !header.branchStatusRequested;
+			header.branchStatusRequested = true;
+		}
+		if (schedule) {
+			new BranchStatusJob(repo, header).schedule();
+		}
+		return header.branchStatus;
+	}
 
+	private static RepositoryHeader getHeader(Repository repository)
+			throws IOException {
+		RepositoryHeader header = headers.get(repository);
+		if (header != null) {
+			return header;
+		}
+		String branch = Activator.getDefault().getRepositoryUtil()
+				.getShortBranch(repository);
+		RevCommit headCommit = Activator.getDefault().getRepositoryUtil()
+				.parseHeadCommit(repository);
+		header = new RepositoryHeader(branch,
+				headCommit != null ? headCommit.getShortMessage() : null);
+		RepositoryHeader stale = staleHeaders.get(repository);
+		if (stale != null && Objects.equals(stale.branch, branch)) {
+			// Avoid flickering until the new status is known
+			header.branchStatus = stale.branchStatus;
+		}
+		synchronized (headers) {
+			RepositoryHeader existing = headers.get(repository);
+			if (existing != null) {
+				return existing;
+			}
+			headers.put(repository, header);
+		}
+		return header;
+	}
+
+	private static String computeBranchStatus(Repository repo)
+			throws IOException {
 		String branchName = repo.getBranch();
 		if (branchName == null)
 			return null;
 
-		BranchTrackingStatus status = BranchTrackingStatus.of(repo, branchName);
+		int[] status = RevUtils.getBranchTrackingStatus(repo, branchName);
 		if (status == null)
 			return null;
 
-		if (status.getAheadCount() == 0 && status.getBehindCount() == 0)
+		if (status[0] == 0 && status[1] == 0)
 			return null;
 
-		String formattedStatus = GitLabels.formatBranchTrackingStatus(status);
-		branchState.put(repo, formattedStatus);
-		return formattedStatus;
+		return GitLabels.formatBranchTrackingStatus(status[0], status[1]);
+	}
+
+	/**
+	 * Determines the containers showing repository information, i.e. the
+	 * projects of the repository and the container of its working tree.
+	 *
+	 * @param repository
+	 * @return the containers
+	 */
+	static Collection<IResource> getRepositoryContainers(
+			Repository repository) {
+		Set<IResource> result = new LinkedHashSet<>();
+		if (repository.isBare()) {
+			return result;
+		}
+		Collections.addAll(result, ProjectUtil.getProjects(repository));
+		for (IContainer container : ResourcesPlugin.getWorkspace().getRoot()
+				.findContainersForLocationURI(
+						repository.getWorkTree().toURI())) {
+			if (container.getType() != IResource.ROOT) {
+				result.add(container);
+			}
+		}
+		return result;
 	}
 
 	static void clearState(Repository repo) {
-		branchState.remove(repo);
+		RepositoryHeader header = headers.remove(repo);
+		if (header != null) {
+			staleHeaders.put(repo, header);
+		}
 	}
 }
@@ -37,7 +37,6 @@
 import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
-import org.eclipse.jgit.lib.ObjectLoader;
 import org.eclipse.jgit.lib.ObjectReader;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
@@ -218,8 +217,8 @@ void populate() throws IOException {
 					GitTraceLocation.getTrace().trace(
 							GitTraceLocation.QUICKDIFF.getLocation(),
 							"(GitDocument) compareTo: " + baseline); //$NON-NLS-1$
-				ObjectLoader loader = repository.open(id, Constants.OBJ_BLOB);
-				byte[] bytes = loader.getBytes();
+				byte[] bytes = org.eclipse.egit.core.Activator.getDefault()
+						.getBlobContentCache().load(repository, id);
 				String charset;
 				charset = CompareCoreUtils.getResourceEncoding(resource);
 				// Finally we could consider validating the content with respect
@@ -22,11 +22,17 @@
 
 package org.eclipse.egit.ui.internal.decorators;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -40,6 +46,7 @@
 import org.eclipse.egit.core.AdapterUtils;
 import org.eclipse.egit.core.internal.indexdiff.IndexDiffChangedListener;
 import org.eclipse.egit.core.internal.indexdiff.IndexDiffData;
+import org.eclipse.egit.core.internal.trace.GitMetrics;
 import org.eclipse.egit.core.internal.util.ExceptionCollector;
 import org.eclipse.egit.core.project.GitProjectData;
 import org.eclipse.egit.core.project.RepositoryMapping;
@@ -59,6 +66,7 @@
 import org.eclipse.jface.viewers.LabelProvider;
 import org.eclipse.jface.viewers.LabelProviderChangedEvent;
 import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.events.ListenerHandle;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.osgi.util.TextProcessor;
@@ -116,6 +124,16 @@ public class GitLightweightDecorator extends LabelProvider implements
 	private final DecorationHelper helper = new DecorationHelper(
 			Activator.getDefault().getPreferenceStore());
 
+	/**
+	 * Last {@link IndexDiffData} and branch seen per repository, used to
+	 * determine which labels need to be updated on the next change.
+	 */
+	private final Map<File, IndexDiffData> lastIndexDiffs = new ConcurrentHashMap<>();
+
+	private final Map<File, String> lastBranches = new ConcurrentHashMap<>();
+
+	private final ListenerHandle refsChangedHandle;
+
 	private RepositoryMappingChangeListener mappingChangeListener = new RepositoryMappingChangeListener() {
 
 		@Override
@@ -139,6 +157,13 @@ public GitLightweightDecorator() {
 
 		org.eclipse.egit.core.Activator.getDefault().getIndexDiffCache().addIndexDiffChangedListener(this);
 		GitProjectData.addRepositoryChangeListener(mappingChangeListener);
+		// Branch, head and tracking status only change with the refs
+		LabelEventJob.getInstance().setDecorator(this);
+		refsChangedHandle = Repository.getGlobalListenerList()
+				.addRefsChangedListener(org.eclipse.egit.core.Activator
+						.getDefault().getBackgroundFetcher()
+						.batch(event -> DecoratableResourceHelper
+								.clearState(event.getRepository())));
 	}
 
 	/**
@@ -179,6 +204,10 @@ public void dispose() {
 		org.eclipse.egit.core.Activator.getDefault().getIndexDiffCache().removeIndexDiffChangedListener(this);
 		GitProjectData.removeRepositoryChangeListener(mappingChangeListener);
 		mappingChangeListener = null;
+		refsChangedHandle.remove();
+		LabelEventJob.getInstance().removeDecorator(this);
+		lastIndexDiffs.clear();
+		lastBranches.clear();
 	}
 
 	/**
@@ -700,9 +729,29 @@ public void propertyChange(PropertyChangeEvent event) {
 	@Override
 	public void indexDiffChanged(Repository repository,
 			IndexDiffData indexDiffData) {
-		// clear calculated repo data
-		DecoratableResourceHelper.clearState(repository);
-		postLabelEvent();
+		File gitDir = repository.getDirectory();
+		IndexDiffData previous = lastIndexDiffs.put(gitDir, indexDiffData);
+		String branch;
+		try {
+			branch = repository.getFullBranch();
+		} catch (IOException e) {
+			branch = null;
+		}
+		String previousBranch = branch == null ? lastBranches.remove(gitDir)
+				: lastBranches.put(gitDir, branch);
+		if (previous == null || branch == null
+				|| !branch.equals(previousBranch)) {
+			// First diff or branch switch: everything may look different
+			postLabelEvent();
+			return;
+		}
+		Collection<IResource> affected = IndexDiffDelta
+				.getAffectedResources(repository, previous, indexDiffData);
+		if (affected == null) {
+			postLabelEvent();
+		} else if (!affected.isEmpty()) {
+			LabelEventJob.getInstance().postLabelEvent(this, affected);
+		}
 	}
 
 	// -------- Helper methods --------
@@ -742,8 +791,14 @@ private void postLabelEvent() {
 	}
 
 	void fireLabelEvent() {
-		final LabelProviderChangedEvent event = new LabelProviderChangedEvent(
-				this);
+		fireLabelEvent(new LabelProviderChangedEvent(this));
+	}
+
+	void fireLabelEvent(Object[] elements) {
+		fireLabelEvent(new LabelProviderChangedEvent(this, elements));
+	}
+
+	private void fireLabelEvent(final LabelProviderChangedEvent event) {
 		// Re-trigger decoration process (in UI thread)
 		PlatformUI.getWorkbench().getDisplay().asyncExec(new Runnable() {
 			@Override
@@ -795,7 +850,15 @@ private LabelEventJob(final String name) {
 		super(name);
 	}
 
-	private GitLightweightDecorator glwDecorator;
+	private volatile GitLightweightDecorator glwDecorator;
+
+	private final AtomicInteger pendingEvents = new AtomicInteger();
+
+	private final Object lock = new Object();
+
+	private Set<Object> pendingElements = new HashSet<>();
+
+	private boolean refreshAll;
 
 	/**
 	 * Post a label event
@@ -805,8 +868,73 @@ private LabelEventJob(final String name) {
 	 *            LabelProviderChangedEvent
 	 */
 	void postLabelEvent(final GitLightweightDecorator decorator) {
+		synchronized (lock) {
+			refreshAll = true;
+			pendingElements.clear();
+		}
+		scheduleEvent(decorator);
+	}
+
+	/**
+	 * Post a label event for specific elements. Events for elements posted
+	 * within the delay are merged; if too many elements accumulate, a generic
+	 * label event is fired instead.
+	 *
+	 * @param decorator
+	 *            The GitLightweightDecorator that is used to fire a
+	 *            LabelProviderChangedEvent
+	 * @param elements
+	 *            whose labels shall be updated
+	 */
+	void postLabelEvent(final GitLightweightDecorator decorator,
+			Collection<? extends Object> elements) {
+		synchronized (lock) {
+			if (!refreshAll) {
+				pendingElements.addAll(elements);
+				if (pendingElements
+						.size() > IndexDiffDelta.MAX_TARGETED_UPDATES) {
+					refreshAll = true;
+					pendingElements.clear();
+				}
+			}
+		}
+		scheduleEvent(decorator);
+	}
+
+	/**
+	 * Post a label event for specific elements, using the decorator
+	 * registered by {@link #setDecorator(GitLightweightDecorator)}.
+	 *
+	 * @param elements
+	 *            whose labels shall be updated
+	 */
+	void postLabelEvent(Collection<? extends Object> elements) {
+		postLabelEvent(glwDecorator, elements);
+	}
+
+	/**
+	 * @param decorator
+	 *            the GitLightweightDecorator to fire label events on
+	 */
+	void setDecorator(GitLightweightDecorator decorator) {
+		glwDecorator = decorator;
+	}
+
+	/**
+	 * @param decorator
+	 *            the GitLightweightDecorator being disposed
+	 */
+	void removeDecorator(GitLightweightDecorator decorator) {
+		if (glwDecorator == decorator) {
+			glwDecorator = null;
+		}
+	}
+
+	private void scheduleEvent(final GitLightweightDecorator decorator) {
 		if (glwDecorator == null)
 			glwDecorator = decorator;
+		GitMetrics.counter(GitMetrics.LABEL_EVENTS_POSTED).increment();
+		pendingEvents.incrementAndGet();
 		if (getState() == SLEEPING || getState() == WAITING)
 			cancel();
 		schedule(DELAY);
@@ -814,8 +942,23 @@ void postLabelEvent(final GitLightweightDecorator decorator) {
 
 	@Override
 	protected IStatus run(IProgressMonitor monitor) {
-		if (glwDecorator != null)
-			glwDecorator.fireLabelEvent();
+		GitMetrics.histogram(GitMetrics.LABEL_EVENT_BURST)
+				.record(pendingEvents.getAndSet(0));
+		boolean all;
+		Set<Object> elements;
+		synchronized (lock) {
+			all = refreshAll;
+			elements = pendingElements;
+			refreshAll = false;
+			pendingElements = new HashSet<>();
+		}
+		GitLightweightDecorator decorator = glwDecorator;
+		if (decorator != null) {
+			if (all)
+				decorator.fireLabelEvent();
+			else if (!elements.isEmpty())
+				decorator.fireLabelEvent(elements.toArray());
+		}
 		return Status.OK_STATUS;
 	}
 }
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.ui.internal.decorators;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.egit.core.internal.indexdiff.IndexDiffData;
+import org.eclipse.jgit.annotations.NonNull;
+import org.eclipse.jgit.annotations.Nullable;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Determines the resources whose decoration may have changed between two
+ * consecutive {@link IndexDiffData} snapshots of a repository.
+ * <p>
+ * The affected resources are the resources of all paths that changed their
+ * state between the two snapshots, the resources the incremental update was
+ * computed for, all their ancestor containers (whose dirty state depends on
+ * their children), and the repository's projects (whose branch decoration
+ * may have changed). If a folder became or ceased to be untracked or
+ * ignored, all its members are affected, too.
+ * </p>
+ */
+final class IndexDiffDelta {
+
+	/**
+	 * Number of resources above which updating individual labels is assumed
+	 * to be more expensive than refreshing all decorations.
+	 */
+	static final int MAX_TARGETED_UPDATES = 2000;
+
+	private final Repository repository;
+
+	private final Set<IResource> affected = new LinkedHashSet<>();
+
+	private final IWorkspaceRoot root = ResourcesPlugin.getWorkspace()
+			.getRoot();
+
+	private IndexDiffDelta(Repository repository) {
+		this.repository = repository;
+	}
+
+	/**
+	 * Computes the resources to re-decorate.
+	 *
+	 * @param repository
+	 *            the snapshots belong to
+	 * @param oldData
+	 *            previous snapshot
+	 * @param newData
+	 *            current snapshot
+	 * @return the affected resources, or {@code null} if there are too many
+	 *         and all decorations should be refreshed instead
+	 */
+	@Nullable
+	static Collection<IResource> getAffectedResources(
+			@NonNull Repository repository, @NonNull IndexDiffData oldData,
+			@NonNull IndexDiffData newData) {
+		if (repository.isBare()) {
+			return null;
+		}
+		IndexDiffDelta delta = new IndexDiffDelta(repository);
+		try {
+			Set<String> paths = new HashSet<>();
+			addDifferences(paths, oldData.getAdded(), newData.getAdded());
+			addDifferences(paths, oldData.getAssumeUnchanged(),
+					newData.getAssumeUnchanged());
+			addDifferences(paths, oldData.getChanged(),
+					newData.getChanged());
+			addDifferences(paths, oldData.getRemoved(),
+					newData.getRemoved());
+			addDifferences(paths, oldData.getMissing(),
+					newData.getMissing());
+			addDifferences(paths, oldData.getModified(),
+					newData.getModified());
+			addDifferences(paths, oldData.getUntracked(),
+					newData.getUntracked());
+			addDifferences(paths, oldData.getConflicting(),
+					newData.getConflicting());
+			addDifferences(paths, oldData.getSymlinks(),
+					newData.getSymlinks());
+			addDifferences(paths, oldData.getSubmodules(),
+					newData.getSubmodules());
+			Set<String> folders = new HashSet<>();
+			addDifferences(folders, oldData.getUntrackedFolders(),
+					newData.getUntrackedFolders());
+			addDifferences(folders, oldData.getIgnoredNotInIndex(),
+					newData.getIgnoredNotInIndex());
+			if (paths.size() + folders.size() > MAX_TARGETED_UPDATES) {
+				return null;
+			}
+			for (String path : paths) {
+				delta.addPath(path);
+			}
+			for (String folder : folders) {
+				delta.addSubtree(folder);
+			}
+			for (IResource resource : newData.getChangedResources()) {
+				delta.add(resource);
+			}
+			for (IResource container : DecoratableResourceHelper
+					.getRepositoryContainers(repository)) {
+				delta.add(container);
+			}
+		} catch (OperationCanceledException e) {
+			// Limit exceeded
+			return null;
+		}
+		return delta.affected;
+	}
+
+	private static void addDifferences(Set<String> result, Set<String> oldSet,
+			Set<String> newSet) {
+		if (oldSet == newSet) {
+			return;
+		}
+		for (String path : oldSet) {
+			if (!newSet.contains(path)) {
+				result.add(path);
+			}
+		}
+		for (String path : newSet) {
+			if (!oldSet.contains(path)) {
+				result.add(path);
+			}
+		}
+	}
+
+	private void addPath(String repoRelativePath) {
+		for (IResource resource : getResources(repoRelativePath)) {
+			add(resource);
+		}
+	}
+
+	private void addSubtree(String repoRelativePath) {
+		for (IResource resource : getResources(repoRelativePath)) {
+			add(resource);
+			if (resource instanceof IContainer && resource.isAccessible()) {
+				try {
+					resource.accept((IResourceProxy proxy) -> {
+						if (proxy.getType() != IResource.FOLDER
+								&& proxy.getType() != IResource.FILE) {
+							return true;
+						}
+						checkLimit();
+						affected.add(proxy.requestResource());
+						return true;
+					}, IResource.NONE);
+				} catch (CoreException e) {
+					// Resource went away; ignore its members
+				}
+			}
+		}
+	}
+
+	private IResource[] getResources(String repoRelativePath) {
+		String path = repoRelativePath;
+		boolean folder = path.endsWith("/"); //$NON-NLS-1$
+		if (folder) {
+			path = path.substring(0, path.length() - 1);
+		}
+		File file = new File(repository.getWorkTree(), path);
+		if (!folder) {
+			IFile[] files = root.findFilesForLocationURI(file.toURI());
+			if (files.length > 0) {
+				return files;
+			}
+		}
+		return root.findContainersForLocationURI(file.toURI());
+	}
+
+	private void add(IResource resource) {
+		IResource current = resource;
+		while (current != null && current.getType() != IResource.ROOT) {
+			if (!affected.add(current)) {
+				// Ancestors have been added already
+				return;
+			}
+			checkLimit();
+			current = current.getParent();
+		}
+	}
+
+	private void checkLimit() {
+		if (affected.size() > MAX_TARGETED_UPDATES) {
+			throw new OperationCanceledException();
+		}
+	}
+}
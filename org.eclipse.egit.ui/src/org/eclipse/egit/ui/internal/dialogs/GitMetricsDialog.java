@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.ui.internal.dialogs;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.egit.core.internal.trace.Counter;
+import org.eclipse.egit.core.internal.trace.GitMetrics;
+import org.eclipse.egit.core.internal.trace.Histogram;
+import org.eclipse.egit.ui.Activator;
+import org.eclipse.egit.ui.internal.UIText;
+import org.eclipse.jface.dialogs.Dialog;
+import org.eclipse.jface.dialogs.IDialogConstants;
+import org.eclipse.jface.dialogs.TitleAreaDialog;
+import org.eclipse.jface.layout.GridDataFactory;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.swt.widgets.TableItem;
+
+/**
+ * Shows the counters and histograms collected in {@link GitMetrics} and allows
+ * to export them to a JSON file.
+ */
+public class GitMetricsDialog extends TitleAreaDialog {
+
+	private static final int REFRESH_ID = 77;
+
+	private static final int RESET_ID = 88;
+
+	private static final int EXPORT_ID = 99;
+
+	private Table table;
+
+	/**
+	 * @param shell
+	 */
+	public GitMetricsDialog(Shell shell) {
+		super(shell);
+		setHelpAvailable(false);
+		setShellStyle(getShellStyle() | SWT.RESIZE);
+	}
+
+	@Override
+	protected Control createDialogArea(Composite parent) {
+		Composite main = new Composite(parent, SWT.NONE);
+		main.setLayout(new GridLayout(1, false));
+		GridDataFactory.fillDefaults().grab(true, true).applyTo(main);
+
+		table = new Table(main, SWT.BORDER | SWT.FULL_SELECTION);
+		table.setHeaderVisible(true);
+		table.setLinesVisible(true);
+		GridDataFactory.fillDefaults().grab(true, true).hint(700, 350)
+				.applyTo(table);
+		// enable testing with SWTBot
+		table.setData("org.eclipse.swtbot.widget.key", "MetricsTable"); //$NON-NLS-1$ //$NON-NLS-2$
+
+		createColumn(UIText.GitMetricsDialog_NameHeader, 260, SWT.LEFT);
+		createColumn(UIText.GitMetricsDialog_CountHeader, 70, SWT.RIGHT);
+		createColumn(UIText.GitMetricsDialog_MeanHeader, 70, SWT.RIGHT);
+		createColumn(UIText.GitMetricsDialog_P50Header, 70, SWT.RIGHT);
+		createColumn(UIText.GitMetricsDialog_P90Header, 70, SWT.RIGHT);
+		createColumn(UIText.GitMetricsDialog_P99Header, 70, SWT.RIGHT);
+		createColumn(UIText.GitMetricsDialog_MaxHeader, 70, SWT.RIGHT);
+
+		fillTable();
+		Dialog.applyDialogFont(main);
+		return main;
+	}
+
+	private void createColumn(String text, int width, int alignment) {
+		TableColumn column = new TableColumn(table, alignment);
+		column.setText(text);
+		column.setWidth(width);
+	}
+
+	private void fillTable() {
+		table.removeAll();
+		for (Counter counter : GitMetrics.getCounters()) {
+			TableItem item = new TableItem(table, SWT.NONE);
+			item.setText(0, counter.getName());
+			item.setText(1, Long.toString(counter.getValue()));
+		}
+		for (Histogram histogram : GitMetrics.getHistograms()) {
+			TableItem item = new TableItem(table, SWT.NONE);
+			item.setText(new String[] { histogram.getName(),
+					Long.toString(histogram.getCount()),
+					Long.toString(Math.round(histogram.getMean())),
+					Long.toString(histogram.getPercentile(50)),
+					Long.toString(histogram.getPercentile(90)),
+					Long.toString(histogram.getPercentile(99)),
+					Long.toString(histogram.getMax()) });
+		}
+	}
+
+	@Override
+	protected void createButtonsForButtonBar(Composite parent) {
+		createButton(parent, REFRESH_ID,
+				UIText.GitMetricsDialog_RefreshButton, false);
+		createButton(parent, RESET_ID, UIText.GitMetricsDialog_ResetButton,
+				false);
+		createButton(parent, EXPORT_ID, UIText.GitMetricsDialog_ExportButton,
+				false);
+		createButton(parent, IDialogConstants.CLOSE_ID,
+				IDialogConstants.CLOSE_LABEL, true);
+	}
+
+	@Override
+	protected void configureShell(Shell newShell) {
+		super.configureShell(newShell);
+		newShell.setText(UIText.GitMetricsDialog_ShellTitle);
+	}
+
+	@Override
+	public void create() {
+		super.create();
+		setTitle(UIText.GitMetricsDialog_DialogTitle);
+		setMessage(UIText.GitMetricsDialog_DialogMessage);
+	}
+
+	@Override
+	protected void buttonPressed(int buttonId) {
+		switch (buttonId) {
+		case REFRESH_ID:
+			fillTable();
+			break;
+		case RESET_ID:
+			GitMetrics.reset();
+			fillTable();
+			break;
+		case EXPORT_ID:
+			export();
+			break;
+		case IDialogConstants.CLOSE_ID:
+			close();
+			break;
+		default:
+			super.buttonPressed(buttonId);
+			break;
+		}
+	}
+
+	private void export() {
+		FileDialog dialog = new FileDialog(getShell(), SWT.SAVE);
+		dialog.setFilterExtensions(new String[] { "*.json" }); //$NON-NLS-1$
+		dialog.setFileName("egit-metrics.json"); //$NON-NLS-1$
+		dialog.setOverwrite(true);
+		String path = dialog.open();
+		if (path == null) {
+			return;
+		}
+		try {
+			GitMetrics.dump(new File(path));
+		} catch (IOException e) {
+			Activator.handleError(e.getMessage(), e, true);
+		}
+	}
+}
@@ -230,6 +230,8 @@ public void dispose() {
 
 	private static final int DEFAULT_ID = 88;
 
+	private static final int METRICS_ID = 99;
+
 	private final Map<PluginNode, Properties> optionsMap = new HashMap<>();
 
 	private boolean isDirty;
@@ -334,6 +336,8 @@ protected void createButtonsForButtonBar(Composite parent) {
 				UIText.GitTraceConfigurationDialog_ApplyButton, false);
 		createButton(parent, DEFAULT_ID,
 				UIText.GitTraceConfigurationDialog_DefaultButton, false);
+		createButton(parent, METRICS_ID,
+				UIText.GitTraceConfigurationDialog_MetricsButton, false);
 	}
 
 	@Override
@@ -429,6 +433,9 @@ protected void buttonPressed(int buttonId) {
 		case APPLY_ID:
 			performOk();
 			break;
+		case METRICS_ID:
+			new GitMetricsDialog(getShell()).open();
+			break;
 		default:
 			break;
 		}
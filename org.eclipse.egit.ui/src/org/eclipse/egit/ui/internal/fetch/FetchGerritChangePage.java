@@ -18,15 +18,11 @@
 import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.regex.Matcher;
@@ -80,7 +76,6 @@
 import org.eclipse.jface.wizard.WizardPage;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.PersonIdent;
-import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.TagBuilder;
 import org.eclipse.jgit.revwalk.RevCommit;
@@ -107,6 +102,7 @@
 import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Group;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Text;
@@ -722,24 +718,23 @@ private void checkPage() {
 						return;
 					}
 				}
-				ChangeList list = changeRefs.get(uriCombo.getText());
-				if (list != null && list.isDone()) {
-					if (change.getPatchSetNumber() != null) {
-						if (!list.getResult().contains(change)) {
-							setErrorMessage(
-									UIText.FetchGerritChangePage_UnknownChangeRefMessage);
-							return;
-						}
+				String uriText = uriCombo.getText();
+				ChangeList list = changeRefs.get(uriText);
+				if (list != null && list.isDone()
+						&& !isKnown(list.getResult(), change)) {
+					if (list.isCached()) {
+						// A cached list may miss changes uploaded since it was
+						// loaded; the page is checked again once listed anew
+						relist(uriText);
+					} else if (change.getPatchSetNumber() != null) {
+						setErrorMessage(
+								UIText.FetchGerritChangePage_UnknownChangeRefMessage);
+						return;
 					} else {
-						Change fromGerrit = findHighestPatchSet(
-								list.getResult(),
-								change.getChangeNumber().intValue());
-						if (fromGerrit == null) {
-							setErrorMessage(NLS.bind(
-									UIText.FetchGerritChangePage_NoSuchChangeMessage,
-									change.getChangeNumber()));
-							return;
-						}
+						setErrorMessage(NLS.bind(
+								UIText.FetchGerritChangePage_NoSuchChangeMessage,
+								change.getChangeNumber()));
+						return;
 					}
 				}
 			} else {
@@ -757,7 +752,30 @@ private void checkPage() {
 		}
 	}
 
-	private Collection<Change> getRefsForContentAssist(String originalRefText)
+	private static boolean isKnown(GerritChangeIndex changes, Change change) {
+		if (changes == null) {
+			return true;
+		}
+		if (change.getPatchSetNumber() != null) {
+			return changes.getChanges().contains(change);
+		}
+		return changes.findHighestPatchSet(
+				change.getChangeNumber().intValue()) != null;
+	}
+
+	private void relist(String uriText) {
+		ChangeList list = new ChangeList(repository, uriText, false);
+		changeRefs.put(uriText, list);
+		Display display = refText.getDisplay();
+		list.setWhenDone(() -> display.asyncExec(() -> {
+			if (!refText.isDisposed() && changeRefs.get(uriText) == list) {
+				checkPage();
+			}
+		}));
+		preFetch(list);
+	}
+
+	private GerritChangeIndex getRefsForContentAssist(String originalRefText)
 			throws InvocationTargetException, InterruptedException {
 		String uriText = uriCombo.getText();
 		if (!changeRefs.containsKey(uriText)) {
@@ -770,7 +788,7 @@ private Collection<Change> getRefsForContentAssist(String originalRefText)
 				monitor.beginTask(MessageFormat.format(
 						UIText.FetchGerritChangePage_FetchingRemoteRefsMessage,
 						uriText), IProgressMonitor.UNKNOWN);
-				Collection<Change> result = list.get();
+				GerritChangeIndex result = list.get();
 				if (monitor.isCanceled()) {
 					return;
 				}
@@ -847,14 +865,14 @@ public IStatus runInUIThread(IProgressMonitor uiMonitor) {
 			return null;
 		}
 		// ChangeList is already here, so get() won't block
-		Collection<Change> changes = list.get();
+		GerritChangeIndex changes = list.get();
 		if (doAutoFill) {
 			fillInPatchSet(changes, originalRefText);
 		}
 		return changes;
 	}
 
-	private void fillInPatchSet(Collection<Change> changes,
+	private void fillInPatchSet(GerritChangeIndex changes,
 			String originalText) {
 		String currentText = refText.getText();
 		if (contentProposer.isProposalPopupOpen()
@@ -864,8 +882,8 @@ private void fillInPatchSet(Collection<Change> changes,
 		}
 		Change change = determineChangeFromString(currentText);
 		if (change != null && change.getPatchSetNumber() == null) {
-			Change fromGerrit = findHighestPatchSet(changes,
-					change.getChangeNumber().intValue());
+			Change fromGerrit = changes
+					.findHighestPatchSet(change.getChangeNumber().intValue());
 			if (fromGerrit != null) {
 				String fullRef = fromGerrit.getRefName();
 				refText.setText(fullRef);
@@ -874,23 +892,6 @@ private void fillInPatchSet(Collection<Change> changes,
 		}
 	}
 
-	private Change findHighestPatchSet(Collection<Change> changes,
-			int changeNumber) {
-		// We know that the result is sorted by change and
-		// patch set number descending
-		for (Change fromGerrit : changes) {
-			int num = fromGerrit.getChangeNumber().intValue();
-			if (num < changeNumber) {
-				return null; // Doesn't exist
-			} else if (changeNumber == num) {
-				// Must be the one with the highest patch
-				// set number.
-				return fromGerrit;
-			}
-		}
-		return null;
-	}
-
 	boolean doFetch() {
 		fetching = true;
 		final Change change = determineChangeFromString(refText.getText());
@@ -898,12 +899,19 @@ boolean doFetch() {
 		// If we have an incomplete change (missing patch set number), remove
 		// the change list future from the global map so that it won't be
 		// interrupted when the dialog closes.
-		final ChangeList changeList = change.getPatchSetNumber() == null
-				? changeRefs.remove(uri) : null;
-		if (changeList != null) {
-			// Make sure a pending get() from the content assist gets aborted
-			changeList.cancel(ChangeList.CancelMode.ABANDON);
+		ChangeList list = null;
+		if (change.getPatchSetNumber() == null) {
+			ChangeList current = changeRefs.remove(uri);
+			if (current != null) {
+				// Make sure a pending get() from the content assist gets
+				// aborted
+				current.cancel(ChangeList.CancelMode.ABANDON);
+			}
+			// Find the latest patch set on the server, not in a listing
+			// that may be outdated
+			list = new ChangeList(repository, uri, false);
 		}
+		final ChangeList changeList = list;
 		final CheckoutMode mode = getCheckoutMode();
 		final boolean doCheckoutNewBranch = (mode == CheckoutMode.CREATE_BRANCH)
 				&& branchCheckoutButton.getSelection();
@@ -1009,7 +1017,7 @@ private Change completeChange(Change originalChange,
 					monitor.subTask(NLS.bind(
 							UIText.FetchGerritChangePage_FetchingRemoteRefsMessage,
 							uri));
-					Collection<Change> changes;
+					GerritChangeIndex changes;
 					try {
 						changes = changeList.get();
 					} catch (InvocationTargetException
@@ -1019,8 +1027,9 @@ private Change completeChange(Change originalChange,
 					if (monitor.isCanceled()) {
 						throw new OperationCanceledException();
 					}
-					return findHighestPatchSet(changes,
-							originalChange.getChangeNumber().intValue());
+					return changes == null ? null
+							: changes.findHighestPatchSet(originalChange
+									.getChangeNumber().intValue());
 				}
 				return originalChange;
 			}
@@ -1143,9 +1152,9 @@ private ExplicitContentProposalAdapter addRefContentProposalToText(
 
 			@Override
 			public IContentProposal[] getProposals(String contents, int position) {
-				Collection<Change> proposals;
+				GerritChangeIndex changes;
 				try {
-					proposals = getRefsForContentAssist(contents);
+					changes = getRefsForContentAssist(contents);
 				} catch (InvocationTargetException e) {
 					Activator.handleError(e.getMessage(), e, true);
 					return null;
@@ -1153,7 +1162,7 @@ public IContentProposal[] getProposals(String contents, int position) {
 					return null;
 				}
 
-				if (proposals == null) {
+				if (changes == null) {
 					return null;
 				}
 				List<IContentProposal> resultList = new ArrayList<>();
@@ -1162,13 +1171,7 @@ public IContentProposal[] getProposals(String contents, int position) {
 				if (matcher.find()) {
 					input = matcher.group(2);
 				}
-				Pattern pattern = UIUtils.createProposalPattern(input);
-				for (final Change ref : proposals) {
-					if (pattern != null && !pattern
-							.matcher(ref.getChangeNumber().toString())
-							.matches()) {
-						continue;
-					}
+				for (final Change ref : changes.getProposals(input)) {
 					resultList.add(new ChangeContentProposal(ref));
 				}
 				return resultList
@@ -1345,6 +1348,13 @@ public String toString() {
 	 * get()} method blocks until the result is available or the future is
 	 * canceled. Pre-fetching is possible by calling {@link ChangeList#fetch()}
 	 * directly.
+	 * <p>
+	 * Recent listings are shared with other wizards through the
+	 * {@link ListRemoteOperation}, so that re-opening the wizard or switching
+	 * back and forth between URIs does not list all refs of a large Gerrit
+	 * server again. A list served from the cache may miss changes uploaded
+	 * since; see {@link #isCached()}.
+	 * </p>
 	 */
 	private static class ChangeList {
 
@@ -1383,15 +1393,33 @@ private static enum State {
 
 		private final String uriText;
 
+		private final boolean useCache;
+
 		private State state = State.PRISTINE;
 
-		private Set<Change> result;
+		private GerritChangeIndex result;
+
+		private boolean cached;
 
 		private InterruptibleJob job;
 
+		private Runnable whenDone;
+
 		public ChangeList(Repository repository, String uriText) {
+			this(repository, uriText, true);
+		}
+
+		/**
+		 * @param repository
+		 * @param uriText
+		 * @param useCache
+		 *            whether a recent cached listing may be used
+		 */
+		public ChangeList(Repository repository, String uriText,
+				boolean useCache) {
 			this.repository = repository;
 			this.uriText = uriText;
+			this.useCache = useCache;
 		}
 
 		/**
@@ -1451,6 +1479,15 @@ public synchronized boolean isDone() {
 			return state == State.DONE;
 		}
 
+		/**
+		 * @return whether the result was taken from the cache instead of
+		 *         being listed from the remote; never for a list that was
+		 *         asked not to use the cache, so that it isn't listed again
+		 */
+		public synchronized boolean isCached() {
+			return useCache && cached;
+		}
+
 		/**
 		 * Retrieves the result. If the result is not yet available, the method
 		 * blocks until it is or {@link #cancel(CancelMode)} is called with
@@ -1463,7 +1500,7 @@ public synchronized boolean isDone() {
 		 * @throws InvocationTargetException
 		 *             if the future's job cannot be created
 		 */
-		public synchronized Collection<Change> get()
+		public synchronized GerritChangeIndex get()
 				throws InterruptedException, InvocationTargetException {
 			switch (state) {
 			case DONE:
@@ -1482,7 +1519,16 @@ public synchronized Collection<Change> get()
 			}
 		}
 
-		public synchronized Collection<Change> getResult() {
+		/**
+		 * @param runnable
+		 *            to run in the job's thread once the list has been
+		 *            fetched successfully
+		 */
+		public synchronized void setWhenDone(Runnable runnable) {
+			whenDone = runnable;
+		}
+
+		public synchronized GerritChangeIndex getResult() {
 			if (isFinished()) {
 				return result;
 			}
@@ -1523,6 +1569,7 @@ public synchronized void fetch() throws InvocationTargetException {
 				finish(false);
 				throw new InvocationTargetException(e);
 			}
+			listOp.setRefresh(!useCache);
 			job = new InterruptibleJob(MessageFormat.format(
 					UIText.FetchGerritChangePage_FetchingRemoteRefsMessage,
 					uriText)) {
@@ -1548,15 +1595,14 @@ protected IStatus run(IProgressMonitor monitor) {
 						return Activator
 								.createErrorStatus(e.getLocalizedMessage(), e);
 					}
-					List<Change> changes = new ArrayList<>();
-					for (Ref ref : listOp.getRemoteRefs()) {
-						Change change = Change.fromRef(ref.getName());
-						if (change != null) {
-							changes.add(change);
-						}
+					// JGit cannot ask the server for refs/changes/ only, so at
+					// least skip all other refs cheaply
+					GerritChangeIndex index = GerritChangeIndex
+							.fromRefs(listOp.getRemoteRefs());
+					synchronized (ChangeList.this) {
+						result = index;
+						cached = listOp.isCached();
 					}
-					Collections.sort(changes, Collections.reverseOrder());
-					result = new LinkedHashSet<>(changes);
 					return Status.OK_STATUS;
 				}
 
@@ -1566,7 +1612,15 @@ protected IStatus run(IProgressMonitor monitor) {
 				@Override
 				public void done(IJobChangeEvent event) {
 					IStatus status = event.getResult();
-					finish(status != null && status.isOK());
+					boolean done = status != null && status.isOK();
+					finish(done);
+					Runnable runnable;
+					synchronized (ChangeList.this) {
+						runnable = whenDone;
+					}
+					if (done && runnable != null) {
+						runnable.run();
+					}
 				}
 
 			});
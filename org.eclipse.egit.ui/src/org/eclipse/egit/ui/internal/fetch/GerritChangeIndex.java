@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.ui.internal.fetch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.eclipse.egit.ui.UIUtils;
+import org.eclipse.egit.ui.internal.fetch.FetchGerritChangePage.Change;
+import org.eclipse.jgit.lib.Ref;
+
+/**
+ * Immutable index of Gerrit changes, sorted by change number and patch set
+ * number descending, supporting lookups by change number and by change number
+ * prefix through binary search.
+ */
+class GerritChangeIndex {
+
+	private static final String CHANGES_PREFIX = "refs/changes/"; //$NON-NLS-1$
+
+	/** Number of digits of {@link Integer#MAX_VALUE} */
+	private static final int MAX_DIGITS = 10;
+
+	private final Change[] changes;
+
+	/** Change numbers of {@link #changes}, descending */
+	private final int[] numbers;
+
+	/**
+	 * Creates an index of the changes referenced by the given refs; refs that
+	 * are not Gerrit change refs are ignored.
+	 *
+	 * @param refs
+	 *            as advertised by the server
+	 * @return the index
+	 */
+	static GerritChangeIndex fromRefs(Collection<Ref> refs) {
+		List<Change> result = new ArrayList<>();
+		for (Ref ref : refs) {
+			String name = ref.getName();
+			if (name.startsWith(CHANGES_PREFIX)) {
+				Change change = Change.fromRef(name);
+				if (change != null) {
+					result.add(change);
+				}
+			}
+		}
+		return new GerritChangeIndex(result);
+	}
+
+	/**
+	 * @param changes
+	 *            to index, in any order
+	 */
+	GerritChangeIndex(Collection<Change> changes) {
+		Change[] sorted = changes.toArray(new Change[changes.size()]);
+		Arrays.sort(sorted, Collections.reverseOrder());
+		int n = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (n == 0 || !sorted[i].equals(sorted[n - 1])) {
+				sorted[n++] = sorted[i];
+			}
+		}
+		this.changes = Arrays.copyOf(sorted, n);
+		this.numbers = new int[n];
+		for (int i = 0; i < n; i++) {
+			numbers[i] = this.changes[i].getChangeNumber().intValue();
+		}
+	}
+
+	/**
+	 * @return whether the index has no changes
+	 */
+	boolean isEmpty() {
+		return changes.length == 0;
+	}
+
+	/**
+	 * @return all changes, sorted by change number and patch set number
+	 *         descending
+	 */
+	List<Change> getChanges() {
+		return Collections.unmodifiableList(Arrays.asList(changes));
+	}
+
+	/**
+	 * @param changeNumber
+	 *            to look up
+	 * @return the change with the given number and the highest patch set
+	 *         number, or {@code null} if there is none
+	 */
+	Change findHighestPatchSet(int changeNumber) {
+		int i = firstAtMost(changeNumber);
+		if (i < numbers.length && numbers[i] == changeNumber) {
+			return changes[i];
+		}
+		return null;
+	}
+
+	/**
+	 * Determines the changes to propose for content assist. If the input is a
+	 * number, the changes whose number starts with it are determined by range
+	 * lookups; otherwise all change numbers are matched against the input as
+	 * a pattern as in {@link UIUtils#createProposalPattern(String)}.
+	 *
+	 * @param input
+	 *            typed so far
+	 * @return the matching changes, sorted like {@link #getChanges()}
+	 */
+	List<Change> getProposals(String input) {
+		String prefix = input.trim();
+		if (prefix.isEmpty()) {
+			return getChanges();
+		}
+		if (!isNumber(prefix)) {
+			Pattern pattern = UIUtils.createProposalPattern(input);
+			List<Change> result = new ArrayList<>();
+			for (Change change : changes) {
+				if (pattern == null || pattern
+						.matcher(change.getChangeNumber().toString())
+						.matches()) {
+					result.add(change);
+				}
+			}
+			return result;
+		}
+		List<Change> result = new ArrayList<>();
+		if (prefix.length() > MAX_DIGITS) {
+			return result;
+		}
+		long value = Long.parseLong(prefix);
+		// Longer numbers are larger, so going from the longest down keeps the
+		// descending order
+		for (int digits = MAX_DIGITS; digits >= prefix.length(); digits--) {
+			long factor = 1;
+			for (int i = prefix.length(); i < digits; i++) {
+				factor *= 10;
+			}
+			long low = value * factor;
+			long high = (value + 1) * factor - 1;
+			if (low > Integer.MAX_VALUE) {
+				continue;
+			}
+			int from = firstAtMost(Math.min(high, Integer.MAX_VALUE));
+			int to = firstAtMost(low - 1);
+			for (int i = from; i < to; i++) {
+				result.add(changes[i]);
+			}
+		}
+		return result;
+	}
+
+	private static boolean isNumber(String s) {
+		if (s.charAt(0) == '0') {
+			return false;
+		}
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the index of the first change with a number less than or equal
+	 *         to the given value, or the number of changes if there is none
+	 */
+	private int firstAtMost(long value) {
+		int low = 0;
+		int high = numbers.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (numbers[mid] > value) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
@@ -22,8 +22,12 @@
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 
 import org.eclipse.core.commands.Command;
 import org.eclipse.core.commands.IParameter;
@@ -60,6 +64,7 @@
 import org.eclipse.jface.viewers.StructuredSelection;
 import org.eclipse.jface.viewers.TableLayout;
 import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revplot.PlotCommit;
 import org.eclipse.jgit.revwalk.RevCommit;
@@ -131,8 +136,8 @@ static Font highlightFont() {
 
 	private int allCommitsLength = 0;
 
-	// used for resolving PlotCommit objects by ids
-	private HashMap<String, PlotCommit> commitsMap = null;
+	// used for resolving the indexes of commits by ids
+	private HashMap<AnyObjectId, Integer> commitsMap = null;
 
 	private RevFlag highlight;
 
@@ -142,6 +147,8 @@ static Font highlightFont() {
 
 	private RevCommit commitToShow;
 
+	private Set<SWTCommit> pinnedCommits = Collections.emptySet();
+
 	private final TableLoader tableLoader;
 
 	private boolean trace = GitTraceLocation.HISTORYVIEW.isActive();
@@ -188,7 +195,14 @@ public void handleEvent(Event event) {
 		table = new TableViewer(rawTable) {
 			@Override
 			protected Widget doFindItem(final Object element) {
-				return element != null ? ((SWTCommit) element).widget : null;
+				Widget item = element != null ? ((SWTCommit) element).widget
+						: null;
+				if (item == null || item.isDisposed()) {
+					return null;
+				}
+				// Items are cleared on refresh but keep their index
+				Object data = item.getData();
+				return data == null || data == element ? item : null;
 			}
 
 			@Override
@@ -224,12 +238,25 @@ public void widgetDisposed(final DisposeEvent e) {
 				() -> doCopy());
 		copy.setText(UIText.CommitGraphTable_CopyCommitIdLabel);
 		copy.setImageDescriptor(UIIcons.ELCL16_ID);
-		table.setUseHashlookup(true);
 
 		table.addSelectionChangedListener(new ISelectionChangedListener() {
 			@Override
 			public void selectionChanged(SelectionChangedEvent event) {
 				ISelection s = event.getSelection();
+				// Selected commits are handed out and must keep their bodies
+				// while they are selected
+				Set<SWTCommit> selected = new HashSet<>();
+				if (s instanceof IStructuredSelection)
+					for (Object element : ((IStructuredSelection) s).toList())
+						if (element instanceof SWTCommit)
+							selected.add((SWTCommit) element);
+				for (SWTCommit commit : pinnedCommits)
+					if (!selected.contains(commit))
+						commit.setPinned(false);
+				for (SWTCommit commit : selected)
+					commit.setPinned(true);
+				pinnedCommits = selected;
+
 				if (s.isEmpty() || !(s instanceof IStructuredSelection))
 					return;
 				final IStructuredSelection iss = (IStructuredSelection) s;
@@ -250,6 +277,7 @@ public void widgetDisposed(DisposeEvent e) {
 				if (allCommits != null)
 					allCommits.dispose();
 				hoverManager.dispose();
+				renderer.dispose();
 			}
 		});
 
@@ -321,15 +349,33 @@ void selectCommitStored(final RevCommit c) {
 	}
 
 	void selectCommit(final RevCommit c) {
-		if (c instanceof PlotCommit)
-			table.setSelection(new StructuredSelection(c), true);
-		else if (commitsMap != null) {
-			PlotCommit swtCommit = commitsMap.get(c.getId().name());
-			if (swtCommit == null && tableLoader != null)
+		if (commitsMap == null)
+			return;
+		Integer index = commitsMap.get(c);
+		if (index == null) {
+			if (!(c instanceof PlotCommit) && tableLoader != null)
 				tableLoader.loadCommit(c);
-			if (swtCommit != null)
-				table.setSelection(new StructuredSelection(swtCommit), true);
+			return;
+		}
+		PlotCommit swtCommit;
+		synchronized (allCommits) {
+			swtCommit = allCommits.get(index.intValue());
 		}
+		if (swtCommit == null)
+			return;
+		// The viewer only finds elements whose items were created, and would
+		// create all items up to the element otherwise
+		table.replace(swtCommit, index.intValue());
+		table.setSelection(new StructuredSelection(swtCommit), true);
+	}
+
+	/**
+	 * @return the commits shown in the table
+	 */
+	List<SWTCommit> getCommits() {
+		if (allCommits == null)
+			return Collections.emptyList();
+		return allCommits.head(allCommitsLength);
 	}
 
 	void addSelectionChangedListener(final ISelectionChangedListener l) {
@@ -365,7 +411,7 @@ private void doCopy() {
 	}
 
 	void setInput(final RevFlag hFlag, final SWTCommitList list,
-			final SWTCommit[] asArray, HistoryPageInput input, boolean keepPosition) {
+			final int size, HistoryPageInput input, boolean keepPosition) {
 		int topIndex = -1;
 		if (keepPosition) {
 			topIndex = table.getTable().getTopIndex();
@@ -377,11 +423,24 @@ void setInput(final RevFlag hFlag, final SWTCommitList list,
 		}
 		highlight = hFlag;
 		allCommits = list;
-		int newAllCommitsLength = allCommits.size();
-		table.setInput(asArray);
-		if (asArray != null && asArray.length > 0) {
-			if (oldList != list || allCommitsLength < newAllCommitsLength)
-				initCommitsMap();
+		if (oldList != list) {
+			// The selected items would show other commits of the new list
+			table.getTable().deselectAll();
+			commitsMap = null;
+			table.setInput(list);
+		} else {
+			// Lanes of loaded commits may pass by the newly loaded ones
+			table.refresh();
+		}
+		// The table only asks for the commits it shows; the list is not
+		// copied
+		table.setItemCount(size);
+		int newAllCommitsLength = size;
+		if (size > 0) {
+			if (oldList != list || commitsMap == null)
+				initCommitsMap(0, size);
+			else if (allCommitsLength < newAllCommitsLength)
+				initCommitsMap(allCommitsLength, size);
 		} else {
 			table.getTable().deselectAll();
 			// Fire an event
@@ -400,14 +459,17 @@ void setHistoryPageInput(HistoryPageInput input) {
 		this.input = input;
 	}
 
-	private void initCommitsMap() {
-		commitsMap = new HashMap<>();
+	private void initCommitsMap(int start, int end) {
+		if (start == 0)
+			commitsMap = new HashMap<>();
 		// ensure that filling (GenerateHistoryJob) and reading (here)
 		// the commit list is thread safe
 		synchronized (allCommits) {
-			for (PlotCommit commit : allCommits)
+			for (int i = start; i < end; i++) {
+				PlotCommit commit = allCommits.get(i);
 				if (commit != null)
-					commitsMap.put(commit.getId().name(), commit);
+					commitsMap.put(commit, Integer.valueOf(i));
+			}
 		}
 	}
 
@@ -508,7 +570,7 @@ void doPaint(final Event event) {
 		lbl = (ITableLabelProvider) table.getLabelProvider();
 		txt = lbl.getColumnText(c, event.index);
 
-		final Point textsz = event.gc.textExtent(txt);
+		final Point textsz = renderer.textExtent(event.gc, txt);
 		final int texty = (event.height - textsz.y) / 2;
 		event.gc.drawString(txt, event.x, event.y + texty, true);
 	}
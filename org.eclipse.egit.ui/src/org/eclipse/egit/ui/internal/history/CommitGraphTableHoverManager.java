@@ -8,6 +8,8 @@
  *******************************************************************************/
 package org.eclipse.egit.ui.internal.history;
 
+import java.io.IOException;
+
 import org.eclipse.egit.ui.internal.GitLabels;
 import org.eclipse.egit.ui.internal.UIText;
 import org.eclipse.jface.text.AbstractHoverInformationControlManager;
@@ -68,19 +70,34 @@ protected void computeInformation() {
 	private Information computeInformationForCommit(SWTCommit commit,
 			ViewerCell cell, MouseEvent e) {
 		final int columnIndex = cell.getColumnIndex();
-		switch (columnIndex) {
-		case 1:
+		if (columnIndex == 1)
 			return computeInformationForRef(commit, cell, e);
-		case 2:
-			return computeInformationForName(commit.getAuthorIdent(), cell);
-		case 3:
-			return computeInformationForDate(commit.getAuthorIdent(), cell);
-		case 4:
-			return computeInformationForName(commit.getCommitterIdent(), cell);
-		case 5:
-			return computeInformationForDate(commit.getCommitterIdent(), cell);
+		if (columnIndex < 2 || columnIndex > 5) {
+			return null;
+		}
+		try {
+			commit.acquireBody();
+		} catch (IOException ex) {
+			return null;
+		}
+		try {
+			switch (columnIndex) {
+			case 2:
+				return computeInformationForName(commit.getAuthorIdent(),
+						cell);
+			case 3:
+				return computeInformationForDate(commit.getAuthorIdent(),
+						cell);
+			case 4:
+				return computeInformationForName(commit.getCommitterIdent(),
+						cell);
+			default:
+				return computeInformationForDate(commit.getCommitterIdent(),
+						cell);
+			}
+		} finally {
+			commit.releaseBody();
 		}
-		return null;
 	}
 
 	private Information computeInformationForRef(SWTCommit commit,
@@ -12,11 +12,21 @@
 package org.eclipse.egit.ui.internal.history;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.resources.IResource;
 import org.eclipse.egit.core.internal.util.ResourceUtil;
@@ -36,15 +46,18 @@
 import org.eclipse.jgit.errors.CorruptObjectException;
 import org.eclipse.jgit.errors.IncorrectObjectTypeException;
 import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectLoader;
 import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.ProgressMonitor;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.treewalk.EmptyTreeIterator;
 import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
 import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.eclipse.jgit.treewalk.filter.TreeFilterMarker;
 import org.eclipse.ui.model.WorkbenchAdapter;
@@ -76,6 +89,51 @@ public int compare(FileDiff left, FileDiff right) {
 		}
 	};
 
+	/**
+	 * Maximum time in milliseconds spent on scoring renames by similarity.
+	 */
+	private static final long RENAME_TIME_BUDGET = 2000;
+
+	/**
+	 * Number of deleted files scored against the added ones by one worker.
+	 */
+	private static final int RENAME_CHUNK_SIZE = 100;
+
+	private static final int THREADS = Math.min(4,
+			Runtime.getRuntime().availableProcessors());
+
+	/**
+	 * Same order as used by {@link RenameDetector}: by path, with deletions
+	 * before additions before other changes to the same path.
+	 */
+	private static final Comparator<DiffEntry> DIFF_ENTRY_COMPARATOR = new Comparator<DiffEntry>() {
+
+		@Override
+		public int compare(DiffEntry a, DiffEntry b) {
+			int cmp = nameOf(a).compareTo(nameOf(b));
+			if (cmp != 0) {
+				return cmp;
+			}
+			return sortOf(a) - sortOf(b);
+		}
+
+		private String nameOf(DiffEntry entry) {
+			return entry.getChangeType() == ChangeType.DELETE
+					? entry.getOldPath() : entry.getNewPath();
+		}
+
+		private int sortOf(DiffEntry entry) {
+			switch (entry.getChangeType()) {
+			case DELETE:
+				return 1;
+			case ADD:
+				return 2;
+			default:
+				return 10;
+			}
+		}
+	};
+
 	private final RevCommit commit;
 
 	private DiffEntry diffEntry;
@@ -132,6 +190,53 @@ public static FileDiff[] compute(final Repository repository,
 			final RevCommit[] parents,
 			final TreeFilter... markTreeFilters) throws MissingObjectException,
 			IncorrectObjectTypeException, CorruptObjectException, IOException {
+		return compute(repository, walk, commit, parents,
+				FileDiffCache.Key.create(repository, walk, commit, parents,
+						markTreeFilters),
+				markTreeFilters);
+	}
+
+	/**
+	 * Computer file diffs for specified tree walk and commit, marking the
+	 * diffs of the given paths with index 0, see {@link #isMarked(int)}
+	 *
+	 * @param repository
+	 * @param walk
+	 * @param commit
+	 * @param markedPaths
+	 *            paths to mark, or {@code null} to mark all diffs
+	 * @return non-null but possibly empty array of file diffs
+	 * @throws MissingObjectException
+	 * @throws IncorrectObjectTypeException
+	 * @throws CorruptObjectException
+	 * @throws IOException
+	 */
+	public static FileDiff[] compute(final Repository repository,
+			final TreeWalk walk, final RevCommit commit,
+			final Collection<String> markedPaths)
+			throws MissingObjectException, IncorrectObjectTypeException,
+			CorruptObjectException, IOException {
+		TreeFilter markTreeFilter = markedPaths != null
+				? PathFilterGroup.createFromStrings(markedPaths)
+				: TreeFilter.ALL;
+		RevCommit[] parents = commit.getParents();
+		return compute(repository, walk, commit, parents,
+				FileDiffCache.Key.create(repository, walk, commit, parents,
+						markedPaths),
+				markTreeFilter);
+	}
+
+	private static FileDiff[] compute(final Repository repository,
+			final TreeWalk walk, final RevCommit commit,
+			final RevCommit[] parents, final FileDiffCache.Key key,
+			final TreeFilter... markTreeFilters) throws MissingObjectException,
+			IncorrectObjectTypeException, CorruptObjectException, IOException {
+		if (key != null) {
+			FileDiff[] cached = FileDiffCache.get(key, commit);
+			if (cached != null) {
+				return cached;
+			}
+		}
 		final ArrayList<FileDiff> r = new ArrayList<>();
 
 		if (parents.length > 0) {
@@ -142,27 +247,13 @@ public static FileDiff[] compute(final Repository repository,
 			walk.addTree(commit.getTree());
 		}
 
+		DeadlineMonitor renameMonitor = new DeadlineMonitor(
+				RENAME_TIME_BUDGET);
 		if (walk.getTreeCount() <= 2) {
 			List<DiffEntry> entries = DiffEntry.scan(walk, false, markTreeFilters);
-			List<DiffEntry> xentries = new LinkedList<>(entries);
-			RenameDetector detector = new RenameDetector(repository);
-			detector.addAll(entries);
-			List<DiffEntry> renames = detector.compute(walk.getObjectReader(),
-					org.eclipse.jgit.lib.NullProgressMonitor.INSTANCE);
-			for (DiffEntry m : renames) {
-				final FileDiff d = new FileDiff(commit, m);
-				r.add(d);
-				for (Iterator<DiffEntry> i = xentries.iterator(); i.hasNext();) {
-					DiffEntry n = i.next();
-					if (m.getOldPath().equals(n.getOldPath()))
-						i.remove();
-					else if (m.getNewPath().equals(n.getNewPath()))
-						i.remove();
-				}
-			}
-			for (DiffEntry m : xentries) {
-				final FileDiff d = new FileDiff(commit, m);
-				r.add(d);
+			for (DiffEntry m : detectRenames(repository,
+					walk.getObjectReader(), entries, renameMonitor)) {
+				r.add(new FileDiff(commit, m));
 			}
 		}
 		else { // DiffEntry does not support walks with more than two trees
@@ -207,9 +298,407 @@ else if (m0 != m1 && walk.idEqual(0, myTree))
 
 		final FileDiff[] tmp = new FileDiff[r.size()];
 		r.toArray(tmp);
+		if (key != null && !renameMonitor.expired) {
+			// Don't keep results lacking renames for good
+			FileDiffCache.put(key, tmp);
+		}
 		return tmp;
 	}
 
+	/**
+	 * Pairs up added and deleted files as renames.
+	 * <p>
+	 * Exact renames are first paired by blob id using a hash map, and only the
+	 * remaining additions and deletions are scored for similarity, unless
+	 * there are more of them than the rename limit of the repository. Large
+	 * change sets are scored in chunks of deletions on a bounded pool of
+	 * worker threads. Similarity scoring is given up once the given monitor
+	 * expires, in which case the exact renames are returned together with the
+	 * unpaired entries.
+	 * </p>
+	 *
+	 * @param repository
+	 * @param reader
+	 *            to read the blobs with
+	 * @param entries
+	 *            as obtained from {@link DiffEntry#scan(TreeWalk)}
+	 * @param monitor
+	 *            limiting the time spent on similarity scoring
+	 * @return the entries with renames paired up, sorted by path
+	 * @throws IOException
+	 */
+	static List<DiffEntry> detectRenames(Repository repository,
+			ObjectReader reader, List<DiffEntry> entries,
+			DeadlineMonitor monitor) throws IOException {
+		if (!hasAddAndDelete(entries)) {
+			return entries;
+		}
+		List<DiffEntry> result = new ArrayList<>(entries.size());
+		List<DiffEntry> remaining = findExactRenames(entries, result);
+		List<DiffEntry> similar = remaining;
+		if (hasAddAndDelete(remaining)) {
+			similar = findSimilarRenames(repository, reader, remaining,
+					monitor);
+			if (monitor.expired) {
+				similar = remaining;
+			}
+		}
+		result.addAll(similar);
+		Collections.sort(result, DIFF_ENTRY_COMPARATOR);
+		return result;
+	}
+
+	private static List<DiffEntry> findSimilarRenames(Repository repository,
+			ObjectReader reader, List<DiffEntry> entries,
+			DeadlineMonitor monitor) throws IOException {
+		List<DiffEntry> added = new ArrayList<>();
+		List<DiffEntry> deleted = new ArrayList<>();
+		for (DiffEntry entry : entries) {
+			if (entry.getChangeType() == ChangeType.ADD) {
+				added.add(entry);
+			} else if (entry.getChangeType() == ChangeType.DELETE) {
+				deleted.add(entry);
+			}
+		}
+		int limit = new RenameDetector(repository).getRenameLimit();
+		if (limit > 0 && Math.max(added.size(), deleted.size()) > limit) {
+			return entries;
+		}
+		List<List<DiffEntry>> chunks = new ArrayList<>();
+		for (int i = 0; i < deleted.size(); i += RENAME_CHUNK_SIZE) {
+			chunks.add(deleted.subList(i,
+					Math.min(i + RENAME_CHUNK_SIZE, deleted.size())));
+		}
+		List<DiffEntry> candidates = new ArrayList<>();
+		if (chunks.size() == 1 || THREADS == 1) {
+			for (List<DiffEntry> chunk : chunks) {
+				candidates.addAll(scoreRenames(repository, reader, chunk,
+						added, monitor));
+			}
+			return pairRenames(entries, candidates);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<List<DiffEntry>>> results = new ArrayList<>();
+			List<DeadlineMonitor> monitors = new ArrayList<>();
+			for (List<DiffEntry> chunk : chunks) {
+				DeadlineMonitor workerMonitor = monitor.fork();
+				monitors.add(workerMonitor);
+				results.add(executor.submit(() -> {
+					try (ObjectReader workerReader = reader.newReader()) {
+						return scoreRenames(repository, workerReader, chunk,
+								added, workerMonitor);
+					}
+				}));
+			}
+			for (Future<List<DiffEntry>> future : results) {
+				candidates.addAll(get(future));
+			}
+			for (DeadlineMonitor workerMonitor : monitors) {
+				monitor.expired |= workerMonitor.expired;
+			}
+		} finally {
+			executor.shutdownNow();
+			try {
+				executor.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return pairRenames(entries, candidates);
+	}
+
+	/**
+	 * Scores some deleted files against all added ones.
+	 *
+	 * @return the renames found, possibly using added files also used by
+	 *         renames found for other deleted files
+	 */
+	private static List<DiffEntry> scoreRenames(Repository repository,
+			ObjectReader reader, List<DiffEntry> deleted,
+			List<DiffEntry> added, DeadlineMonitor monitor)
+			throws IOException {
+		RenameDetector detector = new RenameDetector(repository);
+		// Checked for the change set as a whole
+		detector.setRenameLimit(0);
+		// The detector marks the deleted entries it used as renamed
+		for (DiffEntry entry : deleted) {
+			detector.add(new ScoredEntry(entry));
+		}
+		detector.addAll(added);
+		List<DiffEntry> result;
+		try {
+			result = detector.compute(reader, monitor);
+		} catch (IOException e) {
+			// The detector reports cancellation as an IOException
+			if (!monitor.expired) {
+				throw e;
+			}
+			return Collections.emptyList();
+		}
+		List<DiffEntry> renames = new ArrayList<>();
+		for (DiffEntry entry : result) {
+			if (entry.getChangeType() == ChangeType.RENAME
+					|| entry.getChangeType() == ChangeType.COPY) {
+				renames.add(entry);
+			}
+		}
+		return renames;
+	}
+
+	/**
+	 * Greedily pairs up added and deleted files by the best rename scores, so
+	 * that each file is used by at most one rename.
+	 */
+	private static List<DiffEntry> pairRenames(List<DiffEntry> entries,
+			List<DiffEntry> candidates) {
+		Collections.sort(candidates, (a, b) -> {
+			int cmp = b.getScore() - a.getScore();
+			if (cmp != 0) {
+				return cmp;
+			}
+			cmp = a.getNewPath().compareTo(b.getNewPath());
+			if (cmp != 0) {
+				return cmp;
+			}
+			return a.getOldPath().compareTo(b.getOldPath());
+		});
+		Map<String, DiffEntry> deleted = new HashMap<>();
+		Map<String, DiffEntry> added = new HashMap<>();
+		for (DiffEntry entry : entries) {
+			if (entry.getChangeType() == ChangeType.DELETE) {
+				deleted.put(entry.getOldPath(), entry);
+			} else if (entry.getChangeType() == ChangeType.ADD) {
+				added.put(entry.getNewPath(), entry);
+			}
+		}
+		Set<DiffEntry> paired = new HashSet<>();
+		List<DiffEntry> result = new ArrayList<>(entries.size());
+		for (DiffEntry candidate : candidates) {
+			DiffEntry source = deleted.get(candidate.getOldPath());
+			DiffEntry target = added.get(candidate.getNewPath());
+			if (source != null && target != null && !paired.contains(source)
+					&& !paired.contains(target)) {
+				result.add(new RenameEntry(source, target,
+						candidate.getScore()));
+				paired.add(source);
+				paired.add(target);
+			}
+		}
+		for (DiffEntry entry : entries) {
+			if (!paired.contains(entry)) {
+				result.add(entry);
+			}
+		}
+		return result;
+	}
+
+	private static <T> T get(Future<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	private static List<DiffEntry> findExactRenames(List<DiffEntry> entries,
+			List<DiffEntry> renames) {
+		Map<AbbreviatedObjectId, List<DiffEntry>> deletedById = new HashMap<>();
+		for (DiffEntry entry : entries) {
+			if (entry.getChangeType() == ChangeType.DELETE
+					&& isRenameable(entry.getOldMode())) {
+				deletedById.computeIfAbsent(entry.getOldId(),
+						id -> new ArrayList<>(1)).add(entry);
+			}
+		}
+		Set<DiffEntry> paired = new HashSet<>();
+		for (DiffEntry entry : entries) {
+			if (entry.getChangeType() != ChangeType.ADD
+					|| !isRenameable(entry.getNewMode())) {
+				continue;
+			}
+			List<DiffEntry> candidates = deletedById.get(entry.getNewId());
+			DiffEntry source = candidates != null
+					? takeBestSource(candidates, entry) : null;
+			if (source != null) {
+				renames.add(new RenameEntry(source, entry, 100));
+				paired.add(source);
+				paired.add(entry);
+			}
+		}
+		List<DiffEntry> remaining = new ArrayList<>(
+				entries.size() - paired.size());
+		for (DiffEntry entry : entries) {
+			if (!paired.contains(entry)) {
+				remaining.add(entry);
+			}
+		}
+		return remaining;
+	}
+
+	private static DiffEntry takeBestSource(List<DiffEntry> candidates,
+			DiffEntry target) {
+		int best = -1;
+		String name = fileName(target.getNewPath());
+		int type = target.getNewMode().getBits() & FileMode.TYPE_MASK;
+		for (int i = 0; i < candidates.size(); i++) {
+			DiffEntry candidate = candidates.get(i);
+			if ((candidate.getOldMode().getBits() & FileMode.TYPE_MASK) != type) {
+				continue;
+			}
+			if (best < 0) {
+				best = i;
+			}
+			if (fileName(candidate.getOldPath()).equals(name)) {
+				best = i;
+				break;
+			}
+		}
+		return best < 0 ? null : candidates.remove(best);
+	}
+
+	private static String fileName(String path) {
+		return path.substring(path.lastIndexOf('/') + 1);
+	}
+
+	private static boolean isRenameable(FileMode mode) {
+		int type = mode.getBits() & FileMode.TYPE_MASK;
+		return type == FileMode.TYPE_FILE || type == FileMode.TYPE_SYMLINK;
+	}
+
+	private static boolean hasAddAndDelete(List<DiffEntry> entries) {
+		boolean add = false;
+		boolean delete = false;
+		for (DiffEntry entry : entries) {
+			add |= entry.getChangeType() == ChangeType.ADD;
+			delete |= entry.getChangeType() == ChangeType.DELETE;
+			if (add && delete) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A progress monitor that reports cancellation once a time budget,
+	 * counted from the first task begun, is used up. Rename detection checks
+	 * it while scoring, so it stops on the thread doing the scoring. Each
+	 * worker thread uses its own {@link #fork() fork} of the monitor.
+	 */
+	static class DeadlineMonitor implements ProgressMonitor {
+
+		private final long budget;
+
+		private long deadline;
+
+		boolean expired;
+
+		DeadlineMonitor(long budget) {
+			this.budget = budget;
+		}
+
+		/**
+		 * Starts the budget unless already started.
+		 *
+		 * @return a new monitor expiring at the same time as this one
+		 */
+		DeadlineMonitor fork() {
+			beginTask(null, 0);
+			DeadlineMonitor fork = new DeadlineMonitor(budget);
+			fork.deadline = deadline;
+			return fork;
+		}
+
+		@Override
+		public void start(int totalTasks) {
+			// Not shown
+		}
+
+		@Override
+		public void beginTask(String title, int totalWork) {
+			if (deadline == 0) {
+				deadline = System.currentTimeMillis() + budget;
+			}
+		}
+
+		@Override
+		public void update(int completed) {
+			// Not shown
+		}
+
+		@Override
+		public void endTask() {
+			// Not shown
+		}
+
+		@Override
+		public boolean isCancelled() {
+			if (!expired && deadline != 0
+					&& System.currentTimeMillis() > deadline) {
+				expired = true;
+			}
+			return expired;
+		}
+	}
+
+	/**
+	 * A rename paired up by {@link FileDiff#detectRenames}.
+	 */
+	private static class RenameEntry extends DiffEntry {
+
+		private final int treeFilterMarks;
+
+		RenameEntry(DiffEntry source, DiffEntry target, int score) {
+			oldPath = source.getOldPath();
+			oldMode = source.getOldMode();
+			oldId = source.getOldId();
+			newPath = target.getNewPath();
+			newMode = target.getNewMode();
+			newId = target.getNewId();
+			changeType = ChangeType.RENAME;
+			this.score = score;
+			treeFilterMarks = source.getTreeFilterMarks()
+					| target.getTreeFilterMarks();
+		}
+
+		@Override
+		public boolean isMarked(int index) {
+			return (treeFilterMarks & (1L << index)) != 0;
+		}
+
+		@Override
+		public int getTreeFilterMarks() {
+			return treeFilterMarks;
+		}
+	}
+
+	/**
+	 * A copy of an entry handed to a {@link RenameDetector}, which modifies
+	 * the deleted entries it pairs up.
+	 */
+	private static class ScoredEntry extends DiffEntry {
+
+		ScoredEntry(DiffEntry entry) {
+			oldPath = entry.getOldPath();
+			oldMode = entry.getOldMode();
+			oldId = entry.getOldId();
+			newPath = entry.getNewPath();
+			newMode = entry.getNewMode();
+			newId = entry.getNewId();
+			changeType = entry.getChangeType();
+			score = entry.getScore();
+		}
+	}
+
 	private static boolean matchAnyParent(final TreeWalk walk, final int myTree) {
 		final int m = walk.getRawMode(myTree);
 		for (int i = 0; i < myTree; i++)
@@ -412,6 +901,14 @@ public FileDiff(final RevCommit c, final DiffEntry entry) {
 		commit = c;
 	}
 
+	/**
+	 * @param c
+	 * @return a copy of this diff belonging to the given commit
+	 */
+	FileDiff withCommit(RevCommit c) {
+		return new FileDiff(c, diffEntry);
+	}
+
 	/**
 	 * Is this diff a submodule?
 	 *
@@ -467,6 +964,16 @@ private FileDiffForMerges(final RevCommit c, int treeFilterMarks) {
 			this.treeFilterMarks = treeFilterMarks;
 		}
 
+		@Override
+		FileDiff withCommit(RevCommit c) {
+			FileDiffForMerges copy = new FileDiffForMerges(c, treeFilterMarks);
+			copy.path = path;
+			copy.change = change;
+			copy.blobs = blobs;
+			copy.modes = modes;
+			return copy;
+		}
+
 		@Override
 		public String getPath() {
 			return path;
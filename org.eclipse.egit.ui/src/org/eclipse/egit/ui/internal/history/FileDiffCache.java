@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (C) 2018, EGit Committers and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.eclipse.egit.ui.internal.history;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jgit.annotations.Nullable;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * Bounded LRU cache of the {@link FileDiff}s computed for a commit, shared by
+ * the history view and the commit editor.
+ * <p>
+ * Only diffs computed with a recursive {@link TreeFilter#ANY_DIFF} walk are
+ * cached, which is what both use. Entries are keyed by repository, commit,
+ * parents and the set of paths that were marked, or none if all paths were
+ * marked. The cached diffs belong to no commit; {@link #get(Key, RevCommit)}
+ * hands out copies belonging to the caller's commit. The cache is bounded by
+ * the total number of cached {@link FileDiff}s rather than by the number of
+ * commits so that a few huge commits cannot pin an arbitrary amount of
+ * memory.
+ * </p>
+ */
+final class FileDiffCache {
+
+	private static final int MAX_DIFFS = 50000;
+
+	private static final Map<Key, FileDiff[]> CACHE = new LinkedHashMap<>(16,
+			0.75f, true);
+
+	private static int size;
+
+	private FileDiffCache() {
+		// Utility class shall not be instantiated
+	}
+
+	static final class Key {
+
+		private final File gitDir;
+
+		private final ObjectId commit;
+
+		private final ObjectId[] parents;
+
+		private final String[] markedPaths;
+
+		private final int hash;
+
+		private Key(Repository repository, RevCommit commit,
+				RevCommit[] parents, String[] markedPaths) {
+			this.gitDir = repository.getDirectory();
+			this.commit = commit.copy();
+			this.parents = new ObjectId[parents.length];
+			for (int i = 0; i < parents.length; i++) {
+				this.parents[i] = parents[i].copy();
+			}
+			this.markedPaths = markedPaths;
+			this.hash = this.commit.hashCode() * 31
+					+ Arrays.hashCode(this.parents);
+		}
+
+		/**
+		 * Creates the key for diffs marked by tree filters.
+		 *
+		 * @param repository
+		 * @param walk
+		 * @param commit
+		 * @param parents
+		 * @param markTreeFilters
+		 * @return the key, or {@code null} if the diffs cannot be cached
+		 *         because the walk or the mark filters are not known to
+		 *         produce the same result every time
+		 */
+		@Nullable
+		static Key create(Repository repository, TreeWalk walk,
+				RevCommit commit, RevCommit[] parents,
+				TreeFilter[] markTreeFilters) {
+			for (TreeFilter filter : markTreeFilters) {
+				if (filter != TreeFilter.ALL) {
+					return null;
+				}
+			}
+			return create(repository, walk, commit, parents,
+					(Collection<String>) null);
+		}
+
+		/**
+		 * Creates the key for diffs marked by a path filter.
+		 *
+		 * @param repository
+		 * @param walk
+		 * @param commit
+		 * @param parents
+		 * @param markedPaths
+		 *            marked paths, or {@code null} if all are marked
+		 * @return the key, or {@code null} if the diffs cannot be cached
+		 *         because the walk is not known to produce the same result
+		 *         every time
+		 */
+		@Nullable
+		static Key create(Repository repository, TreeWalk walk,
+				RevCommit commit, RevCommit[] parents,
+				@Nullable Collection<String> markedPaths) {
+			if (walk.getFilter() != TreeFilter.ANY_DIFF
+					|| !walk.isRecursive()) {
+				return null;
+			}
+			String[] paths = null;
+			if (markedPaths != null) {
+				paths = markedPaths.toArray(new String[markedPaths.size()]);
+				Arrays.sort(paths);
+			}
+			return new Key(repository, commit, parents, paths);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hash == other.hash && commit.equals(other.commit)
+					&& Arrays.equals(parents, other.parents)
+					&& Arrays.equals(markedPaths, other.markedPaths)
+					&& gitDir.equals(other.gitDir);
+		}
+	}
+
+	/**
+	 * @param key
+	 * @param commit
+	 *            the caller's instance of the commit of the key
+	 * @return copies of the cached diffs belonging to the given commit, or
+	 *         {@code null} if none are cached
+	 */
+	static FileDiff[] get(Key key, RevCommit commit) {
+		FileDiff[] diffs;
+		synchronized (CACHE) {
+			diffs = CACHE.get(key);
+		}
+		return diffs != null ? copy(diffs, commit) : null;
+	}
+
+	/**
+	 * Caches diffs, evicting the least recently used entries if the cache
+	 * grows too large. Diffs larger than the whole cache are not cached.
+	 *
+	 * @param key
+	 * @param diffs
+	 */
+	static void put(Key key, FileDiff[] diffs) {
+		if (diffs.length > MAX_DIFFS) {
+			return;
+		}
+		// Don't keep the caller's commit and thus its walk reachable
+		FileDiff[] detached = copy(diffs, null);
+		synchronized (CACHE) {
+			FileDiff[] previous = CACHE.put(key, detached);
+			if (previous != null) {
+				size -= previous.length;
+			}
+			size += detached.length;
+			Iterator<FileDiff[]> eldest = CACHE.values().iterator();
+			while (size > MAX_DIFFS && eldest.hasNext()) {
+				size -= eldest.next().length;
+				eldest.remove();
+			}
+		}
+	}
+
+	private static FileDiff[] copy(FileDiff[] diffs, RevCommit commit) {
+		FileDiff[] result = new FileDiff[diffs.length];
+		for (int i = 0; i < diffs.length; i++) {
+			result[i] = diffs[i].withCommit(commit);
+		}
+		return result;
+	}
+}
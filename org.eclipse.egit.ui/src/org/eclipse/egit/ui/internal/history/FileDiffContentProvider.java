@@ -19,8 +19,6 @@
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.treewalk.TreeWalk;
-import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
-import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.eclipse.osgi.util.NLS;
 
 /**
@@ -36,7 +34,7 @@ public class FileDiffContentProvider implements IStructuredContentProvider {
 
 	private FileDiff[] diff;
 
-	private TreeFilter markTreeFilter = TreeFilter.ALL;
+	private Set<String> interestingPaths;
 
 	private Repository repo;
 
@@ -60,10 +58,7 @@ public void inputChanged(final Viewer newViewer, final Object oldInput,
 	 * @param interestingPaths
 	 */
 	void setInterestingPaths(Set<String> interestingPaths) {
-		if (interestingPaths != null)
-			this.markTreeFilter = PathFilterGroup.createFromStrings(interestingPaths);
-		else
-			this.markTreeFilter = TreeFilter.ALL;
+		this.interestingPaths = interestingPaths;
 		// FileDiffs need to be updated
 		this.diff = null;
 	}
@@ -72,7 +67,7 @@ void setInterestingPaths(Set<String> interestingPaths) {
 	public Object[] getElements(final Object inputElement) {
 		if (diff == null && walk != null && commit != null)
 			try {
-				diff = FileDiff.compute(repo, walk, commit, markTreeFilter);
+				diff = FileDiff.compute(repo, walk, commit, interestingPaths);
 			} catch (IOException err) {
 				Activator.handleError(NLS.bind(UIText.FileDiffContentProvider_errorGettingDifference,
 						commit.getId()), err, false);
@@ -119,7 +119,7 @@ public interface StatusListener {
 
 	private Table historyTable;
 
-	private SWTCommit[] fileRevisions;
+	private List<SWTCommit> fileRevisions;
 
 	private Text patternField;
 
@@ -662,19 +662,17 @@ public void run() {
 	 *
 	 * @param hFlag
 	 * @param historyTable
-	 * @param commitArray
+	 * @param commits
 	 */
 	void setInput(final RevFlag hFlag, final Table historyTable,
-			final SWTCommit[] commitArray) {
-		// This may cause a FindBugs warning, but copying the array is probably
-		// not a good idea.
+			final List<SWTCommit> commits) {
 		if (job != null) {
 			job.cancel();
 		}
 		// Reset last used pattern -- we must not prevent a re-search when the
 		// input changed.
 		this.lastSearchPattern = null;
-		this.fileRevisions = commitArray;
+		this.fileRevisions = commits;
 		this.historyTable = historyTable;
 		findResults.setHighlightFlag(hFlag);
 	}
@@ -758,7 +756,7 @@ private void notifyListeners(int index) {
 			event.type = SWT.Selection;
 			event.index = index;
 			event.widget = this;
-			event.data = fileRevisions[index];
+			event.data = fileRevisions.get(index);
 			for (Listener toNotify : eventList) {
 				toNotify.handleEvent(event);
 			}
@@ -12,6 +12,7 @@
 package org.eclipse.egit.ui.internal.history;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -50,7 +51,7 @@ public boolean isConflicting(ISchedulingRule rule) {
 
 	String pattern;
 
-	SWTCommit[] fileRevisions;
+	List<SWTCommit> fileRevisions;
 
 	boolean ignoreCase;
 
@@ -95,7 +96,7 @@ protected IStatus run(IProgressMonitor monitor) {
 		findResults.clear();
 
 		if (pattern == null || pattern.isEmpty() || fileRevisions == null
-				|| fileRevisions.length == 0) {
+				|| fileRevisions.isEmpty()) {
 			return Status.OK_STATUS;
 		}
 		String findPattern = pattern;
@@ -103,7 +104,7 @@ protected IStatus run(IProgressMonitor monitor) {
 			findPattern = pattern.toLowerCase();
 		}
 
-		int totalRevisions = fileRevisions.length;
+		int totalRevisions = fileRevisions.size();
 		SubMonitor progress = SubMonitor.convert(monitor, totalRevisions);
 		for (int i = 0; i < totalRevisions; i++) {
 			if (progress.isCanceled()) {
@@ -115,68 +116,77 @@ protected IStatus run(IProgressMonitor monitor) {
 			}
 
 			// Finds for the pattern in the revision history.
-			SWTCommit revision = fileRevisions[i];
+			SWTCommit revision = fileRevisions.get(i);
+			if (revision == null) {
+				// The input is stale and its list has been cleared
+				return Status.CANCEL_STATUS;
+			}
 			try {
-				revision.parseBody();
+				revision.acquireBody();
 			} catch (IOException e) {
 				Activator.logError("Error parsing body", e); //$NON-NLS-1$
 				continue;
 			}
 
-			if (findInCommitId && find(findPattern, revision.getId().name())) {
-				if (progress.isCanceled()) {
-					return Status.CANCEL_STATUS;
-				}
-				findResults.add(i, revision);
-				continue;
-			}
-			if (findInComments
-					&& find(findPattern, revision.getFullMessage())) {
-				if (progress.isCanceled()) {
-					return Status.CANCEL_STATUS;
+			try {
+				if (findInCommitId
+						&& find(findPattern, revision.getId().name())) {
+					if (progress.isCanceled()) {
+						return Status.CANCEL_STATUS;
+					}
+					findResults.add(i, revision);
+					continue;
 				}
-				findResults.add(i, revision);
-				continue;
-			}
-
-			if (findInAuthor && (find(findPattern,
-					revision.getAuthorIdent().getName())
-					|| find(findPattern,
-							revision.getAuthorIdent().getEmailAddress()))) {
-				if (progress.isCanceled()) {
-					return Status.CANCEL_STATUS;
+				if (findInComments
+						&& find(findPattern, revision.getFullMessage())) {
+					if (progress.isCanceled()) {
+						return Status.CANCEL_STATUS;
+					}
+					findResults.add(i, revision);
+					continue;
 				}
-				findResults.add(i, revision);
-				continue;
-			}
 
-			if (findInCommitter && (find(findPattern,
-					revision.getCommitterIdent().getName())
-					|| find(findPattern,
-							revision.getCommitterIdent().getEmailAddress()))) {
-				if (progress.isCanceled()) {
-					return Status.CANCEL_STATUS;
+				if (findInAuthor && (find(findPattern,
+						revision.getAuthorIdent().getName())
+						|| find(findPattern,
+								revision.getAuthorIdent().getEmailAddress()))) {
+					if (progress.isCanceled()) {
+						return Status.CANCEL_STATUS;
+					}
+					findResults.add(i, revision);
+					continue;
 				}
-				findResults.add(i, revision);
-				continue;
-			}
 
-			if (findInReference) {
-				for (int j = 0; j < revision.getRefCount(); j++) {
+				if (findInCommitter && (find(findPattern,
+						revision.getCommitterIdent().getName())
+						|| find(findPattern,
+								revision.getCommitterIdent().getEmailAddress()))) {
 					if (progress.isCanceled()) {
 						return Status.CANCEL_STATUS;
 					}
-					Ref ref = revision.getRef(j);
-					String refName = ref.getName();
-					refName = Repository.shortenRefName(refName);
-					if (find(findPattern, refName)) {
+					findResults.add(i, revision);
+					continue;
+				}
+
+				if (findInReference) {
+					for (int j = 0; j < revision.getRefCount(); j++) {
 						if (progress.isCanceled()) {
 							return Status.CANCEL_STATUS;
 						}
-						findResults.add(i, revision);
-						break;
+						Ref ref = revision.getRef(j);
+						String refName = ref.getName();
+						refName = Repository.shortenRefName(refName);
+						if (find(findPattern, refName)) {
+							if (progress.isCanceled()) {
+								return Status.CANCEL_STATUS;
+							}
+							findResults.add(i, revision);
+							break;
+						}
 					}
 				}
+			} finally {
+				revision.releaseBody();
 			}
 			progress.worked(1);
 		}
@@ -55,16 +55,22 @@ protected IStatus run(IProgressMonitor monitor) {
 			return Status.CANCEL_STATUS;
 		}
 		FormatResult commitInfo;
-		CommitInfoBuilder builder;
+		FormatRequest request;
+		synchronized(lock) {
+			request = formatRequest;
+		}
+		SWTCommit commit = (SWTCommit) request.getCommit();
 		try {
-			synchronized(lock) {
-				SWTCommit commit = (SWTCommit)formatRequest.getCommit();
-				commit.parseBody();
-				builder = new CommitInfoBuilder(formatRequest.getRepository(),
-						commit, formatRequest.isFill(),
-						formatRequest.getAllRefs());
+			// Keeps the body until the message has been formatted
+			commit.acquireBody();
+			try {
+				CommitInfoBuilder builder = new CommitInfoBuilder(
+						request.getRepository(), commit, request.isFill(),
+						request.getAllRefs());
+				commitInfo = builder.format(monitor);
+			} finally {
+				commit.releaseBody();
 			}
-			commitInfo = builder.format(monitor);
 		} catch (IOException e) {
 			return Activator.createErrorStatus(e.getMessage(), e);
 		}
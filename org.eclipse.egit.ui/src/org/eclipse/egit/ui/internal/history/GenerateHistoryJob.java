@@ -18,6 +18,7 @@
 import org.eclipse.core.runtime.jobs.IJobChangeEvent;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.eclipse.egit.core.internal.trace.GitMetrics;
 import org.eclipse.egit.ui.Activator;
 import org.eclipse.egit.ui.JobFamilies;
 import org.eclipse.egit.ui.UIPreferences;
@@ -83,6 +84,8 @@ protected IStatus run(final IProgressMonitor monitor) {
 			final boolean loadIncrementally = !Activator.getDefault()
 					.getPreferenceStore()
 					.getBoolean(UIPreferences.RESOURCEHISTORY_SHOW_FINDTOOLBAR);
+			long start = System.currentTimeMillis();
+			int initialSize = loadedCommits.size();
 			try {
 				for (;;) {
 					int oldsz = loadedCommits.size();
@@ -132,6 +135,10 @@ protected IStatus run(final IProgressMonitor monitor) {
 				status = new Status(IStatus.ERROR, Activator.getPluginId(),
 						UIText.GenerateHistoryJob_errorComputingHistory, e);
 			}
+			GitMetrics.histogram(GitMetrics.HISTORY_LOAD)
+					.record(System.currentTimeMillis() - start);
+			GitMetrics.counter(GitMetrics.HISTORY_COMMITS)
+					.add(loadedCommits.size() - initialSize);
 			if (trace)
 				GitTraceLocation.getTrace().trace(
 						GitTraceLocation.HISTORYVIEW.getLocation(),
@@ -161,11 +168,11 @@ private void updateUI(boolean incomplete) {
 				return;
 			if (forcedRedrawsAfterListIsCompleted == 1)
 				forcedRedrawsAfterListIsCompleted++;
-			final SWTCommit[] asArray = new SWTCommit[loadedCommits.size()];
-			loadedCommits.toArray(asArray);
-			page.showCommitList(this, loadedCommits, asArray, commitToShow, incomplete, highlightFlag);
+			// Only this job adds to the list
+			int size = loadedCommits.size();
+			page.showCommitList(this, loadedCommits, size, commitToShow, incomplete, highlightFlag);
 			commitToShow = null;
-			lastUpdateCnt = loadedCommits.size();
+			lastUpdateCnt = size;
 		} finally {
 			if (trace)
 				GitTraceLocation.getTrace().traceExit(
@@ -15,12 +15,10 @@
  *******************************************************************************/
 package org.eclipse.egit.ui.internal.history;
 
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
+import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -60,7 +58,6 @@
 import org.eclipse.jgit.treewalk.filter.PathFilter;
 import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
 import org.eclipse.jgit.treewalk.filter.TreeFilter;
-import org.eclipse.jgit.util.RawParseUtils;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.dnd.Clipboard;
 import org.eclipse.swt.dnd.TextTransfer;
@@ -170,11 +167,8 @@ public void run(IProgressMonitor monitor)
 						throws InvocationTargetException {
 					SubMonitor progress = SubMonitor.convert(monitor, 2);
 					try {
-						operation.execute(progress.newChild(1));
-
-						String content = operation.getPatchContent();
 						if (file != null) {
-							writeToFile(file, content);
+							writeToFile(file, operation, progress.newChild(1));
 							IFile[] files = ResourcesPlugin.getWorkspace()
 									.getRoot()
 									.findFilesForLocationURI(file.toURI());
@@ -184,7 +178,8 @@ public void run(IProgressMonitor monitor)
 										progress.newChild(1));
 							}
 						} else {
-							copyToClipboard(content);
+							operation.execute(progress.newChild(1));
+							copyToClipboard(operation.getPatchContent());
 						}
 					} catch (IOException e) {
 						throw new InvocationTargetException(e);
@@ -246,16 +241,18 @@ private TreeFilter createPathFilter(final Collection<? extends IResource> rs) {
 		return PathFilterGroup.create(filters);
 	}
 
-	private void writeToFile(final File file, String content)
-			throws IOException {
-		Writer output = new BufferedWriter(new OutputStreamWriter(
-				new FileOutputStream(file), RawParseUtils.UTF8_CHARSET));
-		try {
-			// FileWriter always assumes default encoding is
-			// OK!
-			output.write(content);
+	private void writeToFile(final File file, CreatePatchOperation operation,
+			IProgressMonitor monitor) throws IOException {
+		// Stream the patch instead of building it in memory first
+		boolean written = false;
+		try (OutputStream output = new FileOutputStream(file)) {
+			operation.execute(output, monitor);
+			written = true;
 		} finally {
-			output.close();
+			if (!written) {
+				// Don't leave a truncated patch behind
+				file.delete();
+			}
 		}
 	}
 
@@ -39,6 +39,9 @@
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.egit.core.AdapterUtils;
+import org.eclipse.egit.core.internal.storage.BlobPrefetcher;
+import org.eclipse.egit.core.internal.storage.PathHistoryIndex;
+import org.eclipse.egit.core.internal.storage.PathHistoryIndex.PathHistory;
 import org.eclipse.egit.core.project.RepositoryMapping;
 import org.eclipse.egit.ui.Activator;
 import org.eclipse.egit.ui.JobFamilies;
@@ -181,6 +184,9 @@ public class GitHistoryPage extends HistoryPage implements RefsChangedListener,
 
 	private static final int INITIAL_ITEM = -1;
 
+	/** Number of commits on each side of the selection to prefetch */
+	private static final int PREFETCH_DISTANCE = 3;
+
 	/** actions used in GitHistoryPage **/
 	private static class GitHistoryPageActions {
 
@@ -841,6 +847,11 @@ public void propertyChange(PropertyChangeEvent event) {
 	 */
 	private List<FilterPath> pathFilters;
 
+	/** Loads the file revisions around the selected commit */
+	private final BlobPrefetcher prefetcher = new BlobPrefetcher(
+			org.eclipse.egit.core.Activator.getDefault()
+					.getBlobContentCache());
+
 	private Runnable refschangedRunnable;
 
 	private final RenameTracker renameTracker = new RenameTracker();
@@ -908,7 +919,7 @@ private interface ICommitsProvider {
 
 		Object getSearchContext();
 
-		SWTCommit[] getCommits();
+		List<SWTCommit> getCommits();
 
 		RevFlag getHighlight();
 	}
@@ -1328,7 +1339,8 @@ public void selectionChanged(SelectionChangedEvent event) {
 		layout();
 
 		myRefsChangedHandle = Repository.getGlobalListenerList()
-				.addRefsChangedListener(this);
+				.addRefsChangedListener(org.eclipse.egit.core.Activator
+						.getDefault().getBackgroundFetcher().batch(this));
 
 		IToolBarManager manager = getSite().getActionBars().getToolBarManager();
 		searchBar = new SearchBar(GitHistoryPage.class.getName() + ".searchBar", //$NON-NLS-1$
@@ -1441,6 +1453,7 @@ public void selectionChanged(final SelectionChangedEvent event) {
 
 				if (input.getSingleFile() != null)
 					fileViewer.selectFirstInterestingElement();
+				prefetchRevisions();
 			}
 		});
 		commentViewer
@@ -1573,6 +1586,7 @@ public void dispose() {
 					((IWorkbenchAction) i).dispose();
 		}
 		renameTracker.reset(null);
+		prefetcher.cancel();
 		if (job != null) {
 			job.cancel();
 			job = null;
@@ -2111,7 +2125,7 @@ public void run() {
 
 	@SuppressWarnings("boxing")
 	void showCommitList(final Job j, final SWTCommitList list,
-			final SWTCommit[] asArray, final RevCommit toSelect, final boolean incomplete, final RevFlag highlightFlag) {
+			final int size, final RevCommit toSelect, final boolean incomplete, final RevFlag highlightFlag) {
 		if (trace)
 			GitTraceLocation.getTrace().traceEntry(
 					GitTraceLocation.HISTORYVIEW.getLocation(),
@@ -2123,7 +2137,7 @@ void showCommitList(final Job j, final SWTCommitList list,
 			@Override
 			public void run() {
 				if (!graph.getControl().isDisposed() && job == j) {
-					graph.setInput(highlightFlag, list, asArray, input, true);
+					graph.setInput(highlightFlag, list, size, input, true);
 					if (toSelect != null)
 						graph.selectCommit(toSelect);
 					if (getFollowRenames())
@@ -2141,8 +2155,8 @@ public Object getSearchContext() {
 						}
 
 						@Override
-						public SWTCommit[] getCommits() {
-							return asArray;
+						public List<SWTCommit> getCommits() {
+							return list.head(size);
 						}
 
 						@Override
@@ -2202,7 +2216,8 @@ void initAndStartRevWalk(boolean forceNewWalk) throws IllegalStateException {
 			AnyObjectId headId = resolveHead(db, true);
 			if (headId == null) {
 				TableViewer viewer = graph.getTableView();
-				viewer.setInput(new SWTCommit[0]);
+				viewer.setInput(null);
+				viewer.setItemCount(0);
 				currentHeadId = null;
 				currentFetchHeadId = null;
 				currentRepo = db;
@@ -2561,6 +2576,40 @@ private void resizeCommentAndDiffScrolledComposite() {
 		}
 	}
 
+	/**
+	 * Loads the blobs of the filtered files in the selected commit and its
+	 * neighbours in the background, so that stepping through the history of
+	 * a file and comparing revisions doesn't wait for each blob.
+	 */
+	private void prefetchRevisions() {
+		List<FilterPath> paths = pathFilters;
+		Repository repo = currentRepo;
+		if (paths == null || repo == null || !allRegularFiles(paths)) {
+			prefetcher.cancel();
+			return;
+		}
+		TableViewer viewer = graph.getTableView();
+		List<SWTCommit> commits = graph.getCommits();
+		int index = viewer.getTable().getSelectionIndex();
+		if (index < 0 || index >= commits.size()) {
+			return;
+		}
+		List<RevCommit> toLoad = new ArrayList<>();
+		toLoad.add(commits.get(index));
+		for (int i = 1; i <= PREFETCH_DISTANCE; i++) {
+			if (index + i < commits.size()) {
+				toLoad.add(commits.get(index + i));
+			}
+			if (index - i >= 0) {
+				toLoad.add(commits.get(index - i));
+			}
+		}
+		List<String> stringPaths = new ArrayList<>(paths.size());
+		for (FilterPath p : paths)
+			stringPaths.add(p.getPath());
+		prefetcher.prefetch(repo, toLoad, stringPaths);
+	}
+
 	private TreeWalk createFileWalker(RevWalk walk, Repository db, List<FilterPath> paths) {
 		final TreeWalk fileWalker = new TreeWalk(db);
 		fileWalker.setRecursive(true);
@@ -2575,7 +2624,11 @@ && allRegularFiles(paths)) {
 				selectedPaths.add(filterPath.getPath());
 
 			fileViewerInterestingPaths = new HashSet<>(selectedPaths);
-			TreeFilter followFilter = createFollowFilterFor(selectedPaths);
+			TreeFilter followFilter = createIndexedFollowFilterFor(db,
+					selectedPaths);
+			if (followFilter == null) {
+				followFilter = createFollowFilterFor(selectedPaths);
+			}
 			walk.setTreeFilter(followFilter);
 			walk.setRevFilter(renameTracker.getFilter());
 
@@ -2596,6 +2649,45 @@ && allRegularFiles(paths)) {
 		return fileWalker;
 	}
 
+	/**
+	 * Creates a filter for the commits touching the given files or one of
+	 * their previous paths according to the {@link PathHistoryIndex}, so that
+	 * the walk follows renames without running rename detection, also for
+	 * several files at once. Being a path filter, it lets the walk rewrite the
+	 * parents of the commits shown to their nearest ancestors shown. The
+	 * rename tracker and the interesting paths are filled from the index.
+	 *
+	 * @param db
+	 *            the repository
+	 * @param paths
+	 *            the files to follow, must not be empty
+	 * @return the filter, or {@code null} if the index doesn't know all
+	 *         files or is not up to date with the refs
+	 */
+	private TreeFilter createIndexedFollowFilterFor(Repository db,
+			List<String> paths) {
+		PathHistoryIndex index = org.eclipse.egit.core.Activator.getDefault()
+				.getPathHistoryIndex();
+		List<PathHistory> histories = new ArrayList<>(paths.size());
+		for (String path : paths) {
+			PathHistory history = index.getHistory(db, path, true);
+			if (history == null || !history.isCurrent()
+					|| history.getCommits().isEmpty()) {
+				return null;
+			}
+			histories.add(history);
+		}
+		for (PathHistory history : histories) {
+			fileViewerInterestingPaths.addAll(history.getPaths());
+		}
+		if (paths.size() == 1) {
+			renameTracker.reset(paths.get(0), histories.get(0));
+		} else {
+			renameTracker.reset(null);
+		}
+		return PathHistory.createTreeFilter(histories);
+	}
+
 	/**
 	 * Creates a filter for the given files, will make sure that renames/copies
 	 * of all files will be followed.
@@ -8,21 +8,39 @@
  *******************************************************************************/
 package org.eclipse.egit.ui.internal.history;
 
-import org.eclipse.jface.viewers.IStructuredContentProvider;
+import org.eclipse.jface.viewers.ILazyContentProvider;
+import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.jface.viewers.Viewer;
 
-class GraphContentProvider implements IStructuredContentProvider {
-	private SWTCommit[] list;
+/**
+ * Provides the commits of a {@link SWTCommitList} to a virtual table as its
+ * items are shown. The number of items is set on the table by the
+ * {@link CommitGraphTable} as the list is loaded.
+ */
+class GraphContentProvider implements ILazyContentProvider {
+	private TableViewer viewer;
+
+	private SWTCommitList list;
 
 	@Override
 	public void inputChanged(final Viewer newViewer, final Object oldInput,
 			final Object newInput) {
-		list = (SWTCommit[]) newInput;
+		viewer = (TableViewer) newViewer;
+		list = (SWTCommitList) newInput;
 	}
 
 	@Override
-	public Object[] getElements(final Object inputElement) {
-		return list;
+	public void updateElement(int index) {
+		if (list == null) {
+			return;
+		}
+		SWTCommit commit;
+		synchronized (list) {
+			commit = (SWTCommit) list.get(index);
+		}
+		if (commit != null) {
+			viewer.replace(commit, index);
+		}
 	}
 
 	@Override
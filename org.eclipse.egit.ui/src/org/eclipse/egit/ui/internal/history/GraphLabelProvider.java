@@ -37,11 +37,15 @@ public String getColumnText(Object element, int columnIndex) {
 		}
 		final SWTCommit c = (SWTCommit) element;
 		try {
-			c.parseBody();
+			c.acquireBody();
 		} catch (IOException e) {
 			Activator.error("Error parsing body", e); //$NON-NLS-1$
 			return ""; //$NON-NLS-1$
 		}
-		return super.getColumnText(c, columnIndex);
+		try {
+			return super.getColumnText(c, columnIndex);
+		} finally {
+			c.releaseBody();
+		}
 	}
 }
@@ -14,7 +14,9 @@
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.eclipse.egit.core.internal.storage.PathHistoryIndex.PathHistory;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.revwalk.FollowFilter;
 import org.eclipse.jgit.revwalk.RenameCallback;
@@ -68,7 +70,7 @@ public void renamed(final DiffEntry entry) {
 
 	private String currentPath;
 
-	private Map<RevCommit, String> renames = new LinkedHashMap<>();
+	private Map<AnyObjectId, String> renames = new LinkedHashMap<>();
 
 	/**
 	 * @return filter
@@ -110,4 +112,22 @@ public RenameTracker reset(final String path) {
 		currentPath = path;
 		return this;
 	}
+
+	/**
+	 * Reset the tracker to the paths a file had in the commits of its
+	 * history as known in advance, instead of tracking renames during the
+	 * walk
+	 *
+	 * @param path
+	 * @param history
+	 *            of the file
+	 * @return this tracker
+	 */
+	public RenameTracker reset(final String path, final PathHistory history) {
+		reset(path);
+		currentPath = null;
+		for (ObjectId commit : history.getCommits())
+			renames.put(commit, history.getPath(commit));
+		return this;
+	}
 }
@@ -28,6 +28,12 @@ class SWTCommit extends PlotCommit<SWTCommitList.SWTLane>
 
 	private SWTWalk walk;
 
+	// Guarded by the walk's body lock
+	boolean pinned;
+
+	// Guarded by the walk's body lock
+	int bodyUsers;
+
 	SWTCommit(final AnyObjectId id, SWTWalk walk) {
 		super(id);
 		this.walk = walk;
@@ -40,9 +46,40 @@ public void reset() {
 		super.reset();
 	}
 
-	public void parseBody() throws IOException {
-		if (getRawBuffer() == null) {
-			walk.parseBody(this);
+	/**
+	 * Ensures the message and identities of this commit are available until
+	 * {@link #releaseBody()} is called. Unless the commit is
+	 * {@link #setPinned(boolean) pinned}, the body may be discarded after
+	 * that.
+	 *
+	 * @throws IOException
+	 */
+	public void acquireBody() throws IOException {
+		walk.acquireBody(this);
+	}
+
+	/**
+	 * Ends an access to the body started by {@link #acquireBody()}.
+	 */
+	public void releaseBody() {
+		SWTWalk w = walk;
+		if (w != null) {
+			w.releaseBody(this);
+		}
+	}
+
+	/**
+	 * Keeps the body of this commit while it is pinned. Commits handed out to
+	 * other components, for instance through the selection, must be pinned
+	 * since those may access the body without acquiring it first.
+	 *
+	 * @param pin
+	 *            whether to pin or unpin the commit
+	 */
+	void setPinned(boolean pin) {
+		SWTWalk w = walk;
+		if (w != null) {
+			w.setPinned(this, pin);
 		}
 	}
 
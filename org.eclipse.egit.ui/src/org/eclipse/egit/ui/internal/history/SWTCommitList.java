@@ -8,8 +8,11 @@
  *******************************************************************************/
 package org.eclipse.egit.ui.internal.history;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.RandomAccess;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -73,6 +76,20 @@ protected IStatus run(IProgressMonitor monitor) {
 			control.removeDisposeListener(this);
 	}
 
+	/**
+	 * Provides the first commits of this list without copying them. The list
+	 * only grows while commits are loaded into it, so the view is not affected
+	 * by commits loaded later on.
+	 *
+	 * @param size
+	 *            number of commits to provide
+	 * @return a read-only view of the first {@code size} commits, which are
+	 *         {@code null} once this list has been cleared
+	 */
+	List<SWTCommit> head(int size) {
+		return new Head(size);
+	}
+
 	private void repackColors() {
 		availableColors.addAll(allColors);
 	}
@@ -94,6 +111,31 @@ public void widgetDisposed(DisposeEvent e) {
 		dispose();
 	}
 
+	private class Head extends AbstractList<SWTCommit>
+			implements RandomAccess {
+
+		private final int size;
+
+		Head(int size) {
+			this.size = size;
+		}
+
+		@Override
+		public SWTCommit get(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException(Integer.toString(index));
+			}
+			synchronized (SWTCommitList.this) {
+				return (SWTCommit) SWTCommitList.this.get(index);
+			}
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
 	static class SWTLane extends PlotLane {
 		private static final long serialVersionUID = 1L;
 
@@ -13,13 +13,16 @@
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.egit.ui.Activator;
 import org.eclipse.egit.ui.UIPreferences;
 import org.eclipse.egit.ui.internal.history.SWTCommitList.SWTLane;
+import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.resource.ResourceManager;
+import org.eclipse.jface.util.IPropertyChangeListener;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.revplot.AbstractPlotRenderer;
@@ -59,6 +62,34 @@ class SWTPlotRenderer extends AbstractPlotRenderer<SWTLane, Color> {
 
 	private static final String ELLIPSIS = "\u2026"; // ellipsis "..." (in UTF-8) //$NON-NLS-1$
 
+	private static final int MAX_EXTENTS = 2000;
+
+	/**
+	 * Text and colors of a ref label, which only depend on the ref and the
+	 * preferences
+	 */
+	private static class RefLabel {
+
+		final String text;
+
+		final boolean tag;
+
+		final boolean annotated;
+
+		final Color outer;
+
+		final Color inner;
+
+		RefLabel(String text, boolean tag, boolean annotated, Color outer,
+				Color inner) {
+			this.text = text;
+			this.tag = tag;
+			this.annotated = annotated;
+			this.outer = outer;
+			this.inner = inner;
+		}
+	}
+
 	private final Color sys_black;
 
 	private final Color sys_gray;
@@ -69,6 +100,44 @@ class SWTPlotRenderer extends AbstractPlotRenderer<SWTLane, Color> {
 
 	private final Color commitDotOutline;
 
+	private final Color outerHead;
+
+	private final Color innerHead;
+
+	private final Color outerTag;
+
+	private final Color innerTag;
+
+	private final Color outerAnnotated;
+
+	private final Color innerAnnotated;
+
+	private final Color outerRemote;
+
+	private final Color innerRemote;
+
+	private final Color outerOther;
+
+	private final Color innerOther;
+
+	/**
+	 * Map from ref name to its label text and colors
+	 */
+	private final Map<String, RefLabel> refLabels = new HashMap<>();
+
+	/**
+	 * Map from font to text extents measured with it
+	 */
+	private final Map<Font, Map<String, Point>> extents = new HashMap<>();
+
+	private final IPropertyChangeListener preferenceListener = event -> {
+		String prop = event.getProperty();
+		if (UIPreferences.HISTORY_MAX_BRANCH_LENGTH.equals(prop)
+				|| UIPreferences.HISTORY_MAX_TAG_LENGTH.equals(prop)
+				|| UIPreferences.HISTORY_CUT_AT_START.equals(prop))
+			refLabels.clear();
+	};
+
 	/**
 	 * Map from ref name to its label coordinates
 	 */
@@ -109,6 +178,19 @@ class SWTPlotRenderer extends AbstractPlotRenderer<SWTLane, Color> {
 
 		commitDotFill = resources.createColor(new RGB(220, 220, 220));
 		commitDotOutline = resources.createColor(new RGB(110, 110, 110));
+
+		outerHead = resources.createColor(OUTER_HEAD);
+		innerHead = resources.createColor(INNER_HEAD);
+		outerTag = resources.createColor(OUTER_TAG);
+		innerTag = resources.createColor(INNER_TAG);
+		outerAnnotated = resources.createColor(OUTER_ANNOTATED);
+		innerAnnotated = resources.createColor(INNER_ANNOTATED);
+		outerRemote = resources.createColor(OUTER_REMOTE);
+		innerRemote = resources.createColor(INNER_REMOTE);
+		outerOther = resources.createColor(OUTER_OTHER);
+		innerOther = resources.createColor(INNER_OTHER);
+		Activator.getDefault().getPreferenceStore()
+				.addPropertyChangeListener(preferenceListener);
 	}
 
 	void paint(final Event event, Ref actHeadRef) {
@@ -125,12 +207,16 @@ void paint(final Event event, Ref actHeadRef) {
 		final TableItem ti = (TableItem) event.item;
 		SWTCommit commit = (SWTCommit) ti.getData();
 		try {
-			commit.parseBody();
+			commit.acquireBody();
 		} catch (IOException e) {
 			Activator.error("Error parsing body", e); //$NON-NLS-1$
 			return;
 		}
-		paintCommit(commit , event.height);
+		try {
+			paintCommit(commit, event.height);
+		} finally {
+			commit.releaseBody();
+		}
 	}
 
 	@Override
@@ -168,7 +254,7 @@ protected void drawBoundaryDot(final int x, final int y, final int w,
 
 	@Override
 	protected void drawText(final String msg, final int x, final int y) {
-		final Point textsz = g.textExtent(msg);
+		final Point textsz = textExtent(g, msg);
 		final int texty = (y - textsz.y) / 2;
 		g.setForeground(cellFG);
 		g.setBackground(cellBG);
@@ -179,72 +265,21 @@ protected void drawText(final String msg, final int x, final int y) {
 
 	@Override
 	protected int drawLabel(int x, int y, Ref ref) {
-		String txt;
 		String name = ref.getName();
-		boolean tag = false;
-		boolean branch = false;
-		RGB labelOuter;
-		RGB labelInner;
-		if (name.startsWith(Constants.R_HEADS)) {
-			branch = true;
-			labelOuter = OUTER_HEAD;
-			labelInner = INNER_HEAD;
-			txt = name.substring(Constants.R_HEADS.length());
-		} else if (name.startsWith(Constants.R_REMOTES)) {
-			branch = true;
-			labelOuter = OUTER_REMOTE;
-			labelInner = INNER_REMOTE;
-			txt = name.substring(Constants.R_REMOTES.length());
-		} else if (name.startsWith(Constants.R_TAGS)) {
+		RefLabel label = getRefLabel(ref);
+		String txt = label.text;
+		if (label.tag) {
 			tagCount++;
 
-			tag = true;
-			if (ref.getPeeledObjectId() != null) {
-				labelOuter = OUTER_ANNOTATED;
-				labelInner = INNER_ANNOTATED;
-			} else {
-				labelOuter = OUTER_TAG;
-				labelInner = INNER_TAG;
-			}
-
 			int maxNumberOfTags = 1;
-			if (tagCount == maxNumberOfTags) {
-				txt = name.substring(Constants.R_TAGS.length());
-			} else if (tagCount == maxNumberOfTags + 1) {
+			if (tagCount == maxNumberOfTags + 1) {
 				txt = ELLIPSIS;
 				ellipsisTags.add(name);
-			} else {
+			} else if (tagCount > maxNumberOfTags + 1) {
 				// Don't draw additional tags, they are shown when hovering the
 				// ellipsis
 				return 0;
 			}
-		} else {
-			labelOuter = OUTER_OTHER;
-			labelInner = INNER_OTHER;
-
-			if (name.startsWith(Constants.R_REFS))
-				txt = name.substring(Constants.R_REFS.length());
-			else
-				txt = name; // HEAD and such
-		}
-
-		int maxLength;
-		if (tag)
-			maxLength = Activator.getDefault().getPreferenceStore()
-					.getInt(UIPreferences.HISTORY_MAX_TAG_LENGTH);
-		else if (branch)
-			maxLength = Activator.getDefault().getPreferenceStore()
-					.getInt(UIPreferences.HISTORY_MAX_BRANCH_LENGTH);
-		else
-			maxLength = MAX_LABEL_LENGTH;
-		if (txt.length() > maxLength) {
-			// Account for the ellipsis length
-			int textLength = maxLength - 3;
-			if (Activator.getDefault().getPreferenceStore()
-					.getBoolean(UIPreferences.HISTORY_CUT_AT_START))
-				txt = ELLIPSIS + txt.substring(txt.length() - textLength);
-			else
-				txt = txt.substring(0, textLength) + ELLIPSIS;
 		}
 
 		// highlight checked out branch
@@ -253,7 +288,7 @@ else if (branch)
 		if (isHead)
 			g.setFont(CommitGraphTable.highlightFont());
 
-		Point textsz = g.stringExtent(txt);
+		Point textsz = textExtent(g, txt);
 		int arc = textsz.y / 2;
 		final int texty = (y * 2 - textsz.y) / 2;
 		final int outerWidth = textsz.x + 7;
@@ -265,11 +300,11 @@ else if (branch)
 		g.fillRoundRectangle(cellX + x + 1, cellY + texty, textsz.x + 6,
 				textsz.y + 1, arc, arc);
 
-		g.setBackground(resources.createColor(labelInner));
+		g.setBackground(label.inner);
 		g.fillRoundRectangle(cellX + x + 2, cellY + texty + 1, textsz.x + 4,
 				textsz.y - 2, arc - 1, arc - 1);
 
-		g.setForeground(resources.createColor(labelOuter));
+		g.setForeground(label.outer);
 		g.drawRoundRectangle(cellX + x, cellY + texty - 1, outerWidth,
 				textsz.y + 1, arc, arc);
 
@@ -285,6 +320,108 @@ else if (branch)
 		return 10 + textsz.x;
 	}
 
+	private RefLabel getRefLabel(Ref ref) {
+		String name = ref.getName();
+		boolean annotated = ref.getPeeledObjectId() != null;
+		RefLabel label = refLabels.get(name);
+		if (label != null && label.annotated == annotated)
+			return label;
+		String txt;
+		boolean tag = false;
+		boolean branch = false;
+		Color labelOuter;
+		Color labelInner;
+		if (name.startsWith(Constants.R_HEADS)) {
+			branch = true;
+			labelOuter = outerHead;
+			labelInner = innerHead;
+			txt = name.substring(Constants.R_HEADS.length());
+		} else if (name.startsWith(Constants.R_REMOTES)) {
+			branch = true;
+			labelOuter = outerRemote;
+			labelInner = innerRemote;
+			txt = name.substring(Constants.R_REMOTES.length());
+		} else if (name.startsWith(Constants.R_TAGS)) {
+			tag = true;
+			if (annotated) {
+				labelOuter = outerAnnotated;
+				labelInner = innerAnnotated;
+			} else {
+				labelOuter = outerTag;
+				labelInner = innerTag;
+			}
+			txt = name.substring(Constants.R_TAGS.length());
+		} else {
+			labelOuter = outerOther;
+			labelInner = innerOther;
+
+			if (name.startsWith(Constants.R_REFS))
+				txt = name.substring(Constants.R_REFS.length());
+			else
+				txt = name; // HEAD and such
+		}
+
+		IPreferenceStore store = Activator.getDefault().getPreferenceStore();
+		int maxLength;
+		if (tag)
+			maxLength = store.getInt(UIPreferences.HISTORY_MAX_TAG_LENGTH);
+		else if (branch)
+			maxLength = store.getInt(UIPreferences.HISTORY_MAX_BRANCH_LENGTH);
+		else
+			maxLength = MAX_LABEL_LENGTH;
+		if (txt.length() > maxLength) {
+			// Account for the ellipsis length
+			int textLength = maxLength - 3;
+			if (store.getBoolean(UIPreferences.HISTORY_CUT_AT_START))
+				txt = ELLIPSIS + txt.substring(txt.length() - textLength);
+			else
+				txt = txt.substring(0, textLength) + ELLIPSIS;
+		}
+		label = new RefLabel(txt, tag, annotated, labelOuter, labelInner);
+		refLabels.put(name, label);
+		return label;
+	}
+
+	/**
+	 * Measures text with the font currently set on a GC. Extents are cached
+	 * per font, since the same labels, names and dates are measured over and
+	 * over again while the table is scrolled.
+	 *
+	 * @param gc
+	 * @param text
+	 *            single line of text
+	 * @return the extent of the text; must not be modified
+	 */
+	Point textExtent(GC gc, String text) {
+		Font font = gc.getFont();
+		Map<String, Point> cache = extents.get(font);
+		if (cache == null) {
+			extents.keySet().removeIf(Font::isDisposed);
+			cache = new LinkedHashMap<String, Point>(16, 0.75f, true) {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(
+						Map.Entry<String, Point> eldest) {
+					return size() > MAX_EXTENTS;
+				}
+			};
+			extents.put(font, cache);
+		}
+		Point extent = cache.get(text);
+		if (extent == null) {
+			extent = gc.textExtent(text);
+			cache.put(text, extent);
+		}
+		return extent;
+	}
+
+	void dispose() {
+		Activator.getDefault().getPreferenceStore()
+				.removePropertyChangeListener(preferenceListener);
+	}
+
 	private boolean isHead(String name) {
 		boolean isHead = false;
 		if (headRef != null) {
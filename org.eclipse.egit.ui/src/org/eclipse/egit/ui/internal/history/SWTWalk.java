@@ -11,6 +11,10 @@
  *******************************************************************************/
 package org.eclipse.egit.ui.internal.history;
 
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revplot.PlotWalk;
@@ -18,8 +22,38 @@
 
 class SWTWalk extends PlotWalk {
 
+	/**
+	 * Maximum number of commit bodies kept in memory. The history walk does
+	 * not retain bodies; they are parsed when a commit is shown or searched,
+	 * and only the most recently used ones are kept.
+	 */
+	private static final int MAX_BODIES = 5000;
+
 	private final Repository repo;
 
+	/**
+	 * Commits whose bodies may be discarded, least recently used first. Also
+	 * guards parsing and discarding bodies and the body state of the
+	 * commits: commits being read or pinned are not in the map.
+	 */
+	private final Map<SWTCommit, Boolean> bodies = new LinkedHashMap<SWTCommit, Boolean>(
+			16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<SWTCommit, Boolean> eldest) {
+			if (size() <= MAX_BODIES) {
+				return false;
+			}
+			SWTCommit commit = eldest.getKey();
+			if (commit.bodyUsers == 0 && !commit.pinned) {
+				commit.disposeBody();
+			}
+			return true;
+		}
+	};
+
 	SWTWalk(final Repository repo) {
 		super(repo);
 		this.repo = repo;
@@ -33,4 +67,60 @@ Repository getRepository() {
 	protected RevCommit createCommit(final AnyObjectId id) {
 		return new SWTCommit(id, this);
 	}
+
+	/**
+	 * Parses the body of a commit if needed and keeps it until
+	 * {@link #releaseBody(SWTCommit)} is called for it.
+	 *
+	 * @param commit
+	 *            whose body is needed
+	 * @throws IOException
+	 */
+	void acquireBody(SWTCommit commit) throws IOException {
+		synchronized (bodies) {
+			if (commit.getRawBuffer() == null) {
+				parseBody(commit);
+			}
+			commit.bodyUsers++;
+			bodies.remove(commit);
+		}
+	}
+
+	/**
+	 * Ends an access to the body of a commit. Its body may be discarded
+	 * later, once it is among the least recently used ones, unless it is
+	 * pinned.
+	 *
+	 * @param commit
+	 *            whose body is no longer needed
+	 */
+	void releaseBody(SWTCommit commit) {
+		synchronized (bodies) {
+			if (commit.bodyUsers > 0) {
+				commit.bodyUsers--;
+			}
+			if (commit.bodyUsers == 0 && !commit.pinned
+					&& commit.getRawBuffer() != null) {
+				bodies.put(commit, Boolean.TRUE);
+			}
+		}
+	}
+
+	/**
+	 * @param commit
+	 *            to pin or unpin
+	 * @param pin
+	 *            whether the body of the commit must be kept
+	 */
+	void setPinned(SWTCommit commit, boolean pin) {
+		synchronized (bodies) {
+			commit.pinned = pin;
+			if (pin) {
+				bodies.remove(commit);
+			} else if (commit.bodyUsers == 0
+					&& commit.getRawBuffer() != null) {
+				bodies.put(commit, Boolean.TRUE);
+			}
+		}
+	}
 }
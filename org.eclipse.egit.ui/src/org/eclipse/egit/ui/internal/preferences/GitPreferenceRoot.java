@@ -187,6 +187,35 @@ public void widgetSelected(SelectionEvent e) {
 		timeoutEditor.getLabelControl(remoteConnectionsGroup).setToolTipText(
 				UIText.RemoteConnectionPreferencePage_ZeroValueTooltip);
 		addField(timeoutEditor);
+		addField(new BooleanFieldEditor(GitCorePreferences.core_backgroundFetch,
+				UIText.GitPreferenceRoot_BackgroundFetch,
+				remoteConnectionsGroup) {
+
+			@Override
+			public IPreferenceStore getPreferenceStore() {
+				return getSecondaryPreferenceStore();
+			}
+
+			@Override
+			public int getNumberOfControls() {
+				return 2;
+			}
+		});
+		IntegerFieldEditor fetchIntervalEditor = new IntegerFieldEditor(
+				GitCorePreferences.core_backgroundFetchInterval,
+				UIText.GitPreferenceRoot_BackgroundFetchInterval,
+				remoteConnectionsGroup) {
+
+			@Override
+			public IPreferenceStore getPreferenceStore() {
+				return getSecondaryPreferenceStore();
+			}
+		};
+		fetchIntervalEditor.setValidRange(1, 24 * 60);
+		fetchIntervalEditor.getLabelControl(remoteConnectionsGroup)
+				.setToolTipText(
+						UIText.GitPreferenceRoot_BackgroundFetchIntervalTooltip);
+		addField(fetchIntervalEditor);
 		updateMargins(remoteConnectionsGroup);
 
 		Group repoChangeScannerGroup = new Group(main, SWT.SHADOW_ETCHED_IN);
@@ -44,6 +44,7 @@
 import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.PlatformUI;
 
 class ConfirmationPage extends WizardPage {
@@ -62,6 +63,9 @@ static Collection<RemoteRefUpdate> copyUpdates(
 
 	private List<RefSpec> displayedRefSpecs;
 
+	/** The dry run whose results are being added to the result panel */
+	private PushOperation runningOperation;
+
 	private PushOperationResult confirmedResult;
 
 	private PushResultTable resultPanel;
@@ -157,6 +161,7 @@ private void checkPreviousPagesSelections(RepositorySelection repositorySelectio
 
 	private void revalidate(RepositorySelection repositorySelection, List<RefSpec> refSpecs) {
 		// always update this page
+		runningOperation = null;
 		resultPanel.setData(local, null);
 		confirmedResult = null;
 		displayedRepoSelection = repositorySelection;
@@ -202,6 +207,16 @@ private void revalidateImpl() {
 			if (credentials != null)
 				operation.setCredentialsProvider(new EGitCredentialsProvider(
 						credentials.getUser(), credentials.getPassword()));
+			// Show the result of each URI as soon as it is known
+			final Display display = getControl().getDisplay();
+			operation.setResultListener((uri, uriResult) -> display
+					.asyncExec(() -> {
+						if (runningOperation == operation
+								&& !resultPanel.getControl().isDisposed()) {
+							resultPanel.addData(local, uriResult);
+						}
+					}));
+			runningOperation = operation;
 			getContainer().run(true, true, new IRunnableWithProgress() {
 				@Override
 				public void run(IProgressMonitor monitor)
@@ -227,6 +242,7 @@ public void run(IProgressMonitor monitor)
 		}
 
 		final PushOperationResult result = operation.getOperationResult();
+		runningOperation = null;
 		resultPanel.setData(local, result);
 		if (result.isSuccessfulConnectionForAnyURI()) {
 			setPageComplete(true);
@@ -88,6 +88,9 @@ protected void createMarginPainter() {
 
 	private Repository repo;
 
+	/** Input of the viewer; grows while results are added */
+	private final List<RefUpdateElement> elements = new ArrayList<>();
+
 	PushResultTable(final Composite parent) {
 		this(parent, null);
 	}
@@ -327,17 +330,55 @@ private static void initializeSashWeights(SashForm sashForm,
 	}
 
 	void setData(final Repository localDb, final PushOperationResult result) {
-		reader = localDb.newObjectReader();
-		repo = localDb;
+		setRepository(localDb);
 
 		// Set empty result for a while.
 		treeViewer.setInput(null);
+		elements.clear();
 
 		if (result == null) {
 			root.layout();
 			return;
 		}
 
+		elements.addAll(createElements(result));
+		treeViewer.setInput(elements);
+		selectFirst();
+		root.layout();
+	}
+
+	/**
+	 * Adds results to the ones shown, e.g. of pushing to one URI while the
+	 * push to others is still running. Must be called in the UI thread.
+	 *
+	 * @param localDb
+	 * @param result
+	 *            to add
+	 */
+	void addData(final Repository localDb, final PushOperationResult result) {
+		setRepository(localDb);
+		List<RefUpdateElement> added = createElements(result);
+		if (treeViewer.getInput() != elements) {
+			treeViewer.setInput(elements);
+		}
+		elements.addAll(added);
+		treeViewer.add(elements, added.toArray());
+		if (treeViewer.getSelection().isEmpty()) {
+			selectFirst();
+		}
+	}
+
+	private void setRepository(Repository localDb) {
+		if (repo != localDb) {
+			if (reader != null) {
+				reader.close();
+			}
+			reader = localDb.newObjectReader();
+			repo = localDb;
+		}
+	}
+
+	private List<RefUpdateElement> createElements(PushOperationResult result) {
 		final List<RefUpdateElement> results = new ArrayList<>();
 
 		for (URIish uri : result.getURIs())
@@ -346,15 +387,16 @@ void setData(final Repository localDb, final PushOperationResult result) {
 						.getRemoteUpdates())
 					results.add(new RefUpdateElement(result, update, uri,
 							reader, repo));
+		return results;
+	}
 
-		treeViewer.setInput(results.toArray());
+	private void selectFirst() {
 		// select the first row of table to get the details of the first
 		// push result shown in the Text control
 		Tree table = treeViewer.getTree();
 		if (table.getItemCount() > 0)
 			treeViewer.setSelection(new StructuredSelection(table.getItem(0)
 					.getData()));
-		root.layout();
 	}
 
 	Control getControl() {
@@ -8,6 +8,8 @@
  *******************************************************************************/
 package org.eclipse.egit.ui.internal.push;
 
+import java.util.Collection;
+
 import org.eclipse.egit.core.op.PushOperationResult;
 import org.eclipse.egit.ui.internal.commit.RepositoryCommit;
 import org.eclipse.ui.model.WorkbenchContentProvider;
@@ -26,6 +28,9 @@ class RefUpdateContentProvider extends WorkbenchContentProvider {
 
 	@Override
 	public Object[] getElements(final Object element) {
+		if (element instanceof Collection) {
+			return ((Collection<?>) element).toArray();
+		}
 		return element instanceof Object[] ? (Object[]) element : new Object[0];
 	}
 
@@ -215,12 +215,14 @@ public void preferenceChange(PreferenceChangeEvent event) {
 			}
 		};
 
-		myRefsChangedListener = new RefsChangedListener() {
-			@Override
-			public void onRefsChanged(RefsChangedEvent e) {
-				scheduleRefresh(DEFAULT_REFRESH_DELAY, null);
-			}
-		};
+		// Refresh once per background fetch, not once per fetched ref
+		myRefsChangedListener = org.eclipse.egit.core.Activator.getDefault()
+				.getBackgroundFetcher().batch(new RefsChangedListener() {
+					@Override
+					public void onRefsChanged(RefsChangedEvent e) {
+						scheduleRefresh(DEFAULT_REFRESH_DELAY, null);
+					}
+				});
 
 		myIndexChangedListener = new IndexChangedListener() {
 			@Override
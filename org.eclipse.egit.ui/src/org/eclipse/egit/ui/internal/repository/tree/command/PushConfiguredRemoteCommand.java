@@ -35,23 +35,34 @@ public class PushConfiguredRemoteCommand extends
 		RepositoriesViewCommandHandler<RepositoryTreeNode<?>> {
 	@Override
 	public Object execute(ExecutionEvent event) throws ExecutionException {
-		RepositoryTreeNode node = getSelectedNodes(event).get(0);
-		RemoteConfig config = getRemoteConfig(node);
-		if (config == null) {
+		// Each push runs in its own job, so several repositories or remotes
+		// are pushed to concurrently; the push operations share the limits
+		// on concurrent connections overall and per host
+		boolean pushed = false;
+		for (RepositoryTreeNode<?> node : getSelectedNodes(event)) {
+			RemoteConfig config = getRemoteConfig(node);
+			if (config != null) {
+				new PushOperationUI(node.getRepository(), config.getName(),
+						false).start();
+				pushed = true;
+			}
+		}
+		if (!pushed) {
 			MessageDialog.openInformation(getShell(event),
 					UIText.SimplePushActionHandler_NothingToPushDialogTitle,
 					UIText.SimplePushActionHandler_NothingToPushDialogMessage);
-			return null;
 		}
-		new PushOperationUI(node.getRepository(), config.getName(), false)
-				.start();
 		return null;
 	}
 
 	@Override
 	public boolean isEnabled() {
-		RepositoryTreeNode<?> node = getSelectedNodes().get(0);
-		return getRemoteConfig(node) != null;
+		for (RepositoryTreeNode<?> node : getSelectedNodes()) {
+			if (getRemoteConfig(node) != null) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	private RemoteConfig getRemoteConfig(RepositoryTreeNode node) {
@@ -16,6 +16,7 @@
 package org.eclipse.egit.ui.internal.staging;
 
 import java.util.EnumSet;
+import java.util.Objects;
 import java.util.Set;
 
 import org.eclipse.core.resources.IFile;
@@ -207,6 +208,16 @@ public IFile getFile() {
 		return file;
 	}
 
+	/**
+	 * @return whether {@link #getFile()} would now return another file, e.g.
+	 *         because a project was opened, closed or moved since the file
+	 *         was resolved
+	 */
+	boolean isFileOutdated() {
+		return fileLoaded && !Objects.equals(file,
+				ResourceUtil.getFileForLocation(repository, path, false));
+	}
+
 	/**
 	 * @return the location (path) of the entry
 	 */
@@ -104,6 +104,7 @@
 import org.eclipse.egit.ui.internal.repository.tree.RepositoryTreeNode;
 import org.eclipse.egit.ui.internal.selection.MultiViewerSelectionProvider;
 import org.eclipse.egit.ui.internal.selection.RepositorySelectionProvider;
+import org.eclipse.egit.ui.internal.staging.StagingViewContentProvider.StagingDelta;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.ControlContribution;
 import org.eclipse.jface.action.IAction;
@@ -257,6 +258,12 @@ public class StagingView extends ViewPart
 
 	private static final String STAGING_SASH_FORM_WEIGHT = "STAGING_SASH_FORM_WEIGHT"; //$NON-NLS-1$
 
+	/**
+	 * Number of changed entries above which refreshing the "List"
+	 * presentation is cheaper than adding and removing individual items.
+	 */
+	private static final int MAX_INCREMENTAL_VIEWER_UPDATES = 1000;
+
 	private ISelection initialSelection;
 
 	private FormToolkit toolkit;
@@ -2048,9 +2055,8 @@ private StagingViewContentProvider createStagingContentProvider(
 				this, unstaged) {
 
 			@Override
-			public void inputChanged(Viewer viewer, Object oldInput,
-					Object newInput) {
-				super.inputChanged(viewer, oldInput, newInput);
+			void apply(StagingDelta delta) {
+				super.apply(delta);
 				if (unstaged) {
 					stageAllAction.setEnabled(getCount() > 0);
 					unstagedToolBarManager.update(true);
@@ -2076,6 +2082,8 @@ private TreeViewer createViewer(Composite parent, boolean unstaged,
 		viewer.setLabelProvider(createLabelProvider(viewer));
 		StagingViewContentProvider contentProvider = createStagingContentProvider(
 				unstaged);
+		// Elements are looked up on incremental updates
+		viewer.setUseHashlookup(true);
 		viewer.setContentProvider(contentProvider);
 		if (tooltipActions != null && tooltipActions.length > 0) {
 			StagingViewTooltips tooltips = new StagingViewTooltips(viewer,
@@ -2172,24 +2180,44 @@ public boolean visit(TreeItem treeItem) {
 				// viewer before the input is changed.
 				StagingViewContentProvider contentProvider = getContentProvider(
 						stagingViewer);
-				ViewerComparator comparator = stagingViewer.getComparator();
-				Map<String, Object> oldPaths = buildElementMap(stagingViewer,
-						contentProvider, comparator);
+				StagingDelta delta = newInput.indexDiff != null
+						? contentProvider.computeDelta(newInput) : null;
+				StagingViewerUpdate stagingViewerUpdate = null;
+				if (delta != null && delta.isEmpty()) {
+					// Nothing changed in this section; its items, selection
+					// and expansion can stay as they are.
+					oldInput.indexDiff = newInput.indexDiff;
+					oldInput.changedResources = newInput.changedResources;
+					if (previous != null) {
+						expandPreviousExpandedAndPaths(previous, stagingViewer,
+								additionalPaths);
+					}
+				} else {
+					ViewerComparator comparator = stagingViewer
+							.getComparator();
+					Map<String, Object> oldPaths = buildElementMap(
+							stagingViewer, contentProvider, comparator);
+
+					// Update the input.
+					if (delta != null) {
+						updateInput(stagingViewer, contentProvider, oldInput,
+								newInput, delta);
+					} else {
+						stagingViewer.setInput(newInput);
+					}
+					// Restore the previous expansion state, if there is one.
+					if (previous != null) {
+						expandPreviousExpandedAndPaths(previous, stagingViewer,
+								additionalPaths);
+					}
 
-				// Update the input.
-				stagingViewer.setInput(newInput);
-				// Restore the previous expansion state, if there is one.
-				if (previous != null) {
-					expandPreviousExpandedAndPaths(previous, stagingViewer,
-							additionalPaths);
+					// Update the selection.
+					stagingViewerUpdate = updateSelection(stagingViewer,
+							contentProvider, oldPaths, buildElementMap(
+									stagingViewer, contentProvider,
+									comparator));
 				}
 
-				// Update the selection.
-				StagingViewerUpdate stagingViewerUpdate = updateSelection(
-						stagingViewer, contentProvider, oldPaths,
-						buildElementMap(stagingViewer, contentProvider,
-								comparator));
-
 				// If something has been removed, the element before the removed
 				// item has been selected, in which case we want to preserve the
 				// scroll state as much as possible, keeping the selection in
@@ -2246,6 +2274,65 @@ public boolean visit(TreeItem treeItem) {
 		}
 	}
 
+	/**
+	 * Applies an update for the repository already shown to the model of the
+	 * viewer, and updates only the items of the changed entries instead of
+	 * re-creating all items of the viewer. The "Compact Tree" presentation is
+	 * refreshed instead, since whether a folder is compacted depends on all
+	 * its children.
+	 *
+	 * @param stagingViewer
+	 *            to update
+	 * @param contentProvider
+	 *            of the viewer
+	 * @param oldInput
+	 *            current input of the viewer
+	 * @param newInput
+	 *            new state
+	 * @param delta
+	 *            computed for the new state by the content provider
+	 */
+	private void updateInput(TreeViewer stagingViewer,
+			StagingViewContentProvider contentProvider,
+			StagingViewUpdate oldInput, StagingViewUpdate newInput,
+			StagingDelta delta) {
+		contentProvider.apply(delta);
+		// Keep the input object, which may be shared with the other viewer,
+		// but let it refer to the new state.
+		oldInput.indexDiff = newInput.indexDiff;
+		oldInput.changedResources = newInput.changedResources;
+		if (delta.size() > MAX_INCREMENTAL_VIEWER_UPDATES) {
+			// Items of unchanged elements are kept, as is their expansion
+			stagingViewer.refresh();
+		} else if (getPresentation() == Presentation.LIST) {
+			stagingViewer.remove(delta.removed.toArray());
+			stagingViewer.add(oldInput, delta.added.toArray());
+		} else if (delta.treeUpdated) {
+			// Folders that became empty are removed with their children
+			stagingViewer.remove(delta.removedFolders.toArray());
+			stagingViewer.remove(delta.removed.toArray());
+			for (StagingFolderEntry folder : delta.addedFolders) {
+				if (!delta.addedFolders.contains(folder.getParent())) {
+					stagingViewer.add(parentOrInput(folder.getParent(),
+							oldInput), folder);
+				}
+			}
+			for (StagingEntry entry : delta.added) {
+				if (!delta.addedFolders.contains(entry.getParent())) {
+					stagingViewer.add(
+							parentOrInput(entry.getParent(), oldInput), entry);
+				}
+			}
+		} else {
+			stagingViewer.refresh();
+		}
+	}
+
+	private static Object parentOrInput(StagingFolderEntry parent,
+			StagingViewUpdate input) {
+		return parent != null ? parent : input;
+	}
+
 	private static Map<String, Object> buildElementMap(TreeViewer stagingViewer,
 			StagingViewContentProvider contentProvider,
 			ViewerComparator comparator) {
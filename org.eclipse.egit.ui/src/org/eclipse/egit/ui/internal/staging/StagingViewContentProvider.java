@@ -21,20 +21,20 @@
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.egit.core.internal.indexdiff.IndexDiffData;
+import org.eclipse.egit.ui.internal.staging.StagingEntry.State;
 import org.eclipse.egit.ui.internal.staging.StagingView.Presentation;
 import org.eclipse.egit.ui.internal.staging.StagingView.StagingViewUpdate;
 import org.eclipse.jface.viewers.Viewer;
@@ -48,6 +48,12 @@ public class StagingViewContentProvider extends WorkbenchContentProvider {
 	/** All files for the section (staged or unstaged). */
 	private StagingEntry[] content = new StagingEntry[0];
 
+	/** The entries of {@link #content} by path. */
+	private Map<String, StagingEntry> entries = new HashMap<>();
+
+	/** Folder nodes of {@link #treeRoots} by path. */
+	private final Map<IPath, StagingFolderEntry> treeFolders = new HashMap<>();
+
 	/** Root nodes for the "Tree" presentation. */
 	private Object[] treeRoots;
 
@@ -122,8 +128,10 @@ private Object[] getCompactTreeRoots() {
 	}
 
 	private Object[] getTreeRoots() {
-		if (treeRoots == null)
+		if (treeRoots == null) {
+			treeFolders.clear();
 			treeRoots = calculateTreePresentationRoots(false);
+		}
 		return treeRoots;
 	}
 
@@ -174,20 +182,23 @@ private Object[] calculateTreePresentationRoots(boolean compact) {
 			// Find first existing parent node, but stop at root
 			while (parent.segmentCount() != 0 && !folderPaths.contains(parent))
 				parent = parent.removeLastSegments(1);
+			StagingFolderEntry folderEntry;
 			if (parent.segmentCount() == 0) {
 				// Parent is root
-				StagingFolderEntry folderEntry = new StagingFolderEntry(
-						workingDirectory, folderPath, folderPath);
-				folderEntries.add(folderEntry);
+				folderEntry = new StagingFolderEntry(workingDirectory,
+						folderPath, folderPath);
 				roots.add(folderEntry);
 			} else {
 				// Parent is existing node
 				IPath nodePath = folderPath.makeRelativeTo(parent);
-				StagingFolderEntry folderEntry = new StagingFolderEntry(
-						workingDirectory, folderPath, nodePath);
-				folderEntries.add(folderEntry);
+				folderEntry = new StagingFolderEntry(workingDirectory,
+						folderPath, nodePath);
 				addChild(childrenForPath, parent, folderEntry);
 			}
+			folderEntries.add(folderEntry);
+			if (!compact) {
+				treeFolders.put(folderPath, folderEntry);
+			}
 		}
 
 		for (StagingFolderEntry folderEntry : folderEntries) {
@@ -269,78 +280,245 @@ StagingEntry[] getStagingEntries() {
 	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
 		if (!(newInput instanceof StagingViewUpdate))
 			return;
+		update((StagingViewUpdate) newInput);
+	}
 
-		StagingViewUpdate update = (StagingViewUpdate) newInput;
-
+	/**
+	 * Brings the model up to date with the given update. Entries of paths
+	 * whose state did not change are kept, so that only the entries of changed
+	 * paths need to be updated in the viewer.
+	 *
+	 * @param update
+	 *            the new state
+	 * @return the difference to the previous state
+	 */
+	StagingDelta update(StagingViewUpdate update) {
 		if (update.repository == null || update.indexDiff == null) {
-			content = new StagingEntry[0];
-			treeRoots = new Object[0];
-			compactTreeRoots = new Object[0];
-			return;
+			StagingDelta delta = new StagingDelta(
+					Collections.<StagingEntry> emptyList(),
+					new ArrayList<>(entries.values()),
+					new HashMap<String, StagingEntry>());
+			treeFolders.clear();
+			treeRoots = null;
+			apply(delta);
+			return delta;
 		}
 
+		List<StagingEntry> removed = new ArrayList<>();
 		if (update.repository != repository) {
+			treeFolders.clear();
 			treeRoots = null;
 			compactTreeRoots = null;
+			removed.addAll(entries.values());
+			entries = new HashMap<>();
+			repository = update.repository;
+		}
+		StagingDelta delta = computeDelta(update);
+		removed.addAll(delta.removed);
+		delta = new StagingDelta(delta.added, removed, delta.entries);
+		apply(delta);
+		return delta;
+	}
+
+	/**
+	 * Determines the difference between the model and a new state of the
+	 * repository shown, without changing the model yet.
+	 *
+	 * @param update
+	 *            the new state, for the repository already shown
+	 * @return the difference, to be passed to {@link #apply(StagingDelta)}
+	 */
+	StagingDelta computeDelta(StagingViewUpdate update) {
+		Map<String, StagingEntry> newEntries = calculateEntries(
+				update.indexDiff);
+		List<StagingEntry> added = new ArrayList<>();
+		for (StagingEntry entry : newEntries.values()) {
+			if (entries.get(entry.getPath()) != entry) {
+				added.add(entry);
+			}
+		}
+		List<StagingEntry> removed = new ArrayList<>();
+		for (StagingEntry entry : entries.values()) {
+			if (newEntries.get(entry.getPath()) != entry) {
+				removed.add(entry);
+			}
 		}
+		return new StagingDelta(added, removed, newEntries);
+	}
 
-		repository = update.repository;
+	/**
+	 * Applies a delta computed by {@link #computeDelta(StagingViewUpdate)}.
+	 * For the "Tree" presentation the delta is completed with the folder
+	 * nodes that were created or removed.
+	 *
+	 * @param delta
+	 *            to apply
+	 */
+	void apply(StagingDelta delta) {
+		if (delta.isEmpty()) {
+			return;
+		}
+		entries = delta.entries;
+		content = entries.values().toArray(new StagingEntry[entries.size()]);
+		Arrays.sort(content, comparator);
 
-		Set<StagingEntry> nodes = new TreeSet<>(
-				new Comparator<StagingEntry>() {
-					@Override
-					public int compare(StagingEntry o1, StagingEntry o2) {
-						return o1.getPath().compareTo(o2.getPath());
-					}
-				});
-
-		if (update.changedResources != null
-				&& !update.changedResources.isEmpty()) {
-			nodes.addAll(Arrays.asList(content));
-			for (String res : update.changedResources)
-				for (StagingEntry entry : content)
-					if (entry.getPath().equals(res))
-						nodes.remove(entry);
+		compactTreeRoots = null;
+		if (treeRoots != null
+				&& stagingView.getPresentation() == Presentation.TREE) {
+			updateTreeRoots(delta);
+			delta.treeUpdated = true;
+		} else {
+			treeFolders.clear();
+			treeRoots = null;
 		}
+	}
 
-		final IndexDiffData indexDiff = update.indexDiff;
+	private Map<String, StagingEntry> calculateEntries(
+			IndexDiffData indexDiff) {
+		Map<String, StagingEntry> result = new HashMap<>();
 		if (unstagedSection) {
 			for (String file : indexDiff.getMissing())
 				if (indexDiff.getChanged().contains(file))
-					nodes.add(new StagingEntry(repository, MISSING_AND_CHANGED,
-							file));
+					putEntry(result, indexDiff, file, MISSING_AND_CHANGED);
 				else
-					nodes.add(new StagingEntry(repository, MISSING, file));
+					putEntry(result, indexDiff, file, MISSING);
 			for (String file : indexDiff.getModified())
 				if (indexDiff.getChanged().contains(file))
-					nodes.add(new StagingEntry(repository, MODIFIED_AND_CHANGED,
-							file));
+					putEntry(result, indexDiff, file, MODIFIED_AND_CHANGED);
 				else if (indexDiff.getAdded().contains(file))
-					nodes.add(new StagingEntry(repository, MODIFIED_AND_ADDED,
-							file));
+					putEntry(result, indexDiff, file, MODIFIED_AND_ADDED);
 				else
-					nodes.add(new StagingEntry(repository, MODIFIED, file));
+					putEntry(result, indexDiff, file, MODIFIED);
 			for (String file : indexDiff.getUntracked())
-				nodes.add(new StagingEntry(repository, UNTRACKED, file));
+				putEntry(result, indexDiff, file, UNTRACKED);
 			for (String file : indexDiff.getConflicting())
-				nodes.add(new StagingEntry(repository, CONFLICTING, file));
+				putEntry(result, indexDiff, file, CONFLICTING);
 		} else {
 			for (String file : indexDiff.getAdded())
-				nodes.add(new StagingEntry(repository, ADDED, file));
+				putEntry(result, indexDiff, file, ADDED);
 			for (String file : indexDiff.getChanged())
-				nodes.add(new StagingEntry(repository, CHANGED, file));
+				putEntry(result, indexDiff, file, CHANGED);
 			for (String file : indexDiff.getRemoved())
-				nodes.add(new StagingEntry(repository, REMOVED, file));
+				putEntry(result, indexDiff, file, REMOVED);
 		}
+		return result;
+	}
 
-		setSymlinkFileMode(indexDiff, nodes);
-		setSubmoduleFileMode(indexDiff, nodes);
+	private void putEntry(Map<String, StagingEntry> result,
+			IndexDiffData indexDiff, String path, State state) {
+		if (result.containsKey(path)) {
+			// The first state found for a path wins
+			return;
+		}
+		boolean symlink = indexDiff.getSymlinks().contains(path);
+		boolean submodule = indexDiff.getSubmodules().contains(path);
+		StagingEntry entry = entries.get(path);
+		// An entry whose workspace file changed must be replaced, too, so
+		// that the viewer updates its label and problem decoration
+		if (entry == null || entry.getState() != state
+				|| entry.isSymlink() != symlink
+				|| entry.isSubmodule() != submodule
+				|| entry.isFileOutdated()) {
+			entry = new StagingEntry(repository, state, path);
+			entry.setSymlink(symlink);
+			entry.setSubmodule(submodule);
+		}
+		result.put(path, entry);
+	}
 
-		content = nodes.toArray(new StagingEntry[nodes.size()]);
-		Arrays.sort(content, comparator);
+	/**
+	 * Applies a delta to the nodes of the "Tree" presentation. Only folders
+	 * whose children changed are touched; folders becoming empty are removed
+	 * and missing folders are created.
+	 *
+	 * @param delta
+	 *            to apply
+	 */
+	private void updateTreeRoots(StagingDelta delta) {
+		// Modified children by folder; the null key stands for the roots
+		Map<StagingFolderEntry, Set<Object>> modified = new HashMap<>();
+		for (StagingEntry entry : delta.removed) {
+			removeTreeNode(entry, entry.getParentPath(), modified,
+					delta.removedFolders);
+		}
+		IPath workingDirectory = new Path(
+				repository.getWorkTree().getAbsolutePath());
+		for (StagingEntry entry : delta.added) {
+			StagingFolderEntry folder = getOrCreateTreeFolder(
+					workingDirectory, entry.getParentPath(), modified,
+					delta.addedFolders);
+			entry.setParent(folder);
+			getTreeChildren(folder, modified).add(entry);
+		}
+		for (Map.Entry<StagingFolderEntry, Set<Object>> change : modified
+				.entrySet()) {
+			Object[] children = change.getValue().toArray();
+			Arrays.sort(children, comparator);
+			if (change.getKey() == null) {
+				treeRoots = children;
+			} else {
+				change.getKey().setChildren(children);
+			}
+		}
+	}
 
-		treeRoots = null;
-		compactTreeRoots = null;
+	private Set<Object> getTreeChildren(StagingFolderEntry folder,
+			Map<StagingFolderEntry, Set<Object>> modified) {
+		Set<Object> children = modified.get(folder);
+		if (children == null) {
+			children = new LinkedHashSet<>();
+			Object[] current = folder == null ? treeRoots
+					: folder.getChildren();
+			if (current != null) {
+				children.addAll(Arrays.asList(current));
+			}
+			modified.put(folder, children);
+		}
+		return children;
+	}
+
+	private void removeTreeNode(Object node, IPath parentPath,
+			Map<StagingFolderEntry, Set<Object>> modified,
+			List<StagingFolderEntry> removedFolders) {
+		StagingFolderEntry parent = null;
+		if (parentPath.segmentCount() != 0) {
+			parent = treeFolders.get(parentPath);
+			if (parent == null) {
+				return;
+			}
+		}
+		Set<Object> siblings = getTreeChildren(parent, modified);
+		siblings.remove(node);
+		if (parent != null && siblings.isEmpty()) {
+			treeFolders.remove(parentPath);
+			modified.remove(parent);
+			removedFolders.add(parent);
+			removeTreeNode(parent, parentPath.removeLastSegments(1),
+					modified, removedFolders);
+		}
+	}
+
+	private StagingFolderEntry getOrCreateTreeFolder(IPath workingDirectory,
+			IPath path, Map<StagingFolderEntry, Set<Object>> modified,
+			Set<StagingFolderEntry> addedFolders) {
+		if (path.segmentCount() == 0) {
+			return null;
+		}
+		StagingFolderEntry folder = treeFolders.get(path);
+		if (folder == null) {
+			StagingFolderEntry parent = getOrCreateTreeFolder(
+					workingDirectory, path.removeLastSegments(1), modified,
+					addedFolders);
+			IPath nodePath = parent == null ? path
+					: new Path(path.lastSegment());
+			folder = new StagingFolderEntry(workingDirectory, path, nodePath);
+			folder.setParent(parent);
+			folder.setChildren(new Object[0]);
+			treeFolders.put(path, folder);
+			addedFolders.add(folder);
+			getTreeChildren(parent, modified).add(folder);
+		}
+		return folder;
 	}
 
 	@Override
@@ -411,43 +589,45 @@ public int compare(Object o1, Object o2) {
 	}
 
 	/**
-	 * Set the symlink file mode of the given StagingEntries.
-	 *
-	 * @param indexDiff
-	 *            the index diff
-	 * @param entries
-	 *            the given StagingEntries
+	 * The difference between two consecutive states of the model. An entry
+	 * whose state changed is contained in both lists: the old entry as removed
+	 * and the new entry as added.
 	 */
-	private void setSymlinkFileMode(IndexDiffData indexDiff,
-			Collection<StagingEntry> entries) {
-		final Set<String> symlinks = indexDiff.getSymlinks();
-		if (symlinks.isEmpty()) {
-			return;
-		}
-		for (StagingEntry stagingEntry : entries) {
-			if (symlinks.contains(stagingEntry.getPath()))
-				stagingEntry.setSymlink(true);
+	static class StagingDelta {
+
+		final List<StagingEntry> added;
+
+		final List<StagingEntry> removed;
+
+		/** The entries of the new state by path */
+		final Map<String, StagingEntry> entries;
+
+		/**
+		 * Whether the nodes of the "Tree" presentation were updated in place,
+		 * in which case {@link #addedFolders} and {@link #removedFolders} are
+		 * complete
+		 */
+		boolean treeUpdated;
+
+		/** Folder nodes created in the "Tree" presentation */
+		final Set<StagingFolderEntry> addedFolders = new LinkedHashSet<>();
+
+		/** Folder nodes removed from the "Tree" presentation */
+		final List<StagingFolderEntry> removedFolders = new ArrayList<>();
+
+		StagingDelta(List<StagingEntry> added, List<StagingEntry> removed,
+				Map<String, StagingEntry> entries) {
+			this.added = added;
+			this.removed = removed;
+			this.entries = entries;
 		}
-	}
 
-	/**
-	 * Set the submodule file mode (equivalent to FileMode.GITLINK) of the given
-	 * StagingEntries.
-	 *
-	 * @param indexDiff
-	 *            the index diff
-	 * @param entries
-	 *            the given StagingEntries
-	 */
-	private void setSubmoduleFileMode(IndexDiffData indexDiff,
-			Collection<StagingEntry> entries) {
-		final Set<String> submodules = indexDiff.getSubmodules();
-		if (submodules.isEmpty()) {
-			return;
+		boolean isEmpty() {
+			return added.isEmpty() && removed.isEmpty();
 		}
-		for (StagingEntry stagingEntry : entries) {
-			if (submodules.contains(stagingEntry.getPath()))
-				stagingEntry.setSubmodule(true);
+
+		int size() {
+			return added.size() + removed.size();
 		}
 	}
 }
@@ -8,20 +8,27 @@
  *******************************************************************************/
 package org.eclipse.egit.ui.internal.synchronize;
 
+import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.eclipse.core.resources.WorkspaceJob;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.egit.core.op.FetchOperation;
+import org.eclipse.egit.core.op.FetchScheduler;
 import org.eclipse.egit.core.synchronize.dto.GitSynchronizeData;
 import org.eclipse.egit.core.synchronize.dto.GitSynchronizeDataSet;
 import org.eclipse.egit.ui.Activator;
 import org.eclipse.egit.ui.UIPreferences;
 import org.eclipse.egit.ui.internal.UIText;
 import org.eclipse.egit.ui.internal.credentials.EGitCredentialsProvider;
-import org.eclipse.egit.ui.internal.fetch.FetchOperationUI;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.StoredConfig;
@@ -45,39 +52,62 @@ class SynchronizeFetchJob extends WorkspaceJob {
 
 	@Override
 	public IStatus runInWorkspace(IProgressMonitor monitor) {
-		SubMonitor progress = SubMonitor.convert(monitor, gsdSet.size());
+		SubMonitor progress = SubMonitor.convert(monitor, 1);
 		progress.setTaskName(UIText.SynchronizeFetchJob_TaskName);
 
+		// Fetch each remote once, even if several data sets refer to it
+		FetchScheduler scheduler = new FetchScheduler();
+		Map<String, FetchOperation> operations = new HashMap<>();
+		Map<FetchOperation, List<GitSynchronizeData>> targets = //
+				new LinkedHashMap<>();
 		for (GitSynchronizeData gsd : gsdSet) {
 			Repository repo = gsd.getRepository();
 			StoredConfig repoConfig = repo.getConfig();
 			String remoteName = gsd.getDstRemoteName();
 			if (remoteName == null) {
-				progress.worked(1);
 				continue;
 			}
 
-			progress.subTask(NLS.bind(UIText.SynchronizeFetchJob_SubTaskName,
-					remoteName));
+			String key = repo.getDirectory() + "\n" + remoteName; //$NON-NLS-1$
+			FetchOperation operation = operations.get(key);
+			if (operation == null) {
+				RemoteConfig config;
+				try {
+					config = new RemoteConfig(repoConfig, remoteName);
+				} catch (URISyntaxException e) {
+					Activator.logError(e.getMessage(), e);
+					continue;
+				}
+				operation = new FetchOperation(repo, config, timeout, false);
+				operation.setCredentialsProvider(new EGitCredentialsProvider());
+				operations.put(key, operation);
+				scheduler.add(operation);
+			}
+			targets.computeIfAbsent(operation, op -> new ArrayList<>())
+					.add(gsd);
+		}
 
-			RemoteConfig config;
-			try {
-				config = new RemoteConfig(repoConfig, remoteName);
-			} catch (URISyntaxException e) {
-				Activator.logError(e.getMessage(), e);
-				progress.worked(1);
+		Map<FetchOperation, IStatus> results = scheduler
+				.run(progress.newChild(1));
+		for (Map.Entry<FetchOperation, List<GitSynchronizeData>> entry : targets
+				.entrySet()) {
+			IStatus status = results.get(entry.getKey());
+			if (status == null || status.matches(IStatus.CANCEL)) {
 				continue;
 			}
-
-			FetchOperationUI fetchOperationUI = new FetchOperationUI(repo,
-					config, timeout, false);
-			fetchOperationUI.setCredentialsProvider(new EGitCredentialsProvider());
-			try {
-				fetchOperationUI.execute(progress.newChild(1));
-				gsd.updateRevs();
-			} catch (Exception e) {
-				showInformationDialog(remoteName);
-				Activator.logError(e.getMessage(), e);
+			if (!status.isOK()) {
+				showInformationDialog(
+						entry.getValue().get(0).getDstRemoteName());
+				Activator.logError(status.getMessage(), status.getException());
+				continue;
+			}
+			for (GitSynchronizeData gsd : entry.getValue()) {
+				try {
+					gsd.updateRevs();
+				} catch (IOException e) {
+					showInformationDialog(gsd.getDstRemoteName());
+					Activator.logError(e.getMessage(), e);
+				}
 			}
 		}
 		return Status.OK_STATUS;